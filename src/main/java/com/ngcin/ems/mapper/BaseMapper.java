@@ -1,11 +1,19 @@
 package com.ngcin.ems.mapper;
 
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
 import com.ngcin.ems.mapper.core.MapperConsts;
+import com.ngcin.ems.mapper.core.SnowflakeIdGenerator;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface BaseMapper<T> {
 
@@ -21,6 +29,20 @@ public interface BaseMapper<T> {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insertBatch(@Param("list") List<T> entities);
 
+    @InsertProvider(type = BaseMapperProvider.class, method = "upsert")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int upsert(T entity);
+
+    @InsertProvider(type = BaseMapperProvider.class, method = "upsertBatch")
+    int upsertBatch(@Param("list") List<T> entities);
+
+    @InsertProvider(type = BaseMapperProvider.class, method = "insertIgnore")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertIgnore(T entity);
+
+    @InsertProvider(type = BaseMapperProvider.class, method = "insertIgnoreBatch")
+    int insertIgnoreBatch(@Param("list") List<T> entities);
+
     @UpdateProvider(type = BaseMapperProvider.class, method = "updateById")
     int updateById(T entity);
 
@@ -42,6 +64,45 @@ public interface BaseMapper<T> {
     @SelectProvider(type = BaseMapperProvider.class, method = "selectList")
     List<T> selectList(@Param(MapperConsts.ENTITY_WHERE) T query);
 
+    /**
+     * Opens a cursor over all rows (not soft-deleted), without the row cap of {@link #selectAll()}.
+     * The cursor reads from the open result set and must be closed; it is only valid while the
+     * SqlSession is open, i.e. inside a transaction with Spring.
+     */
+    @SelectProvider(type = BaseMapperProvider.class, method = "cursorAll")
+    Cursor<T> cursorAll();
+
+    /**
+     * Opens a cursor over the rows matching the query entity; see {@link #cursorAll()}.
+     */
+    @SelectProvider(type = BaseMapperProvider.class, method = "cursorList")
+    Cursor<T> cursorList(@Param(MapperConsts.ENTITY_WHERE) T query);
+
+    /**
+     * Streams all rows (not soft-deleted) in constant memory; close the stream, e.g. with
+     * try-with-resources, to release the result set. See {@link #cursorAll()}.
+     */
+    default Stream<T> streamAll() {
+        return stream(cursorAll());
+    }
+
+    /**
+     * Streams the rows matching the query entity in constant memory; see {@link #streamAll()}.
+     */
+    default Stream<T> streamList(T query) {
+        return stream(cursorList(query));
+    }
+
+    private static <E> Stream<E> stream(Cursor<E> cursor) {
+        return StreamSupport.stream(cursor.spliterator(), false).onClose(() -> {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @SelectProvider(type = BaseMapperProvider.class, method = "selectOne")
     T selectOne(@Param(MapperConsts.ENTITY_WHERE) T query);
 
@@ -63,4 +124,37 @@ public interface BaseMapper<T> {
     default IPage<T> page(@Param(MapperConsts.PAGE) IPage<T> page, @Param(MapperConsts.ENTITY_WHERE) T query) {
         return page.records(selectPage(page, query));
     }
+
+    /**
+     * Selects the rows matching the query whose id lies in {@code [fromId, toId)}, in id order.
+     * Requires a {@code Long} id; null bounds and a null limit are unbounded.
+     */
+    @SelectProvider(type = BaseMapperProvider.class, method = "selectByIdRange")
+    List<T> selectByIdRange(@Param("fromId") Long fromId, @Param("toId") Long toId,
+                            @Param(MapperConsts.ENTITY_WHERE) T query, @Param("limit") Integer limit);
+
+    /**
+     * Selects the rows matching the query that were created in {@code [from, to)}, in id order,
+     * using the creation time embedded in SNOWFLAKE ids: a primary-key range scan instead of a
+     * scan of a creation-time index. Bounds are converted with the epoch and layout of
+     * {@link IdGeneratorHolder#getSnowflake()}; null bounds are open.
+     */
+    default List<T> selectByIdTimeRange(Instant from, Instant to, T query) {
+        return selectByIdTimeRange(from, to, query, null, null);
+    }
+
+    /**
+     * Keyset page of {@link #selectByIdTimeRange(Instant, Instant, Object)}: up to {@code limit}
+     * rows with ids after {@code afterId}, the last id of the previous page (null for the first
+     * page). Unlike offset paging, each page costs the same however deep it is.
+     */
+    default List<T> selectByIdTimeRange(Instant from, Instant to, T query, Long afterId, Integer limit) {
+        SnowflakeIdGenerator snowflake = IdGeneratorHolder.getSnowflake();
+        Long fromId = from == null ? null : snowflake.minIdAt(from.toEpochMilli());
+        if (afterId != null && (fromId == null || afterId >= fromId)) {
+            fromId = afterId + 1;
+        }
+        Long toId = to == null ? null : snowflake.minIdAt(to.toEpochMilli());
+        return selectByIdRange(fromId, toId, query, limit);
+    }
 }
@@ -1,5 +1,6 @@
 package com.ngcin.ems.mapper;
 
+import com.ngcin.ems.mapper.core.Dialect;
 import com.ngcin.ems.mapper.core.IdType;
 import com.ngcin.ems.mapper.core.MapperConsts;
 import com.ngcin.ems.mapper.ref.EntityClassResolver;
@@ -124,7 +125,7 @@ public class BaseMapperProvider extends SqlProvider {
 
         String values = IntStream.range(0, entities.size())
                 .mapToObj(i -> "(" + insertFields.stream()
-                        .map(f -> "#{list[" + i + "]." + f.getProperty() + "}")
+                        .map(f -> buildParameter(f, "list[" + i + "]." + f.getProperty()))
                         .collect(Collectors.joining(", ")) + ")")
                 .collect(Collectors.joining(", "));
 
@@ -132,43 +133,147 @@ public class BaseMapperProvider extends SqlProvider {
     }
 
     /**
-     * Generates UPDATE BY ID SQL for all fields (including null fields).
+     * Generates an insert-or-update (upsert) statement for a single entity.
      *
-     * @param entity the entity to update
-     * @return the UPDATE SQL statement
+     * <p>The conflict key is the set of {@code @Unique} columns, or the {@code @Id} column when the
+     * entity declares none; an AUTO id is not inserted and cannot be the conflict key. On conflict
+     * every other column except the {@code @Deleted} flag is overwritten from the entity, so a
+     * soft-deleted row stays deleted, and the {@code @Version} column, if any, is incremented. The
+     * statement shape depends on the dialect:
+     * {@code ON DUPLICATE KEY UPDATE} (MySQL), {@code ON CONFLICT ... DO UPDATE} (PostgreSQL) or
+     * {@code MERGE} (Oracle, H2).
+     *
+     * @param entity  the entity to insert or update
+     * @param context the provider context
+     * @return the upsert SQL statement
+     * @throws MapperException if the entity has neither {@code @Unique} fields nor a non-AUTO id
      */
-    public String updateById(Object entity) {
+    public String upsert(Object entity, ProviderContext context) {
         requireNonNull(entity, "entity");
+        return buildUpsertSql(List.of(entity), null, context, false);
+    }
 
-        Class<?> entityClass = entity.getClass();
-        TableInfo tableInfo = EntityClassResolver.resolve(entityClass);
-        requireIdField(tableInfo);
+    /**
+     * Generates a multi-row upsert statement; see {@link #upsert(Object, ProviderContext)}.
+     * AUTO ids are not read back into the entities.
+     *
+     * @param params  parameter map containing the list of entities under key "list"
+     * @param context the provider context
+     * @return the batch upsert SQL statement
+     * @throws IllegalArgumentException if the list is null or empty
+     */
+    public String upsertBatch(Map<String, Object> params, ProviderContext context) {
+        return buildUpsertSql(requireBatchList(params, "Batch upsert"), "list", context, false);
+    }
 
-        SQL sql = new SQL().UPDATE(tableInfo.tableName());
+    /**
+     * Generates an INSERT that silently skips the row when it conflicts on the
+     * {@code @Unique} columns (or the {@code @Id} column when none are declared).
+     *
+     * @param entity  the entity to insert
+     * @param context the provider context
+     * @return the insert-ignore SQL statement
+     */
+    public String insertIgnore(Object entity, ProviderContext context) {
+        requireNonNull(entity, "entity");
+        return buildUpsertSql(List.of(entity), null, context, true);
+    }
 
-        for (TableFieldInfo fieldInfo : tableInfo.getNonIdFields()) {
-            if (fieldInfo.isVersion() || fieldInfo.isDeleted()) {
-                continue;
-            }
-            sql.SET(buildSetClause(fieldInfo, null));
+    /**
+     * Generates a multi-row insert that skips conflicting rows; see {@link #insertIgnore(Object, ProviderContext)}.
+     * AUTO ids are not read back into the entities.
+     *
+     * @param params  parameter map containing the list of entities under key "list"
+     * @param context the provider context
+     * @return the batch insert-ignore SQL statement
+     * @throws IllegalArgumentException if the list is null or empty
+     */
+    public String insertIgnoreBatch(Map<String, Object> params, ProviderContext context) {
+        return buildUpsertSql(requireBatchList(params, "Batch insert ignore"), "list", context, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> requireBatchList(Map<String, Object> params, String operation) {
+        List<Object> entities = (List<Object>) params.get("list");
+        if (entities == null || entities.isEmpty()) {
+            throw new IllegalArgumentException(operation + " list cannot be null or empty");
         }
+        return entities;
+    }
 
-        if (tableInfo.hasVersion()) {
-            TableFieldInfo versionField = tableInfo.versionField();
-            Object currentVersion = getFieldValue(versionField.field(), entity);
-            if (currentVersion == null) {
-                throw new MapperException("Version field cannot be null for optimistic locking");
+    /**
+     * Builds upsert / insert-ignore SQL shared by the single and batch variants.
+     *
+     * @param entities the entities to write
+     * @param listParam parameter name of the list for batch statements, null for a single entity
+     * @param context the provider context
+     * @param ignore true to skip conflicting rows instead of updating them
+     */
+    private String buildUpsertSql(List<Object> entities, String listParam, ProviderContext context, boolean ignore) {
+        TableInfo tableInfo = EntityClassResolver.resolve(entities.get(0).getClass());
+
+        for (Object entity : entities) {
+            initializeEntityForInsert(entity, tableInfo);
+        }
+
+        List<TableFieldInfo> insertFields = new ArrayList<>();
+        if (tableInfo.idField() != null && tableInfo.idField().idType() != IdType.AUTO) {
+            insertFields.add(tableInfo.idField());
+        }
+        insertFields.addAll(tableInfo.getNonIdFields());
+
+        List<TableFieldInfo> keyFields;
+        if (tableInfo.hasUniqueFields()) {
+            keyFields = tableInfo.uniqueFields();
+        } else {
+            requireIdField(tableInfo);
+            if (tableInfo.idField().idType() == IdType.AUTO) {
+                throw new MapperException("Entity " + tableInfo.entityClass().getSimpleName()
+                        + " has no @Unique field and an AUTO id, which is not inserted: no conflict key for "
+                        + (ignore ? "insert ignore" : "upsert"));
             }
-            applyVersionIncrement(sql, versionField);
+            keyFields = List.of(tableInfo.idField());
         }
 
-        sql.WHERE(buildWhereClause(tableInfo.idField(), null));
+        List<String> columns = insertFields.stream().map(TableFieldInfo::column).toList();
+        List<String> keyColumns = keyFields.stream().map(TableFieldInfo::column).toList();
+        List<String> updateColumns = insertFields.stream()
+                .filter(f -> !f.isId() && !f.isVersion() && !f.isDeleted() && !keyFields.contains(f))
+                .map(TableFieldInfo::column)
+                .toList();
 
-        if (tableInfo.hasVersion()) {
-            sql.WHERE(buildWhereClause(tableInfo.versionField(), null));
+        List<List<String>> rows = new ArrayList<>(entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            String prefix = listParam != null ? listParam + "[" + i + "]" : null;
+            rows.add(insertFields.stream().map(f -> buildValuePlaceholder(f, prefix)).toList());
         }
 
-        return sql.toString();
+        Dialect dialect = resolveDialect(context);
+        if (ignore) {
+            return dialect.buildInsertIgnoreSql(tableInfo.tableName(), columns, rows, keyColumns);
+        }
+        String versionColumn = tableInfo.hasVersion() ? tableInfo.versionField().column() : null;
+        return dialect.buildUpsertSql(tableInfo.tableName(), columns, rows, keyColumns, updateColumns, versionColumn);
+    }
+
+    /**
+     * Generates UPDATE BY ID SQL for all fields (including null fields).
+     *
+     * @param entity the entity to update
+     * @return the UPDATE SQL statement
+     */
+    public String updateById(Object entity) {
+        requireNonNull(entity, "entity");
+
+        Class<?> entityClass = entity.getClass();
+        TableInfo tableInfo = EntityClassResolver.resolve(entityClass);
+        requireIdField(tableInfo);
+        requireVersionValue(tableInfo, entity);
+
+        List<TableFieldInfo> setFields = tableInfo.getNonIdFields().stream()
+                .filter(f -> !f.isVersion() && !f.isDeleted())
+                .toList();
+        return updateByIdColumns(tableInfo, setFields, null);
     }
 
     /**
@@ -181,38 +286,50 @@ public class BaseMapperProvider extends SqlProvider {
         Object entity = params.get("entity");
         Class<?> entityClass = entity.getClass();
         TableInfo tableInfo = EntityClassResolver.resolve(entityClass);
+        requireVersionValue(tableInfo, entity);
 
-        SQL sql = new SQL().UPDATE(tableInfo.tableName());
+        List<TableFieldInfo> setFields = tableInfo.getNonIdFields().stream()
+                .filter(f -> !f.isVersion() && !f.isDeleted())
+                .filter(f -> getFieldValue(f.field(), entity) != null)
+                .toList();
+        return updateByIdColumns(tableInfo, setFields, "entity");
+    }
 
-        for (TableFieldInfo fieldInfo : tableInfo.getNonIdFields()) {
-            if (fieldInfo.isVersion() || fieldInfo.isDeleted()) {
-                continue;
-            }
+    /**
+     * Generates UPDATE BY ID SQL that sets exactly the given fields, plus the version increment
+     * and version condition when the table is versioned.
+     *
+     * @param tableInfo the entity metadata
+     * @param setFields the fields to write, in SET order
+     * @param prefix    the parameter prefix of the entity, or null when it is the parameter itself
+     * @return the UPDATE SQL statement
+     */
+    public String updateByIdColumns(TableInfo tableInfo, List<TableFieldInfo> setFields, String prefix) {
+        SQL sql = new SQL().UPDATE(tableInfo.tableName());
 
-            Object value = getFieldValue(fieldInfo.field(), entity);
-            if (value != null) {
-                sql.SET(buildSetClause(fieldInfo, "entity"));
-            }
+        for (TableFieldInfo fieldInfo : setFields) {
+            sql.SET(buildSetClause(fieldInfo, prefix));
         }
 
         if (tableInfo.hasVersion()) {
-            TableFieldInfo versionField = tableInfo.versionField();
-            Object currentVersion = getFieldValue(versionField.field(), entity);
-            if (currentVersion == null) {
-                throw new MapperException("Version field cannot be null for optimistic locking");
-            }
-            applyVersionIncrement(sql, versionField);
+            applyVersionIncrement(sql, tableInfo.versionField());
         }
 
-        sql.WHERE(buildWhereClause(tableInfo.idField(), "entity"));
+        sql.WHERE(buildWhereClause(tableInfo.idField(), prefix));
 
         if (tableInfo.hasVersion()) {
-            sql.WHERE(buildWhereClause(tableInfo.versionField(), "entity"));
+            sql.WHERE(buildWhereClause(tableInfo.versionField(), prefix));
         }
 
         return sql.toString();
     }
 
+    private void requireVersionValue(TableInfo tableInfo, Object entity) {
+        if (tableInfo.hasVersion() && getFieldValue(tableInfo.versionField().field(), entity) == null) {
+            throw new MapperException("Version field cannot be null for optimistic locking");
+        }
+    }
+
     /**
      * Generates SELECT BY ID SQL for an entity.
      *
@@ -228,7 +345,7 @@ public class BaseMapperProvider extends SqlProvider {
         requireIdField(tableInfo);
 
         SQL sql = buildSelectBase(tableInfo);
-        sql.WHERE(tableInfo.idField().column() + " = #{id}");
+        sql.WHERE(tableInfo.idField().column() + " = " + buildParameter(tableInfo.idField(), "id"));
 
         return sql.toString();
     }
@@ -278,7 +395,7 @@ public class BaseMapperProvider extends SqlProvider {
         }
 
         SQL sql = buildSelectBase(tableInfo);
-        sql.WHERE(buildInCondition(tableInfo.idField().column(), ids));
+        sql.WHERE(buildInCondition(tableInfo.idField(), ids));
 
         return sql.toString();
     }
@@ -297,6 +414,30 @@ public class BaseMapperProvider extends SqlProvider {
         return appendLimit(sql.toString(), DEFAULT_SELECT_ALL_LIMIT);
     }
 
+    /**
+     * Generates SELECT SQL for all records without a row limit, for cursors.
+     *
+     * @param context the provider context
+     * @return the SELECT SQL statement
+     */
+    public String cursorAll(ProviderContext context) {
+        Class<?> entityClass = getType(context);
+        TableInfo tableInfo = EntityClassResolver.resolve(entityClass);
+
+        return buildSelectBase(tableInfo).toString();
+    }
+
+    /**
+     * Generates SELECT SQL with dynamic WHERE conditions for cursors; same as selectList.
+     *
+     * @param params  parameter map containing the entity under key MapperConsts.ENTITY_WHERE
+     * @param context the provider context
+     * @return the SELECT SQL statement
+     */
+    public String cursorList(Map<String, Object> params, ProviderContext context) {
+        return buildSelectWithConditions(params, context, null);
+    }
+
     /**
      * Builds SELECT SQL with entity conditions.
      */
@@ -358,7 +499,7 @@ public class BaseMapperProvider extends SqlProvider {
         SQL sql = new SQL()
                 .UPDATE(tableInfo.tableName())
                 .SET(deletedField.column() + " = " + deletedField.deletedValue())
-                .WHERE(tableInfo.idField().column() + " = #{id}")
+                .WHERE(tableInfo.idField().column() + " = " + buildParameter(tableInfo.idField(), "id"))
                 .WHERE(deletedField.column() + " = " + deletedField.notDeletedValue());
 
         return sql.toString();
@@ -377,7 +518,7 @@ public class BaseMapperProvider extends SqlProvider {
 
         SQL sql = new SQL()
                 .DELETE_FROM(tableInfo.tableName())
-                .WHERE(tableInfo.idField().column() + " = #{id}");
+                .WHERE(tableInfo.idField().column() + " = " + buildParameter(tableInfo.idField(), "id"));
 
         return sql.toString();
     }
@@ -443,4 +584,39 @@ public class BaseMapperProvider extends SqlProvider {
         return buildSelectWithConditions(params, context, null);
     }
 
+    /**
+     * Generates SELECT SQL for rows whose id lies in a half-open range, ordered by id.
+     *
+     * @param params  parameter map with "fromId" (inclusive), "toId" (exclusive), "limit" (each may
+     *                be null) and the query entity under key MapperConsts.ENTITY_WHERE
+     * @param context the provider context
+     * @return the SELECT SQL statement
+     * @throws MapperException if the entity has no Long id
+     */
+    public String selectByIdRange(Map<String, Object> params, ProviderContext context) {
+        Class<?> entityClass = getType(context);
+        TableInfo tableInfo = EntityClassResolver.resolve(entityClass);
+        requireIdField(tableInfo);
+        TableFieldInfo idField = tableInfo.idField();
+        if (idField.getPropertyType() != Long.class && idField.getPropertyType() != long.class) {
+            throw new MapperException("Entity " + entityClass.getSimpleName()
+                    + " must have a Long id for id range queries");
+        }
+
+        SQL sql = new SQL()
+                .SELECT(buildSelectColumns(tableInfo))
+                .FROM(tableInfo.tableName());
+        addEntityConditions(sql, tableInfo, params.get(MapperConsts.ENTITY_WHERE));
+        if (params.get("fromId") != null) {
+            sql.WHERE(idField.column() + " >= " + buildParameter(idField, "fromId"));
+        }
+        if (params.get("toId") != null) {
+            sql.WHERE(idField.column() + " < " + buildParameter(idField, "toId"));
+        }
+        sql.ORDER_BY(idField.column());
+
+        Integer limit = (Integer) params.get("limit");
+        return limit != null ? resolveDialect(context).buildPaginationSql(sql.toString(), 1, limit) : sql.toString();
+    }
+
 }
@@ -1,12 +1,30 @@
 package com.ngcin.ems.mapper;
 
+import com.ngcin.ems.mapper.cache.EntityCacheInterceptor;
+import com.ngcin.ems.mapper.cache.InvalidationBus;
+import com.ngcin.ems.mapper.cache.InvalidationInterceptor;
+import com.ngcin.ems.mapper.cache.QueryCacheInterceptor;
+import com.ngcin.ems.mapper.cache.SingleFlightInterceptor;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.ColumnTypeHandlerInterceptor;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.mapper.core.DirtyTrackingInterceptor;
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
 import com.ngcin.ems.mapper.core.KeyPropertyInterceptor;
 import com.ngcin.ems.mapper.core.PaginationInterceptor;
+import com.ngcin.ems.mapper.core.SegmentIdAllocator;
+import com.ngcin.ems.mapper.core.SegmentSource;
+import com.ngcin.ems.mapper.core.SnowflakeIdGenerator;
+import com.ngcin.ems.mapper.core.StreamingQueryInterceptor;
+import com.ngcin.ems.mapper.core.WorkerIdAssigner;
 import com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler;
 import com.ngcin.ems.mapper.json.TreeNodeTypeHandler;
+import com.ngcin.ems.mapper.tx.IdentityMapInterceptor;
+import com.ngcin.ems.mapper.tx.UnitOfWorkInterceptor;
 import org.mybatis.spring.boot.autoconfigure.ConfigurationCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 
@@ -22,13 +40,73 @@ public class DataMapperConfig {
     @Value("${ems.mapper.json.enabled:true}")
     private boolean jsonEnabled;
 
+    @Value("${ems.mapper.snowflake.datacenter-id:0}")
+    private long snowflakeDatacenterId;
+
+    @Value("${ems.mapper.snowflake.worker-id:0}")
+    private long snowflakeWorkerId;
+
+    @Value("${ems.mapper.snowflake.datacenter-bits:5}")
+    private int snowflakeDatacenterBits;
+
+    @Value("${ems.mapper.snowflake.worker-bits:5}")
+    private int snowflakeWorkerBits;
+
+    @Value("${ems.mapper.snowflake.sequence-bits:12}")
+    private int snowflakeSequenceBits;
+
+    @Value("${ems.mapper.snowflake.max-borrow-millis:5}")
+    private long snowflakeMaxBorrowMillis;
+
+    @Value("${ems.mapper.snowflake.max-backward-millis:1000}")
+    private long snowflakeMaxBackwardMillis;
+
+    @Value("${ems.mapper.segment.prefetch-ratio:" + SegmentIdAllocator.DEFAULT_PREFETCH_RATIO + "}")
+    private double segmentPrefetchRatio;
+
+    @Value("${ems.mapper.query-cache.max-bytes:" + QueryCacheInterceptor.DEFAULT_MAX_BYTES + "}")
+    private long queryCacheMaxBytes;
+
+    @Value("${ems.mapper.single-flight.enabled:false}")
+    private boolean singleFlightEnabled;
+
+    @Value("${ems.mapper.single-flight.max-wait-millis:" + SingleFlightInterceptor.DEFAULT_MAX_WAIT_MILLIS + "}")
+    private long singleFlightMaxWaitMillis;
+
+    @Value("${ems.mapper.single-flight.exclude:}")
+    private String singleFlightExclude;
+
     public DataMapperConfig() {
         log.info("Init DataMapperConfig...");
     }
 
     @Bean
-    public ConfigurationCustomizer configurationCustomizer() {
+    public ConfigurationCustomizer configurationCustomizer(ObjectProvider<InvalidationBus> invalidationBus,
+                                                           ObjectProvider<WorkerIdAssigner> workerIdAssigner,
+                                                           ObjectProvider<SegmentSource> segmentSource) {
         return configuration -> {
+            // Dialect used by SQL providers for dialect-specific statements (upsert, etc.)
+            DialectHolder.setDialect(Dialect.fromName(dialect));
+
+            // Generator of SNOWFLAKE ids; datacenter and worker id must differ between processes.
+            // A WorkerIdAssigner bean (e.g. a LeaseTableWorkerIdAssigner) replaces the worker-id property
+            SnowflakeIdGenerator.Builder snowflake = SnowflakeIdGenerator.builder()
+                    .datacenterBits(snowflakeDatacenterBits)
+                    .workerBits(snowflakeWorkerBits)
+                    .sequenceBits(snowflakeSequenceBits)
+                    .datacenterId(snowflakeDatacenterId)
+                    .workerId(snowflakeWorkerId)
+                    .maxBorrowMillis(snowflakeMaxBorrowMillis)
+                    .maxBackwardMillis(snowflakeMaxBackwardMillis);
+            workerIdAssigner.ifAvailable(snowflake::workerIdAssigner);
+            IdGeneratorHolder.setSnowflake(snowflake.build());
+            log.info("Snowflake ids use datacenter id {}", snowflakeDatacenterId);
+
+            // Allocator of SEGMENT ids, reserving id ranges from a SegmentSource bean
+            // (e.g. a TableSegmentSource or SequenceSegmentSource)
+            segmentSource.ifAvailable(source -> IdGeneratorHolder.setSegmentAllocator(
+                    new SegmentIdAllocator(source).prefetchRatio(segmentPrefetchRatio)));
+
             PaginationInterceptor pageInterceptor = new PaginationInterceptor();
             Properties properties = new Properties();
             properties.setProperty("dialectType", dialect);
@@ -38,6 +116,53 @@ public class DataMapperConfig {
             // Register KeyPropertyInterceptor to support custom ID field names
             configuration.addInterceptor(new KeyPropertyInterceptor());
 
+            // Reads @Column(typeHandler) columns of BaseMapper selects with their handler
+            configuration.addInterceptor(new ColumnTypeHandlerInterceptor());
+
+            // Streams cursorAll/cursorList (and streamAll/streamList) with the dialect's fetch size
+            configuration.addInterceptor(new StreamingQueryInterceptor());
+
+            // Defers BaseMapper writes inside UnitOfWork.begin() scopes; no-op otherwise
+            configuration.addInterceptor(new UnitOfWorkInterceptor());
+
+            // Coalesces concurrent identical reads; registered before the caches so that their
+            // misses are coalesced
+            if (singleFlightEnabled) {
+                SingleFlightInterceptor singleFlight = new SingleFlightInterceptor();
+                Properties singleFlightProperties = new Properties();
+                singleFlightProperties.setProperty("maxWaitMillis", String.valueOf(singleFlightMaxWaitMillis));
+                singleFlightProperties.setProperty("exclude", singleFlightExclude);
+                singleFlight.setProperties(singleFlightProperties);
+                configuration.addInterceptor(singleFlight);
+            }
+
+            // Second-level cache of @Cached entities; registered after UnitOfWorkInterceptor so
+            // that deferred writes still invalidate it
+            EntityCacheInterceptor entityCache = new EntityCacheInterceptor();
+            configuration.addInterceptor(entityCache);
+
+            // Result cache of selectList/selectCount/selectOne/selectAll on @CachedQueries entities
+            QueryCacheInterceptor queryCache = new QueryCacheInterceptor();
+            Properties queryCacheProperties = new Properties();
+            queryCacheProperties.setProperty("maxBytes", String.valueOf(queryCacheMaxBytes));
+            queryCache.setProperties(queryCacheProperties);
+            configuration.addInterceptor(queryCache);
+
+            // Publishes committed writes to other nodes when an InvalidationBus bean is defined
+            invalidationBus.ifAvailable(bus -> {
+                configuration.addInterceptor(new InvalidationInterceptor(bus));
+                bus.addListener(entityCache);
+                bus.addListener(queryCache);
+            });
+
+            // Serves getById/selectBatchIds inside IdentityMap.begin() scopes; registered after
+            // UnitOfWorkInterceptor so that deferred writes still evict it
+            configuration.addInterceptor(new IdentityMapInterceptor());
+
+            // Narrows updates of @Table(dirtyTracking = true) entities to changed columns;
+            // registered last so the interceptors above see the narrowed statement
+            configuration.addInterceptor(new DirtyTrackingInterceptor());
+
             // Register JSON TypeHandlers if enabled
             if (jsonEnabled) {
                 configuration.getTypeHandlerRegistry().register(TreeNodeTypeHandler.class);
@@ -1,9 +1,13 @@
 package com.ngcin.ems.mapper;
 
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
 import com.ngcin.ems.mapper.core.IdType;
 import com.ngcin.ems.mapper.core.MapperConsts;
 import com.ngcin.ems.mapper.ref.TableFieldInfo;
 import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.builder.annotation.ProviderContext;
 import org.apache.ibatis.jdbc.SQL;
 
 import java.io.Serializable;
@@ -12,15 +16,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Base SQL provider with utility methods for SQL generation.
  * Uses org.apache.ibatis.jdbc.SQL for cleaner SQL construction.
  */
 public class SqlProvider {
-    private static final AtomicLong SNOWFLAKE_COUNTER = new AtomicLong(0);
-    private static final long EPOCH = 1609459200000L; // 2021-01-01 00:00:00 UTC
     protected static final int DEFAULT_SELECT_ALL_LIMIT = 1000;
     private static final String VERSION_INCREMENT = " = %s + 1";
 
@@ -69,9 +70,8 @@ public class SqlProvider {
 
             Object value = getFieldValue(fieldInfo.field(), entity);
             if (value != null) {
-                conditions.add(fieldInfo.column() + " = #{" +
-                        MapperConsts.ENTITY_WHERE + "." +
-                        fieldInfo.getProperty() + "}");
+                conditions.add(fieldInfo.column() + " = " +
+                        buildParameter(fieldInfo, MapperConsts.ENTITY_WHERE + "." + fieldInfo.getProperty()));
             }
         }
 
@@ -79,30 +79,38 @@ public class SqlProvider {
     }
 
     /**
-     * Builds IN condition for batch ID queries.
+     * Builds IN condition for batch ID queries, binding the values with the field's type handler.
      *
-     * @param column the column name
+     * @param field  the field metadata
      * @param values the collection of values
      * @return IN condition string like "id IN (#{ids[0]}, #{ids[1]}, ...)"
      */
-    protected String buildInCondition(String column, Collection<?> values) {
+    protected String buildInCondition(TableFieldInfo field, Collection<?> values) {
         if (values == null || values.isEmpty()) {
             throw new IllegalArgumentException("IN condition values cannot be empty");
         }
-
-        StringBuilder condition = new StringBuilder(column).append(" IN (");
-
-        int index = 0;
-        for (Object value : values) {
+        StringBuilder condition = new StringBuilder(field.column()).append(" IN (");
+        for (int index = 0; index < values.size(); index++) {
             if (index > 0) {
                 condition.append(", ");
             }
-            condition.append("#{ids[").append(index).append("]}");
-            index++;
+            condition.append(buildParameter(field, "ids[" + index + "]"));
         }
+        return condition.append(")").toString();
+    }
 
-        condition.append(")");
-        return condition.toString();
+    /**
+     * Builds a parameter reference to a field value, naming the field's type handler if it has one.
+     *
+     * @param field      the field metadata
+     * @param expression the parameter expression (e.g., "id", "list[0].name")
+     * @return placeholder string like "#{expression}" or "#{expression,typeHandler=...}"
+     */
+    protected String buildParameter(TableFieldInfo field, String expression) {
+        if (field.typeHandler() == null) {
+            return "#{" + expression + "}";
+        }
+        return "#{" + expression + ",typeHandler=" + field.typeHandler().getName() + "}";
     }
 
     /**
@@ -112,7 +120,21 @@ public class SqlProvider {
      * @return placeholder string like "#{property,javaType=...,jdbcType=...}"
      */
     protected String buildValuePlaceholder(TableFieldInfo field) {
+        return buildValuePlaceholder(field, null);
+    }
+
+    /**
+     * Builds parameter placeholder with type information and an optional parameter prefix.
+     *
+     * @param field the field metadata
+     * @param prefix optional parameter prefix (e.g., "list[0]")
+     * @return placeholder string like "#{prefix.property,javaType=...,jdbcType=...}"
+     */
+    protected String buildValuePlaceholder(TableFieldInfo field, String prefix) {
         StringBuilder placeholder = new StringBuilder("#{");
+        if (prefix != null) {
+            placeholder.append(prefix).append('.');
+        }
         placeholder.append(field.getProperty());
 
         if (field.getPropertyType() == UUID.class) {
@@ -124,14 +146,20 @@ public class SqlProvider {
                     .append(org.apache.ibatis.type.JdbcType.forCode(field.jdbcType()).name());
         }
 
+        if (field.typeHandler() != null) {
+            placeholder.append(",typeHandler=").append(field.typeHandler().getName());
+        }
+
         placeholder.append("}");
         return placeholder.toString();
     }
 
     /**
      * Generates ID value based on the specified type.
+     *
+     * @param segmentKey the id space of SEGMENT ids (the table name)
      */
-    protected Object generateId(IdType idType, Class<?> targetType) {
+    protected Object generateId(IdType idType, Class<?> targetType, String segmentKey) {
         return switch (idType) {
             case UUID -> {
                 if (targetType == String.class) {
@@ -142,21 +170,27 @@ public class SqlProvider {
                     throw new IllegalArgumentException("Unsupported target type for UUID: " + targetType);
                 }
             }
+            case UUID_V7 -> {
+                UUID uuid = IdGeneratorHolder.getUuidV7().next();
+                if (targetType == String.class) {
+                    yield uuid.toString();
+                } else if (targetType == UUID.class) {
+                    yield uuid;
+                } else {
+                    throw new IllegalArgumentException("Unsupported target type for UUID_V7: " + targetType);
+                }
+            }
             case SNOWFLAKE -> generateSnowflakeId(targetType);
+            case SEGMENT -> generateSegmentId(targetType, segmentKey);
             case AUTO -> throw new IllegalStateException("AUTO ID should not be generated here");
         };
     }
 
     /**
-     * Generates a Snowflake ID.
-     * Simple implementation: timestamp + node + sequence
+     * Generates a Snowflake ID with the generator of {@link IdGeneratorHolder}.
      */
     protected Object generateSnowflakeId(Class<?> targetType) {
-        long timestamp = System.currentTimeMillis() - EPOCH;
-        long node = 1; // In production, this should be configurable
-        long sequence = SNOWFLAKE_COUNTER.getAndIncrement() % 4096;
-
-        long snowflakeId = (timestamp << 22) | (node << 12) | sequence;
+        long snowflakeId = IdGeneratorHolder.getSnowflake().nextId();
 
         if (targetType == Long.class || targetType == long.class) {
             return snowflakeId;
@@ -167,6 +201,17 @@ public class SqlProvider {
         }
     }
 
+    /**
+     * Generates a segment ID with the allocator of {@link IdGeneratorHolder}.
+     */
+    protected Object generateSegmentId(Class<?> targetType, String segmentKey) {
+        if (targetType != Long.class && targetType != long.class && targetType != String.class) {
+            throw new IllegalArgumentException("Unsupported target type for SEGMENT: " + targetType);
+        }
+        long segmentId = IdGeneratorHolder.getSegmentAllocator().nextId(segmentKey);
+        return targetType == String.class ? String.valueOf(segmentId) : segmentId;
+    }
+
     /**
      * Builds base SELECT SQL with soft delete condition.
      * This template method reduces duplication in select methods.
@@ -221,6 +266,16 @@ public class SqlProvider {
         return sql + " LIMIT " + limit;
     }
 
+    /**
+     * Resolves the dialect for the statement being built.
+     *
+     * @param context the provider context (may be null)
+     * @return the dialect named by the statement's databaseId, or the configured global dialect
+     */
+    protected Dialect resolveDialect(ProviderContext context) {
+        return DialectHolder.resolve(context != null ? context.getDatabaseId() : null);
+    }
+
     /**
      * Adds ID field to INSERT statement if not AUTO type.
      *
@@ -300,7 +355,7 @@ public class SqlProvider {
      */
     protected String buildSetClause(TableFieldInfo field, String prefix) {
         String property = prefix != null ? prefix + "." + field.getProperty() : field.getProperty();
-        return field.column() + " = #{" + property + "}";
+        return field.column() + " = " + buildParameter(field, property);
     }
 
     /**
@@ -313,13 +368,13 @@ public class SqlProvider {
      */
     protected String buildWhereClause(TableFieldInfo field, String prefix) {
         String property = prefix != null ? prefix + "." + field.getProperty() : field.getProperty();
-        return field.column() + " = #{" + property + "}";
+        return field.column() + " = " + buildParameter(field, property);
     }
 
     /**
      * Initializes entity fields before insert (ID, version, soft delete).
      * This method handles:
-     * - ID generation for UUID/SNOWFLAKE types (AUTO is handled by database)
+     * - ID generation for UUID/UUID_V7/SNOWFLAKE/SEGMENT types (AUTO is handled by database)
      * - Soft delete field initialization to undeleted value (0)
      * - Version field initialization to 0
      *
@@ -327,12 +382,12 @@ public class SqlProvider {
      * @param tableInfo the table metadata
      */
     protected void initializeEntityForInsert(Object entity, TableInfo tableInfo) {
-        // Handle ID generation for UUID/SNOWFLAKE
+        // Handle ID generation for UUID/UUID_V7/SNOWFLAKE/SEGMENT
         if (tableInfo.idField() != null && tableInfo.idField().idType() != IdType.AUTO) {
             TableFieldInfo idField = tableInfo.idField();
             Object idValue = getFieldValue(idField.field(), entity);
             if (idValue == null) {
-                idValue = generateId(idField.idType(), idField.getPropertyType());
+                idValue = generateId(idField.idType(), idField.getPropertyType(), tableInfo.tableName());
                 setFieldValue(idField.field(), entity, idValue);
             }
         }
@@ -0,0 +1,30 @@
+package com.ngcin.ems.mapper.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Keeps entities of this type in the second-level entity cache, so {@code getById},
+ * {@code selectBatchIds} and {@code selectOne} by a single {@link Unique} field are served from
+ * memory across sessions. Requires the {@code EntityCacheInterceptor}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Cached {
+
+    /**
+     * Maximum number of cached entries (entities and missing ids).
+     */
+    int maximumSize() default 10_000;
+
+    /**
+     * Time after which a cached entity expires, in milliseconds.
+     */
+    long ttlMillis() default 300_000;
+
+    /**
+     * Time after which a cached "not found" result expires, in milliseconds; 0 disables negative
+     * caching.
+     */
+    long negativeTtlMillis() default 30_000;
+}
@@ -0,0 +1,25 @@
+package com.ngcin.ems.mapper.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Keeps the results of {@code selectList}, {@code selectCount}, {@code selectOne} and
+ * {@code selectAll} on this type in the query result cache, keyed by the generated SQL and its
+ * parameter values. Any BaseMapper write to the table drops all cached results of the table.
+ * Requires the {@code QueryCacheInterceptor}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedQueries {
+
+    /**
+     * Time after which a cached result expires, in milliseconds.
+     */
+    long ttlMillis() default 60_000;
+
+    /**
+     * Results with more rows than this are not cached.
+     */
+    int maxRows() default 1_000;
+}
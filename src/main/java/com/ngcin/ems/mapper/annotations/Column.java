@@ -1,6 +1,8 @@
 package com.ngcin.ems.mapper.annotations;
 
 import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.UnknownTypeHandler;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -13,4 +15,13 @@ public @interface Column {
     String name() default "";
     String value() default "";
     JdbcType jdbcType() default JdbcType.UNDEFINED;
+
+    /**
+     * Type handler of the column, used to bind BaseMapper parameters and to read BaseMapper
+     * results (the latter needs {@code ColumnTypeHandlerInterceptor}); by default the handler
+     * MyBatis registers for the field type. It is instantiated with the field type when it has
+     * such a constructor, e.g. {@code BinaryUuidTypeHandler} for UUIDs stored as 16 bytes.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends TypeHandler> typeHandler() default UnknownTypeHandler.class;
 }
\ No newline at end of file
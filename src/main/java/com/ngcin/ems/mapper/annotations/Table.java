@@ -7,4 +7,18 @@ import java.lang.annotation.RetentionPolicy;
 public @interface Table {
     String name() default "";
     String value() default "";
+
+    /**
+     * Reads written rows back into the entity in the same statement (INSERT/UPDATE ... RETURNING
+     * or a generated-keys column list), so DB defaults, trigger values and the bumped
+     * {@code @Version} are visible without a follow-up select.
+     */
+    boolean returning() default false;
+
+    /**
+     * Snapshots entities loaded through BaseMapper selects so that {@code updateById} and
+     * {@code updateSelectiveById} only write the columns that changed since the load, and skip
+     * the statement when nothing changed. Requires the {@code DirtyTrackingInterceptor}.
+     */
+    boolean dirtyTracking() default false;
 }
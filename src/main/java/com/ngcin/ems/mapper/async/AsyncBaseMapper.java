@@ -0,0 +1,359 @@
+package com.ngcin.ems.mapper.async;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.IPage;
+import com.ngcin.ems.mapper.core.StreamingQueryInterceptor;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * {@link CompletableFuture} view of a BaseMapper, for running independent reads and writes in
+ * parallel and joining their results.
+ *
+ * <pre>{@code
+ * CompletableFuture<User> user = users.getById(userId);
+ * CompletableFuture<Long> orderCount = orders.selectCount(byUser);
+ * CompletableFuture.allOf(user, orderCount).join(); // latency of the slower call
+ * }</pre>
+ *
+ * <p>Every call runs on the mapper's executor in its own session, i.e. on its own connection, and
+ * never joins the caller's transaction. Writes commit on success and roll back on failure, each
+ * call on its own; use {@link #inTransaction} to run several operations atomically.
+ *
+ * <p>A future that is cancelled or exceeds the {@link #timeout timeout} cancels the statement
+ * still executing for it (when {@link StreamingQueryInterceptor} is registered) and rolls the
+ * call back. Once the operation has returned and the call starts committing, cancelling fails
+ * and a timeout no longer applies: a future never reports a committed write as failed.
+ *
+ * @param <T> the entity type
+ */
+public class AsyncBaseMapper<T> implements AutoCloseable {
+
+    public static final int DEFAULT_THREADS = 8;
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncBaseMapper.class);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private volatile long timeoutNanos;
+    private Executor executor;
+    private ExecutorService ownExecutor;
+
+    public AsyncBaseMapper(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+    }
+
+    /**
+     * Sets the executor running the calls. Its size bounds the number of concurrent calls, and so
+     * the connections they take. By default the mapper creates a pool of {@value #DEFAULT_THREADS}
+     * daemon threads, shut down by {@link #close()}.
+     */
+    public synchronized AsyncBaseMapper<T> executor(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        if (this.executor != null) {
+            throw new IllegalStateException("AsyncBaseMapper executor cannot change after the first call");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets how long a call may take, from submission to completion, before its future fails with
+     * {@link TimeoutException}; {@code null} or zero for no timeout (the default).
+     */
+    public AsyncBaseMapper<T> timeout(Duration timeout) {
+        if (timeout != null && timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative, but was: " + timeout);
+        }
+        this.timeoutNanos = timeout == null ? 0 : timeout.toNanos();
+        return this;
+    }
+
+    public CompletableFuture<Integer> insert(T entity) {
+        return write(mapper -> mapper.insert(entity));
+    }
+
+    public CompletableFuture<Integer> insertSelective(T entity) {
+        return write(mapper -> mapper.insertSelective(entity));
+    }
+
+    public CompletableFuture<Integer> insertBatch(List<T> entities) {
+        return write(mapper -> mapper.insertBatch(entities));
+    }
+
+    public CompletableFuture<Integer> upsert(T entity) {
+        return write(mapper -> mapper.upsert(entity));
+    }
+
+    public CompletableFuture<Integer> upsertBatch(List<T> entities) {
+        return write(mapper -> mapper.upsertBatch(entities));
+    }
+
+    public CompletableFuture<Integer> insertIgnore(T entity) {
+        return write(mapper -> mapper.insertIgnore(entity));
+    }
+
+    public CompletableFuture<Integer> insertIgnoreBatch(List<T> entities) {
+        return write(mapper -> mapper.insertIgnoreBatch(entities));
+    }
+
+    public CompletableFuture<Integer> updateById(T entity) {
+        return write(mapper -> mapper.updateById(entity));
+    }
+
+    public CompletableFuture<Integer> updateSelectiveById(T entity) {
+        return write(mapper -> mapper.updateSelectiveById(entity));
+    }
+
+    public CompletableFuture<T> getById(Serializable id) {
+        return read(mapper -> mapper.getById(id));
+    }
+
+    public CompletableFuture<Long> selectCount(T query) {
+        return read(mapper -> mapper.selectCount(query));
+    }
+
+    public CompletableFuture<List<T>> selectBatchIds(Collection<Serializable> ids) {
+        return read(mapper -> mapper.selectBatchIds(ids));
+    }
+
+    public CompletableFuture<List<T>> selectAll() {
+        return read(BaseMapper::selectAll);
+    }
+
+    public CompletableFuture<List<T>> selectList(T query) {
+        return read(mapper -> mapper.selectList(query));
+    }
+
+    public CompletableFuture<T> selectOne(T query) {
+        return read(mapper -> mapper.selectOne(query));
+    }
+
+    public CompletableFuture<IPage<T>> page(IPage<T> page, T query) {
+        return read(mapper -> mapper.page(page, query));
+    }
+
+    public CompletableFuture<List<T>> selectByIdRange(Long fromId, Long toId, T query, Integer limit) {
+        return read(mapper -> mapper.selectByIdRange(fromId, toId, query, limit));
+    }
+
+    public CompletableFuture<List<T>> selectByIdTimeRange(Instant from, Instant to, T query) {
+        return read(mapper -> mapper.selectByIdTimeRange(from, to, query));
+    }
+
+    public CompletableFuture<List<T>> selectByIdTimeRange(Instant from, Instant to, T query, Long afterId,
+                                                          Integer limit) {
+        return read(mapper -> mapper.selectByIdTimeRange(from, to, query, afterId, limit));
+    }
+
+    public CompletableFuture<Integer> deleteById(Serializable id) {
+        return write(mapper -> mapper.deleteById(id));
+    }
+
+    public CompletableFuture<Integer> hardDeleteById(Serializable id) {
+        return write(mapper -> mapper.hardDeleteById(id));
+    }
+
+    public CompletableFuture<Integer> delete(T entity) {
+        return write(mapper -> mapper.delete(entity));
+    }
+
+    public CompletableFuture<Integer> hardDelete(T entity) {
+        return write(mapper -> mapper.hardDelete(entity));
+    }
+
+    /**
+     * Runs a read-only operation, e.g. a custom mapper method (cast the mapper to its declared type).
+     * The session is closed without commit.
+     */
+    public <R> CompletableFuture<R> read(Function<BaseMapper<T>, R> operation) {
+        return submit(operation, false);
+    }
+
+    /**
+     * Runs several operations in one transaction, committed when the operation returns and rolled
+     * back when it throws, is cancelled or times out.
+     */
+    public <R> CompletableFuture<R> inTransaction(Function<BaseMapper<T>, R> operation) {
+        return submit(operation, true);
+    }
+
+    /** Number of calls currently holding a session. */
+    public int activeCalls() {
+        return activeCalls.get();
+    }
+
+    /**
+     * Shuts down the default executor; calls that have not started fail with
+     * {@link RejectedExecutionException}. A supplied executor is left running.
+     */
+    @Override
+    public synchronized void close() {
+        if (ownExecutor != null) {
+            for (Runnable queued : ownExecutor.shutdownNow()) {
+                if (queued instanceof AsyncBaseMapper<?>.Call<?> call) {
+                    call.result.completeExceptionally(new RejectedExecutionException(
+                            "AsyncBaseMapper for " + tableInfo.tableName() + " was closed"));
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Integer> write(Function<BaseMapper<T>, Integer> operation) {
+        return submit(operation, true);
+    }
+
+    private <R> CompletableFuture<R> submit(Function<BaseMapper<T>, R> operation, boolean commit) {
+        Objects.requireNonNull(operation, "operation");
+        Call<R> call = new Call<>(operation, commit);
+        long timeout = timeoutNanos;
+        if (timeout > 0) {
+            call.result.orTimeout(timeout, TimeUnit.NANOSECONDS);
+        }
+        call.result.whenComplete((value, e) -> {
+            if (e instanceof CancellationException || e instanceof TimeoutException) {
+                call.abort();
+            }
+        });
+        try {
+            executor().execute(call);
+        } catch (RejectedExecutionException e) {
+            call.result.fail(e);
+        }
+        return call.result;
+    }
+
+    private synchronized Executor executor() {
+        if (executor == null) {
+            String table = tableInfo.tableName();
+            ownExecutor = Executors.newFixedThreadPool(DEFAULT_THREADS, task -> {
+                Thread thread = new Thread(task, "ems-async-" + table + "-" + THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor = ownExecutor;
+        }
+        return executor;
+    }
+
+    /**
+     * One call: its session, the statement it is executing and the future of its result.
+     */
+    private final class Call<R> implements Runnable {
+
+        private final Function<BaseMapper<T>, R> operation;
+        private final boolean commit;
+        /** Set by the first of: the call starting to complete, a cancel, a timeout. */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final Result result = new Result();
+        private volatile Statement statement;
+        private volatile boolean running;
+
+        Call(Function<BaseMapper<T>, R> operation, boolean commit) {
+            this.operation = operation;
+            this.commit = commit;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                // Cancelled or timed out while queued
+                return;
+            }
+            activeCalls.incrementAndGet();
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                BaseMapper<T> mapper = session.getMapper(mapperType);
+                running = true;
+                R value;
+                try {
+                    value = StreamingQueryInterceptor.capturing(s -> statement = s, () -> operation.apply(mapper));
+                } finally {
+                    running = false;
+                }
+                if (!claimed.compareAndSet(false, true)) {
+                    // Cancelled or timed out: closing the session rolls back uncommitted writes
+                    return;
+                }
+                if (commit) {
+                    session.commit();
+                }
+                result.complete(value);
+            } catch (Throwable e) {
+                result.fail(e);
+            } finally {
+                activeCalls.decrementAndGet();
+            }
+        }
+
+        /**
+         * Cancels the statement if the call is still executing it.
+         */
+        void abort() {
+            Statement executing = statement;
+            if (running && executing != null) {
+                try {
+                    executing.cancel();
+                } catch (SQLException e) {
+                    log.debug("Cancelling call on {} failed", tableInfo.tableName(), e);
+                }
+            }
+        }
+
+        /**
+         * The caller's future: cancelling it, or failing it from outside (as {@code orTimeout}
+         * does), only succeeds while the call has not started to complete.
+         */
+        private final class Result extends CompletableFuture<R> {
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                return claimed.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+            }
+
+            @Override
+            public boolean completeExceptionally(Throwable ex) {
+                return claimed.compareAndSet(false, true) && super.completeExceptionally(ex);
+            }
+
+            @Override
+            public <U> CompletableFuture<U> newIncompleteFuture() {
+                // Dependent stages are plain futures, not bound to this call
+                return new CompletableFuture<>();
+            }
+
+            /** Fails the call from inside, also after it claimed completion (a failed commit). */
+            void fail(Throwable ex) {
+                super.completeExceptionally(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ngcin.ems.mapper.async;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual-thread executors for {@link AsyncBaseMapper} and
+ * {@link com.ngcin.ems.mapper.reactive.ReactiveMapper}, on Java 21 and later.
+ *
+ * <p>The library is compiled for Java 17, so the Java 21 API is looked up reflectively. Use with a
+ * connection pool that does not block on monitors (e.g. HikariCP): a virtual thread waiting inside
+ * {@code synchronized}, as MyBatis' {@code PooledDataSource} does for a free connection, pins its
+ * carrier thread.
+ *
+ * <pre>{@code
+ * AsyncBaseMapper<User> users = new AsyncBaseMapper<>(sqlSessionFactory, UserMapper.class)
+ *         .executor(VirtualThreads.newExecutor("users-"));
+ * }</pre>
+ */
+public final class VirtualThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method newExecutor = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            newExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newExecutor;
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns true if the running JVM has virtual threads (Java 21 or later).
+     */
+    public static boolean isSupported() {
+        return NEW_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task.
+     *
+     * @param namePrefix the thread name prefix; threads are numbered from 0
+     * @return the executor; shut it down when no longer needed
+     * @throws UnsupportedOperationException if the JVM has no virtual threads
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21, running on "
+                    + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix, 0L);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, FACTORY.invoke(builder));
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create virtual-thread executor", e);
+        }
+    }
+}
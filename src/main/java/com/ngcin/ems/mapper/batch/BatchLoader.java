@@ -0,0 +1,325 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Batches {@code getById} lookups of concurrent callers into {@link BaseMapper#selectBatchIds}
+ * statements (the DataLoader pattern).
+ *
+ * <p>Ids requested within {@code window} of the first id of a batch, up to
+ * {@code maxBatchSize} ids, are loaded with one statement. An id requested twice in one batch is
+ * loaded once and <b>all its callers receive the same entity instance</b>: treat loaded entities
+ * as read-only, or copy one before changing it.
+ *
+ * <pre>{@code
+ * try (BatchLoader<User> users = new BatchLoader<>(userMapper)) {
+ *     // called from many resolvers at about the same time
+ *     User author = users.get(post.getAuthorId());
+ * }
+ * }</pre>
+ *
+ * <p>A loader has no thread of its own: batches run on a calling thread, through the mapper the
+ * loader was created with, so they are part of that mapper's session and transaction. Create one
+ * loader per request or transaction and share it only among callers of that scope, so that
+ * batching never crosses transaction boundaries. As the session is not thread-safe, the loader
+ * runs one batch statement at a time.
+ *
+ * @param <T> the entity type
+ */
+public class BatchLoader<T> implements AutoCloseable {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(2);
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /** Ids collected for one statement; guarded by the loader's lock. */
+    private static final class Batch<T> {
+        final Map<String, Serializable> ids = new LinkedHashMap<>();
+        final Map<String, CompletableFuture<T>> results = new HashMap<>();
+        final long deadline;
+        boolean dispatched;
+
+        Batch(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    /** The caller's future, its batch, and whether the caller must load the batch. */
+    private record Request<T>(CompletableFuture<T> result, Batch<T> batch, boolean full) {}
+
+    private final BaseMapper<T> mapper;
+    private final TableInfo tableInfo;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong statementCount = new AtomicLong();
+    /** Guards the batches; a lock rather than a monitor so that waiting callers do not pin virtual threads. */
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Signalled when a batch is claimed for loading. */
+    private final Condition claimed = lock.newCondition();
+    /** Serializes the statements on the mapper's session. */
+    private final ReentrantLock executeLock = new ReentrantLock();
+    private long windowNanos = DEFAULT_WINDOW.toNanos();
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private Batch<T> current;
+    private boolean started;
+    private boolean closed;
+
+    /**
+     * @param mapper the mapper of the caller's session or transaction
+     */
+    public BatchLoader(BaseMapper<T> mapper) {
+        this.mapper = mapper;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperInterface(mapper)));
+        if (tableInfo.idField() == null) {
+            throw new MapperException("Entity " + tableInfo.entityClass().getSimpleName() + " must have an @Id field");
+        }
+    }
+
+    /**
+     * Sets how long ids are collected after the first id of a batch is requested.
+     */
+    public BatchLoader<T> window(Duration window) {
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("Window must not be negative, but was: " + window);
+        }
+        lock.lock();
+        try {
+            requireNotStarted();
+            this.windowNanos = window.toNanos();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of ids at which a batch is loaded without waiting for the window.
+     */
+    public BatchLoader<T> maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than 0, but was: " + maxBatchSize);
+        }
+        lock.lock();
+        try {
+            requireNotStarted();
+            this.maxBatchSize = maxBatchSize;
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Loads an entity as part of a batch, waiting at most the window for other callers to join.
+     *
+     * @param id the id
+     * @return the entity, or null if no row has the id; shared with other callers of the same id
+     * @throws MapperException if the batch statement failed
+     * @throws IllegalStateException if the loader is closed
+     */
+    public T get(Serializable id) {
+        Request<T> request;
+        boolean dispatch;
+        lock.lock();
+        try {
+            request = enqueue(id);
+            dispatch = request.full();
+            Batch<T> batch = request.batch();
+            while (!dispatch && !batch.dispatched) {
+                long remaining = batch.deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    dispatch = take(batch);
+                    break;
+                }
+                claimed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MapperException("Interrupted while waiting for batch of " + tableInfo.tableName(), e);
+        } finally {
+            lock.unlock();
+        }
+        if (dispatch) {
+            execute(request.batch());
+        }
+        return join(request.result());
+    }
+
+    /**
+     * Requests an entity as part of the current batch without waiting. The future completes when
+     * the batch is loaded: once it is full, when a {@link #get} caller's window elapses, or on
+     * {@link #dispatch()} or {@link #close()}.
+     *
+     * @param id the id
+     * @return the future entity, completing with null if no row has the id; shared with other
+     *         callers of the same id
+     * @throws IllegalStateException if the loader is closed
+     */
+    public CompletableFuture<T> load(Serializable id) {
+        Request<T> request;
+        lock.lock();
+        try {
+            request = enqueue(id);
+        } finally {
+            lock.unlock();
+        }
+        if (request.full()) {
+            execute(request.batch());
+        }
+        return request.result();
+    }
+
+    /**
+     * Loads the current batch now, on the calling thread.
+     */
+    public void dispatch() {
+        Batch<T> batch;
+        lock.lock();
+        try {
+            batch = current;
+            if (batch == null || !take(batch)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        execute(batch);
+    }
+
+    /** Number of ids requested so far. */
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    /** Number of {@code selectBatchIds} statements executed so far. */
+    public long statementCount() {
+        return statementCount.get();
+    }
+
+    /**
+     * Loads the pending ids and stops accepting new ones.
+     */
+    @Override
+    public void close() {
+        dispatch();
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an id to the current batch and claims the batch if it is now full.
+     * Called with the loader locked.
+     */
+    private Request<T> enqueue(Serializable id) {
+        if (id == null) {
+            throw new MapperException("id cannot be null");
+        }
+        if (closed) {
+            throw new IllegalStateException("BatchLoader for " + tableInfo.tableName() + " is closed");
+        }
+        started = true;
+        requestCount.incrementAndGet();
+        if (current == null) {
+            current = new Batch<>(System.nanoTime() + windowNanos);
+        }
+        Batch<T> batch = current;
+        String key = key(id);
+        CompletableFuture<T> result = batch.results.get(key);
+        if (result != null) {
+            return new Request<>(result, batch, false);
+        }
+        result = new CompletableFuture<>();
+        batch.ids.put(key, id);
+        batch.results.put(key, result);
+        return new Request<>(result, batch, batch.ids.size() >= maxBatchSize && take(batch));
+    }
+
+    /**
+     * Claims a batch for loading; returns false if another caller already did.
+     * Called with the loader locked.
+     */
+    private boolean take(Batch<T> batch) {
+        if (batch.dispatched) {
+            return false;
+        }
+        batch.dispatched = true;
+        if (current == batch) {
+            current = null;
+        }
+        // Wake the get() callers waiting for the window
+        claimed.signalAll();
+        return true;
+    }
+
+    private void execute(Batch<T> batch) {
+        executeLock.lock();
+        try {
+            statementCount.incrementAndGet();
+            List<T> rows = mapper.selectBatchIds(new ArrayList<>(batch.ids.values()));
+            Map<String, T> byKey = new HashMap<>();
+            for (T row : rows) {
+                Object id = EntityInitializer.INSTANCE.valueOf(tableInfo.idField(), row);
+                if (id != null) {
+                    byKey.put(key(id), row);
+                }
+            }
+            batch.results.forEach((key, result) -> result.complete(byKey.get(key)));
+        } catch (RuntimeException e) {
+            batch.results.values().forEach(result -> result.completeExceptionally(e));
+        } finally {
+            executeLock.unlock();
+        }
+    }
+
+    private T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new MapperException("Batched load of " + tableInfo.tableName() + " failed: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void requireNotStarted() {
+        if (started) {
+            throw new IllegalStateException("BatchLoader settings cannot change after the first request");
+        }
+    }
+
+    /**
+     * Normalizes an id so that e.g. an Integer request matches the Long id of the loaded row.
+     */
+    private static String key(Object id) {
+        return id.toString();
+    }
+
+    private static Class<?> mapperInterface(BaseMapper<?> mapper) {
+        for (Class<?> type : mapper.getClass().getInterfaces()) {
+            if (BaseMapper.class.isAssignableFrom(type)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Mapper " + mapper.getClass().getName() + " does not implement a BaseMapper interface");
+    }
+}
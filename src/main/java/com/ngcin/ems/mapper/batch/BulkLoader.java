@@ -0,0 +1,224 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.cache.EntityCacheInterceptor;
+import com.ngcin.ems.mapper.cache.InvalidationBus;
+import com.ngcin.ems.mapper.cache.InvalidationEvent;
+import com.ngcin.ems.mapper.cache.InvalidationInterceptor;
+import com.ngcin.ems.mapper.cache.InvalidationListener;
+import com.ngcin.ems.mapper.cache.QueryCacheInterceptor;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.mapper.core.IdType;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Loads large entity streams through the database's native bulk loader.
+ *
+ * <p>Entities are initialized like a regular insert (UUID/SNOWFLAKE ids, version and soft delete
+ * defaults), encoded to CSV in {@code TableInfo} column order using the configured type handlers,
+ * and streamed chunk by chunk into:
+ * <ul>
+ *   <li>MySQL: {@code LOAD DATA LOCAL INFILE} (requires {@code allowLoadLocalInfile=true})</li>
+ *   <li>PostgreSQL: {@code COPY ... FROM STDIN}</li>
+ *   <li>H2: {@code CSVREAD} over a temporary file, for local testing</li>
+ * </ul>
+ * When the dialect or driver has no native path (e.g. Oracle), rows are written with
+ * {@link BaseMapper#insertBatch} in chunks instead. AUTO ids are not read back on either path.
+ *
+ * <p>Each call runs in its own session and commits once at the end. The native path writes past
+ * the MyBatis interceptors, so after its commit every row of the table is invalidated in the
+ * registered {@link EntityCacheInterceptor} and {@link QueryCacheInterceptor} and reported to
+ * the {@link InvalidationBus} of a registered {@link InvalidationInterceptor}.
+ *
+ * @param <T> the entity type
+ */
+public class BulkLoader<T> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String MYSQL_CONNECTION = "com.mysql.cj.jdbc.JdbcConnection";
+    private static final String MYSQL_STATEMENT = "com.mysql.cj.jdbc.JdbcStatement";
+    private static final String PG_CONNECTION = "org.postgresql.PGConnection";
+    private static final String PG_COPY_MANAGER = "org.postgresql.copy.CopyManager";
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private final List<TableFieldInfo> loadFields;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public BulkLoader(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+
+        List<TableFieldInfo> fields = new ArrayList<>();
+        if (tableInfo.idField() != null && tableInfo.idField().idType() != IdType.AUTO) {
+            fields.add(tableInfo.idField());
+        }
+        fields.addAll(tableInfo.getNonIdFields());
+        this.loadFields = fields;
+    }
+
+    /**
+     * Sets the number of rows encoded per chunk (native path) or per insertBatch (fallback).
+     */
+    public BulkLoader<T> chunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than 0, but was: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Loads all entities of the stream and closes it.
+     *
+     * @param entities the entities to load
+     * @return number of rows loaded
+     * @throws MapperException if loading fails; nothing is committed in that case
+     */
+    public long bulkLoad(Stream<T> entities) {
+        Configuration configuration = sqlSessionFactory.getConfiguration();
+        Dialect dialect = DialectHolder.resolve(configuration.getDatabaseId());
+
+        try (Stream<T> stream = entities; SqlSession session = sqlSessionFactory.openSession(false)) {
+            Iterator<T> rows = stream.peek(e -> EntityInitializer.INSTANCE.initialize(e, tableInfo)).iterator();
+            Connection connection = session.getConnection();
+            List<String> columns = loadFields.stream().map(TableFieldInfo::column).toList();
+
+            long loaded;
+            boolean nativeLoad = supportsNativeLoad(dialect, connection);
+            if (nativeLoad) {
+                String nullToken = dialect == Dialect.MYSQL ? "NULL" : "";
+                CsvRowEncoder encoder = new CsvRowEncoder(loadFields, configuration.getTypeHandlerRegistry(), nullToken);
+                CsvInputStream csv = new CsvInputStream(rows, encoder, chunkSize);
+                loaded = switch (dialect) {
+                    case MYSQL -> loadMySql(connection, dialect.buildBulkLoadSql(tableInfo.tableName(), columns, "stream"), csv);
+                    case POSTGRESQL -> loadPostgres(connection, dialect.buildBulkLoadSql(tableInfo.tableName(), columns, null), csv);
+                    case H2 -> loadH2(connection, dialect, columns, csv);
+                    default -> throw new IllegalStateException("No native bulk load for " + dialect);
+                };
+            } else {
+                loaded = loadWithInsertBatch(session, rows);
+            }
+
+            session.commit();
+            if (nativeLoad) {
+                invalidateCaches(configuration);
+            }
+            return loaded;
+        } catch (SQLException | IOException | ReflectiveOperationException e) {
+            Throwable cause = e instanceof InvocationTargetException ite && ite.getCause() != null ? ite.getCause() : e;
+            throw new MapperException("Bulk load into " + tableInfo.tableName() + " failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Tells the caches and the invalidation bus registered with MyBatis that every row of the
+     * table may have changed.
+     */
+    private void invalidateCaches(Configuration configuration) {
+        InvalidationEvent event = new InvalidationEvent(null, tableInfo.entityClass().getName(),
+                tableInfo.tableName(), null);
+        for (Interceptor interceptor : configuration.getInterceptors()) {
+            if (interceptor instanceof InvalidationListener listener) {
+                listener.onInvalidation(event);
+            } else if (interceptor instanceof InvalidationInterceptor invalidation) {
+                invalidation.reportAllRows(tableInfo.entityClass());
+            }
+        }
+    }
+
+    private boolean supportsNativeLoad(Dialect dialect, Connection connection) throws SQLException {
+        if (dialect.buildBulkLoadSql(tableInfo.tableName(), List.of(), "") == null) {
+            return false;
+        }
+        return switch (dialect) {
+            case MYSQL -> isWrapperFor(connection, MYSQL_CONNECTION);
+            case POSTGRESQL -> isWrapperFor(connection, PG_CONNECTION);
+            case H2 -> "H2".equals(connection.getMetaData().getDatabaseProductName());
+            default -> false;
+        };
+    }
+
+    private static boolean isWrapperFor(Connection connection, String driverClass) throws SQLException {
+        try {
+            return connection.isWrapperFor(Class.forName(driverClass));
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private long loadMySql(Connection connection, String sql, InputStream csv)
+            throws SQLException, ReflectiveOperationException {
+        Class<?> mysqlStatement = Class.forName(MYSQL_STATEMENT);
+        try (Statement stmt = connection.createStatement()) {
+            mysqlStatement.getMethod("setLocalInfileInputStream", InputStream.class)
+                    .invoke(stmt.unwrap(mysqlStatement), csv);
+            return stmt.executeUpdate(sql);
+        }
+    }
+
+    private long loadPostgres(Connection connection, String sql, InputStream csv)
+            throws SQLException, ReflectiveOperationException {
+        Class<?> pgConnection = Class.forName(PG_CONNECTION);
+        Object copyManager = pgConnection.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnection));
+        return (Long) Class.forName(PG_COPY_MANAGER)
+                .getMethod("copyIn", String.class, InputStream.class)
+                .invoke(copyManager, sql, csv);
+    }
+
+    private long loadH2(Connection connection, Dialect dialect, List<String> columns, InputStream csv)
+            throws SQLException, IOException {
+        Path file = Files.createTempFile("ems-bulk-", ".csv");
+        try {
+            Files.copy(csv, file, StandardCopyOption.REPLACE_EXISTING);
+            String sql = dialect.buildBulkLoadSql(tableInfo.tableName(), columns, file.toAbsolutePath().toString());
+            try (Statement stmt = connection.createStatement()) {
+                return stmt.executeUpdate(sql);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private long loadWithInsertBatch(SqlSession session, Iterator<T> rows) {
+        BaseMapper<T> mapper = session.getMapper(mapperType);
+        List<T> chunk = new ArrayList<>(chunkSize);
+        long loaded = 0;
+        while (rows.hasNext()) {
+            chunk.add(rows.next());
+            if (chunk.size() == chunkSize) {
+                loaded += mapper.insertBatch(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loaded += mapper.insertBatch(chunk);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ngcin.ems.mapper.batch;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * InputStream that encodes entities to CSV lazily, a chunk of rows at a time, so only one
+ * chunk is ever held in memory regardless of how many rows are streamed.
+ */
+final class CsvInputStream extends InputStream {
+
+    private final Iterator<?> rows;
+    private final CsvRowEncoder encoder;
+    private final int chunkRows;
+    private final StringBuilder chunk = new StringBuilder();
+    private byte[] buffer = new byte[0];
+    private int position;
+    private long rowCount;
+
+    CsvInputStream(Iterator<?> rows, CsvRowEncoder encoder, int chunkRows) {
+        this.rows = rows;
+        this.encoder = encoder;
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Number of rows encoded so far.
+     */
+    long rowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read() {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.length - position);
+        System.arraycopy(buffer, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    private boolean fill() {
+        if (position < buffer.length) {
+            return true;
+        }
+        chunk.setLength(0);
+        int encoded = 0;
+        while (encoded < chunkRows && rows.hasNext()) {
+            encoder.encode(rows.next(), chunk);
+            encoded++;
+        }
+        rowCount += encoded;
+        buffer = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        position = 0;
+        return buffer.length > 0;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses RFC 4180 CSV with a header row. Header names are bound to entity fields; unknown
+ * columns are ignored. Quoted fields may contain separators, doubled quotes and line breaks.
+ * An unquoted empty field is NULL, a quoted empty field ({@code ""}) is an empty string.
+ *
+ * <p>A record longer than the maximum length, typically after an unbalanced quote, is rejected
+ * and parsing resumes at the line after the one that exceeded it.
+ */
+final class CsvRecordParser extends RecordParser {
+
+    private final List<TableFieldInfo> columns = new ArrayList<>();
+    private final int maxRecordLength;
+
+    CsvRecordParser(TableInfo tableInfo, MappedLineReader reader, int maxRecordLength) throws IOException {
+        super(tableInfo, reader);
+        this.maxRecordLength = maxRecordLength;
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input has no header row");
+        }
+        for (String name : split(header)) {
+            columns.add(name == null ? null : field(name.trim()));
+        }
+    }
+
+    @Override
+    ParsedRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isEmpty());
+
+        long lineNumber = reader.lineNumber();
+        StringBuilder record = new StringBuilder(line);
+        // Only the quotes of each new line are counted
+        boolean openQuote = hasOddQuotes(line);
+        while (openQuote && record.length() <= maxRecordLength) {
+            String continuation = reader.readLine();
+            if (continuation == null) {
+                return new ParsedRecord(lineNumber, record.toString(), null,
+                        new IllegalArgumentException("Unterminated quoted field"));
+            }
+            record.append('\n').append(continuation);
+            openQuote ^= hasOddQuotes(continuation);
+        }
+        if (record.length() > maxRecordLength) {
+            return new ParsedRecord(lineNumber, record.substring(0, maxRecordLength), null,
+                    new IllegalArgumentException("Record exceeds " + maxRecordLength
+                            + " characters (unterminated quoted field?)"));
+        }
+
+        String raw = record.toString();
+        try {
+            List<String> values = split(raw);
+            if (values.size() != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " fields but found " + values.size());
+            }
+            Object entity = newEntity();
+            for (int i = 0; i < values.size(); i++) {
+                TableFieldInfo field = columns.get(i);
+                if (field != null) {
+                    assign(entity, field, ValueConverter.convert(values.get(i), field.getPropertyType()));
+                }
+            }
+            return new ParsedRecord(lineNumber, raw, entity, null);
+        } catch (Exception e) {
+            return new ParsedRecord(lineNumber, raw, null, e);
+        }
+    }
+
+    private static boolean hasOddQuotes(String line) {
+        int quotes = 0;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return (quotes & 1) == 1;
+    }
+
+    /**
+     * Splits one record into values; unquoted empty values are returned as null.
+     */
+    private static List<String> split(String record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean inQuotes = false;
+
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        value.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                values.add(quoted || !value.isEmpty() ? value.toString() : null);
+                value.setLength(0);
+                quoted = false;
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(quoted || !value.isEmpty() ? value.toString() : null);
+        return values;
+    }
+}
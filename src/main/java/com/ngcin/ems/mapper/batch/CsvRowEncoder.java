@@ -0,0 +1,122 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes entities as RFC 4180 CSV rows, converting each value with the MyBatis type handler
+ * that a regular INSERT would use, so JSON, enum and date columns load identically.
+ *
+ * <p>Type handlers write into a capturing {@link PreparedStatement} proxy; the captured JDBC
+ * value is then rendered as text. Non-null values are always quoted, NULL is written as the
+ * unquoted {@code nullToken}. Not thread-safe.
+ */
+final class CsvRowEncoder {
+
+    private final List<TableFieldInfo> fields;
+    private final List<TypeHandler<Object>> typeHandlers;
+    private final TypeHandlerRegistry registry;
+    private final String nullToken;
+    private final PreparedStatement capture;
+    private Object captured;
+
+    @SuppressWarnings("unchecked")
+    CsvRowEncoder(List<TableFieldInfo> fields, TypeHandlerRegistry registry, String nullToken) {
+        this.fields = fields;
+        this.registry = registry;
+        this.nullToken = nullToken;
+        this.typeHandlers = new ArrayList<>(fields.size());
+        for (TableFieldInfo field : fields) {
+            typeHandlers.add((TypeHandler<Object>) registry.getTypeHandler(field.getPropertyType(), jdbcTypeOf(field)));
+        }
+        this.capture = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("set") && args != null && args.length >= 2) {
+                        captured = "setNull".equals(name) ? null : args[1];
+                        return null;
+                    }
+                    throw new UnsupportedOperationException("Not supported while encoding CSV: " + name);
+                });
+    }
+
+    /**
+     * Appends one CSV line (terminated by '\n') for the entity.
+     */
+    void encode(Object entity, StringBuilder out) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            TableFieldInfo field = fields.get(i);
+            Object jdbcValue = toJdbcValue(field, typeHandlers.get(i), EntityInitializer.INSTANCE.valueOf(field, entity));
+            if (jdbcValue == null) {
+                out.append(nullToken);
+            } else {
+                appendQuoted(out, toText(field, jdbcValue));
+            }
+        }
+        out.append('\n');
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object toJdbcValue(TableFieldInfo field, TypeHandler<Object> handler, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (handler == null) {
+            handler = (TypeHandler<Object>) registry.getTypeHandler(value.getClass());
+            if (handler == null) {
+                return value;
+            }
+        }
+        try {
+            captured = null;
+            handler.setParameter(capture, 1, value, jdbcTypeOf(field));
+            return captured;
+        } catch (SQLException e) {
+            throw new MapperException("Failed to convert field " + field.getProperty() + " for bulk load", e);
+        }
+    }
+
+    private String toText(TableFieldInfo field, Object value) {
+        if (value instanceof Boolean bool) {
+            return bool ? "1" : "0";
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.toPlainString();
+        }
+        if (value instanceof byte[]) {
+            throw new MapperException("Binary field " + field.getProperty() + " is not supported by bulk load");
+        }
+        return value.toString();
+    }
+
+    private static void appendQuoted(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static JdbcType jdbcTypeOf(TableFieldInfo field) {
+        return field.jdbcType() != null ? JdbcType.forCode(field.jdbcType()) : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.SqlProvider;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+/**
+ * Exposes the insert-time initialization of {@link SqlProvider} (ID generation, version and
+ * soft delete defaults) to write paths that do not go through the SQL providers.
+ */
+final class EntityInitializer extends SqlProvider {
+
+    static final EntityInitializer INSTANCE = new EntityInitializer();
+
+    private EntityInitializer() {}
+
+    /**
+     * Generates the ID and fills version / soft delete defaults, exactly as {@code insert} does.
+     */
+    void initialize(Object entity, TableInfo tableInfo) {
+        initializeEntityForInsert(entity, tableInfo);
+    }
+
+    Object valueOf(TableFieldInfo field, Object entity) {
+        return getFieldValue(field.field(), entity);
+    }
+
+    void assign(TableFieldInfo field, Object entity, Object value) {
+        setFieldValue(field.field(), entity, value);
+    }
+}
@@ -0,0 +1,233 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent single-row inserts into group commits.
+ *
+ * <p>Calls to {@link #insert} from many threads are queued; a flusher thread collects the rows
+ * arriving within {@code maxDelay} of the first one (or until {@code maxBatchSize} rows), writes
+ * them with one {@link BaseMapper#insertBatch} and one commit, and then releases the callers.
+ * Each caller blocks until its row is committed and gets its generated id set on the entity,
+ * exactly as with {@link BaseMapper#insert}.
+ *
+ * <p>If the batch fails, its rows are retried one by one in separate transactions, so only the
+ * offending callers see the error. The inserts run on the inserter's own connection, not in the
+ * caller's transaction; use it for independent rows such as events or audit records.
+ *
+ * <pre>{@code
+ * GroupCommitInserter<Event> events = new GroupCommitInserter<>(sqlSessionFactory, EventMapper.class)
+ *         .maxDelay(Duration.ofMillis(2))
+ *         .maxBatchSize(500);
+ * events.insert(event); // returns once committed; event.getId() is set
+ * }</pre>
+ *
+ * @param <T> the entity type
+ */
+public class GroupCommitInserter<T> implements AutoCloseable {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(2);
+
+    private record Pending<T>(T entity, CompletableFuture<Integer> result) {}
+
+    private static final Pending<Object> SHUTDOWN = new Pending<>(null, null);
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final String tableName;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong groupCount = new AtomicLong();
+    private final AtomicLong rowCount = new AtomicLong();
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private long maxDelayNanos = DEFAULT_MAX_DELAY.toNanos();
+    private Thread flusher;
+    private volatile boolean closed;
+
+    public GroupCommitInserter(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableName = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType)).tableName();
+    }
+
+    /**
+     * Sets the maximum number of rows written per group commit.
+     */
+    public synchronized GroupCommitInserter<T> maxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than 0, but was: " + maxBatchSize);
+        }
+        requireNotStarted();
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Sets how long the flusher waits for more rows after the first row of a group arrives.
+     */
+    public synchronized GroupCommitInserter<T> maxDelay(Duration maxDelay) {
+        if (maxDelay == null || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Max delay must not be negative, but was: " + maxDelay);
+        }
+        requireNotStarted();
+        this.maxDelayNanos = maxDelay.toNanos();
+        return this;
+    }
+
+    /**
+     * Inserts the entity as part of the next group commit and waits until it is committed.
+     *
+     * @param entity the entity to insert
+     * @return 1 when the row was inserted
+     * @throws MapperException or the original runtime exception if this row could not be inserted
+     * @throws IllegalStateException if the inserter is closed
+     */
+    public int insert(T entity) {
+        Pending<T> pending = new Pending<>(entity, new CompletableFuture<>());
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("GroupCommitInserter for " + tableName + " is closed");
+            }
+            if (flusher == null) {
+                flusher = new Thread(this::run, "ems-group-commit-" + tableName);
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            queue.add(pending);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new MapperException("Group insert into " + tableName + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Number of group commits executed so far. */
+    public long groupCount() {
+        return groupCount.get();
+    }
+
+    /** Number of rows written so far. */
+    public long rowCount() {
+        return rowCount.get();
+    }
+
+    /**
+     * Stops accepting inserts, writes the rows already queued and stops the flusher thread.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+            queue.add(SHUTDOWN);
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void requireNotStarted() {
+        if (flusher != null) {
+            throw new IllegalStateException("GroupCommitInserter settings cannot change after the first insert");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run() {
+        List<Pending<T>> group = new ArrayList<>(maxBatchSize);
+        boolean shutdown = false;
+        try {
+            while (!shutdown) {
+                try {
+                    Pending<?> next = queue.take();
+                    long deadline = System.nanoTime() + maxDelayNanos;
+                    while (next != null) {
+                        if (next == SHUTDOWN) {
+                            shutdown = true;
+                            break;
+                        }
+                        group.add((Pending<T>) next);
+                        if (group.size() == maxBatchSize) {
+                            break;
+                        }
+                        next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    shutdown = true;
+                }
+                if (!group.isEmpty()) {
+                    flush(group);
+                    group.clear();
+                }
+            }
+        } finally {
+            // Interrupted or failed with an Error: no caller may wait for a flusher that is gone
+            synchronized (this) {
+                closed = true;
+            }
+            IllegalStateException stopped = new IllegalStateException(
+                    "GroupCommitInserter for " + tableName + " stopped before the row was written");
+            group.forEach(p -> p.result().completeExceptionally(stopped));
+            for (Pending<?> pending; (pending = queue.poll()) != null; ) {
+                if (pending != SHUTDOWN) {
+                    pending.result().completeExceptionally(stopped);
+                }
+            }
+        }
+    }
+
+    private void flush(List<Pending<T>> group) {
+        List<T> entities = group.stream().map(Pending::entity).toList();
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            session.getMapper(mapperType).insertBatch(entities);
+            session.commit();
+            groupCount.incrementAndGet();
+            rowCount.addAndGet(group.size());
+            group.forEach(p -> p.result().complete(1));
+            return;
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).result().completeExceptionally(e);
+                return;
+            }
+        }
+
+        for (Pending<T> pending : group) {
+            try (SqlSession session = sqlSessionFactory.openSession(false)) {
+                int rows = session.getMapper(mapperType).insert(pending.entity());
+                session.commit();
+                groupCount.incrementAndGet();
+                rowCount.addAndGet(rows);
+                pending.result().complete(rows);
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+}
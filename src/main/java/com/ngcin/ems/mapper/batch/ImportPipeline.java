@@ -0,0 +1,255 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams NDJSON or CSV files into a table without loading them into memory.
+ *
+ * <p>The file is read through a sliding memory-mapped window and parsed on the calling thread.
+ * Parsed entities are grouped into batches and handed over a bounded queue to a single writer
+ * thread, which inserts each batch with {@link BaseMapper#insertBatch} and commits it. When the
+ * writer falls behind, the parser blocks on the full queue, so memory stays bounded by
+ * {@code queueCapacity * batchSize} entities regardless of file size.
+ *
+ * <p>Records that cannot be parsed or converted are passed to the {@link RejectHandler} with
+ * their line number and skipped. A failing database write aborts the import with a
+ * {@link MapperException}; batches committed before the failure remain in the table.
+ *
+ * <pre>{@code
+ * ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+ *         .batchSize(500)
+ *         .onReject((line, raw, cause) -> log.warn("line {}: {}", line, cause.getMessage()))
+ *         .importNdjson(Path.of("users.ndjson"));
+ * }</pre>
+ *
+ * @param <T> the entity type
+ */
+public class ImportPipeline<T> {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+    public static final int DEFAULT_MAX_RECORD_LENGTH = 1 << 20;
+
+    private static final List<Object> END_OF_INPUT = new ArrayList<>();
+
+    /**
+     * Receives records rejected by the parser.
+     */
+    @FunctionalInterface
+    public interface RejectHandler {
+        void reject(long lineNumber, String raw, Exception cause);
+    }
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private int windowSize = MappedLineReader.DEFAULT_WINDOW_SIZE;
+    private int maxRecordLength = DEFAULT_MAX_RECORD_LENGTH;
+    private RejectHandler rejectHandler = (lineNumber, raw, cause) -> {};
+    private Consumer<ImportResult> progressListener = result -> {};
+
+    public ImportPipeline(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+    }
+
+    /**
+     * Sets the number of rows per insertBatch call and commit.
+     */
+    public ImportPipeline<T> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0, but was: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of parsed batches that may wait for the writer.
+     */
+    public ImportPipeline<T> queueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be greater than 0, but was: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the size of the memory-mapped window in bytes; must exceed the longest record.
+     */
+    public ImportPipeline<T> windowSize(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be greater than 0, but was: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length in characters of a CSV record spanning several lines; a longer
+     * record is rejected. Bounds the memory taken by an unterminated quoted field.
+     */
+    public ImportPipeline<T> maxRecordLength(int maxRecordLength) {
+        if (maxRecordLength <= 0) {
+            throw new IllegalArgumentException("Max record length must be greater than 0, but was: " + maxRecordLength);
+        }
+        this.maxRecordLength = maxRecordLength;
+        return this;
+    }
+
+    public ImportPipeline<T> onReject(RejectHandler rejectHandler) {
+        this.rejectHandler = rejectHandler;
+        return this;
+    }
+
+    /**
+     * Registers a listener called on the writer thread after each committed batch.
+     */
+    public ImportPipeline<T> onProgress(Consumer<ImportResult> progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Imports a newline-delimited JSON file, one object per line.
+     */
+    public ImportResult importNdjson(Path file) {
+        try (MappedLineReader reader = new MappedLineReader(file, windowSize)) {
+            return run(new NdjsonRecordParser(tableInfo, reader));
+        } catch (IOException e) {
+            throw new MapperException("Import of " + file + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Imports a CSV file whose first row names the columns.
+     */
+    public ImportResult importCsv(Path file) {
+        try (MappedLineReader reader = new MappedLineReader(file, windowSize)) {
+            return run(new CsvRecordParser(tableInfo, reader, maxRecordLength));
+        } catch (IOException e) {
+            throw new MapperException("Import of " + file + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private ImportResult run(RecordParser parser) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong written = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Thread writer = new Thread(() -> write(queue, start, written, rejected, failure),
+                "ems-import-" + tableInfo.tableName());
+        writer.setDaemon(true);
+        writer.start();
+
+        boolean finished = false;
+        try {
+            List<Object> batch = new ArrayList<>(batchSize);
+            RecordParser.ParsedRecord record;
+            while (failure.get() == null && (record = parser.next()) != null) {
+                if (record.rejected()) {
+                    rejected.incrementAndGet();
+                    rejectHandler.reject(record.lineNumber(), record.raw(), record.error());
+                    continue;
+                }
+                batch.add(record.entity());
+                if (batch.size() == batchSize) {
+                    enqueue(queue, batch, failure);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                enqueue(queue, batch, failure);
+            }
+            enqueue(queue, END_OF_INPUT, failure);
+            writer.join();
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MapperException("Import into " + tableInfo.tableName() + " was interrupted", e);
+        } finally {
+            if (!finished) {
+                // Parsing or the reject handler failed: stop the writer and wait for its session to close
+                stop(writer);
+            }
+        }
+
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new MapperException("Import into " + tableInfo.tableName() + " failed after "
+                    + written.get() + " rows: " + cause.getMessage(), cause);
+        }
+        return new ImportResult(written.get(), rejected.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Interrupts the writer and waits until it has exited, keeping the caller's interrupt status.
+     */
+    private static void stop(Thread writer) {
+        writer.interrupt();
+        boolean interrupted = Thread.interrupted();
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Offers a batch, giving up once the writer has failed so the parser never blocks on a dead queue.
+     */
+    private static void enqueue(BlockingQueue<List<Object>> queue, List<Object> batch,
+                                AtomicReference<Throwable> failure) throws InterruptedException {
+        while (failure.get() == null) {
+            if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(BlockingQueue<List<Object>> queue, long start, AtomicLong written,
+                       AtomicLong rejected, AtomicReference<Throwable> failure) {
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            BaseMapper<T> mapper = session.getMapper(mapperType);
+            List<Object> batch;
+            while ((batch = queue.take()) != END_OF_INPUT) {
+                written.addAndGet(mapper.insertBatch((List<T>) batch));
+                session.commit();
+                progressListener.accept(new ImportResult(written.get(), rejected.get(), System.nanoTime() - start));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+}
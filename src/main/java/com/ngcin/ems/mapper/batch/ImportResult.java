@@ -0,0 +1,16 @@
+package com.ngcin.ems.mapper.batch;
+
+/**
+ * Progress or outcome of an {@link ImportPipeline} run.
+ *
+ * @param rowsWritten rows written to the database so far
+ * @param rejected records rejected by the parser so far
+ * @param elapsedNanos time since the import started
+ */
+public record ImportResult(long rowsWritten, long rejected, long elapsedNanos) {
+
+    /** Write throughput since the import started. */
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsWritten * 1_000_000_000d / elapsedNanos;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ngcin.ems.mapper.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads UTF-8 lines from a file through a sliding memory-mapped window.
+ *
+ * <p>Only one window is mapped at a time and file pages live in the OS page cache, so heap use
+ * is bounded by the longest line rather than the file size. A line crossing the window end is
+ * re-read from a window starting at that line; windows grow only for lines longer than a window.
+ * Mapped windows are released by the garbage collector. Not thread-safe.
+ */
+final class MappedLineReader implements Closeable {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private long windowSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+    private long lineNumber;
+    private byte[] scratch = new byte[1024];
+
+    MappedLineReader(Path file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedLineReader(Path file, int windowSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        skipByteOrderMark();
+    }
+
+    /**
+     * Returns the 1-based number of the line last returned by {@link #readLine()}.
+     */
+    long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Reads the next line without its terminator ("\n" or "\r\n").
+     *
+     * @return the line, or null at end of file
+     */
+    String readLine() throws IOException {
+        if (position >= size) {
+            return null;
+        }
+        while (true) {
+            if (window == null || position < windowStart || position >= windowStart + window.limit()) {
+                map(position);
+            }
+            int start = (int) (position - windowStart);
+            int limit = window.limit();
+            int end = start;
+            while (end < limit && window.get(end) != '\n') {
+                end++;
+            }
+
+            boolean atEof = windowStart + limit >= size;
+            if (end < limit || atEof) {
+                position = windowStart + end + 1;
+                lineNumber++;
+                int length = end - start;
+                if (length > 0 && window.get(end - 1) == '\r') {
+                    length--;
+                }
+                return decode(start, length);
+            }
+
+            // Line crosses the window end: remap from its start, growing for very long lines
+            if (start == 0) {
+                windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+            }
+            map(position);
+        }
+    }
+
+    private String decode(int start, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void map(long from) throws IOException {
+        long length = Math.min(windowSize, size - from);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        windowStart = from;
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (size >= 3) {
+            map(0);
+            if ((window.get(0) & 0xFF) == 0xEF && (window.get(1) & 0xFF) == 0xBB && (window.get(2) & 0xFF) == 0xBF) {
+                position = 3;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
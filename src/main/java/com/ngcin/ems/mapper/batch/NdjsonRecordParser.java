@@ -0,0 +1,76 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.ngcin.ems.mapper.json.JsonFieldValues;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.io.IOException;
+
+/**
+ * Parses newline-delimited JSON, one object per line. Top-level keys are bound to entity
+ * fields; unknown keys are skipped.
+ *
+ * <p>Nested objects and arrays bound to JSON fields are cut out of the line as raw text and
+ * handed to {@link JsonFieldValues}, so {@code JsonNodeValue} and {@code TreeNode} fields are
+ * stored without being parsed into a tree and re-serialized. A string value bound to a JSON field
+ * is taken as the JSON document itself (the usual shape of JSON columns in DB exports).
+ */
+final class NdjsonRecordParser extends RecordParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    NdjsonRecordParser(TableInfo tableInfo, MappedLineReader reader) {
+        super(tableInfo, reader);
+    }
+
+    @Override
+    ParsedRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        long lineNumber = reader.lineNumber();
+        try (JsonParser parser = JSON_FACTORY.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            Object entity = newEntity();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                TableFieldInfo field = field(parser.getCurrentName());
+                JsonToken token = parser.nextToken();
+                if (field == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                assign(entity, field, readValue(parser, token, line, field));
+            }
+            return new ParsedRecord(lineNumber, line, entity, null);
+        } catch (Exception e) {
+            return new ParsedRecord(lineNumber, line, null, e);
+        }
+    }
+
+    private Object readValue(JsonParser parser, JsonToken token, String line, TableFieldInfo field) throws IOException {
+        Class<?> type = field.getPropertyType();
+        if (token == JsonToken.VALUE_NULL) {
+            return ValueConverter.convert(null, type);
+        }
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            if (!JsonFieldValues.isJsonType(type)) {
+                throw new IllegalArgumentException("Field " + field.getProperty() + " cannot hold a JSON " + token);
+            }
+            int start = (int) parser.getTokenLocation().getCharOffset();
+            parser.skipChildren();
+            int end = (int) parser.getCurrentLocation().getCharOffset();
+            return JsonFieldValues.fromRaw(line.substring(start, end), type);
+        }
+        return ValueConverter.convert(parser.getText(), type);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Parses records of an import file into entities, binding names to fields by
+ * {@code TableInfo} column name or property name (case-insensitive).
+ */
+abstract class RecordParser {
+
+    /**
+     * One parsed record: either an entity or the reason it was rejected.
+     */
+    record ParsedRecord(long lineNumber, String raw, Object entity, Exception error) {
+        boolean rejected() {
+            return error != null;
+        }
+    }
+
+    protected final MappedLineReader reader;
+    private final Map<String, TableFieldInfo> fieldsByName = new HashMap<>();
+    private final Constructor<?> constructor;
+
+    protected RecordParser(TableInfo tableInfo, MappedLineReader reader) {
+        this.reader = reader;
+        for (TableFieldInfo field : tableInfo.fields()) {
+            fieldsByName.put(field.column().toLowerCase(Locale.ROOT), field);
+            fieldsByName.putIfAbsent(field.getProperty().toLowerCase(Locale.ROOT), field);
+        }
+        try {
+            this.constructor = tableInfo.entityClass().getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Entity " + tableInfo.entityClass().getName()
+                    + " needs a no-arg constructor to be imported", e);
+        }
+    }
+
+    /**
+     * Parses the next record.
+     *
+     * @return the parsed record, or null at end of input
+     * @throws IOException if the file cannot be read
+     */
+    abstract ParsedRecord next() throws IOException;
+
+    /**
+     * Looks up the field for a column or property name.
+     *
+     * @return the field, or null if the name is not mapped
+     */
+    protected TableFieldInfo field(String name) {
+        return fieldsByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    protected Object newEntity() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    protected void assign(Object entity, TableFieldInfo field, Object value) {
+        EntityInitializer.INSTANCE.assign(field, entity, value);
+    }
+}
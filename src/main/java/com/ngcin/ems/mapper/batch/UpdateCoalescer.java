@@ -0,0 +1,329 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import java.lang.reflect.Constructor;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent {@link BaseMapper#updateSelectiveById} calls on hot rows.
+ *
+ * <p>Updates arriving within {@code window} of each other are grouped by id. Updates of the same
+ * id are merged into one entity, field by field in arrival order, with the non-null semantics of
+ * {@code updateSelectiveById} (the last non-null value of a field wins), and written with a single
+ * UPDATE. Each caller blocks until the window is committed and receives the row count of the
+ * UPDATE its change was part of.
+ *
+ * <p>For entities with {@code @Version}, callers get exactly the outcome they would get if the
+ * updates ran one by one in arrival order: an update expecting the same version as the update
+ * directly before it can never succeed and returns 0 without a statement, updates expecting
+ * different versions run as separate UPDATEs in order. Updates are never merged across versions.
+ *
+ * <p>Updates run on the coalescer's own connection, not in the caller's transaction.
+ *
+ * @param <T> the entity type
+ */
+public class UpdateCoalescer<T> implements AutoCloseable {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(5);
+
+    private record Pending<T>(T entity, CompletableFuture<Integer> result) {}
+
+    /**
+     * Updates of one id that are written with one UPDATE.
+     */
+    private static final class Group<T> {
+        final Object version;
+        final T merged;
+        final List<Pending<T>> callers = new ArrayList<>();
+
+        Group(Object version, T merged) {
+            this.version = version;
+            this.merged = merged;
+        }
+    }
+
+    private static final Pending<Object> SHUTDOWN = new Pending<>(null, null);
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private final Constructor<?> constructor;
+    private final BlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong statementCount = new AtomicLong();
+    private final AtomicLong conflictCount = new AtomicLong();
+    private long windowNanos = DEFAULT_WINDOW.toNanos();
+    private Thread flusher;
+    private volatile boolean closed;
+
+    public UpdateCoalescer(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+        if (tableInfo.idField() == null) {
+            throw new MapperException("Entity " + tableInfo.entityClass().getSimpleName() + " must have an @Id field");
+        }
+        try {
+            this.constructor = tableInfo.entityClass().getDeclaredConstructor();
+            this.constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Entity " + tableInfo.entityClass().getName()
+                    + " needs a no-arg constructor to merge updates", e);
+        }
+    }
+
+    /**
+     * Sets how long updates are collected after the first update of a window arrives.
+     */
+    public synchronized UpdateCoalescer<T> window(Duration window) {
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("Window must not be negative, but was: " + window);
+        }
+        if (flusher != null) {
+            throw new IllegalStateException("UpdateCoalescer settings cannot change after the first update");
+        }
+        this.windowNanos = window.toNanos();
+        return this;
+    }
+
+    /**
+     * Applies the non-null fields of the entity to its row as part of the next window.
+     * The entity itself is not modified.
+     *
+     * @param entity the entity carrying the id, the changed fields and (if versioned) the expected version
+     * @return the number of rows updated: 1, or 0 if the row is missing or the version did not match
+     * @throws MapperException if the id or the version is null, or the UPDATE failed
+     * @throws IllegalStateException if the coalescer is closed
+     */
+    public int updateSelectiveById(T entity) {
+        if (EntityInitializer.INSTANCE.valueOf(tableInfo.idField(), entity) == null) {
+            throw new MapperException("id cannot be null");
+        }
+        if (tableInfo.hasVersion() && EntityInitializer.INSTANCE.valueOf(tableInfo.versionField(), entity) == null) {
+            throw new MapperException("Version field cannot be null for optimistic locking");
+        }
+
+        Pending<T> pending = new Pending<>(entity, new CompletableFuture<>());
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("UpdateCoalescer for " + tableInfo.tableName() + " is closed");
+            }
+            if (flusher == null) {
+                flusher = new Thread(this::run, "ems-update-coalescer-" + tableInfo.tableName());
+                flusher.setDaemon(true);
+                flusher.start();
+            }
+            queue.add(pending);
+        }
+        requestCount.incrementAndGet();
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new MapperException("Coalesced update of " + tableInfo.tableName() + " failed: "
+                    + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** Number of updates requested so far. */
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    /** Number of UPDATE statements executed so far. */
+    public long statementCount() {
+        return statementCount.get();
+    }
+
+    /** Number of versioned updates answered with 0 without a statement. */
+    public long conflictCount() {
+        return conflictCount.get();
+    }
+
+    /**
+     * Stops accepting updates, writes the ones already queued and stops the flusher thread.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+            queue.add(SHUTDOWN);
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run() {
+        List<Pending<T>> window = new ArrayList<>();
+        boolean shutdown = false;
+        try {
+            while (!shutdown) {
+                try {
+                    Pending<?> next = queue.take();
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (next != null) {
+                        if (next == SHUTDOWN) {
+                            shutdown = true;
+                            break;
+                        }
+                        window.add((Pending<T>) next);
+                        next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    shutdown = true;
+                }
+                if (!window.isEmpty()) {
+                    try {
+                        flush(group(window));
+                    } catch (Throwable e) {
+                        window.forEach(p -> p.result().completeExceptionally(e));
+                    }
+                    window.clear();
+                }
+            }
+        } finally {
+            // Interrupted or failed with an Error: no caller may wait for a flusher that is gone
+            synchronized (this) {
+                closed = true;
+            }
+            IllegalStateException stopped = new IllegalStateException(
+                    "UpdateCoalescer for " + tableInfo.tableName() + " stopped before the update was written");
+            window.forEach(p -> p.result().completeExceptionally(stopped));
+            for (Pending<?> pending; (pending = queue.poll()) != null; ) {
+                if (pending != SHUTDOWN) {
+                    pending.result().completeExceptionally(stopped);
+                }
+            }
+        }
+    }
+
+    /**
+     * Groups a window by id, preserving arrival order within each id.
+     */
+    private Map<Object, List<Group<T>>> group(List<Pending<T>> window) {
+        Map<Object, List<Group<T>>> groupsById = new LinkedHashMap<>();
+        for (Pending<T> pending : window) {
+            Object id = EntityInitializer.INSTANCE.valueOf(tableInfo.idField(), pending.entity());
+            Object version = tableInfo.hasVersion()
+                    ? EntityInitializer.INSTANCE.valueOf(tableInfo.versionField(), pending.entity())
+                    : null;
+            List<Group<T>> groups = groupsById.computeIfAbsent(id, k -> new ArrayList<>());
+            Group<T> last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+
+            if (last != null && Objects.equals(last.version, version)) {
+                if (tableInfo.hasVersion()) {
+                    // The update before it expected the same version: either it bumps the version or the
+                    // row never had it, so this one fails as it would when run alone
+                    conflictCount.incrementAndGet();
+                    pending.result().complete(0);
+                    continue;
+                }
+            } else {
+                last = new Group<>(version, newEntity(id, version));
+                groups.add(last);
+            }
+            merge(pending.entity(), last.merged);
+            last.callers.add(pending);
+        }
+        return groupsById;
+    }
+
+    private void flush(Map<Object, List<Group<T>>> groupsById) {
+        List<Group<T>> all = groupsById.values().stream().flatMap(List::stream).toList();
+        int[] results = new int[all.size()];
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            BaseMapper<T> mapper = session.getMapper(mapperType);
+            for (int i = 0; i < all.size(); i++) {
+                results[i] = mapper.updateSelectiveById(all.get(i).merged);
+                statementCount.incrementAndGet();
+            }
+            session.commit();
+            for (int i = 0; i < all.size(); i++) {
+                int rows = results[i];
+                all.get(i).callers.forEach(p -> p.result().complete(rows));
+            }
+            return;
+        } catch (RuntimeException e) {
+            if (groupsById.size() == 1 && all.size() == 1) {
+                all.get(0).callers.forEach(p -> p.result().completeExceptionally(e));
+                return;
+            }
+        }
+
+        // Retry id by id so that a failing row only fails its own callers
+        for (List<Group<T>> groups : groupsById.values()) {
+            try (SqlSession session = sqlSessionFactory.openSession(false)) {
+                BaseMapper<T> mapper = session.getMapper(mapperType);
+                int[] rows = new int[groups.size()];
+                for (int i = 0; i < groups.size(); i++) {
+                    rows[i] = mapper.updateSelectiveById(groups.get(i).merged);
+                    statementCount.incrementAndGet();
+                }
+                session.commit();
+                for (int i = 0; i < groups.size(); i++) {
+                    int count = rows[i];
+                    groups.get(i).callers.forEach(p -> p.result().complete(count));
+                }
+            } catch (RuntimeException e) {
+                groups.forEach(g -> g.callers.forEach(p -> p.result().completeExceptionally(e)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newEntity(Object id, Object version) {
+        try {
+            T entity = (T) constructor.newInstance();
+            EntityInitializer.INSTANCE.assign(tableInfo.idField(), entity, id);
+            if (tableInfo.hasVersion()) {
+                EntityInitializer.INSTANCE.assign(tableInfo.versionField(), entity, version);
+            }
+            return entity;
+        } catch (ReflectiveOperationException e) {
+            throw new MapperException("Failed to instantiate " + tableInfo.entityClass().getName(), e);
+        }
+    }
+
+    private void merge(T source, T target) {
+        for (TableFieldInfo field : tableInfo.getNonIdFields()) {
+            if (field.isVersion() || field.isDeleted()) {
+                continue;
+            }
+            Object value = EntityInitializer.INSTANCE.valueOf(field, source);
+            if (value != null) {
+                EntityInitializer.INSTANCE.assign(field, target, value);
+            }
+        }
+    }
+}
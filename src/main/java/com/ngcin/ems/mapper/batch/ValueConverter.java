@@ -0,0 +1,102 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.json.JsonFieldValues;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.util.UUID;
+
+/**
+ * Converts text values from import files into entity field types.
+ */
+final class ValueConverter {
+
+    /** Accepts both ISO "2024-01-31T10:15:30" and SQL "2024-01-31 10:15:30.123" timestamps. */
+    private static final DateTimeFormatter LOCAL_DATE_TIME = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').optionalEnd()
+            .optionalStart().appendLiteral(' ').optionalEnd()
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .parseDefaulting(ChronoField.NANO_OF_SECOND, 0)
+            .toFormatter();
+
+    private ValueConverter() {}
+
+    /**
+     * Converts text to the given type.
+     *
+     * @param text the text value, null for SQL NULL
+     * @param type the target field type
+     * @return the converted value
+     * @throws IllegalArgumentException if the text cannot be converted
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object convert(String text, Class<?> type) {
+        if (JsonFieldValues.isJsonType(type)) {
+            return JsonFieldValues.fromRaw(text, type);
+        }
+        if (text == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException("NULL for primitive type " + type.getName());
+            }
+            return null;
+        }
+        if (type == String.class) {
+            return text;
+        }
+
+        String value = text.trim();
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == Short.class || type == short.class) {
+            return Short.valueOf(value);
+        } else if (type == Byte.class || type == byte.class) {
+            return Byte.valueOf(value);
+        } else if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        } else if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        } else if (type == BigInteger.class) {
+            return new BigInteger(value);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return parseBoolean(value);
+        } else if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value, LOCAL_DATE_TIME);
+        } else if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        } else if (type == LocalTime.class) {
+            return LocalTime.parse(value);
+        } else if (type == OffsetDateTime.class) {
+            return OffsetDateTime.parse(value);
+        } else if (type == Instant.class) {
+            return Instant.parse(value);
+        } else if (type == UUID.class) {
+            return UUID.fromString(value);
+        } else if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        }
+        throw new IllegalArgumentException("Unsupported field type for import: " + type.getName());
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if ("1".equals(value) || "true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("0".equals(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+}
@@ -0,0 +1,377 @@
+package com.ngcin.ems.mapper.batch;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.core.IdType;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Asynchronous write-behind buffer for loss-tolerant inserts (telemetry, audit trails).
+ *
+ * <p>{@link #submit} initializes the entity like a regular insert (UUID/SNOWFLAKE ids, version
+ * and soft delete defaults), so the id can be referenced immediately, and puts it into a bounded
+ * lock-free ring buffer without waiting for the database. A flusher thread writes the buffer with
+ * {@link BaseMapper#insertBatch} once {@code flushSize} entities are queued or
+ * {@code flushInterval} has passed, committing each batch. AUTO ids are only known after the flush.
+ *
+ * <p>When the buffer is full, the {@link Backpressure} policy decides: block the caller, drop the
+ * entity, or spill it to a CSV file that can be replayed later with
+ * {@link ImportPipeline#importCsv}. Batches that fail to insert are passed to the flush error
+ * handler and, if a spill file is configured, spilled as well.
+ *
+ * <p>{@link #close()} stops accepting entities and flushes what is buffered;
+ * {@link #registerShutdownHook()} does the same on JVM shutdown.
+ *
+ * @param <T> the entity type
+ */
+public class WriteBehindBuffer<T> implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_FLUSH_SIZE = 500;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(100);
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * What {@link #submit} does when the ring buffer is full.
+     */
+    public enum Backpressure {
+        /** Wait until the flusher frees space. */
+        BLOCK,
+        /** Discard the entity and count it as dropped. */
+        DROP,
+        /** Append the entity to the spill file. */
+        SPILL
+    }
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private int capacity = DEFAULT_CAPACITY;
+    private int flushSize = DEFAULT_FLUSH_SIZE;
+    private long flushIntervalNanos = DEFAULT_FLUSH_INTERVAL.toNanos();
+    private Backpressure backpressure = Backpressure.BLOCK;
+    private Path spillFile;
+    private BiConsumer<List<T>, Exception> flushErrorHandler = (batch, e) ->
+            log.warn("Write-behind flush of {} rows failed: {}", batch.size(), e.getMessage());
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    /** submit() calls between their closed check and the end of their offer; close() waits for them. */
+    private final AtomicInteger activeSubmits = new AtomicInteger();
+    /** Serializes appends to the spill file without holding the instance monitor during I/O. */
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    private volatile MpscRingBuffer<T> ring;
+    private volatile Thread flusher;
+    private volatile boolean closed;
+    private Thread shutdownHook;
+    private CsvRowEncoder spillEncoder;
+
+    public WriteBehindBuffer(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+    }
+
+    /**
+     * Sets the ring buffer capacity (rounded up to a power of two).
+     */
+    public synchronized WriteBehindBuffer<T> capacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0, but was: " + capacity);
+        }
+        requireNotStarted();
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Sets the number of queued entities that triggers a flush; also the maximum batch size.
+     * Capped at the ring buffer capacity.
+     */
+    public synchronized WriteBehindBuffer<T> flushSize(int flushSize) {
+        if (flushSize <= 0) {
+            throw new IllegalArgumentException("Flush size must be greater than 0, but was: " + flushSize);
+        }
+        requireNotStarted();
+        this.flushSize = flushSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time an entity waits in the buffer before a flush.
+     */
+    public synchronized WriteBehindBuffer<T> flushInterval(Duration flushInterval) {
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive, but was: " + flushInterval);
+        }
+        requireNotStarted();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        return this;
+    }
+
+    public synchronized WriteBehindBuffer<T> backpressure(Backpressure backpressure) {
+        requireNotStarted();
+        this.backpressure = backpressure;
+        return this;
+    }
+
+    /**
+     * Sets the CSV file that receives spilled entities; required for {@link Backpressure#SPILL}.
+     * The file gets a header row when created and is appended to afterwards.
+     */
+    public synchronized WriteBehindBuffer<T> spillTo(Path spillFile) {
+        requireNotStarted();
+        this.spillFile = spillFile;
+        return this;
+    }
+
+    public synchronized WriteBehindBuffer<T> onFlushError(BiConsumer<List<T>, Exception> flushErrorHandler) {
+        requireNotStarted();
+        this.flushErrorHandler = flushErrorHandler;
+        return this;
+    }
+
+    /**
+     * Closes this buffer when the JVM shuts down, flushing buffered entities.
+     */
+    public synchronized WriteBehindBuffer<T> registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::close, "ems-write-behind-shutdown-" + tableInfo.tableName());
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        return this;
+    }
+
+    /**
+     * Queues the entity for insertion. Ids other than AUTO are generated before this returns.
+     *
+     * @param entity the entity to insert
+     * @return true if the entity was buffered or spilled, false if it was dropped
+     * @throws IllegalStateException if the buffer is closed
+     * @throws MapperException if the entity must be spilled and the spill file cannot be written
+     */
+    public boolean submit(T entity) {
+        MpscRingBuffer<T> buffer = ring != null ? ring : start();
+        activeSubmits.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("WriteBehindBuffer for " + tableInfo.tableName() + " is closed");
+            }
+            EntityInitializer.INSTANCE.initialize(entity, tableInfo);
+
+            while (!buffer.offer(entity)) {
+                switch (backpressure) {
+                    case DROP -> {
+                        dropped.incrementAndGet();
+                        return false;
+                    }
+                    case SPILL -> {
+                        spill(List.of(entity));
+                        return true;
+                    }
+                    default -> {
+                        if (closed) {
+                            throw new IllegalStateException("WriteBehindBuffer for " + tableInfo.tableName() + " is closed");
+                        }
+                        LockSupport.unpark(flusher);
+                        LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    }
+                }
+            }
+            submitted.incrementAndGet();
+        } finally {
+            activeSubmits.decrementAndGet();
+        }
+        if (buffer.size() >= flushSize) {
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    public WriteBehindStats stats() {
+        MpscRingBuffer<T> buffer = ring;
+        return new WriteBehindStats(
+                buffer == null ? 0 : buffer.size(),
+                buffer == null ? capacity : buffer.capacity(),
+                submitted.get(), written.get(), dropped.get(), spilled.get(), failed.get(),
+                flushes.get(), lastFlushNanos, maxFlushNanos);
+    }
+
+    /**
+     * Stops accepting entities, flushes everything buffered and stops the flusher thread.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+            if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException ignored) {
+                    // JVM is already shutting down
+                }
+            }
+        }
+        // A submit() that passed its closed check before close() may still be offering
+        while (activeSubmits.get() > 0) {
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            // The flusher may have seen closed before the last offers were visible
+            List<T> rest = new ArrayList<>();
+            while (ring.drain(rest, flushSize) > 0) {
+                flush(rest);
+                rest.clear();
+            }
+        }
+    }
+
+    private synchronized MpscRingBuffer<T> start() {
+        if (ring == null) {
+            if (backpressure == Backpressure.SPILL && spillFile == null) {
+                throw new IllegalStateException("Backpressure.SPILL requires a spill file");
+            }
+            ring = new MpscRingBuffer<>(capacity);
+            flushSize = Math.min(flushSize, ring.capacity());
+            Thread thread = new Thread(this::run, "ems-write-behind-" + tableInfo.tableName());
+            thread.setDaemon(true);
+            flusher = thread;
+            thread.start();
+        }
+        return ring;
+    }
+
+    private void requireNotStarted() {
+        if (ring != null) {
+            throw new IllegalStateException("WriteBehindBuffer settings cannot change after the first submit");
+        }
+    }
+
+    private void run() {
+        List<T> batch = new ArrayList<>(flushSize);
+        long lastFlush = System.nanoTime();
+        while (true) {
+            boolean stopping = closed;
+            long waited = System.nanoTime() - lastFlush;
+            int depth = ring.size();
+            if (depth >= flushSize || (depth > 0 && (stopping || waited >= flushIntervalNanos))) {
+                ring.drain(batch, flushSize);
+                flush(batch);
+                batch.clear();
+                lastFlush = System.nanoTime();
+            } else if (stopping && depth == 0) {
+                return;
+            } else {
+                LockSupport.parkNanos(this, Math.max(flushIntervalNanos - waited, BLOCK_PARK_NANOS));
+            }
+        }
+    }
+
+    private void flush(List<T> batch) {
+        long start = System.nanoTime();
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            written.addAndGet(session.getMapper(mapperType).insertBatch(batch));
+            session.commit();
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            if (spillFile != null) {
+                try {
+                    spill(batch);
+                } catch (RuntimeException spillFailure) {
+                    e.addSuppressed(spillFailure);
+                }
+            }
+            try {
+                flushErrorHandler.accept(List.copyOf(batch), e);
+            } catch (RuntimeException handlerFailure) {
+                log.warn("Write-behind flush error handler failed", handlerFailure);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushes.incrementAndGet();
+            lastFlushNanos = elapsed;
+            if (elapsed > maxFlushNanos) {
+                maxFlushNanos = elapsed;
+            }
+        }
+    }
+
+    private void spill(List<T> entities) {
+        spillLock.lock();
+        try {
+            boolean newFile = Files.notExists(spillFile) || Files.size(spillFile) == 0;
+            if (spillEncoder == null) {
+                spillEncoder = new CsvRowEncoder(spillFields(), sqlSessionFactory.getConfiguration().getTypeHandlerRegistry(), "");
+            }
+            StringBuilder out = new StringBuilder();
+            if (newFile) {
+                out.append(String.join(",", spillFields().stream().map(TableFieldInfo::column).toList())).append('\n');
+            }
+            for (T entity : entities) {
+                spillEncoder.encode(entity, out);
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.append(out);
+            }
+            spilled.addAndGet(entities.size());
+        } catch (IOException e) {
+            throw new MapperException("Failed to spill " + entities.size() + " rows of " + tableInfo.tableName()
+                    + " to " + spillFile + ": " + e.getMessage(), e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    private List<TableFieldInfo> spillFields() {
+        List<TableFieldInfo> fields = new ArrayList<>();
+        if (tableInfo.idField() != null && tableInfo.idField().idType() != IdType.AUTO) {
+            fields.add(tableInfo.idField());
+        }
+        fields.addAll(tableInfo.getNonIdFields());
+        return fields;
+    }
+}
@@ -0,0 +1,29 @@
+package com.ngcin.ems.mapper.batch;
+
+/**
+ * Snapshot of {@link WriteBehindBuffer} metrics.
+ *
+ * @param queueDepth entities waiting in the ring buffer
+ * @param capacity ring buffer capacity
+ * @param submitted entities accepted into the buffer
+ * @param written rows written by the flusher
+ * @param dropped entities discarded by the DROP policy
+ * @param spilled entities written to the spill file (full buffer or failed flush)
+ * @param failed rows whose flush failed (spilled when a spill file is configured, otherwise lost)
+ * @param flushes number of flushes executed
+ * @param lastFlushNanos duration of the most recent flush
+ * @param maxFlushNanos longest flush so far
+ */
+public record WriteBehindStats(
+    int queueDepth,
+    int capacity,
+    long submitted,
+    long written,
+    long dropped,
+    long spilled,
+    long failed,
+    long flushes,
+    long lastFlushNanos,
+    long maxFlushNanos
+) {
+}
@@ -0,0 +1,21 @@
+package com.ngcin.ems.mapper.cache;
+
+/**
+ * Counters of one cached entity type.
+ *
+ * @param hits         lookups answered with a cached entity
+ * @param negativeHits lookups answered with a cached "not found"
+ * @param misses       lookups that went to the database
+ * @param evictions    entries evicted for size
+ * @param size         current number of entries
+ */
+public record CacheStats(long hits, long negativeHits, long misses, long evictions, long size) {
+
+    /**
+     * Returns the share of lookups answered from the cache, or 0 if there were none.
+     */
+    public double hitRatio() {
+        long requests = hits + negativeHits + misses;
+        return requests == 0 ? 0 : (double) (hits + negativeHits) / requests;
+    }
+}
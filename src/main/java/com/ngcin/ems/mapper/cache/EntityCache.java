@@ -0,0 +1,49 @@
+package com.ngcin.ems.mapper.cache;
+
+/**
+ * Bounded key-value store behind the second-level entity cache, one per cached entity type.
+ *
+ * <p>Implementations must be thread-safe. Values are opaque to the store; expiry is per entry.
+ *
+ * @see TinyLfuCache
+ * @see EntityCacheFactory
+ */
+public interface EntityCache {
+
+    /**
+     * Returns the value of a live entry.
+     *
+     * @param key the key
+     * @return the value, or null if absent or expired
+     */
+    Object get(Object key);
+
+    /**
+     * Adds or replaces an entry.
+     *
+     * @param key       the key
+     * @param value     the value, not null
+     * @param ttlNanos  time to live of the entry in nanoseconds
+     */
+    void put(Object key, Object value, long ttlNanos);
+
+    /**
+     * Removes an entry if present.
+     */
+    void invalidate(Object key);
+
+    /**
+     * Removes all entries.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns the number of entries, possibly including expired ones not yet removed.
+     */
+    long size();
+
+    /**
+     * Returns the number of entries evicted for size so far.
+     */
+    long evictionCount();
+}
@@ -0,0 +1,20 @@
+package com.ngcin.ems.mapper.cache;
+
+/**
+ * Creates the {@link EntityCache} stores of the second-level entity cache. Configure a custom
+ * factory with the {@code factory} property of {@link EntityCacheInterceptor} to plug in another
+ * cache library.
+ */
+@FunctionalInterface
+public interface EntityCacheFactory {
+
+    /**
+     * Creates a store.
+     *
+     * @param entityClass the cached entity type
+     * @param name        the store name ({@code "id"} or {@code "unique"})
+     * @param maximumSize the maximum number of entries
+     * @return a new, empty store
+     */
+    EntityCache create(Class<?> entityClass, String name, int maximumSize);
+}
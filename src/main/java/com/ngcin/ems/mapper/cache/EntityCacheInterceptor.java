@@ -0,0 +1,465 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.annotations.Cached;
+import com.ngcin.ems.mapper.core.MapperConsts;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Second-level entity cache for {@link Cached} entities, shared by all sessions.
+ *
+ * <p>Serves from memory:
+ * <ul>
+ *   <li>{@code getById}, including ids known to be missing (negative entries);</li>
+ *   <li>{@code selectBatchIds}, querying only the ids that are not cached, in one statement;</li>
+ *   <li>{@code selectOne} whose query entity sets exactly one field and that field is
+ *       {@code @Unique}.</li>
+ * </ul>
+ * The cache holds copies of the field values, and every hit builds a new entity instance, so
+ * callers can modify what they get without affecting the cache.
+ *
+ * <p>Every BaseMapper write invalidates the ids it touches ({@code delete} / {@code hardDelete}
+ * by conditions and custom statements of the mapper invalidate the whole type; statements of
+ * other mappers invalidate everything). The invalidation is repeated on commit and rollback so
+ * that values read by other sessions while the transaction was open do not survive it. Until
+ * then, the writing session bypasses the cache for the types it wrote, so its uncommitted rows
+ * are never shared.
+ *
+ * <p>In a cluster, register it as listener of an {@link InvalidationBus} so that writes of other
+ * nodes are dropped too.
+ *
+ * <p>Register it after the unit-of-work interceptor so that deferred writes are seen, and before
+ * the identity map interceptor.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class EntityCacheInterceptor implements Interceptor, InvalidationListener {
+
+    private static final Object NOT_FOUND = new Object();
+
+    private volatile EntityCacheFactory factory = (entityClass, name, maximumSize) -> new TinyLfuCache(maximumSize);
+    private final Map<Class<?>, Optional<Region>> regions = new ConcurrentHashMap<>();
+    private final Map<Executor, Map<Region, Set<String>>> touched = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        return switch (invocation.getMethod().getName()) {
+            case "query" -> query(invocation);
+            case "update" -> update(executor, invocation);
+            default -> {
+                try {
+                    yield invocation.proceed();
+                } finally {
+                    Map<Region, Set<String>> written = touched.remove(executor);
+                    if (written != null) {
+                        written.forEach(Region::invalidate);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the counters of a cached entity type.
+     *
+     * @throws IllegalArgumentException if the type is not {@link Cached}
+     */
+    public CacheStats stats(Class<?> entityClass) {
+        return region(entityClass)
+                .orElseThrow(() -> new IllegalArgumentException(entityClass.getName() + " is not @Cached"))
+                .stats();
+    }
+
+    /**
+     * Drops every cached entry, e.g. after the tables were changed outside this application.
+     */
+    public void invalidateAll() {
+        regions.values().forEach(region -> region.ifPresent(r -> r.invalidate(null)));
+    }
+
+    /**
+     * Drops the rows another node wrote; register the interceptor with
+     * {@link InvalidationBus#addListener}.
+     */
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        boolean allTypes = InvalidationEvent.ALL_TYPES.equals(event.entityClass());
+        regions.forEach((type, region) -> {
+            if (region.isPresent() && (allTypes || type.getName().equals(event.entityClass()))) {
+                region.get().invalidate(allTypes ? null : event.ids());
+            }
+        });
+    }
+
+    private Optional<Region> region(Class<?> entityClass) {
+        return regions.computeIfAbsent(entityClass, type -> {
+            Cached cached = type.getAnnotation(Cached.class);
+            TableInfo tableInfo = cached == null ? null : EntityClassResolver.resolve(type);
+            return tableInfo == null || tableInfo.idField() == null
+                    ? Optional.empty()
+                    : Optional.of(new Region(tableInfo, cached, factory));
+        });
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    private Object query(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        Region region = tableInfo == null ? null : region(tableInfo.entityClass()).orElse(null);
+        if (region == null || !(invocation.getArgs()[1] instanceof Map<?, ?> params)) {
+            return invocation.proceed();
+        }
+        Map<Region, Set<String>> written = touched.get((Executor) invocation.getTarget());
+        if (written != null && written.containsKey(region)) {
+            // The transaction sees its own uncommitted writes, which must not be shared
+            return invocation.proceed();
+        }
+        return switch (ms.getId().substring(ms.getId().lastIndexOf('.') + 1)) {
+            case "getById" -> getById(region, invocation, params);
+            case "selectBatchIds" -> selectBatchIds(region, invocation, params);
+            case "selectOne" -> selectOne(region, invocation, params);
+            default -> invocation.proceed();
+        };
+    }
+
+    private Object getById(Region region, Invocation invocation, Map<?, ?> params) throws Throwable {
+        Object id = params.get("id");
+        if (id == null) {
+            return invocation.proceed();
+        }
+        String key = WrittenRows.key(id);
+        Object cached = region.byId.get(key);
+        if (cached != null) {
+            return region.hit(cached);
+        }
+        region.misses.increment();
+        long generation = region.generation.get();
+        List<?> result = (List<?>) invocation.proceed();
+        if (result.size() <= 1) {
+            region.store(key, result.isEmpty() ? null : result.get(0), generation);
+        }
+        return result;
+    }
+
+    private Object selectBatchIds(Region region, Invocation invocation, Map<?, ?> params) throws Throwable {
+        if (!(params.get("ids") instanceof Collection<?> ids) || ids.isEmpty()) {
+            return invocation.proceed();
+        }
+        List<Object> found = new ArrayList<>();
+        List<Object> missing = new ArrayList<>();
+        boolean answered = false;
+        for (Object id : new LinkedHashSet<>(ids)) {
+            Object cached = id == null ? null : region.byId.get(WrittenRows.key(id));
+            if (cached == null) {
+                missing.add(id);
+                continue;
+            }
+            answered = true;
+            found.addAll(region.hit(cached));
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+        region.misses.add(missing.size());
+        if (answered) {
+            // Query only the ids that are not cached
+            MapperMethod.ParamMap<Object> missingParams = new MapperMethod.ParamMap<>();
+            for (Map.Entry<?, ?> entry : params.entrySet()) {
+                missingParams.put((String) entry.getKey(), entry.getValue());
+            }
+            missingParams.put("ids", missing);
+            missingParams.put("param1", missing);
+            invocation.getArgs()[1] = missingParams;
+        }
+        long generation = region.generation.get();
+        List<?> result = (List<?>) invocation.proceed();
+
+        Set<String> notFound = new HashSet<>();
+        for (Object id : missing) {
+            if (id != null) {
+                notFound.add(WrittenRows.key(id));
+            }
+        }
+        for (Object entity : result) {
+            String key = region.idOf(entity);
+            if (key != null) {
+                notFound.remove(key);
+                region.store(key, entity, generation);
+            }
+        }
+        for (String key : notFound) {
+            region.store(key, null, generation);
+        }
+        if (found.isEmpty()) {
+            return result;
+        }
+        found.addAll(result);
+        return found;
+    }
+
+    private Object selectOne(Region region, Invocation invocation, Map<?, ?> params) throws Throwable {
+        Object query = params.get(MapperConsts.ENTITY_WHERE);
+        Object uniqueKey = query == null ? null : region.uniqueKey(query);
+        if (uniqueKey == null) {
+            return invocation.proceed();
+        }
+        Object idKey = region.byUnique.get(uniqueKey);
+        if (idKey == NOT_FOUND) {
+            return region.hit(NOT_FOUND);
+        }
+        if (idKey != null) {
+            Object cached = region.byId.get(idKey);
+            if (cached instanceof Object[] state && region.matches(state, uniqueKey)) {
+                return region.hit(cached);
+            }
+            region.byUnique.invalidate(uniqueKey);
+        }
+        region.misses.increment();
+        long generation = region.generation.get();
+        List<?> result = (List<?>) invocation.proceed();
+        if (result.size() == 1) {
+            String key = region.idOf(result.get(0));
+            if (key != null && region.store(key, result.get(0), generation)) {
+                region.storeUnique(uniqueKey, key, generation);
+            }
+        } else if (result.isEmpty()) {
+            region.storeUnique(uniqueKey, NOT_FOUND, generation);
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    private Object update(Executor executor, Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        try {
+            return invocation.proceed();
+        } finally {
+            // Ids of inserted entities are only known after the statement ran
+            TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+            if (tableInfo == null) {
+                for (Optional<Region> region : regions.values()) {
+                    region.ifPresent(r -> invalidate(executor, r, null));
+                }
+            } else {
+                Region region = region(tableInfo.entityClass()).orElse(null);
+                if (region != null) {
+                    String method = ms.getId().substring(ms.getId().lastIndexOf('.') + 1);
+                    invalidate(executor, region, WrittenRows.ids(tableInfo, method, parameter));
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates now and again when the executor's transaction ends.
+     *
+     * @param keys the id keys to invalidate, or null for the whole region
+     */
+    private void invalidate(Executor executor, Region region, Set<String> keys) {
+        region.invalidate(keys);
+        Map<Region, Set<String>> written = touched.computeIfAbsent(executor, e -> new HashMap<>());
+        if (keys == null) {
+            written.put(region, null);
+        } else if (!written.containsKey(region)) {
+            written.put(region, new HashSet<>(keys));
+        } else if (written.get(region) != null) {
+            written.get(region).addAll(keys);
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * Supports the {@code factory} property: the class name of an {@link EntityCacheFactory}
+     * with a public no-arg constructor.
+     */
+    @Override
+    public void setProperties(Properties properties) {
+        String factoryClass = properties.getProperty("factory");
+        if (factoryClass != null && !factoryClass.isBlank()) {
+            try {
+                this.factory = (EntityCacheFactory) Class.forName(factoryClass.trim())
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("Invalid entity cache factory: " + factoryClass, e);
+            }
+        }
+    }
+
+    /**
+     * Cached state of one entity type: id entries (field state or {@link #NOT_FOUND}) and
+     * unique-field entries (id key or {@link #NOT_FOUND}).
+     */
+    private static final class Region {
+
+        final TableInfo tableInfo;
+        final EntityCache byId;
+        final EntityCache byUnique;
+        final long ttlNanos;
+        final long negativeTtlNanos;
+        final Constructor<?> constructor;
+        /** Incremented by every invalidation, so loads that raced a write are not stored. */
+        final AtomicLong generation = new AtomicLong();
+        /** Makes the generation check and the put of a store atomic with an invalidation. */
+        private final ReentrantLock lock = new ReentrantLock();
+        final LongAdder hits = new LongAdder();
+        final LongAdder negativeHits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        Region(TableInfo tableInfo, Cached cached, EntityCacheFactory factory) {
+            Class<?> entityClass = tableInfo.entityClass();
+            this.tableInfo = tableInfo;
+            this.byId = factory.create(entityClass, "id", cached.maximumSize());
+            this.byUnique = factory.create(entityClass, "unique", cached.maximumSize());
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(cached.ttlMillis());
+            this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(cached.negativeTtlMillis());
+            this.constructor = EntityStates.constructor(entityClass, Cached.class);
+        }
+
+        List<Object> hit(Object cached) throws ReflectiveOperationException {
+            if (cached == NOT_FOUND) {
+                negativeHits.increment();
+                return new ArrayList<>();
+            }
+            hits.increment();
+            List<Object> result = new ArrayList<>(1);
+            result.add(EntityStates.restore(tableInfo, constructor, (Object[]) cached));
+            return result;
+        }
+
+        /**
+         * Stores a loaded entity (or null for "not found") unless an invalidation happened since
+         * the load started or a field value cannot be copied.
+         */
+        boolean store(Object key, Object entity, long loadedAt) {
+            Object value = entity == null ? NOT_FOUND : EntityStates.capture(tableInfo, entity);
+            long ttl = entity == null ? negativeTtlNanos : ttlNanos;
+            if (value == null || ttl <= 0) {
+                return false;
+            }
+            lock.lock();
+            try {
+                if (generation.get() != loadedAt) {
+                    return false;
+                }
+                byId.put(key, value, ttl);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void storeUnique(Object uniqueKey, Object idKey, long loadedAt) {
+            long ttl = idKey == NOT_FOUND ? negativeTtlNanos : ttlNanos;
+            if (ttl <= 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                if (generation.get() == loadedAt) {
+                    byUnique.put(uniqueKey, idKey, ttl);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void invalidate(Set<String> keys) {
+            lock.lock();
+            try {
+                generation.incrementAndGet();
+                if (keys == null) {
+                    byId.invalidateAll();
+                } else {
+                    keys.forEach(byId::invalidate);
+                }
+                // A written row may take or release any unique value
+                byUnique.invalidateAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        String idOf(Object entity) {
+            return WrittenRows.idOf(tableInfo, entity);
+        }
+
+        /**
+         * Returns the key of a query entity that sets exactly one field, a {@code @Unique} one.
+         */
+        Object uniqueKey(Object query) {
+            if (!tableInfo.entityClass().isInstance(query)) {
+                return null;
+            }
+            TableFieldInfo only = null;
+            Object value = null;
+            for (TableFieldInfo field : tableInfo.fields()) {
+                if (field.isId() || field.isVersion() || field.isDeleted()) {
+                    continue;
+                }
+                Object fieldValue = FieldValues.read(field, query);
+                if (fieldValue != null) {
+                    if (only != null) {
+                        return null;
+                    }
+                    only = field;
+                    value = fieldValue;
+                }
+            }
+            return only != null && only.isUnique() ? List.of(only.getProperty(), WrittenRows.key(value)) : null;
+        }
+
+        boolean matches(Object[] state, Object uniqueKey) {
+            List<?> parts = (List<?>) uniqueKey;
+            List<TableFieldInfo> fields = tableInfo.fields();
+            for (int i = 0; i < fields.size(); i++) {
+                if (fields.get(i).getProperty().equals(parts.get(0))) {
+                    return state[i] != null && WrittenRows.key(state[i]).equals(parts.get(1));
+                }
+            }
+            return false;
+        }
+
+        CacheStats stats() {
+            return new CacheStats(hits.sum(), negativeHits.sum(), misses.sum(), byId.evictionCount(), byId.size());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+/**
+ * Converts entities to and from the field-value arrays the caches hold, so that cached state is
+ * never shared with callers.
+ */
+final class EntityStates {
+
+    private EntityStates() {
+    }
+
+    /**
+     * Returns copies of the entity's field values, in {@link TableInfo#fields()} order.
+     *
+     * @return the state, or null if a field value cannot be copied
+     */
+    static Object[] capture(TableInfo tableInfo, Object entity) {
+        List<TableFieldInfo> fields = tableInfo.fields();
+        Object[] state = new Object[fields.size()];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = FieldValues.copy(FieldValues.read(fields.get(i), entity));
+            if (state[i] == FieldValues.UNCOPYABLE) {
+                return null;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Builds a new entity from a captured state.
+     */
+    static Object restore(TableInfo tableInfo, Constructor<?> constructor, Object[] state)
+            throws ReflectiveOperationException {
+        Object entity = constructor.newInstance();
+        List<TableFieldInfo> fields = tableInfo.fields();
+        for (int i = 0; i < state.length; i++) {
+            fields.get(i).field().set(entity, FieldValues.copy(state[i]));
+        }
+        return entity;
+    }
+
+    /**
+     * Returns the accessible no-arg constructor used by {@link #restore}.
+     *
+     * @param annotation the annotation that enabled caching, for the error message
+     * @throws IllegalStateException if the entity has no no-arg constructor
+     */
+    static Constructor<?> constructor(Class<?> entityClass, Class<? extends Annotation> annotation) {
+        try {
+            Constructor<?> constructor = entityClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("@" + annotation.getSimpleName() + " entity " + entityClass.getName()
+                    + " requires a no-arg constructor", e);
+        }
+    }
+
+    /**
+     * Estimates the heap footprint of a captured state or a scalar result value in bytes.
+     */
+    static long weigh(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Object[] state) {
+            long bytes = 16 + 8L * state.length;
+            for (Object element : state) {
+                bytes += weigh(element);
+            }
+            return bytes;
+        }
+        if (value instanceof String string) {
+            return 40 + 2L * string.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16 + bytes.length;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>) {
+            return 16;
+        }
+        // Dates, UUIDs, java.time values; JSON values by their text
+        return 32 + 2L * Math.min(value.toString().length(), 1 << 20);
+    }
+}
@@ -0,0 +1,282 @@
+package com.ngcin.ems.mapper.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Propagates committed BaseMapper writes between the nodes of a cluster so that per-process
+ * caches can drop stale rows.
+ *
+ * <p>{@link InvalidationInterceptor} reports the rows each transaction wrote when it commits.
+ * The bus coalesces reports per entity type (an id written many times is sent once; more than
+ * {@code maxIdsPerType} ids collapse into "all rows") and a flusher thread sends them as one
+ * batch per {@code flushInterval} through the {@link InvalidationTransport}. Batches received from
+ * other nodes are passed to the {@link InvalidationListener}s; the node's own batches are ignored
+ * since its caches were already invalidated by the write.
+ *
+ * <pre>{@code
+ * InvalidationBus bus = new InvalidationBus(UdpTransport.multicast(group, 45566))
+ *         .flushInterval(Duration.ofMillis(20));
+ * bus.addListener(entityCacheInterceptor);
+ * configuration.addInterceptor(new InvalidationInterceptor(bus));
+ * }</pre>
+ */
+public class InvalidationBus implements AutoCloseable {
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(20);
+    public static final int DEFAULT_MAX_IDS_PER_TYPE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    /** Pending ids of one entity type; null ids means all rows. */
+    private static final class Pending {
+        final String table;
+        Set<String> ids = new LinkedHashSet<>();
+
+        Pending(String table) {
+            this.table = table;
+        }
+    }
+
+    private final InvalidationTransport transport;
+    private final String nodeId;
+    private final List<InvalidationListener> listeners = new CopyOnWriteArrayList<>();
+    /** Serializes sends, so that {@link #flush()} returns only after earlier batches went out. */
+    private final Object sendLock = new Object();
+    private final AtomicLong reportedEvents = new AtomicLong();
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private Map<String, Pending> pending = new LinkedHashMap<>();
+    private long flushIntervalNanos = DEFAULT_FLUSH_INTERVAL.toNanos();
+    private int maxIdsPerType = DEFAULT_MAX_IDS_PER_TYPE;
+    private Thread flusher;
+    private boolean closed;
+
+    public InvalidationBus(InvalidationTransport transport) {
+        this(transport, UUID.randomUUID().toString());
+    }
+
+    /**
+     * @param transport the transport shared with the other nodes
+     * @param nodeId    unique id of this node within the cluster
+     */
+    public InvalidationBus(InvalidationTransport transport, String nodeId) {
+        this.transport = transport;
+        this.nodeId = nodeId;
+        transport.subscribe(this::receive);
+    }
+
+    /**
+     * Sets how long reports are collected before they are sent as one batch.
+     */
+    public synchronized InvalidationBus flushInterval(Duration flushInterval) {
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException("Flush interval must be positive, but was: " + flushInterval);
+        }
+        requireNotStarted();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        return this;
+    }
+
+    /**
+     * Sets the number of pending ids of one type above which the type is invalidated as a whole.
+     */
+    public synchronized InvalidationBus maxIdsPerType(int maxIdsPerType) {
+        if (maxIdsPerType <= 0) {
+            throw new IllegalArgumentException("Max ids per type must be greater than 0, but was: " + maxIdsPerType);
+        }
+        requireNotStarted();
+        this.maxIdsPerType = maxIdsPerType;
+        return this;
+    }
+
+    /**
+     * Registers a listener for invalidations written by other nodes.
+     */
+    public InvalidationBus addListener(InvalidationListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Returns the id of this node, carried as {@link InvalidationEvent#origin()}.
+     */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Reports committed writes; they are sent with the next batch. Reports after {@link #close()}
+     * are ignored.
+     *
+     * @param entityClass the entity class name, or {@link InvalidationEvent#ALL_TYPES}
+     * @param table       the table name, or {@link InvalidationEvent#ALL_TYPES}
+     * @param ids         the id keys of the written rows, or null for all rows
+     */
+    public synchronized void report(String entityClass, String table, Collection<String> ids) {
+        if (closed) {
+            return;
+        }
+        if (flusher == null) {
+            flusher = new Thread(this::run, "ems-invalidation-bus");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        reportedEvents.incrementAndGet();
+        if (pending.isEmpty()) {
+            notifyAll();
+        }
+        Pending entry = pending.computeIfAbsent(entityClass, k -> new Pending(table));
+        if (entry.ids == null) {
+            return;
+        }
+        if (ids == null) {
+            entry.ids = null;
+        } else {
+            entry.ids.addAll(ids);
+            if (entry.ids.size() > maxIdsPerType) {
+                entry.ids = null;
+            }
+        }
+    }
+
+    /**
+     * Sends the pending reports now, after any batch the flusher is sending.
+     */
+    public void flush() {
+        synchronized (sendLock) {
+            Map<String, Pending> drained;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                drained = pending;
+                pending = new LinkedHashMap<>();
+            }
+            List<InvalidationEvent> batch = new ArrayList<>(drained.size());
+            Pending everything = drained.get(InvalidationEvent.ALL_TYPES);
+            if (everything != null) {
+                batch.add(new InvalidationEvent(nodeId, InvalidationEvent.ALL_TYPES, InvalidationEvent.ALL_TYPES, null));
+            } else {
+                drained.forEach((entityClass, entry) ->
+                        batch.add(new InvalidationEvent(nodeId, entityClass, entry.table, entry.ids)));
+            }
+            try {
+                transport.publish(batch);
+                sentEvents.addAndGet(batch.size());
+                sentBatches.incrementAndGet();
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish {} invalidation events", batch.size(), e);
+            }
+        }
+    }
+
+    /** Number of {@link #report} calls so far. */
+    public long reportedEvents() {
+        return reportedEvents.get();
+    }
+
+    /** Number of events sent after coalescing. */
+    public long sentEvents() {
+        return sentEvents.get();
+    }
+
+    /** Number of batches sent. */
+    public long sentBatches() {
+        return sentBatches.get();
+    }
+
+    /** Number of events received from other nodes. */
+    public long receivedEvents() {
+        return receivedEvents.get();
+    }
+
+    /**
+     * Sends the pending reports, stops the flusher and closes the transport.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = flusher;
+            notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        try {
+            transport.close();
+        } catch (Exception e) {
+            log.warn("Failed to close invalidation transport", e);
+        }
+    }
+
+    private void requireNotStarted() {
+        if (flusher != null) {
+            throw new IllegalStateException("InvalidationBus settings cannot change after the first report");
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                try {
+                    while (!closed && pending.isEmpty()) {
+                        wait();
+                    }
+                    // Collect further reports for one interval before sending
+                    long deadline = System.nanoTime() + flushIntervalNanos;
+                    long remaining;
+                    while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            flush();
+        }
+    }
+
+    private void receive(List<InvalidationEvent> batch) {
+        for (InvalidationEvent event : batch) {
+            if (nodeId.equals(event.origin())) {
+                continue;
+            }
+            receivedEvents.incrementAndGet();
+            for (InvalidationListener listener : listeners) {
+                try {
+                    listener.onInvalidation(event);
+                } catch (RuntimeException e) {
+                    log.warn("Invalidation listener failed for {}", event.entityClass(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ngcin.ems.mapper.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary encoding of event batches into datagrams of bounded size.
+ *
+ * <p>Layout: magic, version, event count, then per event origin, entity class, table (modified
+ * UTF-8) and the id count ({@code -1} for all rows) followed by the ids. Events with more ids than
+ * fit into one packet are split.
+ */
+final class InvalidationCodec {
+
+    private static final short MAGIC = (short) 0xE1B5;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+
+    private InvalidationCodec() {
+    }
+
+    static List<byte[]> encode(List<InvalidationEvent> batch, int maxPacketSize) {
+        List<byte[]> packets = new ArrayList<>();
+        List<InvalidationEvent> packet = new ArrayList<>();
+        int size = HEADER_SIZE;
+        for (InvalidationEvent event : batch) {
+            int eventHeader = utfSize(event.origin()) + utfSize(event.entityClass()) + utfSize(event.table()) + 4;
+            if (event.allRows() || event.ids().isEmpty()) {
+                if (size + eventHeader > maxPacketSize && !packet.isEmpty()) {
+                    packets.add(write(packet));
+                    packet.clear();
+                    size = HEADER_SIZE;
+                }
+                packet.add(event);
+                size += eventHeader;
+                continue;
+            }
+            List<String> ids = new ArrayList<>(event.ids());
+            int from = 0;
+            while (from < ids.size()) {
+                if (size + eventHeader + utfSize(ids.get(from)) > maxPacketSize) {
+                    if (packet.isEmpty()) {
+                        throw new IllegalArgumentException("Invalidation event exceeds packet size: " + event.entityClass());
+                    }
+                    packets.add(write(packet));
+                    packet.clear();
+                    size = HEADER_SIZE;
+                    continue;
+                }
+                size += eventHeader;
+                int to = from;
+                while (to < ids.size() && size + utfSize(ids.get(to)) <= maxPacketSize) {
+                    size += utfSize(ids.get(to++));
+                }
+                packet.add(new InvalidationEvent(event.origin(), event.entityClass(), event.table(),
+                        new HashSet<>(ids.subList(from, to))));
+                from = to;
+            }
+        }
+        if (!packet.isEmpty()) {
+            packets.add(write(packet));
+        }
+        return packets;
+    }
+
+    static List<InvalidationEvent> decode(byte[] data, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, length));
+        if (in.readShort() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not an invalidation packet");
+        }
+        int count = in.readUnsignedShort();
+        List<InvalidationEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String origin = in.readUTF();
+            String entityClass = in.readUTF();
+            String table = in.readUTF();
+            int idCount = in.readInt();
+            Set<String> ids = null;
+            if (idCount >= 0) {
+                ids = new HashSet<>();
+                for (int j = 0; j < idCount; j++) {
+                    ids.add(in.readUTF());
+                }
+            }
+            events.add(new InvalidationEvent(origin, entityClass, table, ids));
+        }
+        return events;
+    }
+
+    private static byte[] write(List<InvalidationEvent> events) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeShort(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(events.size());
+            for (InvalidationEvent event : events) {
+                out.writeUTF(event.origin());
+                out.writeUTF(event.entityClass());
+                out.writeUTF(event.table());
+                out.writeInt(event.allRows() ? -1 : event.ids().size());
+                if (!event.allRows()) {
+                    for (String id : event.ids()) {
+                        out.writeUTF(id);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Upper bound of the modified UTF-8 size of a string including its length prefix.
+     */
+    private static int utfSize(String value) {
+        return 2 + value.getBytes(StandardCharsets.UTF_8).length + (value.indexOf('\0') >= 0 ? value.length() : 0);
+    }
+}
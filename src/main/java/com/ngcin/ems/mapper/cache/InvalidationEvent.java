@@ -0,0 +1,26 @@
+package com.ngcin.ems.mapper.cache;
+
+import java.util.Set;
+
+/**
+ * Rows of one entity type changed by committed BaseMapper writes on some node.
+ *
+ * @param origin      id of the node that wrote the rows
+ * @param entityClass entity class name, or {@link #ALL_TYPES} if any table may have changed
+ * @param table       table name, or {@link #ALL_TYPES}
+ * @param ids         id keys ({@code id.toString()}) of the changed rows, or null for all rows
+ */
+public record InvalidationEvent(String origin, String entityClass, String table, Set<String> ids) {
+
+    /**
+     * Entity class and table name of events raised by statements outside BaseMapper.
+     */
+    public static final String ALL_TYPES = "*";
+
+    /**
+     * Returns true if every row of the type (or of every type) must be treated as changed.
+     */
+    public boolean allRows() {
+        return ids == null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interceptor that reports the rows written by each transaction to an {@link InvalidationBus}
+ * once the transaction commits (or, for auto-commit sessions, when the session closes).
+ * Rolled back writes are not reported.
+ *
+ * <p>BaseMapper writes report their ids (or all rows of the type for conditional deletes and
+ * custom statements of the mapper); statements of other mappers report every type as changed.
+ * Register it after the unit-of-work interceptor so that deferred writes are seen.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class InvalidationInterceptor implements Interceptor {
+
+    /** Written rows of one type in the open transaction; null ids means all rows. */
+    private static final class Written {
+        final String table;
+        Set<String> ids = new HashSet<>();
+
+        Written(String table) {
+            this.table = table;
+        }
+    }
+
+    private final InvalidationBus bus;
+    private final Map<Executor, Map<String, Written>> transactions = new ConcurrentHashMap<>();
+
+    public InvalidationInterceptor(InvalidationBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        switch (invocation.getMethod().getName()) {
+            case "update" -> {
+                Object result = invocation.proceed();
+                // Ids of inserted entities are only known after the statement ran
+                MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+                record(executor, ms, invocation.getArgs()[1]);
+                return result;
+            }
+            case "commit" -> {
+                Object result = invocation.proceed();
+                publish(transactions.remove(executor));
+                return result;
+            }
+            case "rollback" -> {
+                transactions.remove(executor);
+                return invocation.proceed();
+            }
+            default -> {
+                // close(false) ends an auto-commit session or one without pending changes
+                boolean forceRollback = (Boolean) invocation.getArgs()[0];
+                Map<String, Written> written = transactions.remove(executor);
+                Object result = invocation.proceed();
+                if (!forceRollback) {
+                    publish(written);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Reports every row of an entity type as changed by a committed write that bypassed MyBatis,
+     * such as a native {@link com.ngcin.ems.mapper.batch.BulkLoader} load.
+     */
+    public void reportAllRows(Class<?> entityClass) {
+        bus.report(entityClass.getName(), EntityClassResolver.resolve(entityClass).tableName(), null);
+    }
+
+    private void record(Executor executor, MappedStatement ms, Object parameter) {
+        Map<String, Written> written = transactions.computeIfAbsent(executor, e -> new HashMap<>());
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        if (tableInfo == null) {
+            written.computeIfAbsent(InvalidationEvent.ALL_TYPES, k -> new Written(InvalidationEvent.ALL_TYPES)).ids = null;
+            return;
+        }
+        Written entry = written.computeIfAbsent(tableInfo.entityClass().getName(), k -> new Written(tableInfo.tableName()));
+        if (entry.ids == null) {
+            return;
+        }
+        Set<String> ids = tableInfo.idField() == null ? null
+                : WrittenRows.ids(tableInfo, ms.getId().substring(ms.getId().lastIndexOf('.') + 1), parameter);
+        if (ids == null) {
+            entry.ids = null;
+        } else {
+            entry.ids.addAll(ids);
+        }
+    }
+
+    private void publish(Map<String, Written> written) {
+        if (written != null) {
+            written.forEach((entityClass, entry) -> bus.report(entityClass, entry.table, entry.ids));
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // No properties needed
+    }
+}
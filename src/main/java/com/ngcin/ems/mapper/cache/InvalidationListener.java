@@ -0,0 +1,13 @@
+package com.ngcin.ems.mapper.cache;
+
+/**
+ * Receives invalidations written by other nodes from an {@link InvalidationBus}.
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+
+    /**
+     * Called on the transport's receiving thread; implementations should return quickly.
+     */
+    void onInvalidation(InvalidationEvent event);
+}
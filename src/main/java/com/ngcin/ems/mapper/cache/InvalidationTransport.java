@@ -0,0 +1,28 @@
+package com.ngcin.ems.mapper.cache;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries batches of {@link InvalidationEvent}s between the nodes of an {@link InvalidationBus}.
+ *
+ * <p>Delivery is best effort; caches bound staleness with their TTL. Implement it to use a
+ * message broker; {@link LoopbackTransport} and {@link UdpTransport} are included for tests and
+ * single-host setups.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    /**
+     * Sends a batch to all nodes, possibly including this one.
+     */
+    void publish(List<InvalidationEvent> batch);
+
+    /**
+     * Registers the receiver of batches sent by any node.
+     */
+    void subscribe(Consumer<List<InvalidationEvent>> receiver);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,26 @@
+package com.ngcin.ems.mapper.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process {@link InvalidationTransport}: every bus attached to the same instance receives
+ * every batch, synchronously on the publishing thread. Useful for tests and for several
+ * session factories in one JVM.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private final List<Consumer<List<InvalidationEvent>>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(List<InvalidationEvent> batch) {
+        List<InvalidationEvent> copy = List.copyOf(batch);
+        receivers.forEach(receiver -> receiver.accept(copy));
+    }
+
+    @Override
+    public void subscribe(Consumer<List<InvalidationEvent>> receiver) {
+        receivers.add(receiver);
+    }
+}
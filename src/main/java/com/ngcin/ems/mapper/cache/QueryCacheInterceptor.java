@@ -0,0 +1,394 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.annotations.CachedQueries;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Query result cache for {@link CachedQueries} entities, shared by all sessions.
+ *
+ * <p>Caches the results of {@code selectList}, {@code selectCount}, {@code selectOne} and
+ * {@code selectAll}, keyed by statement, generated SQL, parameter values and row bounds. Entity
+ * rows are held as copied field values and every hit builds new instances.
+ *
+ * <p>Invalidation is per table: a BaseMapper write drops every cached result of its
+ * {@link TableInfo#tableName()}, and statements of other mappers drop everything. As with the
+ * entity cache, the invalidation is repeated on commit and rollback, and loads that raced an
+ * invalidation are not stored. A transaction that wrote a table bypasses the cache for that table
+ * until it ends, so its uncommitted rows are never shared.
+ *
+ * <p>The cache is bounded by an estimated memory budget (the {@code maxBytes} property,
+ * {@link #DEFAULT_MAX_BYTES} by default); the least recently used results are evicted first.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class QueryCacheInterceptor implements Interceptor, InvalidationListener {
+
+    /** Default memory budget: 16 MiB. */
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private static final Set<String> CACHED_METHODS = Set.of("selectList", "selectCount", "selectOne", "selectAll");
+
+    /** Recorded for writes that may have touched any table. */
+    private static final String ALL_TABLES = "*";
+
+    private final LongSupplier ticker;
+    private final Map<Class<?>, Optional<Policy>> policies = new ConcurrentHashMap<>();
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Map<Executor, Set<String>> touched = new ConcurrentHashMap<>();
+    private volatile long maxBytes = DEFAULT_MAX_BYTES;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Access-ordered: the first entry is the least recently used. */
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Set<CacheKey>> keysByTable = new HashMap<>();
+    /** Per-table invalidation counters; together with {@link #globalGeneration} they guard loads. */
+    private final Map<String, Long> generations = new HashMap<>();
+    private long globalGeneration;
+    private long bytes;
+    private long evictions;
+
+    public QueryCacheInterceptor() {
+        this(System::nanoTime);
+    }
+
+    QueryCacheInterceptor(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        return switch (invocation.getMethod().getName()) {
+            case "query" -> query(executor, invocation);
+            case "update" -> update(executor, invocation);
+            default -> {
+                try {
+                    yield invocation.proceed();
+                } finally {
+                    Set<String> tables = touched.remove(executor);
+                    if (tables != null) {
+                        tables.forEach(this::invalidate);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the counters of every statement that was looked up, by statement id.
+     */
+    public Map<String, QueryCacheStats> stats() {
+        Map<String, QueryCacheStats> stats = new TreeMap<>();
+        counters.forEach((statementId, c) -> stats.put(statementId, c.snapshot()));
+        return stats;
+    }
+
+    /**
+     * Returns the counters of one statement, e.g. {@code "com.example.ProductMapper.selectList"}.
+     */
+    public QueryCacheStats stats(String statementId) {
+        Counters c = counters.get(statementId);
+        return c == null ? new QueryCacheStats(0, 0) : c.snapshot();
+    }
+
+    /**
+     * Returns the number of cached results.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated memory held by cached results, in bytes.
+     */
+    public long memoryBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of results evicted to stay within the memory budget.
+     */
+    public long evictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops every cached result, e.g. after the tables were changed outside this application.
+     */
+    public void invalidateAll() {
+        invalidate(ALL_TABLES);
+    }
+
+    /**
+     * Drops the cached results of the table another node wrote; register the interceptor with
+     * {@link InvalidationBus#addListener}.
+     */
+    @Override
+    public void onInvalidation(InvalidationEvent event) {
+        invalidate(InvalidationEvent.ALL_TYPES.equals(event.entityClass()) ? ALL_TABLES : event.table());
+    }
+
+    private Optional<Policy> policy(Class<?> entityClass) {
+        return policies.computeIfAbsent(entityClass, type -> {
+            CachedQueries cached = type.getAnnotation(CachedQueries.class);
+            return cached == null
+                    ? Optional.empty()
+                    : Optional.of(new Policy(EntityClassResolver.resolve(type),
+                            TimeUnit.MILLISECONDS.toNanos(cached.ttlMillis()), cached.maxRows(),
+                            EntityStates.constructor(type, CachedQueries.class)));
+        });
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    private Object query(Executor executor, Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        Policy policy = tableInfo == null ? null : policy(tableInfo.entityClass()).orElse(null);
+        if (policy == null || args[3] != Executor.NO_RESULT_HANDLER
+                || !CACHED_METHODS.contains(ms.getId().substring(ms.getId().lastIndexOf('.') + 1))) {
+            return invocation.proceed();
+        }
+        String table = tableInfo.tableName();
+        Set<String> written = touched.get(executor);
+        if (written != null && (written.contains(table) || written.contains(ALL_TABLES))) {
+            // The transaction sees its own uncommitted writes, which must not be shared
+            return invocation.proceed();
+        }
+        RowBounds rowBounds = (RowBounds) args[2];
+        CacheKey key = executor.createCacheKey(ms, args[1], rowBounds, ms.getBoundSql(args[1]));
+        Counters stats = counters.computeIfAbsent(ms.getId(), id -> new Counters());
+
+        Object[] rows = null;
+        long generation;
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - ticker.getAsLong() > 0) {
+                rows = entry.rows();
+            } else if (entry != null) {
+                remove(key);
+            }
+            generation = generation(table);
+        } finally {
+            lock.unlock();
+        }
+        if (rows != null) {
+            stats.hits.increment();
+            return policy.restore(rows);
+        }
+        stats.misses.increment();
+        List<?> result = (List<?>) invocation.proceed();
+        store(key, table, policy, result, generation);
+        return result;
+    }
+
+    /**
+     * Stores a loaded result unless it is too large, holds values that cannot be copied, or an
+     * invalidation of its table happened since the load started.
+     */
+    private void store(CacheKey key, String table, Policy policy, List<?> result, long loadedAt) {
+        if (result.size() > policy.maxRows() || policy.ttlNanos() <= 0) {
+            return;
+        }
+        Object[] rows = new Object[result.size()];
+        long weight = 128 + 8L * rows.length;
+        for (int i = 0; i < rows.length; i++) {
+            Object row = result.get(i);
+            Object value = row == null ? null
+                    : policy.tableInfo().entityClass().isInstance(row) ? EntityStates.capture(policy.tableInfo(), row)
+                    : FieldValues.copy(row);
+            if (value == null || value == FieldValues.UNCOPYABLE) {
+                return;
+            }
+            rows[i] = value;
+            weight += EntityStates.weigh(value);
+        }
+
+        lock.lock();
+        try {
+            if (generation(table) != loadedAt || weight > maxBytes) {
+                return;
+            }
+            Entry previous = entries.put(key, new Entry(table, rows, weight, ticker.getAsLong() + policy.ttlNanos()));
+            if (previous == null) {
+                keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            } else {
+                bytes -= previous.weight();
+            }
+            bytes += weight;
+            Iterator<Map.Entry<CacheKey, Entry>> eldest = entries.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<CacheKey, Entry> victim = eldest.next();
+                eldest.remove();
+                unlink(victim.getKey(), victim.getValue());
+                evictions++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    private Object update(Executor executor, Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        try {
+            return invocation.proceed();
+        } finally {
+            TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+            String table = tableInfo == null ? ALL_TABLES : tableInfo.tableName();
+            invalidate(table);
+            touched.computeIfAbsent(executor, e -> ConcurrentHashMap.newKeySet()).add(table);
+        }
+    }
+
+    private void invalidate(String table) {
+        lock.lock();
+        try {
+            if (ALL_TABLES.equals(table)) {
+                globalGeneration++;
+                entries.clear();
+                keysByTable.clear();
+                bytes = 0;
+                return;
+            }
+            generations.merge(table, 1L, Long::sum);
+            Set<CacheKey> keys = keysByTable.remove(table);
+            if (keys != null) {
+                for (CacheKey key : keys) {
+                    bytes -= entries.remove(key).weight();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held. */
+    private long generation(String table) {
+        return globalGeneration + generations.getOrDefault(table, 0L);
+    }
+
+    /** Called with the lock held. */
+    private void remove(CacheKey key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlink(key, entry);
+        }
+    }
+
+    /** Called with the lock held, after the entry left {@link #entries}. */
+    private void unlink(CacheKey key, Entry entry) {
+        bytes -= entry.weight();
+        Set<CacheKey> keys = keysByTable.get(entry.table());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByTable.remove(entry.table());
+            }
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * Supports the {@code maxBytes} property: the memory budget in bytes.
+     */
+    @Override
+    public void setProperties(Properties properties) {
+        String value = properties.getProperty("maxBytes");
+        if (value != null && !value.isBlank()) {
+            long parsed;
+            try {
+                parsed = Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid query cache maxBytes: " + value, e);
+            }
+            if (parsed <= 0) {
+                throw new IllegalArgumentException("Query cache maxBytes must be greater than 0, but was: " + parsed);
+            }
+            this.maxBytes = parsed;
+        }
+    }
+
+    /**
+     * Cache settings of one entity type.
+     */
+    private record Policy(TableInfo tableInfo, long ttlNanos, int maxRows, Constructor<?> constructor) {
+
+        List<Object> restore(Object[] rows) throws ReflectiveOperationException {
+            List<Object> result = new ArrayList<>(rows.length);
+            for (Object row : rows) {
+                result.add(row instanceof Object[] state
+                        ? EntityStates.restore(tableInfo, constructor, state)
+                        : FieldValues.copy(row));
+            }
+            return result;
+        }
+    }
+
+    private record Entry(String table, Object[] rows, long weight, long expiresAt) {
+    }
+
+    private static final class Counters {
+
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        QueryCacheStats snapshot() {
+            return new QueryCacheStats(hits.sum(), misses.sum());
+        }
+    }
+}
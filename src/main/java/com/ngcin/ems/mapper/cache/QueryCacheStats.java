@@ -0,0 +1,18 @@
+package com.ngcin.ems.mapper.cache;
+
+/**
+ * Counters of one statement in the query result cache.
+ *
+ * @param hits   executions answered from the cache
+ * @param misses executions that went to the database
+ */
+public record QueryCacheStats(long hits, long misses) {
+
+    /**
+     * Returns the share of executions answered from the cache, or 0 if there were none.
+     */
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
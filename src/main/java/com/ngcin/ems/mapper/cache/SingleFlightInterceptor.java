@@ -0,0 +1,286 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical BaseMapper reads: while one session runs a select, other
+ * sessions issuing the same statement with the same SQL and parameter values wait for its result
+ * instead of querying the database themselves.
+ *
+ * <p>Every waiter receives its own copy of the result, built from copied field values, so callers
+ * never share entity instances. A waiter runs the query itself when the wait exceeds
+ * {@code maxWaitMillis} (1000 by default), when the shared execution fails, or when the result
+ * holds values that cannot be copied.
+ *
+ * <p>A write to a table detaches the reads of that table that are in flight, so reads issued
+ * after the write never receive a result loaded before it; the same happens when the writing
+ * transaction ends. A session that wrote a table reads it on its own until its transaction ends.
+ *
+ * <p>Statements can be excluded with {@link #exclude(String...)} or the {@code exclude} property
+ * (comma-separated statement ids). Register it before the cache interceptors so that their misses
+ * are coalesced.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class SingleFlightInterceptor implements Interceptor {
+
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 1000;
+
+    /** Recorded for writes that may have touched any table. */
+    private static final String ALL_TABLES = "*";
+
+    /** Completes a flight whose result cannot be shared. */
+    private static final Object[] NOT_SHARED = new Object[0];
+
+    private final Map<CacheKey, Flight> flights = new ConcurrentHashMap<>();
+    private final Map<Executor, Set<String>> touched = new ConcurrentHashMap<>();
+    private final Set<String> excluded = ConcurrentHashMap.newKeySet();
+    private final Map<Class<?>, Optional<Constructor<?>>> constructors = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private volatile long maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_WAIT_MILLIS);
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        return switch (invocation.getMethod().getName()) {
+            case "query" -> query(executor, invocation);
+            case "update" -> update(executor, invocation);
+            default -> {
+                try {
+                    yield invocation.proceed();
+                } finally {
+                    Set<String> tables = touched.remove(executor);
+                    if (tables != null) {
+                        tables.forEach(this::detach);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Excludes statements from coalescing.
+     *
+     * @param statementIds full statement ids, e.g. {@code "com.example.OrderMapper.selectList"}
+     * @return this interceptor
+     */
+    public SingleFlightInterceptor exclude(String... statementIds) {
+        excluded.addAll(Arrays.asList(statementIds));
+        return this;
+    }
+
+    /**
+     * Returns the number of reads that ran against the database through this interceptor.
+     */
+    public long executions() {
+        return executions.get();
+    }
+
+    /**
+     * Returns the number of reads answered with the result of another session's execution.
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Returns the number of waiters that ran the query themselves (timeout, failure, or a result
+     * that cannot be copied).
+     */
+    public long fallbacks() {
+        return fallbacks.get();
+    }
+
+    // ---------------------------------------------------------------- reads
+
+    private Object query(Executor executor, Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        if (tableInfo == null || args[3] != Executor.NO_RESULT_HANDLER || excluded.contains(ms.getId())) {
+            return invocation.proceed();
+        }
+        String table = tableInfo.tableName();
+        Set<String> written = touched.get(executor);
+        if (written != null && (written.contains(table) || written.contains(ALL_TABLES))) {
+            // The transaction sees its own uncommitted writes
+            return invocation.proceed();
+        }
+
+        CacheKey key = executor.createCacheKey(ms, args[1], (RowBounds) args[2], ms.getBoundSql(args[1]));
+        Flight flight = new Flight(table);
+        Flight leader = flights.putIfAbsent(key, flight);
+        if (leader != null) {
+            return await(leader, tableInfo, invocation);
+        }
+        executions.incrementAndGet();
+        try {
+            Object result = invocation.proceed();
+            flight.complete(share(tableInfo, result));
+            return result;
+        } catch (Throwable e) {
+            flight.complete(NOT_SHARED);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private Object await(Flight leader, TableInfo tableInfo, Invocation invocation) throws Throwable {
+        Object[] rows;
+        try {
+            rows = leader.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            rows = NOT_SHARED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        if (rows == NOT_SHARED) {
+            fallbacks.incrementAndGet();
+            executions.incrementAndGet();
+            return invocation.proceed();
+        }
+        coalesced.incrementAndGet();
+        Constructor<?> constructor = constructor(tableInfo.entityClass());
+        List<Object> result = new ArrayList<>(rows.length);
+        for (Object row : rows) {
+            result.add(row instanceof Object[] state
+                    ? EntityStates.restore(tableInfo, constructor, state)
+                    : FieldValues.copy(row));
+        }
+        return result;
+    }
+
+    /**
+     * Captures a result for the waiters, or returns {@link #NOT_SHARED} if it cannot be copied.
+     */
+    private Object[] share(TableInfo tableInfo, Object result) {
+        if (!(result instanceof List<?> list) || constructor(tableInfo.entityClass()) == null) {
+            return NOT_SHARED;
+        }
+        Object[] rows = new Object[list.size()];
+        for (int i = 0; i < rows.length; i++) {
+            Object row = list.get(i);
+            Object value = row == null ? null
+                    : row.getClass() == tableInfo.entityClass() ? EntityStates.capture(tableInfo, row)
+                    : FieldValues.copy(row);
+            if (value == null || value == FieldValues.UNCOPYABLE) {
+                return NOT_SHARED;
+            }
+            rows[i] = value;
+        }
+        return rows;
+    }
+
+    private Constructor<?> constructor(Class<?> entityClass) {
+        return constructors.computeIfAbsent(entityClass, type -> {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return Optional.of(constructor);
+            } catch (NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    // ---------------------------------------------------------------- writes
+
+    private Object update(Executor executor, Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        String table = tableInfo == null ? ALL_TABLES : tableInfo.tableName();
+        touched.computeIfAbsent(executor, e -> ConcurrentHashMap.newKeySet()).add(table);
+        try {
+            return invocation.proceed();
+        } finally {
+            detach(table);
+        }
+    }
+
+    /**
+     * Stops new readers from joining the in-flight reads of a table; readers already waiting keep
+     * them.
+     */
+    private void detach(String table) {
+        flights.entrySet().removeIf(entry -> ALL_TABLES.equals(table) || entry.getValue().table.equals(table));
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    /**
+     * Supports the {@code maxWaitMillis} property and the {@code exclude} property (comma-separated
+     * statement ids).
+     */
+    @Override
+    public void setProperties(Properties properties) {
+        String maxWait = properties.getProperty("maxWaitMillis");
+        if (maxWait != null && !maxWait.isBlank()) {
+            long millis;
+            try {
+                millis = Long.parseLong(maxWait.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid single-flight maxWaitMillis: " + maxWait, e);
+            }
+            if (millis < 0) {
+                throw new IllegalArgumentException("Single-flight maxWaitMillis must not be negative, but was: " + millis);
+            }
+            this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+        String exclude = properties.getProperty("exclude");
+        if (exclude != null) {
+            for (String statementId : exclude.split(",")) {
+                if (!statementId.isBlank()) {
+                    excluded.add(statementId.trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * An execution in progress; completes with the captured rows or {@link #NOT_SHARED}.
+     */
+    private static final class Flight extends CompletableFuture<Object[]> {
+
+        final String table;
+
+        Flight(String table) {
+            this.table = table;
+        }
+    }
+}
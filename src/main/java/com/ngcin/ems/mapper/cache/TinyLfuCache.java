@@ -0,0 +1,258 @@
+package com.ngcin.ems.mapper.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Default {@link EntityCache}: a size-bounded store with per-entry expiry and W-TinyLFU eviction.
+ *
+ * <p>New entries enter a small LRU admission window (1% of the capacity). Entries leaving the
+ * window compete with the least recently used entry of the main space: the one a
+ * {@link FrequencySketch} has seen more often recently stays. The main space is a segmented LRU
+ * (probation and protected, 80% of main) so that entries hit twice are not displaced by a scan.
+ *
+ * <p>Expired entries are removed when looked up, or evicted first when they are the victim.
+ */
+public class TinyLfuCache implements EntityCache {
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final LongSupplier ticker;
+    private final FrequencySketch sketch;
+    private final Map<Object, Node> data = new HashMap<>();
+    private final NodeList window = new NodeList();
+    private final NodeList probation = new NodeList();
+    private final NodeList protectedSegment = new NodeList();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long evictions;
+
+    public TinyLfuCache(int maximumSize) {
+        this(maximumSize, System::nanoTime);
+    }
+
+    TinyLfuCache(int maximumSize, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be greater than 0, but was: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 4 / 5;
+        this.ticker = ticker;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public Object get(Object key) {
+        lock.lock();
+        try {
+            sketch.increment(key);
+            Node node = data.get(key);
+            if (node == null) {
+                return null;
+            }
+            if (node.expiresAt - ticker.getAsLong() <= 0) {
+                remove(node);
+                return null;
+            }
+            onHit(node);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value, long ttlNanos) {
+        lock.lock();
+        try {
+            sketch.increment(key);
+            long expiresAt = ticker.getAsLong() + ttlNanos;
+            Node node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                node.expiresAt = expiresAt;
+                onHit(node);
+                return;
+            }
+            node = new Node(key, value, expiresAt);
+            data.put(key, node);
+            window.addLast(node);
+            if (window.size > windowMaximum) {
+                Node candidate = window.removeFirst();
+                candidate.segment = Segment.PROBATION;
+                probation.addLast(candidate);
+            }
+            while (data.size() > maximumSize) {
+                evictOne();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        lock.lock();
+        try {
+            Node node = data.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        lock.lock();
+        try {
+            return data.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long evictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onHit(Node node) {
+        switch (node.segment) {
+            case WINDOW -> window.moveToLast(node);
+            case PROTECTED -> protectedSegment.moveToLast(node);
+            case PROBATION -> {
+                probation.remove(node);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.addLast(node);
+                if (protectedSegment.size > protectedMaximum) {
+                    Node demoted = protectedSegment.removeFirst();
+                    demoted.segment = Segment.PROBATION;
+                    probation.addLast(demoted);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts either the newest probation entry (the candidate from the window) or the least
+     * recently used one (the victim), keeping the more frequent of the two.
+     */
+    private void evictOne() {
+        Node victim = probation.first != null ? probation.first
+                : protectedSegment.first != null ? protectedSegment.first
+                : window.first;
+        Node candidate = probation.last;
+        Node evicted = victim;
+        if (candidate != null && candidate != victim && victim.expiresAt - ticker.getAsLong() > 0
+                && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            evicted = candidate;
+        }
+        remove(evicted);
+        evictions++;
+    }
+
+    private void remove(Node node) {
+        data.remove(node.key);
+        switch (node.segment) {
+            case WINDOW -> window.remove(node);
+            case PROBATION -> probation.remove(node);
+            case PROTECTED -> protectedSegment.remove(node);
+        }
+    }
+
+    private static final class Node {
+        final Object key;
+        Object value;
+        long expiresAt;
+        Segment segment = Segment.WINDOW;
+        Node prev;
+        Node next;
+
+        Node(Object key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Intrusive doubly linked list in LRU order (first = least recently used).
+     */
+    private static final class NodeList {
+        Node first;
+        Node last;
+        int size;
+
+        void addLast(Node node) {
+            node.prev = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+            size++;
+        }
+
+        Node removeFirst() {
+            Node node = first;
+            remove(node);
+            return node;
+        }
+
+        void remove(Node node) {
+            if (node.prev == null) {
+                first = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            size--;
+        }
+
+        void moveToLast(Node node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        void clear() {
+            first = null;
+            last = null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.ngcin.ems.mapper.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link InvalidationTransport} over UDP datagrams, either to a multicast group or to a list of
+ * unicast peers. Batches are split into packets of at most {@value #MAX_PACKET_SIZE} bytes so
+ * they are not fragmented on typical networks. Lost packets are not resent.
+ *
+ * <pre>{@code
+ * InvalidationBus bus = new InvalidationBus(
+ *         UdpTransport.multicast(InetAddress.getByName("239.1.2.3"), 45566));
+ * }</pre>
+ */
+public class UdpTransport implements InvalidationTransport {
+
+    public static final int MAX_PACKET_SIZE = 1400;
+
+    private static final Logger log = LoggerFactory.getLogger(UdpTransport.class);
+
+    private final DatagramSocket socket;
+    private final List<SocketAddress> targets = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<InvalidationEvent>>> receivers = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+    private volatile boolean closed;
+
+    private UdpTransport(DatagramSocket socket) {
+        this.socket = socket;
+        this.receiver = new Thread(this::receive, "ems-invalidation-udp-" + socket.getLocalPort());
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    /**
+     * Joins a multicast group; every node of the group receives every batch, this one included.
+     *
+     * @param group the multicast address
+     * @param port  the port shared by all nodes
+     */
+    public static UdpTransport multicast(InetAddress group, int port) {
+        if (!group.isMulticastAddress()) {
+            throw new IllegalArgumentException("Not a multicast address: " + group);
+        }
+        try {
+            MulticastSocket socket = new MulticastSocket(port);
+            socket.joinGroup(new InetSocketAddress(group, port), null);
+            UdpTransport transport = new UdpTransport(socket);
+            transport.targets.add(new InetSocketAddress(group, port));
+            return transport;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot join multicast group " + group + ":" + port, e);
+        }
+    }
+
+    /**
+     * Sends to a fixed list of peers and receives on a local port.
+     *
+     * @param localPort the port to receive on, or 0 for an ephemeral port
+     * @param peers     the receiving addresses of the other nodes
+     */
+    public static UdpTransport unicast(int localPort, Collection<InetSocketAddress> peers) {
+        try {
+            UdpTransport transport = new UdpTransport(new DatagramSocket(localPort));
+            transport.targets.addAll(peers);
+            return transport;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot bind UDP port " + localPort, e);
+        }
+    }
+
+    /**
+     * Adds a unicast peer.
+     */
+    public UdpTransport addPeer(InetSocketAddress peer) {
+        targets.add(peer);
+        return this;
+    }
+
+    /**
+     * Returns the local port packets are received on.
+     */
+    public int localPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void publish(List<InvalidationEvent> batch) {
+        for (byte[] packet : InvalidationCodec.encode(batch, MAX_PACKET_SIZE)) {
+            for (SocketAddress target : targets) {
+                try {
+                    socket.send(new DatagramPacket(packet, packet.length, target));
+                } catch (IOException e) {
+                    log.warn("Failed to send invalidation packet to {}: {}", target, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<List<InvalidationEvent>> receiver) {
+        receivers.add(receiver);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        socket.close();
+        try {
+            receiver.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[65535];
+        while (!closed) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                List<InvalidationEvent> batch = InvalidationCodec.decode(packet.getData(), packet.getLength());
+                receivers.forEach(r -> r.accept(batch));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.debug("Ignoring invalidation packet from {}: {}", packet.getAddress(), e.getMessage());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Invalidation receiver failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ngcin.ems.mapper.cache;
+
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out which rows a BaseMapper write statement touched, as id keys shared by the entity
+ * cache and the invalidation bus.
+ */
+final class WrittenRows {
+
+    private WrittenRows() {
+    }
+
+    /**
+     * Normalizes an id to its cache key, so that e.g. {@code 5}, {@code 5L} and {@code "5"} share
+     * an entry and keys survive serialization to other nodes.
+     */
+    static String key(Object id) {
+        return id.toString();
+    }
+
+    /**
+     * Returns the key of an entity's id.
+     *
+     * @return the key, or null if the object is not such an entity or has no id yet
+     */
+    static String idOf(TableInfo tableInfo, Object entity) {
+        if (!tableInfo.entityClass().isInstance(entity)) {
+            return null;
+        }
+        Object id = FieldValues.read(tableInfo.idField(), entity);
+        return id == null ? null : key(id);
+    }
+
+    /**
+     * Returns the id keys written by a BaseMapper statement, after it ran.
+     *
+     * @param tableInfo the entity metadata of the mapper
+     * @param method    the mapper method name
+     * @param parameter the statement parameter
+     * @return the keys, or null if the statement may have written any row of the table
+     */
+    static Set<String> ids(TableInfo tableInfo, String method, Object parameter) {
+        Map<?, ?> params = parameter instanceof Map<?, ?> map ? map : Map.of();
+        if ("deleteById".equals(method) || "hardDeleteById".equals(method)) {
+            Object id = params.get("id");
+            return id == null ? null : Set.of(key(id));
+        }
+        Collection<?> entities = switch (method) {
+            case "insert", "insertSelective", "upsert", "insertIgnore", "updateById" ->
+                    Collections.singletonList(parameter);
+            case "updateSelectiveById" -> Collections.singletonList(params.get("entity"));
+            case "insertBatch", "upsertBatch", "insertIgnoreBatch" ->
+                    params.get("list") instanceof Collection<?> list ? list : null;
+            default -> null;
+        };
+        if (entities == null) {
+            return null;
+        }
+        Set<String> keys = new HashSet<>();
+        for (Object entity : entities) {
+            String key = entity == null ? null : idOf(tableInfo, entity);
+            if (key == null) {
+                return null;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandler;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interceptor that reads the columns of {@link Column#typeHandler()} fields with their type
+ * handler in BaseMapper selects and cursors.
+ *
+ * <p>BaseMapper selects map results automatically, which picks handlers by field type only. For
+ * entities with such fields, the inline result map is replaced by one that maps those columns
+ * explicitly and still maps the others automatically. The rebuilt statement is cached. Parameters
+ * need no interceptor: SQL providers name the handler in the placeholders.
+ *
+ * <p>Register it after {@link PaginationInterceptor} so that paged queries use the rebuilt map.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "queryCursor",
+               args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class ColumnTypeHandlerInterceptor implements Interceptor {
+
+    private final Map<String, MappedStatement> statementCache = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        if (tableInfo == null || ms.getResultMaps().size() != 1
+                || ms.getResultMaps().get(0).getType() != tableInfo.entityClass()
+                || tableInfo.fields().stream().noneMatch(f -> f.typeHandler() != null)) {
+            return invocation.proceed();
+        }
+        MappedStatement rebuilt = statementCache.get(ms.getId());
+        if (rebuilt == null || rebuilt.getSqlSource() != ms.getSqlSource()) {
+            rebuilt = copyWithResultMap(ms, buildResultMap(ms.getConfiguration(), ms.getResultMaps().get(0), tableInfo));
+            statementCache.put(ms.getId(), rebuilt);
+        }
+        invocation.getArgs()[0] = rebuilt;
+        return invocation.proceed();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ResultMap buildResultMap(Configuration configuration, ResultMap original, TableInfo tableInfo) {
+        List<ResultMapping> mappings = tableInfo.fields().stream()
+                .filter(f -> f.typeHandler() != null)
+                .map(f -> new ResultMapping.Builder(configuration, f.getProperty(), f.column(),
+                        configuration.getTypeHandlerRegistry().getInstance(f.getPropertyType(),
+                                (Class<TypeHandler<?>>) (Class<?>) f.typeHandler()))
+                        .javaType(f.getPropertyType())
+                        .build())
+                .toList();
+        // No autoMapping flag: the remaining columns follow the configured auto-mapping behavior
+        return new ResultMap.Builder(configuration, original.getId(), original.getType(), mappings).build();
+    }
+
+    private static MappedStatement copyWithResultMap(MappedStatement original, ResultMap resultMap) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(
+            original.getConfiguration(),
+            original.getId(),
+            original.getSqlSource(),
+            original.getSqlCommandType()
+        );
+        builder.resource(original.getResource())
+               .fetchSize(original.getFetchSize())
+               .statementType(original.getStatementType())
+               .keyGenerator(original.getKeyGenerator())
+               .databaseId(original.getDatabaseId())
+               .lang(original.getLang())
+               .resultOrdered(original.isResultOrdered())
+               .resultSetType(original.getResultSetType())
+               .flushCacheRequired(original.isFlushCacheRequired())
+               .useCache(original.isUseCache())
+               .cache(original.getCache())
+               .timeout(original.getTimeout())
+               .parameterMap(original.getParameterMap())
+               .resultMaps(List.of(resultMap));
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of rebuilt statements.
+     */
+    public int cachedStatements() {
+        return statementCache.size();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // No properties needed
+    }
+}
@@ -1,5 +1,10 @@
 package com.ngcin.ems.mapper.core;
 
+import org.apache.ibatis.mapping.SqlCommandType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
 public enum Dialect {
     MYSQL {
         @Override
@@ -12,6 +17,50 @@ public enum Dialect {
         public String buildCountSql(String sql) {
             return "SELECT COUNT(*) FROM (" + sql + ") AS _count_table";
         }
+
+        @Override
+        public String buildUpsertSql(String table, List<String> columns, List<List<String>> rows,
+                                     List<String> keyColumns, List<String> updateColumns, String versionColumn) {
+            if (updateColumns.isEmpty() && versionColumn == null) {
+                return buildInsertIgnoreSql(table, columns, rows, keyColumns);
+            }
+            List<String> sets = updateColumns.stream()
+                    .map(c -> c + " = VALUES(" + c + ")")
+                    .collect(Collectors.toList());
+            if (versionColumn != null) {
+                sets.add(versionColumn + " = " + versionColumn + " + 1");
+            }
+            return buildMultiRowInsert(table, columns, rows) + " ON DUPLICATE KEY UPDATE " + String.join(", ", sets);
+        }
+
+        @Override
+        public String buildInsertIgnoreSql(String table, List<String> columns, List<List<String>> rows,
+                                           List<String> keyColumns) {
+            // A self-assignment only swallows duplicate-key conflicts, unlike INSERT IGNORE
+            // which also downgrades truncation and NOT NULL errors to warnings.
+            String key = keyColumns.get(0);
+            return buildMultiRowInsert(table, columns, rows) + " ON DUPLICATE KEY UPDATE " + key + " = " + key;
+        }
+
+        @Override
+        public boolean supportsReturningColumns(SqlCommandType commandType) {
+            // Connector/J only reports the AUTO_INCREMENT value as a generated key
+            return false;
+        }
+
+        @Override
+        public String buildBulkLoadSql(String table, List<String> columns, String source) {
+            return "LOAD DATA LOCAL INFILE '" + source + "' INTO TABLE " + table
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY ',' ENCLOSED BY '\"' ESCAPED BY ''"
+                    + " LINES TERMINATED BY '\\n' (" + String.join(", ", columns) + ")";
+        }
+
+        @Override
+        public int streamingFetchSize() {
+            // Connector/J streams row by row only with this marker value
+            return Integer.MIN_VALUE;
+        }
+
     },
     ORACLE {
         @Override
@@ -26,6 +75,29 @@ public enum Dialect {
             return "SELECT COUNT(*) FROM (" + sql + ")";
         }
 
+        @Override
+        public String buildUpsertSql(String table, List<String> columns, List<List<String>> rows,
+                                     List<String> keyColumns, List<String> updateColumns, String versionColumn) {
+            return buildMergeSql(table, columns, buildDualSource(columns, rows), keyColumns, updateColumns, versionColumn);
+        }
+
+        @Override
+        public String buildInsertIgnoreSql(String table, List<String> columns, List<List<String>> rows,
+                                           List<String> keyColumns) {
+            return buildMergeSql(table, columns, buildDualSource(columns, rows), keyColumns, List.of(), null);
+        }
+
+        @Override
+        public String buildSequenceNextValueSql(String sequence) {
+            return "SELECT " + sequence + ".NEXTVAL FROM DUAL";
+        }
+
+        @Override
+        public boolean supportsReturningColumns(SqlCommandType commandType) {
+            // The Oracle driver only returns generated-key columns for INSERT, not for UPDATE or MERGE
+            return commandType == SqlCommandType.INSERT;
+        }
+
     },
     POSTGRESQL {
         @Override
@@ -39,8 +111,104 @@ public enum Dialect {
             return "SELECT COUNT(*) FROM (" + sql + ") AS _count_table";
         }
 
+        @Override
+        public String buildUpsertSql(String table, List<String> columns, List<List<String>> rows,
+                                     List<String> keyColumns, List<String> updateColumns, String versionColumn) {
+            if (updateColumns.isEmpty() && versionColumn == null) {
+                return buildInsertIgnoreSql(table, columns, rows, keyColumns);
+            }
+            List<String> sets = updateColumns.stream()
+                    .map(c -> c + " = EXCLUDED." + c)
+                    .collect(Collectors.toList());
+            if (versionColumn != null) {
+                sets.add(versionColumn + " = " + table + "." + versionColumn + " + 1");
+            }
+            return buildMultiRowInsert(table, columns, rows)
+                    + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO UPDATE SET " + String.join(", ", sets);
+        }
+
+        @Override
+        public String buildInsertIgnoreSql(String table, List<String> columns, List<List<String>> rows,
+                                           List<String> keyColumns) {
+            return buildMultiRowInsert(table, columns, rows)
+                    + " ON CONFLICT (" + String.join(", ", keyColumns) + ") DO NOTHING";
+        }
+
+        @Override
+        public String buildBulkLoadSql(String table, List<String> columns, String source) {
+            return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        }
+
+        @Override
+        public String buildSequenceNextValueSql(String sequence) {
+            return "SELECT nextval('" + sequence + "')";
+        }
+
+        @Override
+        public boolean supportsNativeUuid() {
+            return true;
+        }
+
+    },
+    H2 {
+        @Override
+        public String buildPaginationSql(String sql, long current, long size) {
+            long offset = (current - 1) * size;
+            return sql + " LIMIT " + size + " OFFSET " + offset;
+        }
+
+        @Override
+        public String buildCountSql(String sql) {
+            return "SELECT COUNT(*) FROM (" + sql + ") AS _count_table";
+        }
+
+        @Override
+        public String buildUpsertSql(String table, List<String> columns, List<List<String>> rows,
+                                     List<String> keyColumns, List<String> updateColumns, String versionColumn) {
+            return buildMergeSql(table, columns, buildValuesSource(columns, rows), keyColumns, updateColumns, versionColumn);
+        }
+
+        @Override
+        public String buildInsertIgnoreSql(String table, List<String> columns, List<List<String>> rows,
+                                           List<String> keyColumns) {
+            return buildMergeSql(table, columns, buildValuesSource(columns, rows), keyColumns, List.of(), null);
+        }
+
+        @Override
+        public String buildBulkLoadSql(String table, List<String> columns, String source) {
+            String columnList = String.join(", ", columns);
+            return "INSERT INTO " + table + " (" + columnList + ") SELECT * FROM CSVREAD('"
+                    + source.replace("'", "''") + "', '" + String.join(",", columns) + "', 'charset=UTF-8')";
+        }
+
+        @Override
+        public String buildSequenceNextValueSql(String sequence) {
+            return "SELECT NEXT VALUE FOR " + sequence;
+        }
+
+        @Override
+        public boolean supportsNativeUuid() {
+            return true;
+        }
     };
 
+    /**
+     * Resolves a dialect by its configuration name (case-insensitive).
+     *
+     * @param name dialect name such as "mysql" or "postgresql"
+     * @return the matching dialect, or MYSQL when the name is unknown or null
+     */
+    public static Dialect fromName(String name) {
+        if (name == null) {
+            return MYSQL;
+        }
+        try {
+            return Dialect.valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return MYSQL;
+        }
+    }
+
     /**
      * 获取分页sql
      *
@@ -58,4 +226,133 @@ public enum Dialect {
      * @return 方言对应的sql
      */
     public abstract String buildCountSql(final String sql);
-}
\ No newline at end of file
+
+    /**
+     * 获取插入或更新(upsert)的sql
+     *
+     * @param table         表名
+     * @param columns       插入列
+     * @param rows          每行的参数占位符, 与 columns 一一对应
+     * @param keyColumns    冲突判定列 (@Unique 列或主键列)
+     * @param updateColumns 冲突时需要更新的列
+     * @param versionColumn 乐观锁版本列, 冲突时自增; 没有则为 null
+     * @return 方言对应的sql
+     */
+    public abstract String buildUpsertSql(String table, List<String> columns, List<List<String>> rows,
+                                          List<String> keyColumns, List<String> updateColumns, String versionColumn);
+
+    /**
+     * 获取插入并忽略冲突行的sql
+     *
+     * @param table      表名
+     * @param columns    插入列
+     * @param rows       每行的参数占位符, 与 columns 一一对应
+     * @param keyColumns 冲突判定列 (@Unique 列或主键列)
+     * @return 方言对应的sql
+     */
+    public abstract String buildInsertIgnoreSql(String table, List<String> columns, List<List<String>> rows,
+                                                List<String> keyColumns);
+
+    /**
+     * 是否支持通过 generated-keys 列清单读回任意列 (RETURNING / FINAL TABLE)
+     *
+     * @param commandType 语句类型; 可能更新已有行的 upsert 按 UPDATE 判断
+     * @return 支持则为 true; 否则只能读回自增主键
+     */
+    public boolean supportsReturningColumns(SqlCommandType commandType) {
+        return commandType == SqlCommandType.INSERT || commandType == SqlCommandType.UPDATE;
+    }
+
+    /**
+     * 获取原生批量导入的sql, 数据源为 RFC 4180 CSV (逗号分隔, 双引号包围, UTF-8)
+     *
+     * @param table   表名
+     * @param columns CSV 中的列, 按顺序
+     * @param source  数据源 (文件路径或流的名称)
+     * @return 方言对应的sql; 不支持原生导入时返回 null
+     */
+    public String buildBulkLoadSql(String table, List<String> columns, String source) {
+        return null;
+    }
+
+    /**
+     * 获取读取序列下一个值的sql
+     *
+     * @param sequence 序列名
+     * @return 方言对应的sql; 不支持序列时返回 null
+     */
+    public String buildSequenceNextValueSql(String sequence) {
+        return null;
+    }
+
+    /**
+     * 是否有原生 uuid 类型 (16 字节存储, 可直接绑定 java.util.UUID)
+     *
+     * @return 有则为 true; 否则 UUID 以 BINARY(16) / RAW(16) 存储
+     */
+    public boolean supportsNativeUuid() {
+        return false;
+    }
+
+    /**
+     * 获取流式查询的 fetch size, 使驱动逐批读取结果而不是一次读入全部行
+     * (PostgreSQL 仅在关闭自动提交时按 fetch size 读取)
+     *
+     * @return fetch size
+     */
+    public int streamingFetchSize() {
+        return 1000;
+    }
+
+    private static String buildMultiRowInsert(String table, List<String> columns, List<List<String>> rows) {
+        String values = rows.stream()
+                .map(row -> "(" + String.join(", ", row) + ")")
+                .collect(Collectors.joining(", "));
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES " + values;
+    }
+
+    private static String buildDualSource(List<String> columns, List<List<String>> rows) {
+        return rows.stream()
+                .map(row -> {
+                    StringBuilder select = new StringBuilder("SELECT ");
+                    for (int i = 0; i < columns.size(); i++) {
+                        if (i > 0) {
+                            select.append(", ");
+                        }
+                        select.append(row.get(i)).append(" AS ").append(columns.get(i));
+                    }
+                    return select.append(" FROM DUAL").toString();
+                })
+                .collect(Collectors.joining(" UNION ALL ", "(", ") s"));
+    }
+
+    private static String buildValuesSource(List<String> columns, List<List<String>> rows) {
+        return rows.stream()
+                .map(row -> "(" + String.join(", ", row) + ")")
+                .collect(Collectors.joining(", ", "(VALUES ", ")"))
+                + " AS s (" + String.join(", ", columns) + ")";
+    }
+
+    private static String buildMergeSql(String table, List<String> columns, String source, List<String> keyColumns,
+                                        List<String> updateColumns, String versionColumn) {
+        StringBuilder merge = new StringBuilder("MERGE INTO ").append(table).append(" t USING ").append(source)
+                .append(" ON (")
+                .append(keyColumns.stream().map(c -> "t." + c + " = s." + c).collect(Collectors.joining(" AND ")))
+                .append(")");
+
+        List<String> sets = updateColumns.stream()
+                .map(c -> "t." + c + " = s." + c)
+                .collect(Collectors.toList());
+        if (versionColumn != null) {
+            sets.add("t." + versionColumn + " = t." + versionColumn + " + 1");
+        }
+        if (!sets.isEmpty()) {
+            merge.append(" WHEN MATCHED THEN UPDATE SET ").append(String.join(", ", sets));
+        }
+
+        merge.append(" WHEN NOT MATCHED THEN INSERT (").append(String.join(", ", columns)).append(") VALUES (")
+                .append(columns.stream().map(c -> "s." + c).collect(Collectors.joining(", ")))
+                .append(")");
+        return merge.toString();
+    }
+}
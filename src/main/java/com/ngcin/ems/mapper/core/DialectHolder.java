@@ -0,0 +1,40 @@
+package com.ngcin.ems.mapper.core;
+
+/**
+ * Holds the dialect used by SQL providers for dialect-specific statements (upsert, etc.).
+ *
+ * <p>The global dialect is set from {@code ems.mapper.dialect} by {@code DataMapperConfig}.
+ * When MyBatis is configured with a {@code DatabaseIdProvider}, a databaseId naming a
+ * {@link Dialect} takes precedence so that several data sources can use different dialects.
+ */
+public final class DialectHolder {
+
+    private static volatile Dialect dialect = Dialect.MYSQL;
+
+    private DialectHolder() {}
+
+    public static Dialect getDialect() {
+        return dialect;
+    }
+
+    public static void setDialect(Dialect dialect) {
+        DialectHolder.dialect = dialect == null ? Dialect.MYSQL : dialect;
+    }
+
+    /**
+     * Resolves the dialect for a statement.
+     *
+     * @param databaseId the MyBatis databaseId of the statement, may be null
+     * @return the dialect named by databaseId, or the global dialect
+     */
+    public static Dialect resolve(String databaseId) {
+        if (databaseId != null) {
+            for (Dialect candidate : Dialect.values()) {
+                if (candidate.name().equalsIgnoreCase(databaseId)) {
+                    return candidate;
+                }
+            }
+        }
+        return dialect;
+    }
+}
@@ -0,0 +1,175 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.BaseMapperProvider;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Interceptor that limits {@code updateById} and {@code updateSelectiveById} to the columns that
+ * changed since the entity was loaded, for tables annotated with {@link Table#dirtyTracking()}.
+ *
+ * <p>Entities returned by BaseMapper selects are snapshotted in {@link EntitySnapshots}. An update
+ * of a snapshotted entity then:
+ * <ul>
+ *   <li>is skipped and reports 1 row when no field changed;</li>
+ *   <li>otherwise sets only the changed fields (for {@code updateSelectiveById}: changed and
+ *       non-null), keeping the version increment and version condition.</li>
+ * </ul>
+ * The statement for each changed-field set is compiled once and cached. Entities that were not
+ * loaded through a select (no snapshot) are updated as usual. After a successful update the
+ * snapshot is refreshed.
+ *
+ * <p>Register it after {@link KeyPropertyInterceptor} and the unit-of-work interceptors so that
+ * they see the narrowed statement.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class DirtyTrackingInterceptor implements Interceptor {
+
+    private static final BaseMapperProvider PROVIDER = new BaseMapperProvider();
+
+    private final Map<String, MappedStatement> statementCache = new ConcurrentHashMap<>();
+    private final AtomicLong skippedUpdates = new AtomicLong();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        if ("query".equals(invocation.getMethod().getName())) {
+            Object result = invocation.proceed();
+            TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+            if (tableInfo != null && tableInfo.dirtyTracking() && result instanceof List<?> rows) {
+                for (Object row : rows) {
+                    if (tableInfo.entityClass().isInstance(row)) {
+                        EntitySnapshots.snapshotIfAbsent(tableInfo, row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        String method = ms.getId().substring(ms.getId().lastIndexOf('.') + 1);
+        boolean selective = "updateSelectiveById".equals(method);
+        if (!selective && !"updateById".equals(method)
+                || EntityClassResolver.resolveStatementTableInfo(ms.getId()) == null) {
+            return invocation.proceed();
+        }
+        Object parameter = invocation.getArgs()[1];
+        Object entity = selective && parameter instanceof Map<?, ?> params ? params.get("entity") : parameter;
+        if (entity == null) {
+            return invocation.proceed();
+        }
+        TableInfo tableInfo = EntityClassResolver.resolve(entity.getClass());
+        if (!tableInfo.dirtyTracking() || tableInfo.idField() == null) {
+            return invocation.proceed();
+        }
+        BitSet changed = EntitySnapshots.changedFields(tableInfo, entity);
+        if (changed == null) {
+            // Not loaded through a select: a full update leaves the row equal to the entity
+            return selective ? invocation.proceed() : refresh(invocation.proceed(), tableInfo, entity, null);
+        }
+
+        List<TableFieldInfo> fields = EntitySnapshots.trackedFields(tableInfo);
+        if (selective) {
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                if (fields.get(i).field().get(entity) == null) {
+                    changed.clear(i);
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            skippedUpdates.incrementAndGet();
+            return 1;
+        }
+        if (tableInfo.hasVersion() && tableInfo.versionField().field().get(entity) == null) {
+            // Let the provider report the missing version
+            return invocation.proceed();
+        }
+
+        String key = ms.getId() + '|' + entity.getClass().getName() + '|' + Arrays.toString(changed.toLongArray());
+        invocation.getArgs()[0] = statementCache.computeIfAbsent(key, k -> {
+            List<TableFieldInfo> setFields = new ArrayList<>();
+            changed.stream().forEach(i -> setFields.add(fields.get(i)));
+            String sql = PROVIDER.updateByIdColumns(tableInfo, setFields, selective ? "entity" : null);
+            SqlSource sqlSource = ms.getLang().createSqlSource(ms.getConfiguration(), sql, parameter.getClass());
+            return copyWithSqlSource(ms, sqlSource);
+        });
+        return refresh(invocation.proceed(), tableInfo, entity, changed);
+    }
+
+    private Object refresh(Object result, TableInfo tableInfo, Object entity, BitSet written) {
+        if (result instanceof Integer rows && rows > 0) {
+            EntitySnapshots.refresh(tableInfo, entity, written);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of updates skipped because nothing changed.
+     */
+    public long skippedUpdates() {
+        return skippedUpdates.get();
+    }
+
+    /**
+     * Returns the number of compiled changed-column statements.
+     */
+    public int cachedStatements() {
+        return statementCache.size();
+    }
+
+    private static MappedStatement copyWithSqlSource(MappedStatement original, SqlSource sqlSource) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(
+            original.getConfiguration(),
+            original.getId(),
+            sqlSource,
+            original.getSqlCommandType()
+        );
+        builder.resource(original.getResource())
+               .fetchSize(original.getFetchSize())
+               .statementType(original.getStatementType())
+               .keyGenerator(original.getKeyGenerator())
+               .databaseId(original.getDatabaseId())
+               .lang(original.getLang())
+               .resultOrdered(original.isResultOrdered())
+               .flushCacheRequired(original.isFlushCacheRequired())
+               .useCache(original.isUseCache())
+               .cache(original.getCache())
+               .timeout(original.getTimeout())
+               .parameterMap(original.getParameterMap())
+               .resultMaps(original.getResultMaps());
+        if (original.getKeyProperties() != null) {
+            builder.keyProperty(String.join(",", original.getKeyProperties()));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // No properties needed
+    }
+}
@@ -0,0 +1,179 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.json.JsonNodeValue;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.FieldValues;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Side table of field snapshots for entities of {@link Table#dirtyTracking()} tables, keyed by
+ * object identity and held weakly, so a snapshot lives exactly as long as its entity.
+ *
+ * <p>Snapshots cover the fields {@code updateById} writes (all non-id fields except
+ * {@code @Version} and {@code @Deleted}). Immutable values (strings, numbers, enums,
+ * {@code java.time} types, UUIDs, {@link JsonNodeValue}) are kept by reference; arrays, dates and
+ * JSON nodes are copied (see {@link FieldValues}). Values of any other type cannot be compared
+ * and always count as changed.
+ *
+ * <p>Snapshots are taken by {@link DirtyTrackingInterceptor}; this class only exposes inspection.
+ */
+public final class EntitySnapshots {
+
+    private static final Map<IdentityKey, Object[]> SNAPSHOTS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> COLLECTED = new ReferenceQueue<>();
+    private static final Map<Class<?>, List<TableFieldInfo>> TRACKED_FIELDS = new ConcurrentHashMap<>();
+
+    private EntitySnapshots() {
+    }
+
+    /**
+     * Returns true if a snapshot is held for the entity.
+     */
+    public static boolean isTracked(Object entity) {
+        return entity != null && SNAPSHOTS.containsKey(new IdentityKey(entity, null));
+    }
+
+    /**
+     * Returns the properties of the entity that differ from its snapshot.
+     *
+     * @param entity the entity
+     * @return the changed property names in field order, or null if the entity is not tracked
+     */
+    public static Set<String> dirtyProperties(Object entity) {
+        TableInfo tableInfo = EntityClassResolver.resolve(entity.getClass());
+        BitSet changed = changedFields(tableInfo, entity);
+        if (changed == null) {
+            return null;
+        }
+        List<TableFieldInfo> fields = trackedFields(tableInfo);
+        Set<String> properties = new LinkedHashSet<>();
+        changed.stream().forEach(i -> properties.add(fields.get(i).getProperty()));
+        return properties;
+    }
+
+    /**
+     * Drops the snapshot of the entity; its next update writes every column again.
+     */
+    public static void detach(Object entity) {
+        if (entity != null) {
+            SNAPSHOTS.remove(new IdentityKey(entity, null));
+        }
+    }
+
+    /**
+     * Returns the number of snapshots currently held.
+     */
+    public static int size() {
+        purge();
+        return SNAPSHOTS.size();
+    }
+
+    static List<TableFieldInfo> trackedFields(TableInfo tableInfo) {
+        return TRACKED_FIELDS.computeIfAbsent(tableInfo.entityClass(), type -> tableInfo.getNonIdFields().stream()
+                .filter(f -> !f.isVersion() && !f.isDeleted())
+                .toList());
+    }
+
+    /**
+     * Records the current field values of the entity unless a snapshot is already held (e.g. the
+     * entity was served again from a session cache).
+     */
+    static void snapshotIfAbsent(TableInfo tableInfo, Object entity) {
+        purge();
+        SNAPSHOTS.computeIfAbsent(new IdentityKey(entity, COLLECTED), k -> capture(tableInfo, entity));
+    }
+
+    /**
+     * Records the current values of the given fields, after they were written.
+     *
+     * @param written indexes into {@link #trackedFields} of written fields, or null for all fields
+     */
+    static void refresh(TableInfo tableInfo, Object entity, BitSet written) {
+        purge();
+        if (written == null) {
+            SNAPSHOTS.put(new IdentityKey(entity, COLLECTED), capture(tableInfo, entity));
+            return;
+        }
+        List<TableFieldInfo> fields = trackedFields(tableInfo);
+        SNAPSHOTS.computeIfPresent(new IdentityKey(entity, null), (k, snapshot) -> {
+            Object[] values = snapshot.clone();
+            written.stream().forEach(i -> values[i] = FieldValues.copy(FieldValues.read(fields.get(i), entity)));
+            return values;
+        });
+    }
+
+    /**
+     * Compares the entity with its snapshot.
+     *
+     * @return indexes into {@link #trackedFields} of changed fields, or null if not tracked
+     */
+    static BitSet changedFields(TableInfo tableInfo, Object entity) {
+        Object[] snapshot = SNAPSHOTS.get(new IdentityKey(entity, null));
+        if (snapshot == null) {
+            return null;
+        }
+        List<TableFieldInfo> fields = trackedFields(tableInfo);
+        BitSet changed = new BitSet(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            Object before = snapshot[i];
+            Object after = FieldValues.read(fields.get(i), entity);
+            if (before == FieldValues.UNCOPYABLE || !FieldValues.same(before, after)) {
+                changed.set(i);
+            }
+        }
+        return changed;
+    }
+
+    private static Object[] capture(TableInfo tableInfo, Object entity) {
+        List<TableFieldInfo> fields = trackedFields(tableInfo);
+        Object[] values = new Object[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = FieldValues.copy(FieldValues.read(fields.get(i), entity));
+        }
+        return values;
+    }
+
+    private static void purge() {
+        Object collected;
+        while ((collected = COLLECTED.poll()) != null) {
+            SNAPSHOTS.remove(collected);
+        }
+    }
+
+    /**
+     * Weak identity key; equal only to keys of the same (still reachable) object.
+     */
+    private static final class IdentityKey extends WeakReference<Object> {
+
+        private final int hash;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof IdentityKey other)) return false;
+            Object referent = get();
+            return referent != null && referent == other.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.ngcin.ems.mapper.core;
+
+/**
+ * Holds the id generators used by SQL providers for {@link IdType#SNOWFLAKE},
+ * {@link IdType#UUID_V7} and {@link IdType#SEGMENT} ids.
+ *
+ * <p>The Snowflake generator is built from the {@code ems.mapper.snowflake.*} properties by
+ * {@code DataMapperConfig}; without configuration a generator with datacenter and worker id 0 is
+ * used, which is only safe for a single process. The segment allocator is created from a
+ * {@link SegmentSource} bean; there is none by default.
+ */
+public final class IdGeneratorHolder {
+
+    private static volatile SnowflakeIdGenerator snowflake = SnowflakeIdGenerator.builder().build();
+    private static volatile UuidV7Generator uuidV7 = new UuidV7Generator();
+    private static volatile SegmentIdAllocator segmentAllocator;
+
+    private IdGeneratorHolder() {}
+
+    public static SnowflakeIdGenerator getSnowflake() {
+        return snowflake;
+    }
+
+    public static void setSnowflake(SnowflakeIdGenerator snowflake) {
+        IdGeneratorHolder.snowflake = snowflake == null ? SnowflakeIdGenerator.builder().build() : snowflake;
+    }
+
+    public static UuidV7Generator getUuidV7() {
+        return uuidV7;
+    }
+
+    public static void setUuidV7(UuidV7Generator uuidV7) {
+        IdGeneratorHolder.uuidV7 = uuidV7 == null ? new UuidV7Generator() : uuidV7;
+    }
+
+    /**
+     * Returns the allocator of SEGMENT ids.
+     *
+     * @throws IllegalStateException if none is configured
+     */
+    public static SegmentIdAllocator getSegmentAllocator() {
+        SegmentIdAllocator allocator = segmentAllocator;
+        if (allocator == null) {
+            throw new IllegalStateException("SEGMENT ids need a SegmentSource; define a SegmentSource bean "
+                    + "or call IdGeneratorHolder.setSegmentAllocator");
+        }
+        return allocator;
+    }
+
+    /**
+     * Sets the allocator of SEGMENT ids; the previous one is not closed.
+     */
+    public static void setSegmentAllocator(SegmentIdAllocator segmentAllocator) {
+        IdGeneratorHolder.segmentAllocator = segmentAllocator;
+    }
+}
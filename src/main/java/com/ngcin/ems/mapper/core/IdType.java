@@ -3,5 +3,13 @@ package com.ngcin.ems.mapper.core;
 public enum IdType {
     AUTO,
     UUID,
-    SNOWFLAKE
+    SNOWFLAKE,
+    /**
+     * Time-ordered version 7 UUIDs, see {@link UuidV7Generator}.
+     */
+    UUID_V7,
+    /**
+     * Numeric ids handed out from ranges reserved in the database, see {@link SegmentIdAllocator}.
+     */
+    SEGMENT
 }
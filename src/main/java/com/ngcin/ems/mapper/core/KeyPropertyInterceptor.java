@@ -1,18 +1,31 @@
 package com.ngcin.ems.mapper.core;
 
+import com.ngcin.ems.mapper.annotations.Table;
 import com.ngcin.ems.mapper.ref.EntityClassResolver;
 import com.ngcin.ems.mapper.ref.TableFieldInfo;
 import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.plugin.*;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Interceptor that dynamically sets the correct keyProperty for auto-generated keys.
@@ -29,6 +42,20 @@ import java.util.Properties;
  *   <li>Resolves entity metadata to find the actual ID field name</li>
  *   <li>Creates a new MappedStatement with the correct keyProperty</li>
  * </ol>
+ *
+ * <p>For entities annotated with {@code @Table(returning = true)}, BaseMapper write statements
+ * are rebuilt with every mapped column as a key column, so the JDBC driver reads the written
+ * rows back (RETURNING on PostgreSQL, FINAL TABLE on H2) and MyBatis populates them into the
+ * entity. Oracle reads back plain inserts only; on other statements, and on dialects without
+ * column read-back, only the AUTO id is returned.
+ *
+ * <p>Upserts and insert-ignores keyed on {@code @Unique} columns may update or skip an existing
+ * row instead of inserting one, so the id generated for such an entity (UUID, SNOWFLAKE, ...) may
+ * not be the id of the row written. For {@code @Table(returning = true)} entities it is replaced
+ * with that id: by the statement itself where the dialect reads columns back, otherwise by one
+ * {@code SELECT} per {@value #READ_BACK_CHUNK} entities matching their unique columns. The batch
+ * variants do not read back AUTO ids: on conflict the generated keys no longer line up with the
+ * entities.
  */
 @Intercepts({
     @Signature(type = Executor.class, method = "update",
@@ -36,12 +63,42 @@ import java.util.Properties;
 })
 public class KeyPropertyInterceptor implements Interceptor {
 
+    /**
+     * BaseMapper write statements that support read-back, mapped to the path of the
+     * entity inside the MyBatis parameter object.
+     */
+    private static final Map<String, String> RETURNING_STATEMENTS = Map.of(
+            "insert", "",
+            "insertSelective", "",
+            "insertBatch", "list.",
+            "upsert", "",
+            "upsertBatch", "list.",
+            "updateById", "",
+            "updateSelectiveById", "entity."
+    );
+
+    /** BaseMapper writes that may resolve a conflict on the {@code @Unique} columns without an insert. */
+    private static final Set<String> CONFLICT_WRITES = Set.of(
+            "upsert", "upsertBatch", "insertIgnore", "insertIgnoreBatch");
+
+    /** Batch writes whose generated keys cannot be matched to the entities. */
+    private static final Set<String> UNMATCHED_KEY_BATCHES = Set.of("upsertBatch", "insertIgnoreBatch");
+
+    /** Maximum number of entities whose ids are read back by one query. */
+    static final int READ_BACK_CHUNK = 500;
+
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
         Object[] args = invocation.getArgs();
         MappedStatement ms = (MappedStatement) args[0];
         Object parameter = args[1];
 
+        MappedStatement returningMs = createReturningMappedStatementIfNeeded(ms, parameter);
+        if (returningMs != null) {
+            args[0] = returningMs;
+            return invocation.proceed();
+        }
+
         // Only process INSERT operations
         if (ms.getSqlCommandType() != SqlCommandType.INSERT) {
             return invocation.proceed();
@@ -68,8 +125,15 @@ public class KeyPropertyInterceptor implements Interceptor {
         boolean isBatchOperation = parameter instanceof Map &&
                                    ((Map<?, ?>) parameter).containsKey("list");
 
+        String methodName = ms.getId().substring(ms.getId().lastIndexOf('.') + 1);
+
         // For AUTO type: need useGeneratedKeys with correct keyProperty
         if (idField.idType() == IdType.AUTO) {
+            if (UNMATCHED_KEY_BATCHES.contains(methodName)) {
+                args[0] = createMappedStatementWithoutKeyGenerator(ms);
+                return invocation.proceed();
+            }
+
             // For batch operations, use "list.propertyName" format
             String keyProperty = isBatchOperation ? "list." + actualKeyProperty : actualKeyProperty;
 
@@ -89,7 +153,161 @@ public class KeyPropertyInterceptor implements Interceptor {
         MappedStatement newMs = createMappedStatementWithoutKeyGenerator(ms);
         args[0] = newMs;
 
-        return invocation.proceed();
+        if (!CONFLICT_WRITES.contains(methodName) || !tableInfo.hasUniqueFields() || !tableInfo.returning()) {
+            return invocation.proceed();
+        }
+        // Ids are generated while the statement is built: remember which entities had none
+        List<Object> withoutId = new ArrayList<>();
+        for (Object candidate : extractEntities(parameter)) {
+            if (idField.field().get(candidate) == null) {
+                withoutId.add(candidate);
+            }
+        }
+        Object result = invocation.proceed();
+        if (!withoutId.isEmpty() && !Integer.valueOf(BatchExecutor.BATCH_UPDATE_RETURN_VALUE).equals(result)) {
+            readBackIds((Executor) invocation.getTarget(), ms.getConfiguration(), tableInfo, withoutId);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the id of each entity to the id of the row holding its {@code @Unique} values, which
+     * differs from the generated one when the write updated or skipped an existing row. The rows
+     * are selected {@value #READ_BACK_CHUNK} entities at a time.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void readBackIds(Executor executor, Configuration configuration, TableInfo tableInfo,
+                             List<Object> entities) throws SQLException, IllegalAccessException {
+        TableFieldInfo idField = tableInfo.idField();
+        List<TableFieldInfo> keyFields = tableInfo.uniqueFields();
+        List<TypeHandler> keyHandlers = new ArrayList<>(keyFields.size());
+        for (TableFieldInfo keyField : keyFields) {
+            keyHandlers.add(typeHandler(configuration, keyField));
+        }
+        TypeHandler idHandler = typeHandler(configuration, idField);
+
+        // A null key value cannot conflict, so such an entity was inserted with its generated id
+        List<Object> keyed = new ArrayList<>(entities.size());
+        for (Object entity : entities) {
+            if (!keyOf(entity, keyFields).contains(null)) {
+                keyed.add(entity);
+            }
+        }
+
+        String columns = keyFields.stream().map(TableFieldInfo::column).collect(Collectors.joining(", "));
+        String row = keyFields.size() == 1 ? "?" : "(" + "?, ".repeat(keyFields.size() - 1) + "?)";
+        Connection connection = executor.getTransaction().getConnection();
+        for (int from = 0; from < keyed.size(); from += READ_BACK_CHUNK) {
+            List<Object> chunk = keyed.subList(from, Math.min(from + READ_BACK_CHUNK, keyed.size()));
+            String sql = "SELECT " + idField.column() + ", " + columns + " FROM " + tableInfo.tableName()
+                    + " WHERE " + (keyFields.size() == 1 ? columns : "(" + columns + ")") + " IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), row)) + ")";
+
+            Map<List<Object>, Object> ids = new HashMap<>();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int index = 1;
+                for (Object entity : chunk) {
+                    for (int i = 0; i < keyFields.size(); i++) {
+                        keyHandlers.get(i).setParameter(ps, index++, keyFields.get(i).field().get(entity), null);
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        List<Object> key = new ArrayList<>(keyFields.size());
+                        for (int i = 0; i < keyFields.size(); i++) {
+                            key.add(keyHandlers.get(i).getResult(rs, i + 2));
+                        }
+                        ids.put(key, idHandler.getResult(rs, 1));
+                    }
+                }
+            }
+            for (Object entity : chunk) {
+                Object id = ids.get(keyOf(entity, keyFields));
+                if (id != null) {
+                    idField.field().set(entity, id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the values of an entity's {@code @Unique} fields.
+     */
+    private static List<Object> keyOf(Object entity, List<TableFieldInfo> keyFields) throws IllegalAccessException {
+        List<Object> key = new ArrayList<>(keyFields.size());
+        for (TableFieldInfo keyField : keyFields) {
+            key.add(keyField.field().get(entity));
+        }
+        return key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TypeHandler<?> typeHandler(Configuration configuration, TableFieldInfo field) {
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+        return field.typeHandler() != null
+                ? registry.getInstance(field.getPropertyType(), (Class<TypeHandler<?>>) (Class<?>) field.typeHandler())
+                : registry.getTypeHandler(field.getPropertyType());
+    }
+
+    /**
+     * Extracts all entities of a single or batch write.
+     */
+    private List<?> extractEntities(Object parameter) {
+        if (parameter instanceof Map<?, ?> paramMap && paramMap.get("list") instanceof List<?> list) {
+            return list;
+        }
+        return List.of(parameter);
+    }
+
+    /**
+     * Creates a MappedStatement that reads all mapped columns back through generated keys,
+     * if the statement is a BaseMapper write on an entity with {@code @Table(returning = true)}.
+     *
+     * @param ms the original MappedStatement
+     * @param parameter the parameter object
+     * @return the read-back MappedStatement, or null to continue with regular key handling
+     */
+    private MappedStatement createReturningMappedStatementIfNeeded(MappedStatement ms, Object parameter) {
+        SqlCommandType commandType = ms.getSqlCommandType();
+        if (commandType != SqlCommandType.INSERT && commandType != SqlCommandType.UPDATE) {
+            return null;
+        }
+
+        String methodName = ms.getId().substring(ms.getId().lastIndexOf('.') + 1);
+        String prefix = RETURNING_STATEMENTS.get(methodName);
+        if (prefix == null) {
+            return null;
+        }
+
+        Object entity = extractEntity(parameter);
+        if (entity == null || !entity.getClass().isAnnotationPresent(Table.class)) {
+            return null;
+        }
+
+        TableInfo tableInfo = EntityClassResolver.resolve(entity.getClass());
+        if (!tableInfo.returning()) {
+            return null;
+        }
+
+        // Regular AUTO key handling already covers what other dialects can return
+        SqlCommandType readBackKind = methodName.startsWith("upsert") ? SqlCommandType.UPDATE : commandType;
+        if (!DialectHolder.resolve(ms.getDatabaseId()).supportsReturningColumns(readBackKind)) {
+            return null;
+        }
+
+        List<TableFieldInfo> readBackFields = tableInfo.fields();
+        String keyProperty = readBackFields.stream()
+                .map(f -> prefix + f.getProperty())
+                .collect(Collectors.joining(","));
+        String keyColumn = readBackFields.stream()
+                .map(TableFieldInfo::column)
+                .collect(Collectors.joining(","));
+
+        return createBaseBuilder(ms)
+               .keyProperty(keyProperty)
+               .keyColumn(keyColumn)
+               .keyGenerator(Jdbc3KeyGenerator.INSTANCE)
+               .build();
     }
 
     /**
@@ -0,0 +1,337 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.MapperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases a Snowflake worker id from a table shared by all instances:
+ *
+ * <pre>
+ * CREATE TABLE ems_worker_lease (
+ *     worker_id  INT PRIMARY KEY,
+ *     owner      VARCHAR(100) NOT NULL,
+ *     expires_at BIGINT NOT NULL
+ * )
+ * </pre>
+ *
+ * <p>An instance claims the lowest id whose row is missing (INSERT) or expired (conditional
+ * UPDATE); both are atomic, so two instances never claim the same id. A daemon thread renews the
+ * lease every {@code renewInterval}. If renewal finds the row taken over, or cannot reach the
+ * database until the lease expires, the lease is lost: {@link #isValid()} turns false and the
+ * generator stops creating ids. {@link #close()} releases the id.
+ *
+ * <p>Expiry uses the instances' clocks, so the lease duration must be well above the clock skew
+ * between them.
+ */
+public class LeaseTableWorkerIdAssigner implements WorkerIdAssigner {
+
+    public static final String DEFAULT_TABLE = "ems_worker_lease";
+    public static final Duration DEFAULT_LEASE_DURATION = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_RENEW_INTERVAL = Duration.ofSeconds(10);
+
+    private static final Logger log = LoggerFactory.getLogger(LeaseTableWorkerIdAssigner.class);
+
+    private final DataSource dataSource;
+    private String table = DEFAULT_TABLE;
+    private String owner = defaultOwner();
+    private long leaseMillis = DEFAULT_LEASE_DURATION.toMillis();
+    private long renewMillis = DEFAULT_RENEW_INTERVAL.toMillis();
+    private long workerId = -1;
+    private Thread renewer;
+    private boolean closed;
+    /** Local time until which the lease is known to be held; 0 once lost or released. */
+    private volatile long validUntil;
+
+    public LeaseTableWorkerIdAssigner(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Sets the lease table; {@value #DEFAULT_TABLE} by default.
+     */
+    public synchronized LeaseTableWorkerIdAssigner table(String table) {
+        if (table == null || !table.matches("[A-Za-z_][A-Za-z0-9_.]*")) {
+            throw new IllegalArgumentException("Invalid lease table name: " + table);
+        }
+        requireNotStarted();
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Sets the name this instance is recorded under; host name and a random suffix by default.
+     */
+    public synchronized LeaseTableWorkerIdAssigner owner(String owner) {
+        if (owner == null || owner.isBlank()) {
+            throw new IllegalArgumentException("Owner must not be blank");
+        }
+        requireNotStarted();
+        this.owner = owner;
+        return this;
+    }
+
+    /**
+     * Sets how long a lease lasts without renewal, and how often it is renewed.
+     */
+    public synchronized LeaseTableWorkerIdAssigner lease(Duration duration, Duration renewInterval) {
+        if (duration == null || renewInterval == null || renewInterval.isNegative() || renewInterval.isZero()
+                || renewInterval.compareTo(duration) >= 0) {
+            throw new IllegalArgumentException("Renew interval must be positive and shorter than the lease, but was: "
+                    + renewInterval + " for " + duration);
+        }
+        requireNotStarted();
+        this.leaseMillis = duration.toMillis();
+        this.renewMillis = renewInterval.toMillis();
+        return this;
+    }
+
+    /**
+     * Creates the lease table unless it exists.
+     */
+    public void createTableIfNotExists() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                    if (tables.next()) {
+                        return;
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE " + table + " (worker_id INT PRIMARY KEY, "
+                        + "owner VARCHAR(100) NOT NULL, expires_at BIGINT NOT NULL)");
+            }
+            commit(connection);
+        } catch (SQLException e) {
+            throw new MapperException("Failed to create worker lease table " + table, e);
+        }
+    }
+
+    /**
+     * Claims the lowest free or expired worker id and starts renewing it.
+     *
+     * @throws IllegalStateException if every id up to {@code maxWorkerId} is leased, or an id was
+     *                               already acquired
+     * @throws MapperException       if the table cannot be accessed
+     */
+    @Override
+    public synchronized long acquire(long maxWorkerId) {
+        if (workerId >= 0 || closed) {
+            throw new IllegalStateException("Worker id lease already acquired");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Long, Long> expiries = new HashMap<>();
+            try (PreparedStatement select = connection.prepareStatement("SELECT worker_id, expires_at FROM " + table);
+                 ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    expiries.put(rows.getLong(1), rows.getLong(2));
+                }
+            }
+            for (long candidate = 0; candidate <= maxWorkerId; candidate++) {
+                long now = System.currentTimeMillis();
+                Long expiresAt = expiries.get(candidate);
+                boolean claimed = expiresAt == null
+                        ? insert(connection, candidate, now + leaseMillis)
+                        : expiresAt < now && takeOver(connection, candidate, now);
+                if (claimed) {
+                    workerId = candidate;
+                    validUntil = now + leaseMillis;
+                    startRenewer();
+                    log.info("Leased Snowflake worker id {} as {}", candidate, owner);
+                    return candidate;
+                }
+            }
+        } catch (SQLException e) {
+            throw new MapperException("Failed to lease a worker id from " + table, e);
+        }
+        throw new IllegalStateException("All " + (maxWorkerId + 1) + " worker ids in " + table + " are leased");
+    }
+
+    @Override
+    public boolean isValid() {
+        return System.currentTimeMillis() < validUntil;
+    }
+
+    /**
+     * Returns the leased id, or -1 before {@link #acquire}.
+     */
+    public synchronized long workerId() {
+        return workerId;
+    }
+
+    /**
+     * Stops renewing and releases the id.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            thread = renewer;
+            notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (workerId >= 0 && validUntil != 0) {
+            validUntil = 0;
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement release = connection.prepareStatement(
+                         "DELETE FROM " + table + " WHERE worker_id = ? AND owner = ?")) {
+                release.setLong(1, workerId);
+                release.setString(2, owner);
+                release.executeUpdate();
+                commit(connection);
+            } catch (SQLException e) {
+                log.warn("Failed to release Snowflake worker id {}; it expires on its own", workerId, e);
+            }
+        }
+    }
+
+    private boolean insert(Connection connection, long candidate, long expiresAt) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (worker_id, owner, expires_at) VALUES (?, ?, ?)")) {
+            insert.setLong(1, candidate);
+            insert.setString(2, owner);
+            insert.setLong(3, expiresAt);
+            insert.executeUpdate();
+            commit(connection);
+            return true;
+        } catch (SQLException e) {
+            // Another instance inserted the row first (primary key violation)
+            rollback(connection);
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private boolean takeOver(Connection connection, long candidate, long now) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + table
+                + " SET owner = ?, expires_at = ? WHERE worker_id = ? AND expires_at < ?")) {
+            update.setString(1, owner);
+            update.setLong(2, now + leaseMillis);
+            update.setLong(3, candidate);
+            update.setLong(4, now);
+            boolean claimed = update.executeUpdate() == 1;
+            commit(connection);
+            return claimed;
+        }
+    }
+
+    private void startRenewer() {
+        renewer = new Thread(this::run, "ems-worker-lease-" + workerId);
+        renewer.setDaemon(true);
+        renewer.start();
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + renewMillis;
+                long remaining;
+                try {
+                    while (!closed && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                        TimeUnit.MILLISECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            if (!renew()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Extends the lease; returns false once it is lost.
+     */
+    private boolean renew() {
+        long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement update = connection.prepareStatement("UPDATE " + table
+                     + " SET expires_at = ? WHERE worker_id = ? AND owner = ?")) {
+            update.setLong(1, now + leaseMillis);
+            update.setLong(2, workerId);
+            update.setString(3, owner);
+            int rows = update.executeUpdate();
+            commit(connection);
+            if (rows == 1) {
+                validUntil = now + leaseMillis;
+                return true;
+            }
+            validUntil = 0;
+            log.error("Lost the lease of Snowflake worker id {}; no further ids are generated", workerId);
+            return false;
+        } catch (SQLException e) {
+            if (!isValid()) {
+                validUntil = 0;
+                log.error("Could not renew the lease of Snowflake worker id {} before it expired; "
+                        + "no further ids are generated", workerId, e);
+                return false;
+            }
+            log.warn("Failed to renew the lease of Snowflake worker id {}; retrying", workerId, e);
+            return true;
+        }
+    }
+
+    private void requireNotStarted() {
+        if (workerId >= 0) {
+            throw new IllegalStateException("Worker lease settings cannot change after the id was acquired");
+        }
+    }
+
+    private static void commit(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+        } catch (SQLException e) {
+            log.debug("Rollback after failed worker id claim failed", e);
+        }
+    }
+
+    private static String defaultOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
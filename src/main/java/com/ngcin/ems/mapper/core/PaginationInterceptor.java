@@ -53,7 +53,7 @@ public class PaginationInterceptor implements Interceptor {
     private volatile Dialect dialect = Dialect.MYSQL;
 
     /** When true, returns empty result if current page exceeds total pages. */
-    private boolean overflow = false;
+    private volatile boolean overflow = false;
 
     /**
      * Intercepts Executor.query/update to apply pagination.
@@ -345,7 +345,7 @@ public class PaginationInterceptor implements Interceptor {
     }
 
     @Override
-    public synchronized void setProperties(Properties properties) {
+    public void setProperties(Properties properties) {
         String dialectName = properties.getProperty("dialectType", "mysql");
         try {
             this.dialect = Dialect.valueOf(dialectName.toUpperCase());
@@ -0,0 +1,195 @@
+package com.ngcin.ems.mapper.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out {@link IdType#SEGMENT} ids from ranges reserved by a {@link SegmentSource}, so that
+ * the database is consulted once per range instead of once per id.
+ *
+ * <p>Each key (table) has a current range; an id is taken from it with a single atomic increment.
+ * Once {@link #prefetchRatio} of the range is used, the next range is reserved on a background
+ * thread, so that callers normally switch ranges without waiting for the database. Only if that
+ * reservation has not completed (or failed) when the range runs out do callers wait, for the
+ * pending or a new synchronous reservation.
+ *
+ * <p>Ids of a key are unique across processes sharing the source, but not ordered between them,
+ * and the unused rest of a range is lost when the process stops.
+ */
+public class SegmentIdAllocator implements AutoCloseable {
+
+    public static final double DEFAULT_PREFETCH_RATIO = 0.1;
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentIdAllocator.class);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final SegmentSource source;
+    private final Map<String, Buffer> buffers = new ConcurrentHashMap<>();
+    private final ExecutorService prefetcher = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "ems-id-segment-" + THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong fetches = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private volatile double prefetchRatio = DEFAULT_PREFETCH_RATIO;
+
+    public SegmentIdAllocator(SegmentSource source) {
+        this.source = Objects.requireNonNull(source, "source");
+    }
+
+    /**
+     * Sets the fraction of a range after which the next range is reserved;
+     * {@value #DEFAULT_PREFETCH_RATIO} by default. Applies from the next range on.
+     */
+    public SegmentIdAllocator prefetchRatio(double prefetchRatio) {
+        if (!(prefetchRatio >= 0 && prefetchRatio < 1)) {
+            throw new IllegalArgumentException("Prefetch ratio must be in [0, 1), but was: " + prefetchRatio);
+        }
+        this.prefetchRatio = prefetchRatio;
+        return this;
+    }
+
+    /**
+     * Returns the next id of a key.
+     *
+     * @throws com.ngcin.ems.mapper.MapperException if a range is needed and cannot be reserved
+     */
+    public long nextId(String key) {
+        return buffers.computeIfAbsent(key, Buffer::new).next();
+    }
+
+    /**
+     * Returns the number of ranges reserved from the source.
+     */
+    public long fetchCount() {
+        return fetches.get();
+    }
+
+    /**
+     * Returns the number of times a caller waited for a range, including the first of each key.
+     */
+    public long waitCount() {
+        return waits.get();
+    }
+
+    /**
+     * Stops prefetching; ranges are then reserved when they are needed.
+     */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+    }
+
+    private SegmentSource.Segment fetch(String key) {
+        fetches.incrementAndGet();
+        return source.nextSegment(key);
+    }
+
+    /**
+     * Ids of one key: the current range and the pending reservation of the next one.
+     */
+    private final class Buffer {
+
+        private final String key;
+        /** A lock, not a monitor: callers wait for the database holding it, which would pin a virtual thread. */
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Range current = Range.EMPTY;
+        /** Reservation of the next range; guarded by lock. */
+        private CompletableFuture<SegmentSource.Segment> next;
+
+        Buffer(String key) {
+            this.key = key;
+        }
+
+        long next() {
+            while (true) {
+                Range range = current;
+                long id = range.cursor.getAndIncrement();
+                if (id < range.end) {
+                    if (id == range.prefetchAt) {
+                        prefetch();
+                    }
+                    return id;
+                }
+                advance(range);
+            }
+        }
+
+        private void prefetch() {
+            lock.lock();
+            try {
+                if (next == null) {
+                    next = CompletableFuture.supplyAsync(() -> fetch(key), prefetcher);
+                }
+            } catch (RejectedExecutionException e) {
+                // Closed: the range is reserved when needed
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Replaces the exhausted range, unless another caller already did.
+         */
+        private void advance(Range exhausted) {
+            lock.lock();
+            try {
+                if (current != exhausted) {
+                    return;
+                }
+                CompletableFuture<SegmentSource.Segment> pending = next;
+                next = null;
+                SegmentSource.Segment segment = null;
+                if (pending != null) {
+                    if (!pending.isDone()) {
+                        waits.incrementAndGet();
+                    }
+                    try {
+                        segment = pending.join();
+                    } catch (CompletionException e) {
+                        log.warn("Prefetching ids of {} failed; reserving them now", key, e.getCause());
+                    }
+                }
+                if (segment == null) {
+                    waits.incrementAndGet();
+                    segment = fetch(key);
+                }
+                current = new Range(segment.start(), segment.end(),
+                        segment.start() + (long) (segment.size() * prefetchRatio));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Range being handed out; {@code cursor} may run past {@code end} while callers switch ranges.
+     */
+    private static final class Range {
+
+        static final Range EMPTY = new Range(0, 0, -1);
+
+        final AtomicLong cursor;
+        final long end;
+        final long prefetchAt;
+
+        Range(long start, long end, long prefetchAt) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+            this.prefetchAt = prefetchAt;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ngcin.ems.mapper.core;
+
+/**
+ * Reserves ranges of ids for {@link SegmentIdAllocator}. Every range returned for a key must be
+ * disjoint from all ranges returned before for that key, by any process.
+ *
+ * <p>{@link TableSegmentSource} reserves ranges from a counter row per key,
+ * {@link SequenceSegmentSource} from a database sequence.
+ */
+@FunctionalInterface
+public interface SegmentSource {
+
+    /**
+     * Reserves the next range of ids.
+     *
+     * @param key the id space, the table name for {@link IdType#SEGMENT} ids
+     * @return the reserved range
+     * @throws com.ngcin.ems.mapper.MapperException if the database cannot be accessed
+     */
+    Segment nextSegment(String key);
+
+    /**
+     * Range of ids from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    record Segment(long start, long end) {
+
+        public Segment {
+            if (end <= start) {
+                throw new IllegalArgumentException("Empty id segment [" + start + ", " + end + ")");
+            }
+        }
+
+        public long size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.MapperException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reserves id ranges from a database sequence per key (pooled-lo optimizer): the sequence
+ * increments by the step, and a value {@code v} read from it reserves {@code [v, v + step)}.
+ *
+ * <pre>
+ * CREATE SEQUENCE t_order_seq START WITH 1 INCREMENT BY 1000
+ * </pre>
+ *
+ * <p>A reservation is a single {@code NEXTVAL}, which needs no transaction and never blocks other
+ * instances. The step must equal the sequence's {@code INCREMENT BY}, or ranges overlap. Supported
+ * on the Oracle, PostgreSQL and H2 dialects; MySQL has no sequences, use
+ * {@link TableSegmentSource} there.
+ */
+public class SequenceSegmentSource implements SegmentSource {
+
+    public static final String DEFAULT_SUFFIX = "_seq";
+
+    private final DataSource dataSource;
+    private final Dialect dialect;
+    private volatile String suffix = DEFAULT_SUFFIX;
+    private volatile int step = TableSegmentSource.DEFAULT_STEP;
+
+    /**
+     * @throws IllegalArgumentException if the dialect has no sequences
+     */
+    public SequenceSegmentSource(DataSource dataSource, Dialect dialect) {
+        if (dialect.buildSequenceNextValueSql("s") == null) {
+            throw new IllegalArgumentException("Dialect " + dialect + " does not support sequences");
+        }
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+    }
+
+    /**
+     * Sets what is appended to the key to name its sequence; {@value #DEFAULT_SUFFIX} by default.
+     */
+    public SequenceSegmentSource suffix(String suffix) {
+        if (suffix == null || !suffix.matches("[A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid sequence suffix: " + suffix);
+        }
+        this.suffix = suffix;
+        return this;
+    }
+
+    /**
+     * Sets the number of ids a sequence value reserves; must equal the sequence's
+     * {@code INCREMENT BY}. {@value TableSegmentSource#DEFAULT_STEP} by default.
+     */
+    public SequenceSegmentSource step(int step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Segment step must be positive, but was: " + step);
+        }
+        this.step = step;
+        return this;
+    }
+
+    /**
+     * Returns the name of the sequence of a key.
+     */
+    public String sequenceName(String key) {
+        return key + suffix;
+    }
+
+    @Override
+    public Segment nextSegment(String key) {
+        String sequence = sequenceName(key);
+        if (!sequence.matches("[A-Za-z_][A-Za-z0-9_.]*")) {
+            throw new IllegalArgumentException("Invalid sequence name: " + sequence);
+        }
+        int step = this.step;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(dialect.buildSequenceNextValueSql(sequence));
+             ResultSet rows = select.executeQuery()) {
+            rows.next();
+            long start = rows.getLong(1);
+            return new Segment(start, start + step);
+        } catch (SQLException e) {
+            throw new MapperException("Failed to reserve ids from sequence " + sequence, e);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.ngcin.ems.mapper.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free generator of 64-bit Snowflake ids:
+ * {@code timestamp | datacenter id | worker id | sequence}, the timestamp counting milliseconds
+ * since {@link #DEFAULT_EPOCH}.
+ *
+ * <p>The last timestamp and sequence are packed into one {@link AtomicLong} and advanced with
+ * compare-and-set, so ids of one generator are unique and strictly increasing across threads. The
+ * sequence restarts every millisecond. When a millisecond's sequence space is used up, the
+ * generator borrows the next millisecond, running ahead of the wall clock by at most
+ * {@code maxBorrowMillis}, and beyond that waits for the wall clock. When the clock moves
+ * backwards, the generator keeps counting from the last timestamp (and waits once that
+ * millisecond is used up); a step back of more than {@code maxBackwardMillis} is an error.
+ *
+ * <p>Ids are only unique across processes when every process uses a different pair of
+ * datacenter and worker ids; a {@link WorkerIdAssigner} can hand out worker ids.
+ */
+public final class SnowflakeIdGenerator {
+
+    /** 2021-01-01T00:00:00Z. */
+    public static final long DEFAULT_EPOCH = 1609459200000L;
+
+    /**
+     * The fields of an id.
+     *
+     * @param epochMillis  the time the id was generated, in milliseconds since 1970
+     * @param datacenterId the datacenter id
+     * @param workerId     the worker id
+     * @param sequence     the sequence within the millisecond
+     */
+    public record Parts(long epochMillis, long datacenterId, long workerId, long sequence) {}
+
+    private final long epoch;
+    private final int sequenceBits;
+    private final int workerShift;
+    private final int datacenterShift;
+    private final int timestampShift;
+    private final long sequenceMask;
+    private final long workerMask;
+    private final long datacenterMask;
+    private final long nodeBits;
+    private final long maxTimestamp;
+    private final long maxBorrowMillis;
+    private final long maxBackwardMillis;
+    private final LongSupplier clock;
+    /** Checked before every id when the worker id is leased; null for fixed ids. */
+    private final WorkerIdAssigner lease;
+    /** {@code (timestamp << sequenceBits) | sequence} of the last id. */
+    private final AtomicLong state = new AtomicLong();
+
+    private SnowflakeIdGenerator(Builder builder) {
+        int timestampBits = 63 - builder.datacenterBits - builder.workerBits - builder.sequenceBits;
+        if (builder.datacenterBits < 0 || builder.workerBits < 0 || builder.sequenceBits < 1 || timestampBits < 39) {
+            throw new IllegalArgumentException("Invalid Snowflake layout: " + builder.datacenterBits
+                    + " datacenter bits, " + builder.workerBits + " worker bits, " + builder.sequenceBits
+                    + " sequence bits (at least 39 bits must remain for the timestamp)");
+        }
+        this.epoch = builder.epoch;
+        this.sequenceBits = builder.sequenceBits;
+        this.workerShift = builder.sequenceBits;
+        this.datacenterShift = workerShift + builder.workerBits;
+        this.timestampShift = datacenterShift + builder.datacenterBits;
+        this.sequenceMask = (1L << builder.sequenceBits) - 1;
+        this.workerMask = (1L << builder.workerBits) - 1;
+        this.datacenterMask = (1L << builder.datacenterBits) - 1;
+        this.maxTimestamp = (1L << timestampBits) - 1;
+        long workerId = builder.workerIdAssigner == null
+                ? builder.workerId
+                : builder.workerIdAssigner.acquire(workerMask);
+        if (workerId < 0 || workerId > workerMask) {
+            throw new IllegalArgumentException("Worker id must be between 0 and " + workerMask + ", but was: " + workerId);
+        }
+        if (builder.datacenterId < 0 || builder.datacenterId > datacenterMask) {
+            throw new IllegalArgumentException("Datacenter id must be between 0 and " + datacenterMask
+                    + ", but was: " + builder.datacenterId);
+        }
+        this.nodeBits = (builder.datacenterId << datacenterShift) | (workerId << workerShift);
+        this.maxBorrowMillis = builder.maxBorrowMillis;
+        this.maxBackwardMillis = builder.maxBackwardMillis;
+        this.clock = builder.clock;
+        this.lease = builder.workerIdAssigner;
+    }
+
+    /**
+     * Returns a builder with the classic layout: 5 datacenter bits, 5 worker bits, 12 sequence bits.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns the next id.
+     *
+     * @throws IllegalStateException if the clock moved back by more than {@code maxBackwardMillis},
+     *                               the timestamp no longer fits its bits, or the worker id lease
+     *                               was lost
+     */
+    public long nextId() {
+        if (lease != null && !lease.isValid()) {
+            throw new IllegalStateException("Snowflake worker id lease was lost, refusing to generate ids");
+        }
+        while (true) {
+            long current = state.get();
+            long last = current >>> sequenceBits;
+            long now = clock.getAsLong() - epoch;
+            long timestamp;
+            long sequence;
+            if (now > last) {
+                timestamp = now;
+                sequence = 0;
+            } else if (last - now > maxBorrowMillis + maxBackwardMillis) {
+                throw new IllegalStateException("Clock moved backwards by " + (last - now)
+                        + " ms, refusing to generate Snowflake ids");
+            } else if ((current & sequenceMask) < sequenceMask) {
+                // Same millisecond, or the clock went back: continue on the logical clock
+                timestamp = last;
+                sequence = (current & sequenceMask) + 1;
+            } else if (last + 1 - now <= maxBorrowMillis) {
+                // Sequence space of this millisecond used up: borrow the next one
+                timestamp = last + 1;
+                sequence = 0;
+            } else {
+                await(last + 1 - maxBorrowMillis - now);
+                continue;
+            }
+            if (timestamp > maxTimestamp) {
+                throw new IllegalStateException("Snowflake timestamp overflow; choose a later epoch");
+            }
+            if (state.compareAndSet(current, (timestamp << sequenceBits) | sequence)) {
+                return (timestamp << timestampShift) | nodeBits | sequence;
+            }
+        }
+    }
+
+    /**
+     * Splits an id of this generator's layout into its fields.
+     */
+    public Parts decode(long id) {
+        return new Parts((id >>> timestampShift) + epoch,
+                (id >>> datacenterShift) & datacenterMask,
+                (id >>> workerShift) & workerMask,
+                id & sequenceMask);
+    }
+
+    /**
+     * Returns the smallest id of this layout with a timestamp at or after {@code epochMillis}, so
+     * that ids created in {@code [t1, t2)} are exactly those in {@code [minIdAt(t1), minIdAt(t2))}.
+     * Holds for ids of every generator with the same epoch and layout, whatever its node.
+     *
+     * @param epochMillis milliseconds since 1970; times before the epoch give 0, times after the
+     *                    last representable millisecond give {@code Long.MAX_VALUE}
+     */
+    public long minIdAt(long epochMillis) {
+        long timestamp = epochMillis - epoch;
+        if (timestamp <= 0) {
+            return 0;
+        }
+        return timestamp > maxTimestamp ? Long.MAX_VALUE : timestamp << timestampShift;
+    }
+
+    /**
+     * Waits until the wall clock has advanced by about the given number of milliseconds.
+     */
+    private static void await(long millis) {
+        if (millis > 1) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis - 1));
+        } else {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Settings of a {@link SnowflakeIdGenerator}.
+     */
+    public static final class Builder {
+
+        private long epoch = DEFAULT_EPOCH;
+        private int datacenterBits = 5;
+        private int workerBits = 5;
+        private int sequenceBits = 12;
+        private long datacenterId;
+        private long workerId;
+        private long maxBorrowMillis = 5;
+        private long maxBackwardMillis = 1000;
+        private LongSupplier clock = System::currentTimeMillis;
+        private WorkerIdAssigner workerIdAssigner;
+
+        private Builder() {
+        }
+
+        /** Start of the timestamp, in milliseconds since 1970; {@link #DEFAULT_EPOCH} by default. */
+        public Builder epoch(long epoch) {
+            this.epoch = epoch;
+            return this;
+        }
+
+        /** Number of bits of the datacenter id; 5 by default. */
+        public Builder datacenterBits(int datacenterBits) {
+            this.datacenterBits = datacenterBits;
+            return this;
+        }
+
+        /** Number of bits of the worker id; 5 by default. */
+        public Builder workerBits(int workerBits) {
+            this.workerBits = workerBits;
+            return this;
+        }
+
+        /** Number of bits of the per-millisecond sequence; 12 by default. */
+        public Builder sequenceBits(int sequenceBits) {
+            this.sequenceBits = sequenceBits;
+            return this;
+        }
+
+        /** Datacenter id of this process; 0 by default. */
+        public Builder datacenterId(long datacenterId) {
+            this.datacenterId = datacenterId;
+            return this;
+        }
+
+        /** Worker id of this process; 0 by default. */
+        public Builder workerId(long workerId) {
+            this.workerId = workerId;
+            this.workerIdAssigner = null;
+            return this;
+        }
+
+        /**
+         * Obtains the worker id from an assigner when the generator is built, instead of
+         * {@link #workerId}. The generator stops creating ids when the assigner reports the id
+         * as no longer valid.
+         */
+        public Builder workerIdAssigner(WorkerIdAssigner workerIdAssigner) {
+            this.workerIdAssigner = workerIdAssigner;
+            return this;
+        }
+
+        /**
+         * How far the logical clock may run ahead of the wall clock before the generator waits;
+         * 5 ms by default.
+         */
+        public Builder maxBorrowMillis(long maxBorrowMillis) {
+            if (maxBorrowMillis < 0) {
+                throw new IllegalArgumentException("Max borrow must not be negative, but was: " + maxBorrowMillis);
+            }
+            this.maxBorrowMillis = maxBorrowMillis;
+            return this;
+        }
+
+        /** Largest tolerated backwards clock step; 1000 ms by default. */
+        public Builder maxBackwardMillis(long maxBackwardMillis) {
+            if (maxBackwardMillis < 0) {
+                throw new IllegalArgumentException("Max backward step must not be negative, but was: " + maxBackwardMillis);
+            }
+            this.maxBackwardMillis = maxBackwardMillis;
+            return this;
+        }
+
+        Builder clock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the layout leaves fewer than 39 timestamp bits or an
+         *                                  id does not fit its bits
+         * @throws IllegalStateException    if the worker id assigner cannot assign an id
+         */
+        public SnowflakeIdGenerator build() {
+            return new SnowflakeIdGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.RowBounds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Interceptor that makes cursor queries of BaseMapper mappers ({@code cursorAll},
+ * {@code cursorList}, {@code streamAll}, {@code streamList}) stream from the database.
+ *
+ * <p>Statements without an explicit fetch size get the dialect's
+ * {@link Dialect#streamingFetchSize() streaming fetch size} and a forward-only result set, so the
+ * driver reads rows in batches instead of loading the whole result. PostgreSQL only honors the
+ * fetch size with auto-commit off; a cursor opened in auto-commit mode is logged once as a
+ * warning.
+ *
+ * <p>It also hands the statements prepared inside {@link #capturing} to the caller, so that a
+ * cursor still executing its query can be cancelled from another thread.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "queryCursor",
+               args = {MappedStatement.class, Object.class, RowBounds.class}),
+    @Signature(type = StatementHandler.class, method = "prepare",
+               args = {Connection.class, Integer.class})
+})
+public class StreamingQueryInterceptor implements Interceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamingQueryInterceptor.class);
+
+    private static final ThreadLocal<Consumer<Statement>> STATEMENT_SINK = new ThreadLocal<>();
+
+    private final Map<String, MappedStatement> statementCache = new ConcurrentHashMap<>();
+    private final AtomicBoolean autoCommitWarned = new AtomicBoolean();
+
+    /**
+     * Runs the action, handing every statement prepared by it on the current thread to the sink
+     * before the statement executes. Requires this interceptor to be registered.
+     *
+     * @param sink   receives the prepared statements
+     * @param action the action, e.g. opening and reading a cursor
+     * @return the result of the action
+     */
+    public static <R> R capturing(Consumer<Statement> sink, Supplier<R> action) {
+        Consumer<Statement> previous = STATEMENT_SINK.get();
+        STATEMENT_SINK.set(sink);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                STATEMENT_SINK.remove();
+            } else {
+                STATEMENT_SINK.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof StatementHandler) {
+            Object statement = invocation.proceed();
+            Consumer<Statement> sink = STATEMENT_SINK.get();
+            if (sink != null && statement instanceof Statement prepared) {
+                sink.accept(prepared);
+            }
+            return statement;
+        }
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        if (ms.getFetchSize() != null || EntityClassResolver.resolveStatementTableInfo(ms.getId()) == null) {
+            return invocation.proceed();
+        }
+        Dialect dialect = DialectHolder.resolve(ms.getDatabaseId());
+        MappedStatement streaming = statementCache.get(ms.getId());
+        if (streaming == null || streaming.getSqlSource() != ms.getSqlSource()
+                || streaming.getFetchSize() != dialect.streamingFetchSize()) {
+            streaming = copyWithFetchSize(ms, dialect.streamingFetchSize());
+            statementCache.put(ms.getId(), streaming);
+        }
+        if (dialect == Dialect.POSTGRESQL && isAutoCommit((Executor) invocation.getTarget())
+                && autoCommitWarned.compareAndSet(false, true)) {
+            log.warn("Cursor {} runs with auto-commit on; PostgreSQL then loads the whole result. "
+                    + "Open cursors inside a transaction", ms.getId());
+        }
+        invocation.getArgs()[0] = streaming;
+        return invocation.proceed();
+    }
+
+    private static boolean isAutoCommit(Executor executor) {
+        try {
+            return executor.getTransaction().getConnection().getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static MappedStatement copyWithFetchSize(MappedStatement original, int fetchSize) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(
+            original.getConfiguration(),
+            original.getId(),
+            original.getSqlSource(),
+            original.getSqlCommandType()
+        );
+        builder.resource(original.getResource())
+               .fetchSize(fetchSize)
+               .statementType(original.getStatementType())
+               .keyGenerator(original.getKeyGenerator())
+               .databaseId(original.getDatabaseId())
+               .lang(original.getLang())
+               .resultOrdered(original.isResultOrdered())
+               .resultSetType(ResultSetType.FORWARD_ONLY)
+               .flushCacheRequired(original.isFlushCacheRequired())
+               .useCache(original.isUseCache())
+               .cache(original.getCache())
+               .timeout(original.getTimeout())
+               .parameterMap(original.getParameterMap())
+               .resultMaps(original.getResultMaps());
+        return builder.build();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // No properties needed
+    }
+}
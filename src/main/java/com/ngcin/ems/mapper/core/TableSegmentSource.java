@@ -0,0 +1,149 @@
+package com.ngcin.ems.mapper.core;
+
+import com.ngcin.ems.mapper.MapperException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reserves id ranges from a counter table shared by all instances:
+ *
+ * <pre>
+ * CREATE TABLE ems_id_segment (
+ *     segment_key VARCHAR(100) PRIMARY KEY,
+ *     next_value  BIGINT NOT NULL
+ * )
+ * </pre>
+ *
+ * <p>Each reservation is one transaction that advances {@code next_value} by the step and reads
+ * the new value back; the row lock taken by the UPDATE keeps concurrent reservations apart. The
+ * row of a key is inserted on its first reservation, so ids start at 1. Works on every dialect.
+ */
+public class TableSegmentSource implements SegmentSource {
+
+    public static final String DEFAULT_TABLE = "ems_id_segment";
+    public static final int DEFAULT_STEP = 1000;
+
+    private final DataSource dataSource;
+    private volatile String table = DEFAULT_TABLE;
+    private volatile int step = DEFAULT_STEP;
+
+    public TableSegmentSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Sets the counter table; {@value #DEFAULT_TABLE} by default.
+     */
+    public TableSegmentSource table(String table) {
+        if (table == null || !table.matches("[A-Za-z_][A-Za-z0-9_.]*")) {
+            throw new IllegalArgumentException("Invalid segment table name: " + table);
+        }
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Sets the number of ids reserved at a time; {@value #DEFAULT_STEP} by default. Larger steps
+     * mean fewer round trips but larger gaps when a process stops with a partly used range.
+     */
+    public TableSegmentSource step(int step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Segment step must be positive, but was: " + step);
+        }
+        this.step = step;
+        return this;
+    }
+
+    /**
+     * Creates the counter table unless it exists.
+     */
+    public void createTableIfNotExists() {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase(), table.toLowerCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                    if (tables.next()) {
+                        return;
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE " + table
+                        + " (segment_key VARCHAR(100) PRIMARY KEY, next_value BIGINT NOT NULL)");
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            throw new MapperException("Failed to create id segment table " + table, e);
+        }
+    }
+
+    @Override
+    public Segment nextSegment(String key) {
+        String table = this.table;
+        int step = this.step;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                Segment segment;
+                do {
+                    segment = advance(connection, table, key, step);
+                } while (segment == null);
+                connection.commit();
+                return segment;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new MapperException("Failed to reserve ids for " + key + " from " + table, e);
+        }
+    }
+
+    /**
+     * Advances the counter of the key, or inserts it; returns null if another instance inserted
+     * it first and the UPDATE must be repeated.
+     */
+    private static Segment advance(Connection connection, String table, String key, int step) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE " + table + " SET next_value = next_value + ? WHERE segment_key = ?")) {
+            update.setInt(1, step);
+            update.setString(2, key);
+            if (update.executeUpdate() == 1) {
+                try (PreparedStatement select = connection.prepareStatement(
+                        "SELECT next_value FROM " + table + " WHERE segment_key = ?")) {
+                    select.setString(1, key);
+                    try (ResultSet rows = select.executeQuery()) {
+                        rows.next();
+                        long end = rows.getLong(1);
+                        return new Segment(end - step, end);
+                    }
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + table + " (segment_key, next_value) VALUES (?, ?)")) {
+            insert.setString(1, key);
+            insert.setLong(2, 1L + step);
+            insert.executeUpdate();
+            return new Segment(1, 1L + step);
+        } catch (SQLException e) {
+            // Another instance inserted the row first (primary key violation)
+            if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                connection.rollback();
+                return null;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.ngcin.ems.mapper.core;
+
+/**
+ * Source of the Snowflake worker id of this process, see
+ * {@link SnowflakeIdGenerator.Builder#workerIdAssigner}.
+ *
+ * <p>Besides the {@link #fixed fixed} and {@link #fromEnvironment environment-derived} ids,
+ * {@link LeaseTableWorkerIdAssigner} leases ids from a database table so that autoscaled
+ * instances never share one.
+ */
+@FunctionalInterface
+public interface WorkerIdAssigner extends AutoCloseable {
+
+    /**
+     * Acquires the worker id of this process.
+     *
+     * @param maxWorkerId the largest id the generator's layout can hold
+     * @return an id between 0 and {@code maxWorkerId}
+     * @throws IllegalStateException if no id can be assigned
+     */
+    long acquire(long maxWorkerId);
+
+    /**
+     * Returns whether the acquired id is still owned by this process. The generator refuses to
+     * create ids once this returns false. Called for every id, so it must be cheap.
+     */
+    default boolean isValid() {
+        return true;
+    }
+
+    /**
+     * Gives the id back, if it was leased.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Returns an assigner of a configured id.
+     */
+    static WorkerIdAssigner fixed(long workerId) {
+        return maxWorkerId -> {
+            if (workerId < 0 || workerId > maxWorkerId) {
+                throw new IllegalStateException("Worker id must be between 0 and " + maxWorkerId + ", but was: " + workerId);
+            }
+            return workerId;
+        };
+    }
+
+    /**
+     * Returns an assigner reading the id from an environment variable: a number, or a name ending
+     * in {@code -<number>} such as the pod name {@code orders-3} of a Kubernetes StatefulSet.
+     */
+    static WorkerIdAssigner fromEnvironment(String variable) {
+        return maxWorkerId -> {
+            String value = System.getenv(variable);
+            if (value == null || value.isBlank()) {
+                throw new IllegalStateException("Environment variable " + variable + " is not set");
+            }
+            String digits = value.trim().substring(value.trim().lastIndexOf('-') + 1);
+            long workerId;
+            try {
+                workerId = Long.parseLong(digits);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Environment variable " + variable + " does not end in a worker id: " + value, e);
+            }
+            return fixed(workerId).acquire(maxWorkerId);
+        };
+    }
+}
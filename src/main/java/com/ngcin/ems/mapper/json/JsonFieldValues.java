@@ -0,0 +1,61 @@
+package com.ngcin.ems.mapper.json;
+
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+/**
+ * Converts raw JSON text into values for JSON-typed entity fields, the same way the
+ * JSON type handlers do when reading from the database.
+ *
+ * <p>{@link JsonNodeValue} and {@link TreeNode} fields keep the source text and are written back
+ * verbatim by their type handlers, so JSON that is only passed through (e.g. by an import) is never
+ * parsed or re-serialized. {@link JsonNode} fields require parsing.
+ */
+public final class JsonFieldValues {
+
+    private JsonFieldValues() {}
+
+    /**
+     * Checks whether a field type is handled by the JSON type handlers.
+     *
+     * @param type the field type
+     * @return true for JsonNodeValue, TreeNode and JsonNode (sub)types
+     */
+    public static boolean isJsonType(Class<?> type) {
+        return type == JsonNodeValue.class || TreeNode.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Creates a field value from raw JSON text.
+     *
+     * @param json the JSON text (null or empty for no value)
+     * @param type the field type, see {@link #isJsonType(Class)}
+     * @return the value to assign to the field
+     * @throws JsonParseException if the type requires parsing and the JSON is invalid
+     */
+    public static Object fromRaw(String json, Class<?> type) {
+        if (type == JsonNodeValue.class) {
+            return JsonNodeValue.fromDb(json);
+        }
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        if (type == TreeNode.class) {
+            return new TreeNodeLazyWrapper(json);
+        }
+        if (JsonNode.class.isAssignableFrom(type)) {
+            try {
+                JsonNode node = ReaderWriter.readTree(json);
+                if (!type.isInstance(node)) {
+                    throw new JsonParseException("JSON value is not a " + type.getSimpleName() + ": " + json);
+                }
+                return node;
+            } catch (IOException ex) {
+                throw new JsonParseException("Failed to parse JSON: " + ex.getMessage(), ex);
+            }
+        }
+        throw new IllegalArgumentException("Not a JSON field type: " + type.getName());
+    }
+}
@@ -6,11 +6,15 @@ import com.fasterxml.jackson.databind.node.MissingNode;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * Value container that transfers JSON from/into DB.
  * Main feature is lazy initialization - JsonNode is built only on first access.
- * Thread-safe implementation using double-checked locking.
+ * Thread-safe without locks: the parsed node is published with a CAS, so concurrent first
+ * calls may parse twice but all return copies of the same node, and no thread blocks on a monitor
+ * (which would pin virtual threads).
  */
 public class JsonNodeValue implements Serializable {
 
@@ -25,7 +29,17 @@ public class JsonNodeValue implements Serializable {
 
     private boolean dbSource;
 
-    // volatile is required for correct double-checked locking
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(JsonNodeValue.class, "value", JsonNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // volatile so that the node published by the CAS is seen by all readers
     private transient volatile JsonNode value;
 
     private JsonNodeValue() {
@@ -144,17 +158,15 @@ public class JsonNodeValue implements Serializable {
 
         JsonNode result = value;
         if (result == null) {
-            synchronized (this) {
-                result = value;
-                if (result == null) {
-                    try {
-                        result = ReaderWriter.readTree(source);
-                        value = result;
-                    } catch (Exception ex) {
-                        throw new JsonParseException("Failed to parse JSON: " + ex.getMessage(), ex);
-                    }
-                }
+            JsonNode parsed;
+            try {
+                parsed = ReaderWriter.readTree(source);
+            } catch (Exception ex) {
+                throw new JsonParseException("Failed to parse JSON: " + ex.getMessage(), ex);
             }
+            // Keep the node of a concurrent caller that published first
+            JsonNode witness = (JsonNode) VALUE.compareAndExchange(this, null, parsed);
+            result = witness == null ? parsed : witness;
         }
         return result.deepCopy();
     }
@@ -11,12 +11,14 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Iterator;
 import java.util.Objects;
 
 /**
  * Lazy JSON node wrapper that defers parsing until first access.
- * Thread-safe implementation using double-checked locking with volatile.
+ * Thread-safe without locks: the parsed node is published with a CAS (see {@link JsonNodeValue}).
  *
  * <p>Note: If the input JSON string is invalid, a RuntimeException
  * will be thrown on first method access.
@@ -27,7 +29,17 @@ public class TreeNodeLazyWrapper implements TreeNode, Serializable {
 
     private final String json;
 
-    // volatile is required for correct double-checked locking
+    private static final VarHandle NODE;
+
+    static {
+        try {
+            NODE = MethodHandles.lookup().findVarHandle(TreeNodeLazyWrapper.class, "node", JsonNode.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // volatile so that the node published by the CAS is seen by all readers
     private transient volatile JsonNode node;
 
     TreeNodeLazyWrapper(String json) {
@@ -43,22 +55,19 @@ public class TreeNodeLazyWrapper implements TreeNode, Serializable {
 
     /**
      * Returns the underlying JsonNode, parsing lazily on first access.
-     * Thread-safe using double-checked locking.
+     * Concurrent first calls may parse twice; all of them return the node published first.
      */
     private JsonNode tree() {
         JsonNode result = node;
         if (result == null) {
-            synchronized (this) {
-                result = node;
-                if (result == null) {
-                    try {
-                        result = ReaderWriter.readTree(json);
-                        node = result;
-                    } catch (IOException ex) {
-                        throw new JsonParseException("Failed to parse JSON: " + ex.getMessage(), ex);
-                    }
-                }
+            JsonNode parsed;
+            try {
+                parsed = ReaderWriter.readTree(json);
+            } catch (IOException ex) {
+                throw new JsonParseException("Failed to parse JSON: " + ex.getMessage(), ex);
             }
+            JsonNode witness = (JsonNode) NODE.compareAndExchange(this, null, parsed);
+            result = witness == null ? parsed : witness;
         }
         return result;
     }
@@ -28,6 +28,11 @@ public class TreeNodeTypeHandler extends BaseTypeHandler<TreeNode> {
     @Override
     public void setNonNullParameter(PreparedStatement ps, int i,
             TreeNode parameter, JdbcType jdbcType) throws SQLException {
+        // Unparsed values read from the DB (or imported) are written back verbatim
+        if (parameter instanceof TreeNodeLazyWrapper lazy) {
+            ps.setString(i, lazy.getJsonSource());
+            return;
+        }
         try {
             ps.setString(i, ReaderWriter.write(parameter));
         } catch (IOException ex) {
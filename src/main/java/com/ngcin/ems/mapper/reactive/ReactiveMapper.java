@@ -0,0 +1,406 @@
+package com.ngcin.ems.mapper.reactive;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.core.StreamingQueryInterceptor;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link Flow.Publisher} variants of the BaseMapper reads, for callers that must not block.
+ *
+ * <p>Each subscription opens its own session and reads a {@link BaseMapper#cursorAll cursor}
+ * on the mapper's executor, pulling rows from the result set only as the subscriber requests them.
+ * No thread is held while there is no demand; the session (and its connection) is held until the
+ * rows are exhausted, the subscription is cancelled or the query fails. Cancelling a subscription
+ * cancels a statement that is still executing (when {@link StreamingQueryInterceptor} is
+ * registered) and releases the session.
+ *
+ * <pre>{@code
+ * ReactiveMapper<Order> orders = new ReactiveMapper<>(sqlSessionFactory, OrderMapper.class);
+ * orders.selectList(query).subscribe(subscriber);
+ * }</pre>
+ *
+ * <p>Publishers are cold: every subscription runs the query again. Signals follow the Reactive
+ * Streams rules: they are serialized, {@code onNext} never exceeds the requested demand, a
+ * non-positive request fails the subscription with {@link IllegalArgumentException}, and
+ * {@code request} may be called from {@code onNext} without recursion. Reads do not take part in
+ * the caller's transaction and bypass the session caches.
+ *
+ * @param <T> the entity type
+ */
+public class ReactiveMapper<T> implements AutoCloseable {
+
+    public static final int DEFAULT_THREADS = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveMapper.class);
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final Class<? extends BaseMapper<T>> mapperType;
+    private final TableInfo tableInfo;
+    private final AtomicInteger activeQueries = new AtomicInteger();
+    private Executor executor;
+    private ExecutorService ownExecutor;
+
+    public ReactiveMapper(SqlSessionFactory sqlSessionFactory, Class<? extends BaseMapper<T>> mapperType) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.mapperType = mapperType;
+        this.tableInfo = EntityClassResolver.resolve(EntityClassResolver.resolveMapperEntityClass(mapperType));
+    }
+
+    /**
+     * Sets the executor running the blocking JDBC work. It should be bounded, and never be the
+     * caller's event loop. By default the mapper creates a pool of {@value #DEFAULT_THREADS}
+     * daemon threads, shut down by {@link #close()}.
+     */
+    public synchronized ReactiveMapper<T> executor(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        if (this.executor != null) {
+            throw new IllegalStateException("ReactiveMapper settings cannot change after the first subscription");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Publishes all rows (not soft-deleted), see {@link BaseMapper#cursorAll()}.
+     */
+    public Flow.Publisher<T> selectAll() {
+        return cursor(BaseMapper::cursorAll);
+    }
+
+    /**
+     * Publishes the rows matching the query entity, see {@link BaseMapper#cursorList}.
+     */
+    public Flow.Publisher<T> selectList(T query) {
+        return cursor(mapper -> mapper.cursorList(query));
+    }
+
+    /**
+     * Publishes the entity with the id, or completes empty if there is none.
+     */
+    public Flow.Publisher<T> getById(Serializable id) {
+        return single(mapper -> mapper.getById(id));
+    }
+
+    /**
+     * Publishes the number of rows matching the query entity.
+     */
+    public Flow.Publisher<Long> selectCount(T query) {
+        return single(mapper -> mapper.selectCount(query));
+    }
+
+    /**
+     * Publishes the rows of a cursor opened on the mapper, e.g. a custom {@code Cursor} method
+     * (cast the mapper to its declared type).
+     */
+    public <R> Flow.Publisher<R> cursor(Function<BaseMapper<T>, Cursor<R>> query) {
+        Objects.requireNonNull(query, "query");
+        return subscriber -> subscribe(subscriber, mapper -> query.apply(mapper).iterator());
+    }
+
+    /** Number of subscriptions currently holding a session. */
+    public int activeQueries() {
+        return activeQueries.get();
+    }
+
+    /**
+     * Shuts down the default executor. Subscriptions waiting for a thread fail with
+     * {@link RejectedExecutionException}, as do open ones on their next read; a supplied executor
+     * is left running.
+     */
+    @Override
+    public synchronized void close() {
+        if (ownExecutor != null) {
+            for (Runnable queued : ownExecutor.shutdownNow()) {
+                if (queued instanceof ReactiveMapper<?>.QuerySubscription<?> subscription) {
+                    subscription.reject(new RejectedExecutionException(
+                            "ReactiveMapper for " + tableInfo.tableName() + " was closed"));
+                }
+            }
+        }
+    }
+
+    private <R> Flow.Publisher<R> single(Function<BaseMapper<T>, R> query) {
+        return subscriber -> subscribe(subscriber, mapper -> {
+            R value = query.apply(mapper);
+            return value == null ? Collections.emptyIterator() : List.of(value).iterator();
+        });
+    }
+
+    private <R> void subscribe(Flow.Subscriber<? super R> subscriber, Function<BaseMapper<T>, Iterator<R>> query) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        QuerySubscription<R> subscription = new QuerySubscription<>(subscriber, query, executor());
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    private synchronized Executor executor() {
+        if (executor == null) {
+            String table = tableInfo.tableName();
+            ownExecutor = Executors.newFixedThreadPool(DEFAULT_THREADS, task -> {
+                Thread thread = new Thread(task, "ems-reactive-" + table + "-" + THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor = ownExecutor;
+        }
+        return executor;
+    }
+
+    /**
+     * One subscription: a session and the row iterator read by a serialized drain loop.
+     *
+     * <p>{@code requested} holds the outstanding demand, {@code wip} the number of drain requests;
+     * only the thread that raises {@code wip} from zero runs the loop, on the executor. The session
+     * and the iterator are only touched by the loop, which the subscription submits as itself.
+     */
+    private final class QuerySubscription<R> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super R> subscriber;
+        private final Function<BaseMapper<T>, Iterator<R>> query;
+        private final Executor executor;
+        private final AtomicLong requested = new AtomicLong();
+        /** Starts at 1 so that no signal overlaps onSubscribe; see {@link #start()}. */
+        private final AtomicInteger wip = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        /** The executing statement, cancelled on cancel while a read is in progress. */
+        private volatile Statement statement;
+        private volatile boolean reading;
+        private SqlSession session;
+        private Iterator<R> rows;
+        private boolean done;
+
+        QuerySubscription(Flow.Subscriber<? super R> subscriber, Function<BaseMapper<T>, Iterator<R>> query,
+                          Executor executor) {
+            this.subscriber = subscriber;
+            this.query = query;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(
+                        "Request must be positive, but was: " + n + " (Reactive Streams rule 3.9)");
+            } else {
+                requested.getAndAccumulate(n, (current, added) -> {
+                    long sum = current + added;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            Statement executing = statement;
+            if (reading && executing != null) {
+                try {
+                    executing.cancel();
+                } catch (SQLException e) {
+                    log.debug("Cancelling query on {} failed", tableInfo.tableName(), e);
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Runs the drain requests made while onSubscribe ran.
+         */
+        void start() {
+            if (wip.decrementAndGet() != 0) {
+                execute();
+            }
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                reject(e);
+            }
+        }
+
+        /**
+         * Ends the subscription whose drain loop will not run: its task was rejected or dropped.
+         * The caller owns the loop, as {@code wip} is still raised.
+         */
+        void reject(RejectedExecutionException e) {
+            cancelled = true;
+            release();
+            if (!done) {
+                done = true;
+                subscriber.onError(e);
+            }
+        }
+
+        /**
+         * The drain loop.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                if (!done) {
+                    try {
+                        emit();
+                    } catch (Throwable e) {
+                        fail(e);
+                    }
+                }
+                if (done || cancelled) {
+                    release();
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Emits rows up to the current demand, and the terminal signal once the rows are exhausted.
+         */
+        private void emit() {
+            if (cancelled) {
+                return;
+            }
+            Throwable invalid = invalidRequest;
+            if (invalid != null) {
+                cancelled = true;
+                done = true;
+                subscriber.onError(invalid);
+                return;
+            }
+            long demand = requested.get();
+            if (demand == 0) {
+                return;
+            }
+            if (rows == null) {
+                session = sqlSessionFactory.openSession();
+                activeQueries.incrementAndGet();
+                BaseMapper<T> mapper = session.getMapper(mapperType);
+                rows = read(() -> query.apply(mapper));
+            }
+            long emitted = 0;
+            while (true) {
+                while (emitted != demand) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (!read(rows::hasNext)) {
+                        complete();
+                        return;
+                    }
+                    R row = read(rows::next);
+                    if (cancelled) {
+                        return;
+                    }
+                    try {
+                        subscriber.onNext(row);
+                    } catch (Throwable e) {
+                        // Rule 2.13: a throwing subscriber is treated as cancelled
+                        log.warn("Subscriber of {} threw from onNext; cancelling", tableInfo.tableName(), e);
+                        cancelled = true;
+                        return;
+                    }
+                    emitted++;
+                }
+                if (invalidRequest != null || cancelled) {
+                    return;
+                }
+                // Complete without waiting for demand once the last row was emitted
+                if (!read(rows::hasNext)) {
+                    complete();
+                    return;
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand = requested.addAndGet(-emitted);
+                }
+                emitted = 0;
+                if (demand == 0) {
+                    return;
+                }
+            }
+        }
+
+        private <V> V read(Supplier<V> action) {
+            reading = true;
+            try {
+                return StreamingQueryInterceptor.capturing(s -> statement = s, action);
+            } finally {
+                reading = false;
+            }
+        }
+
+        private void complete() {
+            done = true;
+            release();
+            if (!cancelled) {
+                subscriber.onComplete();
+            }
+        }
+
+        private void fail(Throwable e) {
+            done = true;
+            release();
+            if (!cancelled) {
+                subscriber.onError(e);
+            } else {
+                log.debug("Query on {} ended after cancel", tableInfo.tableName(), e);
+            }
+        }
+
+        private void release() {
+            rows = null;
+            statement = null;
+            if (session != null) {
+                SqlSession closing = session;
+                session = null;
+                activeQueries.decrementAndGet();
+                try {
+                    closing.close();
+                } catch (RuntimeException e) {
+                    log.debug("Closing session of {} failed", tableInfo.tableName(), e);
+                }
+            }
+        }
+    }
+}
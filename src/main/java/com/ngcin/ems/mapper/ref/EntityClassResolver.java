@@ -1,5 +1,6 @@
 package com.ngcin.ems.mapper.ref;
 
+import com.ngcin.ems.mapper.BaseMapper;
 import com.ngcin.ems.mapper.annotations.Column;
 import com.ngcin.ems.mapper.annotations.Deleted;
 import com.ngcin.ems.mapper.annotations.Id;
@@ -9,14 +10,20 @@ import com.ngcin.ems.mapper.annotations.Version;
 import com.ngcin.ems.mapper.annotations.Ignore;
 
 import com.ngcin.ems.mapper.core.IdType;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.UnknownTypeHandler;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,6 +41,9 @@ public class EntityClassResolver {
     /** Cache for resolved TableInfo objects. */
     private static final Map<Class<?>, TableInfo> TABLE_INFO_CACHE = new ConcurrentHashMap<>();
 
+    /** Cache of mapper namespace to BaseMapper entity metadata (empty for other mappers). */
+    private static final Map<String, Optional<TableInfo>> NAMESPACE_CACHE = new ConcurrentHashMap<>();
+
     /**
      * Resolves entity class metadata, using cache if already resolved.
      *
@@ -45,6 +55,63 @@ public class EntityClassResolver {
         return TABLE_INFO_CACHE.computeIfAbsent(entityClass, EntityClassResolver::doResolve);
     }
 
+    /**
+     * Resolves the entity type {@code T} of a mapper interface extending {@code BaseMapper<T>}.
+     *
+     * @param mapperType the mapper interface
+     * @return the entity class
+     * @throws IllegalArgumentException if the mapper does not extend BaseMapper with a concrete type
+     */
+    public static Class<?> resolveMapperEntityClass(Class<?> mapperType) {
+        Class<?> entityClass = findBaseMapperType(mapperType);
+        if (entityClass == null) {
+            throw new IllegalArgumentException("Mapper " + mapperType.getName()
+                    + " must extend BaseMapper with a concrete entity type");
+        }
+        return entityClass;
+    }
+
+    /**
+     * Resolves the entity metadata of the BaseMapper that declares a mapped statement.
+     *
+     * @param statementId the MappedStatement id ({@code namespace.method})
+     * @return the entity metadata, or null if the namespace is not a BaseMapper interface
+     */
+    public static TableInfo resolveStatementTableInfo(String statementId) {
+        int dot = statementId.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        return NAMESPACE_CACHE.computeIfAbsent(statementId.substring(0, dot), namespace -> {
+            try {
+                Class<?> entityClass = findBaseMapperType(Resources.classForName(namespace));
+                return entityClass == null || !entityClass.isAnnotationPresent(Table.class)
+                        ? Optional.empty()
+                        : Optional.of(resolve(entityClass));
+            } catch (ClassNotFoundException e) {
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    private static Class<?> findBaseMapperType(Class<?> type) {
+        for (Type genericInterface : type.getGenericInterfaces()) {
+            if (genericInterface instanceof ParameterizedType parameterized
+                    && parameterized.getRawType() == BaseMapper.class
+                    && parameterized.getActualTypeArguments()[0] instanceof Class<?> entityClass) {
+                return entityClass;
+            }
+            Class<?> raw = genericInterface instanceof ParameterizedType parameterized
+                    ? (Class<?>) parameterized.getRawType()
+                    : (Class<?>) genericInterface;
+            Class<?> found = findBaseMapperType(raw);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
     /**
      * Performs actual resolution of entity class metadata.
      *
@@ -99,6 +166,7 @@ public class EntityClassResolver {
 
             String column = resolveColumnName(field);
             Integer jdbcType = resolveJdbcType(field);
+            Class<? extends TypeHandler<?>> typeHandler = resolveTypeHandler(field);
 
             boolean isId = field.isAnnotationPresent(Id.class);
             IdType idType = isId ? field.getAnnotation(Id.class).type() : null;
@@ -126,7 +194,8 @@ public class EntityClassResolver {
                     isDeleted,
                     deletedValue,
                     notDeletedValue,
-                    isUnique
+                    isUnique,
+                    typeHandler
             );
 
             if (isId) {
@@ -151,7 +220,9 @@ public class EntityClassResolver {
                 allFields,
                 versionField,
                 deletedField,
-                uniqueFields
+                uniqueFields,
+                tableAnnotation.returning(),
+                tableAnnotation.dirtyTracking()
         );
     }
 
@@ -183,6 +254,15 @@ public class EntityClassResolver {
         return null;
     }
 
+    @SuppressWarnings("unchecked")
+    private static Class<? extends TypeHandler<?>> resolveTypeHandler(Field field) {
+        Column column = field.getAnnotation(Column.class);
+        if (column != null && column.typeHandler() != UnknownTypeHandler.class) {
+            return (Class<? extends TypeHandler<?>>) column.typeHandler();
+        }
+        return null;
+    }
+
     /**
      * Converts camelCase field name to snake_case column name.
      *
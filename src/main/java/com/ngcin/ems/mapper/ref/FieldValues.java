@@ -0,0 +1,90 @@
+package com.ngcin.ems.mapper.ref;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ngcin.ems.mapper.json.JsonNodeValue;
+import com.ngcin.ems.mapper.json.TreeNodeLazyWrapper;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Copies and compares entity field values for code that keeps field state apart from the entity
+ * (snapshots, caches).
+ *
+ * <p>Immutable values (strings, numbers, enums, {@code java.time} types, UUIDs and the JSON value
+ * wrappers) are shared; byte arrays, dates and {@link JsonNode}s are copied. Other types cannot
+ * be copied safely and are reported as {@link #UNCOPYABLE}.
+ */
+public final class FieldValues {
+
+    /**
+     * Returned by {@link #copy(Object)} for values that cannot be copied.
+     */
+    public static final Object UNCOPYABLE = new Object();
+
+    private FieldValues() {
+    }
+
+    /**
+     * Returns an independent copy of a field value.
+     *
+     * @param value the value, may be null
+     * @return the value itself if immutable, a copy, or {@link #UNCOPYABLE}
+     */
+    public static Object copy(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof Date date) {
+            return date.clone();
+        }
+        if (value instanceof JsonNode node) {
+            return node.deepCopy();
+        }
+        return UNCOPYABLE;
+    }
+
+    /**
+     * Compares two field values by content (arrays element-wise).
+     */
+    public static boolean same(Object a, Object b) {
+        if (a instanceof byte[] bytes) {
+            return b instanceof byte[] other && Arrays.equals(bytes, other);
+        }
+        return Objects.equals(a, b);
+    }
+
+    /**
+     * Reads a field value of an entity.
+     *
+     * @throws IllegalStateException if the field is not accessible
+     */
+    public static Object read(TableFieldInfo field, Object entity) {
+        try {
+            return field.field().get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot read field " + field.getProperty(), e);
+        }
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value instanceof String
+                || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte
+                || value instanceof Double || value instanceof Float
+                || value instanceof BigDecimal || value instanceof BigInteger
+                || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?>
+                || value instanceof UUID
+                || value instanceof JsonNodeValue
+                || value instanceof TreeNodeLazyWrapper
+                || value.getClass().getPackageName().equals("java.time");
+    }
+}
@@ -1,6 +1,7 @@
 package com.ngcin.ems.mapper.ref;
 
 import com.ngcin.ems.mapper.core.IdType;
+import org.apache.ibatis.type.TypeHandler;
 
 import java.lang.reflect.Field;
 
@@ -17,6 +18,7 @@ import java.lang.reflect.Field;
  * @param deletedValue value representing deleted state
  * @param notDeletedValue value representing not deleted state
  * @param isUnique true if marked with @Unique
+ * @param typeHandler type handler class (from @Column.typeHandler), or null for the default
  */
 public record TableFieldInfo(
     Field field,
@@ -28,7 +30,8 @@ public record TableFieldInfo(
     boolean isDeleted,
     String deletedValue,
     String notDeletedValue,
-    boolean isUnique
+    boolean isUnique,
+    Class<? extends TypeHandler<?>> typeHandler
 ) {
     /** The Java property name (field name). */
     public String getProperty() {
@@ -12,6 +12,8 @@ import java.util.List;
  * @param versionField metadata for @Version field (null if not present)
  * @param deletedField metadata for @Deleted field (null if not present)
  * @param uniqueFields metadata for @Unique fields
+ * @param returning true if written rows are read back into the entity (from @Table.returning)
+ * @param dirtyTracking true if loaded entities are snapshotted for changed-column updates (from @Table.dirtyTracking)
  */
 public record TableInfo(
     Class<?> entityClass,
@@ -20,7 +22,9 @@ public record TableInfo(
     List<TableFieldInfo> fields,
     TableFieldInfo versionField,
     TableFieldInfo deletedField,
-    List<TableFieldInfo> uniqueFields
+    List<TableFieldInfo> uniqueFields,
+    boolean returning,
+    boolean dirtyTracking
 ) {
     /**
      * Checks if this table has a version field.
@@ -0,0 +1,20 @@
+package com.ngcin.ems.mapper.tx;
+
+/**
+ * Statement counts of unit-of-work flushes.
+ *
+ * @param flushes number of flushes that wrote at least one statement
+ * @param statements deferred write statements executed
+ * @param batches JDBC batches (database round trips) used to execute them
+ * @param rows rows the database reported as written; statements whose count the driver does not
+ *             report ({@link java.sql.Statement#SUCCESS_NO_INFO}) add none
+ */
+public record FlushReport(int flushes, int statements, int batches, int rows) {
+
+    public static final FlushReport EMPTY = new FlushReport(0, 0, 0, 0);
+
+    FlushReport plus(FlushReport other) {
+        return new FlushReport(flushes + other.flushes, statements + other.statements, batches + other.batches,
+                rows + other.rows);
+    }
+}
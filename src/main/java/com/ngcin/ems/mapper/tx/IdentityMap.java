@@ -0,0 +1,121 @@
+package com.ngcin.ems.mapper.tx;
+
+import org.apache.ibatis.executor.Executor;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Serves repeated {@code getById} / {@code selectBatchIds} lookups on the current thread from
+ * memory, per session and transaction.
+ *
+ * <p>While an identity map is open, entities loaded by id are kept per session; later lookups of
+ * the same ids return the same instances without a query. A BaseMapper write to an entity type
+ * evicts that type, any other write statement evicts everything, and commit, rollback and close of
+ * the session clear the session's entries. {@code selectBatchIds} only queries the ids that are
+ * not loaded yet. Requires {@link IdentityMapInterceptor}.
+ *
+ * <pre>{@code
+ * try (IdentityMap map = IdentityMap.begin()) {
+ *     Order order = orderMapper.getById(id);   // query
+ *     validate(orderMapper.getById(id));       // same instance, no query
+ *     log.debug("saved {} round trips", map.savedRoundTrips());
+ * }
+ * }</pre>
+ */
+public final class IdentityMap implements AutoCloseable {
+
+    private static final ThreadLocal<IdentityMap> CURRENT = new ThreadLocal<>();
+
+    private final Map<Executor, Map<Class<?>, Map<Object, Object>>> entities = new IdentityHashMap<>();
+    private int depth = 1;
+    private long savedRoundTrips;
+    private long servedEntities;
+
+    private IdentityMap() {}
+
+    /**
+     * Opens an identity map on the current thread, or joins the one already open.
+     */
+    public static IdentityMap begin() {
+        IdentityMap current = CURRENT.get();
+        if (current != null) {
+            current.depth++;
+            return current;
+        }
+        IdentityMap identityMap = new IdentityMap();
+        CURRENT.set(identityMap);
+        return identityMap;
+    }
+
+    /**
+     * Returns the identity map open on the current thread, or null.
+     */
+    public static IdentityMap current() {
+        return CURRENT.get();
+    }
+
+    /** Number of queries answered entirely from memory. */
+    public long savedRoundTrips() {
+        return savedRoundTrips;
+    }
+
+    /** Number of entities returned from memory, including partial {@code selectBatchIds} hits. */
+    public long servedEntities() {
+        return servedEntities;
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        entities.clear();
+        CURRENT.remove();
+    }
+
+    Object get(Executor executor, Class<?> entityClass, Object id) {
+        Map<Class<?>, Map<Object, Object>> byType = entities.get(executor);
+        if (byType == null) {
+            return null;
+        }
+        Map<Object, Object> byId = byType.get(entityClass);
+        return byId == null ? null : byId.get(key(id));
+    }
+
+    void put(Executor executor, Class<?> entityClass, Object id, Object entity) {
+        entities.computeIfAbsent(executor, e -> new HashMap<>())
+                .computeIfAbsent(entityClass, c -> new HashMap<>())
+                .put(key(id), entity);
+    }
+
+    void evict(Executor executor, Class<?> entityClass) {
+        Map<Class<?>, Map<Object, Object>> byType = entities.get(executor);
+        if (byType != null) {
+            if (entityClass == null) {
+                byType.clear();
+            } else {
+                byType.remove(entityClass);
+            }
+        }
+    }
+
+    void clear(Executor executor) {
+        entities.remove(executor);
+    }
+
+    void served(int count, boolean roundTripSaved) {
+        servedEntities += count;
+        if (roundTripSaved) {
+            savedRoundTrips++;
+        }
+    }
+
+    /**
+     * Normalizes ids so that {@code getById(1)} and a loaded {@code Long} id hit the same entry.
+     */
+    private static Object key(Object id) {
+        return id instanceof Number || id instanceof CharSequence ? id.toString() : id;
+    }
+}
@@ -0,0 +1,138 @@
+package com.ngcin.ems.mapper.tx;
+
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableFieldInfo;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interceptor that answers {@code getById} and {@code selectBatchIds} from the open
+ * {@link IdentityMap} and evicts it on writes. Without an open identity map every call
+ * proceeds unchanged.
+ *
+ * <p>Register it after {@link UnitOfWorkInterceptor} so that it also sees writes deferred by a
+ * unit of work.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class IdentityMapInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap == null) {
+            return invocation.proceed();
+        }
+        Executor executor = (Executor) invocation.getTarget();
+
+        switch (invocation.getMethod().getName()) {
+            case "update" -> {
+                MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+                TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+                identityMap.evict(executor, tableInfo == null ? null : tableInfo.entityClass());
+            }
+            case "query" -> {
+                return query(identityMap, executor, invocation);
+            }
+            default -> identityMap.clear(executor);
+        }
+        return invocation.proceed();
+    }
+
+    private Object query(IdentityMap identityMap, Executor executor, Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Object parameter = invocation.getArgs()[1];
+        String method = ms.getId().substring(ms.getId().lastIndexOf('.') + 1);
+        if (!"getById".equals(method) && !"selectBatchIds".equals(method)) {
+            return invocation.proceed();
+        }
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(ms.getId());
+        if (tableInfo == null || tableInfo.idField() == null || !(parameter instanceof Map<?, ?> params)) {
+            return invocation.proceed();
+        }
+        Class<?> entityClass = tableInfo.entityClass();
+
+        if ("getById".equals(method)) {
+            Object id = params.get("id");
+            Object cached = id == null ? null : identityMap.get(executor, entityClass, id);
+            if (cached != null) {
+                identityMap.served(1, true);
+                return List.of(cached);
+            }
+            List<?> result = (List<?>) invocation.proceed();
+            remember(identityMap, executor, tableInfo, result);
+            return result;
+        }
+
+        if (!(params.get("ids") instanceof Collection<?> ids) || ids.isEmpty()) {
+            return invocation.proceed();
+        }
+        Set<Object> requested = new LinkedHashSet<>(ids);
+        List<Object> found = new ArrayList<>();
+        List<Object> missing = new ArrayList<>();
+        for (Object id : requested) {
+            Object cached = identityMap.get(executor, entityClass, id);
+            if (cached != null) {
+                found.add(cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            identityMap.served(found.size(), true);
+            return found;
+        }
+        if (!found.isEmpty()) {
+            // Query only the ids that are not loaded yet
+            MapperMethod.ParamMap<Object> missingParams = new MapperMethod.ParamMap<>();
+            for (Map.Entry<?, ?> entry : params.entrySet()) {
+                missingParams.put((String) entry.getKey(), entry.getValue());
+            }
+            missingParams.put("ids", missing);
+            missingParams.put("param1", missing);
+            invocation.getArgs()[1] = missingParams;
+            identityMap.served(found.size(), false);
+        }
+        List<?> result = (List<?>) invocation.proceed();
+        remember(identityMap, executor, tableInfo, result);
+        if (found.isEmpty()) {
+            return result;
+        }
+        List<Object> merged = new ArrayList<>(found);
+        merged.addAll(result);
+        return merged;
+    }
+
+    private void remember(IdentityMap identityMap, Executor executor, TableInfo tableInfo, List<?> entities) {
+        TableFieldInfo idField = tableInfo.idField();
+        for (Object entity : entities) {
+            if (entity != null && tableInfo.entityClass().isInstance(entity)) {
+                MetaObject metaObject = SystemMetaObject.forObject(entity);
+                Object id = metaObject.getValue(idField.getProperty());
+                if (id != null) {
+                    identityMap.put(executor, tableInfo.entityClass(), id, entity);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.ngcin.ems.mapper.tx;
+
+import com.ngcin.ems.mapper.MapperException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Write statements deferred by a unit of work for one session, and their flush.
+ *
+ * <p>A flush keeps the order the statements were issued in, except that within a run of
+ * consecutive inserts, rows of referenced tables are inserted first, and within a run of
+ * consecutive deletes, rows of referencing tables are deleted first. Statements of one table keep
+ * their order, and consecutive statements with the same SQL are sent as one JDBC batch.
+ */
+final class PendingWrites {
+
+    private static final Map<String, Pattern> TABLE_PATTERNS = new ConcurrentHashMap<>();
+
+    /**
+     * One deferred statement.
+     *
+     * @param values         the parameter values, resolved when the statement was deferred
+     * @param versionChecked true if the statement must update exactly one row (optimistic locking)
+     */
+    record Write(String table, MappedStatement ms, BoundSql boundSql, Object[] values, boolean versionChecked) {
+
+        /**
+         * Defers a statement, resolving its parameter values now: the caller may change or reuse
+         * the entity before the flush.
+         */
+        static Write of(String table, MappedStatement ms, Object parameter, BoundSql boundSql,
+                        boolean versionChecked) {
+            Configuration configuration = ms.getConfiguration();
+            TypeHandlerRegistry typeHandlers = configuration.getTypeHandlerRegistry();
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            Object[] values = new Object[mappings.size()];
+            MetaObject metaObject = null;
+            for (int i = 0; i < values.length; i++) {
+                String property = mappings.get(i).getProperty();
+                // Same resolution as DefaultParameterHandler
+                if (boundSql.hasAdditionalParameter(property)) {
+                    values[i] = boundSql.getAdditionalParameter(property);
+                } else if (parameter == null) {
+                    values[i] = null;
+                } else if (typeHandlers.hasTypeHandler(parameter.getClass())) {
+                    values[i] = parameter;
+                } else {
+                    if (metaObject == null) {
+                        metaObject = configuration.newMetaObject(parameter);
+                    }
+                    values[i] = metaObject.getValue(property);
+                }
+            }
+            return new Write(table, ms, boundSql, values, versionChecked);
+        }
+
+        SqlCommandType kind() {
+            return ms.getSqlCommandType();
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void bind(PreparedStatement ps) throws SQLException {
+            List<ParameterMapping> mappings = boundSql.getParameterMappings();
+            for (int i = 0; i < values.length; i++) {
+                ParameterMapping mapping = mappings.get(i);
+                JdbcType jdbcType = mapping.getJdbcType();
+                if (values[i] == null && jdbcType == null) {
+                    jdbcType = ms.getConfiguration().getJdbcTypeForNull();
+                }
+                TypeHandler typeHandler = mapping.getTypeHandler();
+                typeHandler.setParameter(ps, i + 1, values[i], jdbcType);
+            }
+        }
+    }
+
+    private final List<Write> writes = new ArrayList<>();
+    private final Set<String> tables = new LinkedHashSet<>();
+
+    void add(Write write) {
+        writes.add(write);
+        tables.add(write.table());
+    }
+
+    int size() {
+        return writes.size();
+    }
+
+    /**
+     * Returns true if the SQL mentions a table with pending writes.
+     */
+    boolean isReadBy(String sql) {
+        for (String table : tables) {
+            Pattern pattern = TABLE_PATTERNS.computeIfAbsent(table.toLowerCase(Locale.ROOT),
+                    t -> Pattern.compile("\\b" + Pattern.quote(t) + "\\b", Pattern.CASE_INSENSITIVE));
+            if (pattern.matcher(sql).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void clear() {
+        writes.clear();
+        tables.clear();
+    }
+
+    /**
+     * Executes and clears all pending statements on the connection.
+     *
+     * @throws MapperException if an optimistic-locking statement updated no row
+     */
+    FlushReport flush(Connection connection) throws SQLException {
+        if (writes.isEmpty()) {
+            return FlushReport.EMPTY;
+        }
+        List<Write> pending = new ArrayList<>(writes);
+        clear();
+
+        int[] counts = new int[3];
+        int from = 0;
+        while (from < pending.size()) {
+            SqlCommandType kind = pending.get(from).kind();
+            int to = from + 1;
+            while (to < pending.size() && pending.get(to).kind() == kind) {
+                to++;
+            }
+            executeRun(connection, pending.subList(from, to), counts);
+            from = to;
+        }
+        return new FlushReport(1, counts[0], counts[1], counts[2]);
+    }
+
+    /**
+     * Executes consecutive statements of one kind, moving inserts of referenced tables and deletes
+     * of referencing tables first.
+     */
+    private void executeRun(Connection connection, List<Write> run, int[] counts) throws SQLException {
+        List<Write> ordered = run;
+        SqlCommandType kind = run.get(0).kind();
+        if (kind == SqlCommandType.INSERT || kind == SqlCommandType.DELETE) {
+            List<String> tableOrder = TableDependencies.parentsFirst(
+                    run.stream().map(Write::table).distinct().toList(), connection);
+            if (kind == SqlCommandType.DELETE) {
+                tableOrder = new ArrayList<>(tableOrder);
+                Collections.reverse(tableOrder);
+            }
+            ordered = new ArrayList<>(run.size());
+            for (String table : tableOrder) {
+                for (Write write : run) {
+                    if (write.table().equals(table)) {
+                        ordered.add(write);
+                    }
+                }
+            }
+        }
+
+        List<Write> batch = new ArrayList<>();
+        for (Write write : ordered) {
+            if (!batch.isEmpty() && !batch.get(0).boundSql().getSql().equals(write.boundSql().getSql())) {
+                executeBatch(connection, batch, counts);
+                batch.clear();
+            }
+            batch.add(write);
+        }
+        executeBatch(connection, batch, counts);
+    }
+
+    private void executeBatch(Connection connection, List<Write> run, int[] counts) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(run.get(0).boundSql().getSql())) {
+            for (Write write : run) {
+                write.bind(ps);
+                ps.addBatch();
+            }
+            int[] results = ps.executeBatch();
+            counts[0] += run.size();
+            counts[1]++;
+            for (int i = 0; i < results.length; i++) {
+                if (run.get(i).versionChecked() && results[i] == 0) {
+                    throw new MapperException("Optimistic lock conflict while flushing " + run.get(i).ms().getId()
+                            + " on " + run.get(i).table() + ": the row was changed or deleted");
+                }
+                if (results[i] != Statement.SUCCESS_NO_INFO && results[i] < 0) {
+                    throw new MapperException("Batched statement " + run.get(i).ms().getId() + " failed");
+                }
+                if (results[i] > 0) {
+                    counts[2] += results[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ngcin.ems.mapper.tx;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders tables so that referenced (parent) tables come before the tables whose foreign keys
+ * point at them. Foreign keys are read from {@link DatabaseMetaData} once per table and cached.
+ */
+final class TableDependencies {
+
+    /** Lower-case table name to the lower-case names of the tables it references. */
+    private static final Map<String, Set<String>> PARENTS = new ConcurrentHashMap<>();
+
+    private TableDependencies() {}
+
+    /**
+     * Sorts tables parents first. Tables without a dependency between them keep their given order;
+     * tables in a foreign key cycle also keep their given order.
+     */
+    static List<String> parentsFirst(Collection<String> tables, Connection connection) throws SQLException {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String table : tables) {
+            byKey.put(table.toLowerCase(Locale.ROOT), table);
+        }
+        for (String key : byKey.keySet()) {
+            if (!PARENTS.containsKey(key)) {
+                PARENTS.put(key, readParents(byKey.get(key), connection));
+            }
+        }
+
+        Set<String> sorted = new LinkedHashSet<>();
+        for (String key : byKey.keySet()) {
+            visit(key, byKey.keySet(), new HashSet<>(), sorted);
+        }
+        List<String> result = new ArrayList<>(sorted.size());
+        for (String key : sorted) {
+            result.add(byKey.get(key));
+        }
+        return result;
+    }
+
+    private static void visit(String table, Set<String> scope, Set<String> visiting, Set<String> sorted) {
+        if (sorted.contains(table) || !visiting.add(table)) {
+            return;
+        }
+        for (String parent : PARENTS.getOrDefault(table, Set.of())) {
+            if (scope.contains(parent) && !parent.equals(table)) {
+                visit(parent, scope, visiting, sorted);
+            }
+        }
+        sorted.add(table);
+    }
+
+    private static Set<String> readParents(String table, Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> parents = new HashSet<>();
+        // Identifier case in the catalog depends on the database; try as written, then upper and lower
+        for (String name : new LinkedHashSet<>(List.of(table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT)))) {
+            try (ResultSet rs = metaData.getImportedKeys(connection.getCatalog(), null, name)) {
+                while (rs.next()) {
+                    parents.add(rs.getString("PKTABLE_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+            if (!parents.isEmpty()) {
+                break;
+            }
+        }
+        return parents;
+    }
+}
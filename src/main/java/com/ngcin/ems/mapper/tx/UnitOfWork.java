@@ -0,0 +1,154 @@
+package com.ngcin.ems.mapper.tx;
+
+import com.ngcin.ems.mapper.MapperException;
+import org.apache.ibatis.executor.Executor;
+
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Defers BaseMapper writes on the current thread and flushes them in JDBC batches.
+ *
+ * <p>While a unit of work is open, {@code insert}, {@code insertSelective}, {@code insertBatch},
+ * {@code updateById}, {@code updateSelectiveById}, {@code deleteById} and {@code hardDeleteById}
+ * are recorded instead of executed (their SQL, generated ids and parameters are captured at call
+ * time) and return the expected row count. Pending writes are flushed:
+ * <ul>
+ *   <li>before any query whose SQL mentions a table with pending writes (read-your-writes),</li>
+ *   <li>before any other write statement, which then runs immediately,</li>
+ *   <li>on {@code SqlSession.commit()} (in Spring, when the transaction commits),</li>
+ *   <li>on {@link #flush()} and when the unit of work is closed.</li>
+ * </ul>
+ * A rollback, or closing a session that needs one, discards them. Inserts with AUTO ids and
+ * entities with {@code @Table(returning = true)} are not deferred, since the caller needs the
+ * values the database generates.
+ *
+ * <p>The flush keeps the order the writes were issued in; only within consecutive inserts or
+ * consecutive deletes are rows moved to satisfy foreign keys (parents inserted first, children
+ * deleted first). Versioned updates that match no row fail the flush with a
+ * {@link MapperException}, as the caller has already been told the update succeeded. Other
+ * updates and deletes also return 1 when deferred; {@link #report()} has the rows actually
+ * written. Requires {@link UnitOfWorkInterceptor}.
+ *
+ * <pre>{@code
+ * @Transactional
+ * public void placeOrder(Order order, List<OrderLine> lines) {
+ *     try (UnitOfWork uow = UnitOfWork.begin()) {
+ *         orderMapper.insert(order);
+ *         lines.forEach(orderLineMapper::insert);
+ *         stockMapper.updateSelectiveById(stock);
+ *     } // flushed here as a few JDBC batches; uow.report() has the counts
+ * }
+ * }</pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Map<Executor, PendingWrites> pending = new IdentityHashMap<>();
+    private int depth = 1;
+    private int deferred;
+    private FlushReport report = FlushReport.EMPTY;
+
+    private UnitOfWork() {}
+
+    /**
+     * Opens a unit of work on the current thread, or joins the one already open.
+     */
+    public static UnitOfWork begin() {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            current.depth++;
+            return current;
+        }
+        UnitOfWork unitOfWork = new UnitOfWork();
+        CURRENT.set(unitOfWork);
+        return unitOfWork;
+    }
+
+    /**
+     * Returns the unit of work open on the current thread, or null.
+     */
+    public static UnitOfWork current() {
+        return CURRENT.get();
+    }
+
+    /** Number of writes waiting to be flushed. */
+    public int pendingCount() {
+        return pending.values().stream().mapToInt(PendingWrites::size).sum();
+    }
+
+    /** Number of writes deferred so far. */
+    public int deferredCount() {
+        return deferred;
+    }
+
+    /** Totals of all flushes so far. */
+    public FlushReport report() {
+        return report;
+    }
+
+    /**
+     * Flushes all pending writes into their sessions' transactions.
+     *
+     * @return counts of this flush
+     */
+    public FlushReport flush() {
+        FlushReport result = FlushReport.EMPTY;
+        for (Executor executor : pending.keySet().toArray(new Executor[0])) {
+            try {
+                result = result.plus(flush(executor));
+            } catch (SQLException e) {
+                throw new MapperException("Unit of work flush failed: " + e.getMessage(), e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Flushes pending writes and ends the unit of work once the outermost {@code begin()} closes.
+     */
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            pending.clear();
+            CURRENT.remove();
+        }
+    }
+
+    PendingWrites writesFor(Executor executor) {
+        return pending.computeIfAbsent(executor, e -> new PendingWrites());
+    }
+
+    PendingWrites existingWrites(Executor executor) {
+        return pending.get(executor);
+    }
+
+    void deferred() {
+        deferred++;
+    }
+
+    FlushReport flush(Executor executor) throws SQLException {
+        PendingWrites writes = pending.get(executor);
+        if (writes == null || writes.size() == 0) {
+            return FlushReport.EMPTY;
+        }
+        FlushReport flushed = writes.flush(executor.getTransaction().getConnection());
+        executor.clearLocalCache();
+        report = report.plus(flushed);
+        return flushed;
+    }
+
+    void discard(Executor executor) {
+        PendingWrites writes = pending.remove(executor);
+        if (writes != null) {
+            writes.clear();
+        }
+    }
+}
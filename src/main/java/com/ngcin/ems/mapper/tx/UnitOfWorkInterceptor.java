@@ -0,0 +1,126 @@
+package com.ngcin.ems.mapper.tx;
+
+import com.ngcin.ems.mapper.core.IdType;
+import com.ngcin.ems.mapper.ref.EntityClassResolver;
+import com.ngcin.ems.mapper.ref.TableInfo;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interceptor that defers BaseMapper writes while a {@link UnitOfWork} is open and flushes them
+ * before dependent reads, other writes and commit. Without an open unit of work every call
+ * proceeds unchanged.
+ */
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query",
+               args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+    @Signature(type = Executor.class, method = "queryCursor", args = {MappedStatement.class, Object.class, RowBounds.class}),
+    @Signature(type = Executor.class, method = "flushStatements", args = {}),
+    @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+    @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class UnitOfWorkInterceptor implements Interceptor {
+
+    /** BaseMapper statements that can be deferred. */
+    private static final Set<String> DEFERRABLE = Set.of(
+            "insert", "insertSelective", "insertBatch",
+            "updateById", "updateSelectiveById", "deleteById", "hardDeleteById");
+
+    private static final Set<String> VERSION_CHECKED = Set.of("updateById", "updateSelectiveById");
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        UnitOfWork unitOfWork = UnitOfWork.current();
+        Executor executor = (Executor) invocation.getTarget();
+        String method = invocation.getMethod().getName();
+
+        if (unitOfWork == null) {
+            return invocation.proceed();
+        }
+
+        switch (method) {
+            case "update" -> {
+                MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+                Object parameter = invocation.getArgs()[1];
+                Integer deferredCount = defer(unitOfWork, executor, ms, parameter);
+                if (deferredCount != null) {
+                    return deferredCount;
+                }
+                unitOfWork.flush(executor);
+            }
+            case "query", "queryCursor" -> {
+                PendingWrites writes = unitOfWork.existingWrites(executor);
+                if (writes != null && writes.size() > 0) {
+                    MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+                    BoundSql boundSql = invocation.getArgs().length == 6
+                            ? (BoundSql) invocation.getArgs()[5]
+                            : ms.getBoundSql(invocation.getArgs()[1]);
+                    if (writes.isReadBy(boundSql.getSql())) {
+                        unitOfWork.flush(executor);
+                    }
+                }
+            }
+            case "flushStatements", "commit" -> unitOfWork.flush(executor);
+            case "rollback" -> unitOfWork.discard(executor);
+            case "close" -> {
+                // Closing without a required rollback means auto-commit: the writes are due now
+                if (!(Boolean) invocation.getArgs()[0]) {
+                    unitOfWork.flush(executor);
+                }
+                unitOfWork.discard(executor);
+            }
+            default -> {
+            }
+        }
+        return invocation.proceed();
+    }
+
+    /**
+     * Records the write if it can be deferred.
+     *
+     * @return the row count reported to the caller, or null if the statement must run now
+     */
+    private Integer defer(UnitOfWork unitOfWork, Executor executor, MappedStatement ms, Object parameter) {
+        String statementId = ms.getId();
+        String methodName = statementId.substring(statementId.lastIndexOf('.') + 1);
+        if (!DEFERRABLE.contains(methodName)) {
+            return null;
+        }
+        TableInfo tableInfo = EntityClassResolver.resolveStatementTableInfo(statementId);
+        if (tableInfo == null || tableInfo.returning()) {
+            return null;
+        }
+        boolean insert = ms.getSqlCommandType() == SqlCommandType.INSERT;
+        if (insert && tableInfo.idField() != null && tableInfo.idField().idType() == IdType.AUTO) {
+            return null;
+        }
+
+        PendingWrites writes = unitOfWork.writesFor(executor);
+        // Building the SQL now generates ids and fills insert defaults in the caller's entity
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        boolean versionChecked = tableInfo.hasVersion() && VERSION_CHECKED.contains(methodName);
+        writes.add(PendingWrites.Write.of(tableInfo.tableName(), ms, parameter, boundSql, versionChecked));
+        unitOfWork.deferred();
+        executor.clearLocalCache();
+
+        if ("insertBatch".equals(methodName) && parameter instanceof Map<?, ?> params
+                && params.get("list") instanceof Collection<?> list) {
+            return list.size();
+        }
+        return 1;
+    }
+}
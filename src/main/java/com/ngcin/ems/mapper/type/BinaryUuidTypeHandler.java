@@ -0,0 +1,108 @@
+package com.ngcin.ems.mapper.type;
+
+import com.ngcin.ems.mapper.core.DialectHolder;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.nio.ByteBuffer;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Stores {@link UUID} and UUID-string fields in 16 bytes instead of a 36-character string:
+ * {@code BINARY(16)} on MySQL, {@code RAW(16)} on Oracle, and the native {@code uuid} type on
+ * dialects that have one (PostgreSQL, H2). Select it per column with
+ * {@code @Column(typeHandler = BinaryUuidTypeHandler.class)}.
+ *
+ * <p>Parameters may be {@link UUID}s or UUID strings, so that {@code getById} and
+ * {@code selectBatchIds} accept either; results are converted to the field type. Bytes are in
+ * RFC 4122 order, as written by MySQL's {@code UUID_TO_BIN(uuid)};
+ * {@link TimeSwappedUuidTypeHandler} writes the time-swapped order instead.
+ *
+ * <p>Whether parameters are written as native UUIDs or as bytes follows the global dialect of
+ * {@link DialectHolder}, not the statement's databaseId: type handlers are shared by all
+ * statements and do not see which one they bind. The handler therefore supports one dialect per
+ * application. With data sources of different dialects, register a subclass per data source that
+ * overrides {@link #nativeUuid()}.
+ */
+public class BinaryUuidTypeHandler extends BaseTypeHandler<Object> {
+
+    private final Class<?> type;
+
+    public BinaryUuidTypeHandler(Class<?> type) {
+        this.type = type;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType)
+            throws SQLException {
+        UUID uuid = parameter instanceof UUID value ? value : UUID.fromString(parameter.toString());
+        if (nativeUuid()) {
+            ps.setObject(i, uuid);
+        } else {
+            ps.setBytes(i, toBytes(uuid));
+        }
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return convert(rs.getObject(columnName));
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return convert(rs.getObject(columnIndex));
+    }
+
+    @Override
+    public Object getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return convert(cs.getObject(columnIndex));
+    }
+
+    /**
+     * Returns true to write parameters as native UUIDs, false to write their 16 bytes; by default
+     * whether the global dialect has a native uuid type.
+     */
+    protected boolean nativeUuid() {
+        return DialectHolder.getDialect().supportsNativeUuid();
+    }
+
+    /**
+     * Returns the 16 bytes stored for a UUID.
+     */
+    protected byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Returns the UUID of 16 stored bytes.
+     */
+    protected UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private Object convert(Object value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        UUID uuid;
+        if (value instanceof UUID stored) {
+            uuid = stored;
+        } else if (value instanceof byte[] bytes) {
+            if (bytes.length != 16) {
+                throw new SQLException("Expected 16 bytes for a UUID, but got " + bytes.length);
+            }
+            uuid = fromBytes(bytes);
+        } else {
+            uuid = UUID.fromString(value.toString());
+        }
+        return type == String.class ? uuid.toString() : uuid;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ngcin.ems.mapper.type;
+
+import java.util.UUID;
+
+/**
+ * {@link BinaryUuidTypeHandler} that stores the bytes in time-swapped order, as MySQL's
+ * {@code UUID_TO_BIN(uuid, 1)}: {@code time_hi}, {@code time_mid}, {@code time_low}, then the
+ * rest. For version 1 UUIDs, whose timestamp starts with its low bits, this puts the slowly
+ * changing bits first, so consecutive ids land on neighbouring index pages. Version 7 UUIDs are
+ * already time-ordered and should use {@link BinaryUuidTypeHandler}. Native {@code uuid} columns
+ * are written unchanged.
+ */
+public class TimeSwappedUuidTypeHandler extends BinaryUuidTypeHandler {
+
+    public TimeSwappedUuidTypeHandler(Class<?> type) {
+        super(type);
+    }
+
+    @Override
+    protected byte[] toBytes(UUID uuid) {
+        return swap(super.toBytes(uuid), false);
+    }
+
+    @Override
+    protected UUID fromBytes(byte[] bytes) {
+        return super.fromBytes(swap(bytes, true));
+    }
+
+    /**
+     * Moves {@code time_low} (bytes 0-3) behind {@code time_mid} and {@code time_hi}, or back.
+     */
+    private static byte[] swap(byte[] bytes, boolean restore) {
+        byte[] swapped = bytes.clone();
+        if (restore) {
+            System.arraycopy(bytes, 4, swapped, 0, 4);
+            System.arraycopy(bytes, 2, swapped, 4, 2);
+            System.arraycopy(bytes, 0, swapped, 6, 2);
+        } else {
+            System.arraycopy(bytes, 6, swapped, 0, 2);
+            System.arraycopy(bytes, 4, swapped, 2, 2);
+            System.arraycopy(bytes, 0, swapped, 4, 4);
+        }
+        return swapped;
+    }
+}
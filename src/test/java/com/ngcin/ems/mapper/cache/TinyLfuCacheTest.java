@@ -0,0 +1,82 @@
+package com.ngcin.ems.mapper.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TinyLfuCache.
+ */
+class TinyLfuCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        AtomicLong now = new AtomicLong();
+        TinyLfuCache cache = new TinyLfuCache(10, now::get);
+        cache.put("a", 1, 100);
+
+        now.set(99);
+        assertEquals(1, cache.get("a"));
+        now.set(100);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        TinyLfuCache cache = new TinyLfuCache(50);
+        for (int i = 0; i < 500; i++) {
+            cache.put(i, i, TTL);
+        }
+        assertEquals(50, cache.size());
+        assertEquals(450, cache.evictionCount());
+    }
+
+    @Test
+    void testFrequentEntriesSurviveScan() {
+        TinyLfuCache cache = new TinyLfuCache(100);
+        for (int i = 0; i < 10; i++) {
+            cache.put("hot" + i, i, TTL);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, cache.get("hot" + i));
+            }
+        }
+
+        // A scan of one-hit keys ten times the capacity
+        for (int i = 0; i < 1000; i++) {
+            cache.put("scan" + i, i, TTL);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, cache.get("hot" + i), "hot" + i + " was evicted");
+        }
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    void testInvalidate() {
+        TinyLfuCache cache = new TinyLfuCache(10);
+        cache.put("a", 1, TTL);
+        cache.put("b", 2, TTL);
+
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.get("b"));
+
+        cache.invalidateAll();
+        assertNull(cache.get("b"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache(0));
+    }
+}
@@ -0,0 +1,201 @@
+package com.ngcin.ems.mapper.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SnowflakeIdGenerator.
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.DEFAULT_EPOCH + 1_000_000;
+
+    @Test
+    void testLayout() {
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .datacenterId(3)
+                .workerId(17)
+                .clock(() -> NOW)
+                .build();
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+        assertEquals(new SnowflakeIdGenerator.Parts(NOW, 3, 17, 0), generator.decode(first));
+        assertEquals(new SnowflakeIdGenerator.Parts(NOW, 3, 17, 1), generator.decode(second));
+        assertEquals(((NOW - SnowflakeIdGenerator.DEFAULT_EPOCH) << 22) | (3L << 17) | (17L << 12), first);
+    }
+
+    @Test
+    void testCustomLayout() {
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .datacenterBits(0)
+                .workerBits(10)
+                .sequenceBits(8)
+                .workerId(1000)
+                .clock(() -> NOW)
+                .build();
+
+        assertEquals(new SnowflakeIdGenerator.Parts(NOW, 0, 1000, 0), generator.decode(generator.nextId()));
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowflakeIdGenerator.builder().workerBits(4).workerId(16).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> SnowflakeIdGenerator.builder().workerBits(20).sequenceBits(10).build());
+    }
+
+    @Test
+    void testMinIdAt() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .datacenterId(31)
+                .workerId(31)
+                .clock(clock::get)
+                .build();
+
+        long first = generator.nextId();
+        clock.set(NOW + 1);
+        long next = generator.nextId();
+        assertEquals(new SnowflakeIdGenerator.Parts(NOW, 0, 0, 0), generator.decode(generator.minIdAt(NOW)));
+        assertTrue(generator.minIdAt(NOW) <= first && first < generator.minIdAt(NOW + 1));
+        assertTrue(generator.minIdAt(NOW + 1) <= next && next < generator.minIdAt(NOW + 2));
+        assertEquals(0, generator.minIdAt(0));
+        assertEquals(Long.MAX_VALUE, generator.minIdAt(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testWorkerIdAssigner() {
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .workerIdAssigner(WorkerIdAssigner.fixed(9))
+                .build();
+        assertEquals(9, generator.decode(generator.nextId()).workerId());
+        assertThrows(IllegalStateException.class,
+                () -> SnowflakeIdGenerator.builder().workerIdAssigner(WorkerIdAssigner.fixed(32)).build());
+
+        AtomicBoolean valid = new AtomicBoolean(true);
+        SnowflakeIdGenerator leased = SnowflakeIdGenerator.builder()
+                .workerIdAssigner(new WorkerIdAssigner() {
+                    @Override
+                    public long acquire(long maxWorkerId) {
+                        return 4;
+                    }
+
+                    @Override
+                    public boolean isValid() {
+                        return valid.get();
+                    }
+                })
+                .build();
+        leased.nextId();
+        valid.set(false);
+        assertThrows(IllegalStateException.class, leased::nextId);
+    }
+
+    @Test
+    void testSequenceRestartsEveryMillisecond() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder().clock(clock::get).build();
+
+        generator.nextId();
+        generator.nextId();
+        clock.incrementAndGet();
+        SnowflakeIdGenerator.Parts parts = generator.decode(generator.nextId());
+        assertEquals(NOW + 1, parts.epochMillis());
+        assertEquals(0, parts.sequence());
+    }
+
+    @Test
+    void testOverflowBorrowsThenWaits() {
+        AtomicLong clock = new AtomicLong(NOW);
+        AtomicLong reads = new AtomicLong();
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .sequenceBits(2)
+                .maxBorrowMillis(1)
+                .clock(() -> {
+                    // The wall clock only moves once the generator had to wait
+                    return reads.incrementAndGet() > 12 ? clock.incrementAndGet() : clock.get();
+                })
+                .build();
+
+        long[] ids = new long[12];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId();
+        }
+        // 4 ids in NOW, 4 in the borrowed NOW + 1, then the generator waited for the clock
+        assertEquals(NOW + 1, generator.decode(ids[4]).epochMillis());
+        assertEquals(0, generator.decode(ids[4]).sequence());
+        assertTrue(generator.decode(ids[8]).epochMillis() >= NOW + 2);
+        assertTrue(clock.get() > NOW, "the generator waited for the wall clock");
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+    }
+
+    @Test
+    void testClockRegression() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder()
+                .maxBorrowMillis(0)
+                .maxBackwardMillis(100)
+                .clock(clock::get)
+                .build();
+
+        long before = generator.nextId();
+        clock.addAndGet(-50);
+        long after = generator.nextId();
+        assertTrue(after > before, "ids keep increasing while the clock is behind");
+        assertEquals(NOW, generator.decode(after).epochMillis());
+
+        clock.addAndGet(-100);
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void testConcurrentIdsAreUnique() throws Exception {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        int perThread = 250_000;
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder().workerId(1).build();
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    long[] ids = new long[perThread];
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            long[] all = new long[threads * perThread];
+            int offset = 0;
+            for (Future<long[]> result : results) {
+                long[] ids = result.get(60, TimeUnit.SECONDS);
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1], "ids of one thread increase");
+                }
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertNotEquals(all[i - 1], all[i], "duplicate id");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
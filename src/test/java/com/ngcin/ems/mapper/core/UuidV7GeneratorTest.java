@@ -0,0 +1,99 @@
+package com.ngcin.ems.mapper.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for UuidV7Generator.
+ */
+class UuidV7GeneratorTest {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void testLayout() {
+        UUID uuid = new UuidV7Generator(() -> NOW).next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(NOW, UuidV7Generator.timestamp(uuid));
+        assertTrue(uuid.toString().startsWith(String.format("%08x-%04x-7", NOW >>> 16, NOW & 0xFFFF)), uuid.toString());
+        assertThrows(IllegalArgumentException.class, () -> UuidV7Generator.timestamp(UUID.randomUUID()));
+    }
+
+    @Test
+    void testMonotonicWithinMillisecond() {
+        UuidV7Generator generator = new UuidV7Generator(() -> NOW);
+
+        // More ids than the 12-bit counter holds: the overflow carries into the timestamp
+        UUID previous = generator.next();
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = generator.next();
+            assertTrue(next.compareTo(previous) > 0, previous + " then " + next);
+            previous = next;
+        }
+        long timestamp = UuidV7Generator.timestamp(previous);
+        assertTrue(timestamp > NOW && timestamp <= NOW + 5, "runs ahead by a few ms: " + (timestamp - NOW));
+    }
+
+    @Test
+    void testClockMovingBackwards() {
+        AtomicLong clock = new AtomicLong(NOW);
+        UuidV7Generator generator = new UuidV7Generator(clock::get);
+
+        UUID before = generator.next();
+        clock.set(NOW - 5_000);
+        UUID after = generator.next();
+        assertTrue(after.compareTo(before) > 0);
+        assertEquals(NOW, UuidV7Generator.timestamp(after));
+
+        clock.set(NOW + 1);
+        assertEquals(NOW + 1, UuidV7Generator.timestamp(generator.next()));
+    }
+
+    @Test
+    void testConcurrentIdsAreUniqueAndOrderedPerThread() throws Exception {
+        UuidV7Generator generator = new UuidV7Generator();
+        int threads = 8;
+        int perThread = 50_000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<UUID[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    UUID[] ids = new UUID[perThread];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = generator.next();
+                    }
+                    return ids;
+                }));
+            }
+            Set<UUID> distinct = new HashSet<>();
+            for (Future<UUID[]> result : results) {
+                UUID[] ids = result.get(30, TimeUnit.SECONDS);
+                for (int i = 0; i < ids.length; i++) {
+                    assertTrue(i == 0 || ids[i].compareTo(ids[i - 1]) > 0);
+                    assertTrue(distinct.add(ids[i]));
+                }
+            }
+            assertEquals(threads * perThread, distinct.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.async.AsyncBaseMapper;
+import com.ngcin.ems.test.entity.Article;
+import com.ngcin.ems.test.mapper.ArticleMapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for AsyncBaseMapper (CompletableFuture calls on their own connections).
+ */
+class AsyncBaseMapperTest {
+
+    private static final int SLOW_ROWS = 1000;
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private AsyncBaseMapper<Article> articles;
+    private AsyncBaseMapper<Article> slowArticles;
+
+    /**
+     * Mapper with queries that take a given time.
+     */
+    public interface SlowArticleMapper extends BaseMapper<Article> {
+
+        @Select("SELECT PAUSE(#{millis})")
+        boolean pause(long millis);
+
+        /** Takes about 2 ms per row of t_slow; H2 checks for cancellation every 128 rows. */
+        @Select("SELECT id FROM t_slow WHERE PAUSE(2)")
+        List<Integer> slowIds();
+    }
+
+    /**
+     * H2 function aliases; public so that H2 can call them.
+     */
+    public static class Functions {
+
+        public static boolean pause(long millis) throws InterruptedException {
+            Thread.sleep(millis);
+            return true;
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.StreamingQueryInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:asyncdb;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.ArticleMapper"/>
+                        <mapper class="com.ngcin.ems.test.AsyncBaseMapperTest$SlowArticleMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_article (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "title VARCHAR(100) NOT NULL, " +
+                    "content VARCHAR(500), " +
+                    "deleted INT DEFAULT 0)");
+            stmt.execute("CREATE TABLE t_slow (id INT PRIMARY KEY)");
+            stmt.execute("INSERT INTO t_slow SELECT X FROM SYSTEM_RANGE(1, " + SLOW_ROWS + ")");
+            stmt.execute("CREATE ALIAS PAUSE FOR 'com.ngcin.ems.test.AsyncBaseMapperTest$Functions.pause'");
+            session.commit();
+        }
+    }
+
+    @BeforeEach
+    void createMappers() throws Exception {
+        articles = new AsyncBaseMapper<>(sqlSessionFactory, ArticleMapper.class);
+        slowArticles = new AsyncBaseMapper<>(sqlSessionFactory, SlowArticleMapper.class);
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_article");
+            session.commit();
+        }
+    }
+
+    @AfterEach
+    void closeMappers() {
+        articles.close();
+        slowArticles.close();
+    }
+
+    @Test
+    void testFanOutLatencyIsTheSlowestCall() {
+        long start = System.nanoTime();
+        List<CompletableFuture<Boolean>> calls = List.of(
+                slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(300)),
+                slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(300)),
+                slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(300)));
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(calls.stream().allMatch(CompletableFuture::join));
+        assertTrue(millis < 800, "Three 300 ms calls should overlap, took " + millis + " ms");
+    }
+
+    @Test
+    void testWritesCommitOnTheirOwnConnection() {
+        Article article = new Article("Async", "content");
+        assertEquals(1, articles.insert(article).join());
+        assertNotNull(article.getId(), "Generated key is read back");
+
+        CompletableFuture<Article> byId = articles.getById(article.getId());
+        CompletableFuture<Long> count = articles.selectCount(new Article());
+        assertEquals("Async", byId.join().getTitle());
+        assertEquals(1, count.join());
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            assertNotNull(session.getMapper(ArticleMapper.class).getById(article.getId()),
+                    "The insert is committed");
+        }
+    }
+
+    @Test
+    void testFailedWriteCompletesExceptionally() {
+        // title is NOT NULL
+        CompletableFuture<Integer> insert = articles.insert(new Article(null, "content"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> insert.get(10, TimeUnit.SECONDS));
+        assertNotNull(e.getCause());
+        assertEquals(0, articles.selectCount(new Article()).join());
+    }
+
+    @Test
+    void testInTransactionRollsBackOnFailure() {
+        CompletableFuture<Integer> tx = articles.inTransaction(mapper -> {
+            mapper.insert(new Article("First", "content"));
+            mapper.insert(new Article("Second", "content"));
+            throw new IllegalStateException("abort");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> tx.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        assertEquals(0, articles.selectCount(new Article()).join());
+    }
+
+    @Test
+    void testTimeoutCancelsStatement() throws Exception {
+        slowArticles.timeout(Duration.ofMillis(200));
+        long start = System.nanoTime();
+        CompletableFuture<List<Integer>> ids = slowArticles.read(mapper -> ((SlowArticleMapper) mapper).slowIds());
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> ids.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        waitFor(() -> slowArticles.activeCalls() == 0);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Running to the end would take about SLOW_ROWS * 2 ms
+        assertTrue(millis < SLOW_ROWS * 2 / 2, "The statement should be cancelled, took " + millis + " ms");
+    }
+
+    @Test
+    void testCancelRollsBackWrite() throws Exception {
+        CompletableFuture<List<Integer>> tx = slowArticles.inTransaction(mapper -> {
+            mapper.insert(new Article("Cancelled", "content"));
+            return ((SlowArticleMapper) mapper).slowIds();
+        });
+        waitFor(() -> slowArticles.activeCalls() == 1);
+        Thread.sleep(100);
+
+        assertTrue(tx.cancel(true));
+        waitFor(() -> slowArticles.activeCalls() == 0);
+        assertTrue(tx.isCancelled());
+        assertEquals(0, articles.selectCount(new Article()).join(), "The cancelled insert is rolled back");
+    }
+
+    @Test
+    void testTimedOutWritesAreNeverCommitted() throws Exception {
+        articles.timeout(Duration.ofMillis(1));
+        List<CompletableFuture<Integer>> inserts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            inserts.add(articles.insert(new Article("Race" + i, "content")));
+        }
+        for (CompletableFuture<Integer> insert : inserts) {
+            try {
+                insert.get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(TimeoutException.class, e.getCause());
+            }
+        }
+        waitFor(() -> articles.activeCalls() == 0);
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            ArticleMapper mapper = session.getMapper(ArticleMapper.class);
+            for (int i = 0; i < inserts.size(); i++) {
+                Article query = new Article("Race" + i, null);
+                long expected = inserts.get(i).isCompletedExceptionally() ? 0 : 1;
+                assertEquals(expected, mapper.selectCount(query), "Race" + i + " committed iff it succeeded");
+            }
+        }
+    }
+
+    @Test
+    void testCloseFailsQueuedCalls() throws Exception {
+        List<CompletableFuture<Boolean>> running = new ArrayList<>();
+        for (int i = 0; i < AsyncBaseMapper.DEFAULT_THREADS; i++) {
+            running.add(slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(300)));
+        }
+        CompletableFuture<Boolean> queued = slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(300));
+        waitFor(() -> slowArticles.activeCalls() == AsyncBaseMapper.DEFAULT_THREADS);
+
+        slowArticles.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        CompletableFuture<Boolean> afterClose = slowArticles.read(mapper -> ((SlowArticleMapper) mapper).pause(1));
+        e = assertThrows(ExecutionException.class, () -> afterClose.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        for (CompletableFuture<Boolean> call : running) {
+            assertThrows(ExecutionException.class, () -> call.get(10, TimeUnit.SECONDS),
+                    "Running calls are interrupted");
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.batch.BatchLoader;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for BatchLoader (batching concurrent getById calls into selectBatchIds).
+ */
+class BatchLoaderTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_batch_loader;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void insertRows() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            try (Statement stmt = session.getConnection().createStatement()) {
+                stmt.execute("DELETE FROM t_setting");
+            }
+            SettingMapper mapper = session.getMapper(SettingMapper.class);
+            for (int i = 0; i < 10; i++) {
+                Setting setting = new Setting("key-" + i, "value-" + i);
+                mapper.insert(setting);
+                ids.add(setting.getId());
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentGetsShareOneStatement() throws Exception {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             BatchLoader<Setting> loader = new BatchLoader<>(session.getMapper(SettingMapper.class))
+                     .window(Duration.ofMillis(500))) {
+            CyclicBarrier start = new CyclicBarrier(ids.size());
+            List<Future<Setting>> results = new ArrayList<>();
+            for (Long id : ids) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return loader.get(id);
+                }));
+            }
+            for (int i = 0; i < ids.size(); i++) {
+                Setting setting = results.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(ids.get(i), setting.getId());
+                assertEquals("value-" + i, setting.getContent());
+            }
+            assertEquals(10, loader.requestCount());
+            assertEquals(1, loader.statementCount());
+        }
+    }
+
+    @Test
+    void testFullBatchIsLoadedWithoutWaiting() {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             BatchLoader<Setting> loader = new BatchLoader<>(session.getMapper(SettingMapper.class))
+                     .window(Duration.ofMinutes(1))
+                     .maxBatchSize(3)) {
+            List<CompletableFuture<Setting>> results = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                results.add(loader.load(ids.get(i)));
+            }
+            assertEquals(2, loader.statementCount());
+            assertTrue(results.get(5).isDone());
+            assertFalse(results.get(6).isDone());
+
+            loader.dispatch();
+            assertEquals(3, loader.statementCount());
+            for (int i = 0; i < 7; i++) {
+                assertEquals("value-" + i, results.get(i).join().getContent());
+            }
+        }
+    }
+
+    @Test
+    void testBatchesRunOneAtATimeOnTheSession() throws Exception {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            SettingMapper target = session.getMapper(SettingMapper.class);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            // Records how many statements run on the session at the same time
+            SettingMapper mapper = (SettingMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {SettingMapper.class}, (proxy, method, args) -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(20);
+                            return method.invoke(target, args);
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    });
+
+            try (BatchLoader<Setting> loader = new BatchLoader<>(mapper).maxBatchSize(1)) {
+                CyclicBarrier start = new CyclicBarrier(ids.size());
+                List<Future<Setting>> results = new ArrayList<>();
+                for (Long id : ids) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return loader.get(id);
+                    }));
+                }
+                for (int i = 0; i < ids.size(); i++) {
+                    assertEquals(ids.get(i), results.get(i).get(5, TimeUnit.SECONDS).getId());
+                }
+                assertEquals(10, loader.statementCount());
+            }
+            assertEquals(1, maxRunning.get());
+        }
+    }
+
+    @Test
+    void testMissingAndDuplicateIds() {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             BatchLoader<Setting> loader = new BatchLoader<>(session.getMapper(SettingMapper.class))) {
+            CompletableFuture<Setting> first = loader.load(ids.get(0));
+            CompletableFuture<Setting> again = loader.load(ids.get(0));
+            CompletableFuture<Setting> missing = loader.load(424242L);
+            assertSame(first, again);
+
+            loader.dispatch();
+            assertEquals("value-0", first.join().getContent());
+            assertNull(missing.join());
+            assertEquals(3, loader.requestCount());
+        }
+    }
+
+    @Test
+    void testLoadsRunInCallerTransaction() {
+        try (SqlSession session = sqlSessionFactory.openSession(false)) {
+            SettingMapper mapper = session.getMapper(SettingMapper.class);
+            Setting uncommitted = new Setting("pending", "not yet committed");
+            mapper.insert(uncommitted);
+
+            try (BatchLoader<Setting> loader = new BatchLoader<>(mapper)) {
+                assertEquals("not yet committed", loader.get(uncommitted.getId()).getContent());
+            }
+            session.rollback();
+        }
+    }
+
+    @Test
+    void testClosedLoaderRejectsRequests() {
+        CompletableFuture<Setting> pending;
+        BatchLoader<Setting> loader;
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            loader = new BatchLoader<>(session.getMapper(SettingMapper.class)).window(Duration.ofMinutes(1));
+            pending = loader.load(ids.get(1));
+            loader.close();
+        }
+        assertEquals("value-1", pending.join().getContent());
+        assertThrows(IllegalStateException.class, () -> loader.load(ids.get(2)));
+        assertThrows(IllegalStateException.class, () -> loader.maxBatchSize(5));
+    }
+}
@@ -0,0 +1,228 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.IPage;
+import com.ngcin.ems.mapper.core.ColumnTypeHandlerInterceptor;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.mapper.core.Page;
+import com.ngcin.ems.mapper.type.BinaryUuidTypeHandler;
+import com.ngcin.ems.test.entity.Device;
+import com.ngcin.ems.test.mapper.DeviceMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for UUID columns stored in 16 bytes through {@code @Column(typeHandler)}: BINARY(16) on
+ * the MySQL dialect and the native uuid type on the H2 dialect.
+ */
+class BinaryUuidTest {
+
+    /** A version 1 UUID, whose time-swapped bytes start with time_hi. */
+    private static final String SERIAL = "6ccd780c-baba-1026-9564-5b8c656024db";
+
+    private static SqlSessionFactory binaryFactory;
+    private static SqlSessionFactory nativeFactory;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        binaryFactory = buildFactory("testdb_binary_uuid");
+        nativeFactory = buildFactory("testdb_native_uuid");
+        execute(binaryFactory, "CREATE TABLE t_device (id BINARY(16) PRIMARY KEY, serial_uuid BINARY(16), name VARCHAR(50))");
+        execute(nativeFactory, "CREATE TABLE t_device (id UUID PRIMARY KEY, serial_uuid UUID, name VARCHAR(50))");
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        execute(binaryFactory, "DELETE FROM t_device");
+        execute(nativeFactory, "DELETE FROM t_device");
+    }
+
+    @AfterEach
+    void resetDialect() {
+        DialectHolder.setDialect(Dialect.MYSQL);
+    }
+
+    @Test
+    void testBinaryColumnsRoundTrip() throws SQLException {
+        try (SqlSession session = binaryFactory.openSession()) {
+            DeviceMapper mapper = session.getMapper(DeviceMapper.class);
+            Device device = new Device(SERIAL, "sensor");
+            mapper.insert(device);
+            session.commit();
+            assertEquals(7, device.getId().version());
+
+            try (Statement stmt = session.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id, serial_uuid FROM t_device")) {
+                assertTrue(rs.next());
+                assertArrayEquals(bytes(device.getId()), rs.getBytes(1), "RFC 4122 byte order");
+                byte[] serial = bytes(UUID.fromString(SERIAL));
+                byte[] swapped = rs.getBytes(2);
+                assertArrayEquals(Arrays.copyOfRange(serial, 6, 8), Arrays.copyOfRange(swapped, 0, 2), "time_hi first");
+                assertArrayEquals(Arrays.copyOfRange(serial, 4, 6), Arrays.copyOfRange(swapped, 2, 4), "then time_mid");
+                assertArrayEquals(Arrays.copyOfRange(serial, 0, 4), Arrays.copyOfRange(swapped, 4, 8), "then time_low");
+                assertArrayEquals(Arrays.copyOfRange(serial, 8, 16), Arrays.copyOfRange(swapped, 8, 16));
+            }
+
+            Device loaded = mapper.getById(device.getId());
+            assertEquals(device.getId(), loaded.getId());
+            assertEquals(SERIAL, loaded.getSerialUuid());
+            assertEquals("sensor", loaded.getName());
+            // The id may also be given as a string
+            assertEquals(device.getId(), mapper.getById(device.getId().toString()).getId());
+        }
+    }
+
+    @Test
+    void testBinaryKeysInBatchQueriesAndWrites() {
+        try (SqlSession session = binaryFactory.openSession()) {
+            DeviceMapper mapper = session.getMapper(DeviceMapper.class);
+            List<Device> devices = List.of(new Device(SERIAL, "a"), new Device(UUID.randomUUID().toString(), "b"),
+                    new Device(null, "c"));
+            mapper.insertBatch(devices);
+            session.commit();
+
+            List<Serializable> ids = List.of(devices.get(0).getId(), devices.get(2).getId().toString());
+            List<Device> loaded = mapper.selectBatchIds(ids);
+            assertEquals(2, loaded.size());
+            assertTrue(loaded.stream().anyMatch(d -> d.getId().equals(devices.get(2).getId()) && d.getSerialUuid() == null));
+
+            Device query = new Device(SERIAL, null);
+            Device found = mapper.selectOne(query);
+            assertEquals(devices.get(0).getId(), found.getId());
+
+            found.setName("renamed");
+            assertEquals(1, mapper.updateById(found));
+            assertEquals("renamed", mapper.getById(found.getId()).getName());
+
+            IPage<Device> page = mapper.page(new Page<>(1, 2), new Device());
+            assertEquals(3, page.getTotal());
+            assertTrue(page.getRecords().stream().allMatch(d -> d.getId() != null && d.getId().version() == 7));
+
+            assertEquals(1, mapper.hardDeleteById(devices.get(1).getId()));
+            assertEquals(2, mapper.selectCount(null));
+        }
+    }
+
+    @Test
+    void testNativeUuidColumns() throws SQLException {
+        DialectHolder.setDialect(Dialect.H2);
+        try (SqlSession session = nativeFactory.openSession()) {
+            DeviceMapper mapper = session.getMapper(DeviceMapper.class);
+            Device device = new Device(SERIAL, "native");
+            mapper.insert(device);
+            session.commit();
+
+            try (Statement stmt = session.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT serial_uuid FROM t_device")) {
+                assertTrue(rs.next());
+                assertEquals(UUID.fromString(SERIAL), rs.getObject(1), "native uuid columns are not swapped");
+            }
+            Device loaded = mapper.getById(device.getId().toString());
+            assertEquals(device.getId(), loaded.getId());
+            assertEquals(SERIAL, loaded.getSerialUuid());
+            assertEquals(1, mapper.selectBatchIds(List.of(device.getId())).size());
+        }
+        ColumnTypeHandlerInterceptor interceptor = nativeFactory.getConfiguration().getInterceptors().stream()
+                .filter(ColumnTypeHandlerInterceptor.class::isInstance)
+                .map(ColumnTypeHandlerInterceptor.class::cast)
+                .findFirst().orElseThrow();
+        assertTrue(interceptor.cachedStatements() >= 2, "getById and selectBatchIds were rebuilt");
+    }
+
+    @Test
+    void testSubclassChoosesEncodingPerDataSource() throws SQLException {
+        // The global dialect has a native uuid type, but this data source stores bytes
+        DialectHolder.setDialect(Dialect.H2);
+        BinaryUuidTypeHandler handler = new BinaryUuidTypeHandler(UUID.class) {
+            @Override
+            protected boolean nativeUuid() {
+                return false;
+            }
+        };
+        UUID id = UUID.randomUUID();
+        try (SqlSession session = binaryFactory.openSession()) {
+            try (PreparedStatement ps = session.getConnection()
+                    .prepareStatement("INSERT INTO t_device (id, name) VALUES (?, 'bytes')")) {
+                handler.setParameter(ps, 1, id, null);
+                ps.executeUpdate();
+            }
+            session.commit();
+            try (Statement stmt = session.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM t_device")) {
+                assertTrue(rs.next());
+                assertArrayEquals(bytes(id), rs.getBytes(1));
+                assertEquals(id, handler.getResult(rs, 1));
+            }
+        }
+    }
+
+    private static byte[] bytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    private static SqlSessionFactory buildFactory(String database) {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="logImpl" value="SLF4J"/>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.PaginationInterceptor">
+                            <property name="dialectType" value="mysql"/>
+                        </plugin>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.ColumnTypeHandlerInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.DeviceMapper"/>
+                    </mappers>
+                </configuration>
+                """.formatted(database);
+        return new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+    }
+
+    private static void execute(SqlSessionFactory factory, String sql) throws SQLException {
+        try (SqlSession session = factory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute(sql);
+            session.commit(true);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.ngcin.ems.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.ngcin.ems.mapper.batch.BulkLoader;
+import com.ngcin.ems.mapper.cache.InvalidationBus;
+import com.ngcin.ems.mapper.cache.InvalidationInterceptor;
+import com.ngcin.ems.mapper.cache.LoopbackTransport;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.test.entity.JsonEntity;
+import com.ngcin.ems.test.entity.Payment;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.JsonEntityMapper;
+import com.ngcin.ems.test.mapper.PaymentMapper;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for BulkLoader (native CSV path on H2 and insertBatch fallback).
+ */
+class BulkLoaderTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static InvalidationBus bus;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.cache.EntityCacheInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_bulk_load;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.PaymentMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.JsonEntityMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        bus = new InvalidationBus(new LoopbackTransport(), "bulk");
+        sqlSessionFactory.getConfiguration().addInterceptor(new InvalidationInterceptor(bus));
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_payment (" +
+                    "payment_id BIGINT PRIMARY KEY, " +
+                    "payment_no VARCHAR(50) NOT NULL, " +
+                    "amount DECIMAL(10,2))");
+            stmt.execute("CREATE TABLE t_json_entity (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "name VARCHAR(100), " +
+                    "metadata VARCHAR(4000), " +
+                    "tags VARCHAR(4000), " +
+                    "config VARCHAR(4000))");
+            stmt.execute("CREATE TABLE t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        DialectHolder.setDialect(Dialect.H2);
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_payment");
+            stmt.execute("DELETE FROM t_json_entity");
+            stmt.execute("DELETE FROM t_setting");
+        }
+    }
+
+    @AfterEach
+    void resetDialect() {
+        DialectHolder.setDialect(Dialect.MYSQL);
+    }
+
+    @AfterAll
+    static void closeBus() {
+        bus.close();
+    }
+
+    @Test
+    void testBulkLoad_NativePathInvalidatesCaches() {
+        Setting setting = new Setting("timeout", "30");
+        setting.setId(42L);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            assertNull(session.getMapper(SettingMapper.class).getById(42L), "Cached as missing");
+        }
+        long reported = bus.reportedEvents();
+
+        new BulkLoader<>(sqlSessionFactory, SettingMapper.class).bulkLoad(Stream.of(setting));
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            Setting loaded = session.getMapper(SettingMapper.class).getById(42L);
+            assertNotNull(loaded, "The missing entry is invalidated");
+            assertEquals("30", loaded.getContent());
+        }
+        assertEquals(reported + 1, bus.reportedEvents());
+    }
+
+    @Test
+    void testBulkLoad_NativeCsvPath() {
+        BulkLoader<User> loader = new BulkLoader<>(sqlSessionFactory, UserMapper.class).chunkSize(100);
+
+        long loaded = loader.bulkLoad(IntStream.range(0, 2500)
+                .mapToObj(i -> new User("user" + i, "user" + i + "@example.com", i % 90)));
+
+        assertEquals(2500, loaded);
+        assertEquals(2500, queryLong("SELECT COUNT(*) FROM t_user"));
+        assertEquals(89, queryLong("SELECT MAX(age) FROM t_user"));
+    }
+
+    @Test
+    void testBulkLoad_EscapesQuotesSeparatorsAndNulls() {
+        User tricky = new User("o\"brien, jr.", null, null);
+        tricky.setCreateTime(null);
+        User multiline = new User("line1\nline2", "", 30);
+
+        new BulkLoader<>(sqlSessionFactory, UserMapper.class).bulkLoad(Stream.of(tricky, multiline));
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            List<User> users = session.getMapper(UserMapper.class).selectAll();
+            User first = users.stream().filter(u -> u.getUsername().startsWith("o")).findFirst().orElseThrow();
+            assertEquals("o\"brien, jr.", first.getUsername());
+            assertNull(first.getEmail(), "NULL should stay NULL");
+            assertNull(first.getAge());
+
+            User second = users.stream().filter(u -> u.getUsername().startsWith("line")).findFirst().orElseThrow();
+            assertEquals("line1\nline2", second.getUsername());
+            assertEquals("", second.getEmail(), "Empty string should not become NULL");
+        }
+    }
+
+    @Test
+    void testBulkLoad_GeneratesSnowflakeIds() {
+        List<Payment> payments = IntStream.range(0, 50)
+                .mapToObj(i -> new Payment("PAY" + i, new BigDecimal("12.50")))
+                .toList();
+
+        new BulkLoader<>(sqlSessionFactory, PaymentMapper.class).bulkLoad(payments.stream());
+
+        assertTrue(payments.stream().allMatch(p -> p.getPaymentId() != null), "IDs are generated before loading");
+        assertEquals(50, queryLong("SELECT COUNT(DISTINCT payment_id) FROM t_payment"));
+        assertEquals(625, queryLong("SELECT SUM(amount) FROM t_payment"));
+    }
+
+    @Test
+    void testBulkLoad_UsesTypeHandlersForJson() {
+        ObjectNode metadata = new ObjectMapper().createObjectNode();
+        metadata.put("author", "John, \"JJ\"");
+        JsonEntity entity = new JsonEntity("doc");
+        entity.setMetadata(metadata);
+
+        new BulkLoader<>(sqlSessionFactory, JsonEntityMapper.class).bulkLoad(Stream.of(entity));
+
+        assertEquals("{\"author\":\"John, \\\"JJ\\\"\"}", queryString("SELECT metadata FROM t_json_entity"));
+    }
+
+    @Test
+    void testBulkLoad_FallsBackToInsertBatch() {
+        // No Connector/J on the classpath, so the MySQL native path is unavailable
+        DialectHolder.setDialect(Dialect.MYSQL);
+        List<User> users = IntStream.range(0, 25)
+                .mapToObj(i -> new User("user" + i, "user" + i + "@example.com", 20))
+                .toList();
+
+        long loaded = new BulkLoader<>(sqlSessionFactory, UserMapper.class).chunkSize(10).bulkLoad(users.stream());
+
+        assertEquals(25, loaded);
+        assertEquals(25, queryLong("SELECT COUNT(*) FROM t_user"));
+        assertNotNull(users.get(24).getId(), "insertBatch fallback backfills AUTO ids");
+    }
+
+    @Test
+    void testDialectBulkLoadSql() {
+        List<String> columns = List.of("username", "age");
+
+        assertEquals("COPY t_user (username, age) FROM STDIN WITH (FORMAT csv)",
+                Dialect.POSTGRESQL.buildBulkLoadSql("t_user", columns, null));
+        assertEquals("LOAD DATA LOCAL INFILE 'stream' INTO TABLE t_user CHARACTER SET utf8mb4"
+                        + " FIELDS TERMINATED BY ',' ENCLOSED BY '\"' ESCAPED BY '' LINES TERMINATED BY '\\n'"
+                        + " (username, age)",
+                Dialect.MYSQL.buildBulkLoadSql("t_user", columns, "stream"));
+        assertNull(Dialect.ORACLE.buildBulkLoadSql("t_user", columns, "stream"));
+    }
+
+    private String queryString(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.DirtyTrackingInterceptor;
+import com.ngcin.ems.mapper.core.EntitySnapshots;
+import com.ngcin.ems.mapper.json.JsonNodeValue;
+import com.ngcin.ems.test.entity.Account;
+import com.ngcin.ems.test.entity.Document;
+import com.ngcin.ems.test.mapper.AccountMapper;
+import com.ngcin.ems.test.mapper.DocumentMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for dirty tracking (changed-column updateById / updateSelectiveById).
+ */
+class DirtyTrackingTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static DirtyTrackingInterceptor interceptor;
+
+    private SqlSession session;
+    private DocumentMapper documentMapper;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.DirtyTrackingInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_dirty_tracking;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.DocumentMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.AccountMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        interceptor = (DirtyTrackingInterceptor) sqlSessionFactory.getConfiguration().getInterceptors().stream()
+                .filter(DirtyTrackingInterceptor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_document (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "title VARCHAR(100), " +
+                    "body VARCHAR(4000), " +
+                    "tags VARCHAR(1000), " +
+                    "version INT)");
+            stmt.execute("CREATE TABLE t_account (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "name VARCHAR(50), " +
+                    "balance INT, " +
+                    "version INT)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_document");
+            stmt.execute("DELETE FROM t_account");
+        }
+        session = sqlSessionFactory.openSession(true);
+        documentMapper = session.getMapper(DocumentMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+    }
+
+    @Test
+    void testUnchangedEntityIsNotWritten() throws SQLException {
+        Long id = insertDocument("Title", "Body");
+        int versionBefore = queryInt("SELECT version FROM t_document WHERE id = " + id);
+        long skippedBefore = interceptor.skippedUpdates();
+
+        Document loaded = documentMapper.getById(id);
+        assertTrue(EntitySnapshots.isTracked(loaded));
+        assertEquals(Set.of(), EntitySnapshots.dirtyProperties(loaded));
+
+        assertEquals(1, documentMapper.updateById(loaded));
+        assertEquals(skippedBefore + 1, interceptor.skippedUpdates());
+        assertEquals(versionBefore, queryInt("SELECT version FROM t_document WHERE id = " + id));
+    }
+
+    @Test
+    void testOnlyChangedColumnsAreWritten() throws SQLException {
+        Long id = insertDocument("Title", "Body");
+        int versionBefore = queryInt("SELECT version FROM t_document WHERE id = " + id);
+        Document loaded = documentMapper.getById(id);
+
+        // Another writer changes the body; a full update would overwrite it
+        execute("UPDATE t_document SET body = 'Edited elsewhere' WHERE id = " + id);
+
+        loaded.setTitle("New title");
+        assertEquals(Set.of("title"), EntitySnapshots.dirtyProperties(loaded));
+        assertEquals(1, documentMapper.updateById(loaded));
+
+        assertEquals("New title", queryString("SELECT title FROM t_document WHERE id = " + id));
+        assertEquals("Edited elsewhere", queryString("SELECT body FROM t_document WHERE id = " + id));
+        assertEquals(versionBefore + 1, queryInt("SELECT version FROM t_document WHERE id = " + id));
+    }
+
+    @Test
+    void testSnapshotIsRefreshedAfterUpdate() {
+        Long id = insertDocument("Title", "Body");
+        Document loaded = documentMapper.getById(id);
+        loaded.setBody("Body 2");
+        assertEquals(1, documentMapper.updateById(loaded));
+
+        assertEquals(Set.of(), EntitySnapshots.dirtyProperties(loaded));
+        long skippedBefore = interceptor.skippedUpdates();
+        assertEquals(1, documentMapper.updateById(loaded));
+        assertEquals(skippedBefore + 1, interceptor.skippedUpdates());
+    }
+
+    @Test
+    void testStatementIsCachedPerChangedColumnSet() {
+        Document first = documentMapper.getById(insertDocument("A", "Body"));
+        Document second = documentMapper.getById(insertDocument("B", "Body"));
+        int cachedBefore = interceptor.cachedStatements();
+
+        first.setTitle("A2");
+        second.setTitle("B2");
+        documentMapper.updateById(first);
+        documentMapper.updateById(second);
+        assertEquals(cachedBefore + 1, interceptor.cachedStatements());
+
+        first.setTitle("A3");
+        first.setBody("Body 3");
+        documentMapper.updateById(first);
+        assertEquals(cachedBefore + 2, interceptor.cachedStatements());
+    }
+
+    @Test
+    void testUpdateSelectiveWritesChangedNonNullFields() throws SQLException {
+        Long id = insertDocument("Title", "Body");
+        Document loaded = documentMapper.getById(id);
+
+        loaded.setTitle("New title");
+        loaded.setBody(null);
+        assertEquals(1, documentMapper.updateSelectiveById(loaded));
+
+        assertEquals("New title", queryString("SELECT title FROM t_document WHERE id = " + id));
+        assertEquals("Body", queryString("SELECT body FROM t_document WHERE id = " + id));
+        // The null body was not written, so it still differs from the row
+        assertEquals(Set.of("body"), EntitySnapshots.dirtyProperties(loaded));
+    }
+
+    @Test
+    void testJsonColumnIsComparedByValue() throws SQLException {
+        Document document = new Document("Title", "Body");
+        document.setTags(JsonNodeValue.from("[\"a\"]"));
+        documentMapper.insert(document);
+
+        Document loaded = documentMapper.getById(document.getId());
+        loaded.setTags(JsonNodeValue.from("[\"a\"]"));
+        assertEquals(Set.of(), EntitySnapshots.dirtyProperties(loaded));
+
+        loaded.setTags(JsonNodeValue.from("[\"a\",\"b\"]"));
+        assertEquals(Set.of("tags"), EntitySnapshots.dirtyProperties(loaded));
+        assertEquals(1, documentMapper.updateById(loaded));
+        assertEquals("[\"a\",\"b\"]", queryString("SELECT tags FROM t_document WHERE id = " + document.getId()));
+    }
+
+    @Test
+    void testEntityWithoutSnapshotIsFullyUpdated() throws SQLException {
+        Long id = insertDocument("Title", "Body");
+        int version = queryInt("SELECT version FROM t_document WHERE id = " + id);
+
+        Document detached = new Document("Replaced", null);
+        detached.setId(id);
+        detached.setVersion(version);
+        assertFalse(EntitySnapshots.isTracked(detached));
+        assertEquals(1, documentMapper.updateById(detached));
+
+        assertNull(queryString("SELECT body FROM t_document WHERE id = " + id));
+        assertTrue(EntitySnapshots.isTracked(detached));
+    }
+
+    @Test
+    void testEntitiesWithoutDirtyTrackingAreNotSnapshotted() {
+        AccountMapper accountMapper = session.getMapper(AccountMapper.class);
+        Account account = new Account("alice", 10);
+        accountMapper.insert(account);
+
+        Account loaded = accountMapper.getById(account.getId());
+        assertFalse(EntitySnapshots.isTracked(loaded));
+    }
+
+    private Long insertDocument(String title, String body) {
+        Document document = new Document(title, body);
+        documentMapper.insert(document);
+        return document.getId();
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (SqlSession other = sqlSessionFactory.openSession(true);
+             Statement stmt = other.getConnection().createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (SqlSession other = sqlSessionFactory.openSession(true);
+             Statement stmt = other.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private String queryString(String sql) throws SQLException {
+        try (SqlSession other = sqlSessionFactory.openSession(true);
+             Statement stmt = other.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.cache.CacheStats;
+import com.ngcin.ems.mapper.cache.EntityCache;
+import com.ngcin.ems.mapper.cache.EntityCacheFactory;
+import com.ngcin.ems.mapper.cache.EntityCacheInterceptor;
+import com.ngcin.ems.mapper.cache.TinyLfuCache;
+import com.ngcin.ems.test.entity.Account;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the second-level entity cache (EntityCacheInterceptor).
+ */
+class EntityCacheTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static EntityCacheInterceptor cache;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.cache.EntityCacheInterceptor">
+                            <property name="factory" value="com.ngcin.ems.test.EntityCacheTest$PausingCacheFactory"/>
+                        </plugin>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_entity_cache;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        cache = (EntityCacheInterceptor) sqlSessionFactory.getConfiguration().getInterceptors().stream()
+                .filter(EntityCacheInterceptor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        execute("DELETE FROM t_setting");
+        cache.invalidateAll();
+    }
+
+    @Test
+    void testGetByIdIsServedAcrossSessions() throws SQLException {
+        Long id = insert("timeout", "30");
+        assertEquals("30", getById(id).getContent());
+
+        // Changed behind the mapper's back: the cached entity is still served
+        execute("UPDATE t_setting SET content = '60' WHERE id = " + id);
+        CacheStats before = cache.stats(Setting.class);
+        assertEquals("30", getById(id).getContent());
+        assertEquals(before.hits() + 1, cache.stats(Setting.class).hits());
+    }
+
+    @Test
+    void testHitsReturnIndependentCopies() {
+        Long id = insert("timeout", "30");
+        Setting first = getById(id);
+        first.setContent("changed");
+
+        Setting second = getById(id);
+        assertNotSame(first, second);
+        assertEquals("30", second.getContent());
+    }
+
+    @Test
+    void testMissingIdIsCachedUntilInserted() {
+        Long id = 4242L;
+        assertNull(getById(id));
+        CacheStats before = cache.stats(Setting.class);
+        assertNull(getById(id));
+        assertEquals(before.negativeHits() + 1, cache.stats(Setting.class).negativeHits());
+
+        Setting setting = new Setting("retries", "3");
+        setting.setId(id);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+        }
+        assertEquals("3", getById(id).getContent());
+    }
+
+    @Test
+    void testSelectBatchIdsFetchesOnlyMisses() throws SQLException {
+        Long cachedId = insert("a", "1");
+        Long otherId = insert("b", "2");
+        getById(cachedId);
+
+        execute("UPDATE t_setting SET content = 'x'");
+        CacheStats before = cache.stats(Setting.class);
+        List<Setting> settings;
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            settings = session.getMapper(SettingMapper.class).selectBatchIds(List.<Serializable>of(cachedId, otherId, 999L));
+        }
+        settings.sort(Comparator.comparing(Setting::getCode));
+
+        assertEquals(2, settings.size());
+        assertEquals("1", settings.get(0).getContent());  // from the cache
+        assertEquals("x", settings.get(1).getContent());  // from the database
+        CacheStats after = cache.stats(Setting.class);
+        assertEquals(before.hits() + 1, after.hits());
+        assertEquals(before.misses() + 2, after.misses());
+
+        // The second lookup is answered entirely from memory, including the missing id
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            assertEquals(2, session.getMapper(SettingMapper.class)
+                    .selectBatchIds(List.<Serializable>of(cachedId, otherId, 999L)).size());
+        }
+        assertEquals(after.misses(), cache.stats(Setting.class).misses());
+    }
+
+    @Test
+    void testWritesInvalidate() {
+        Long id = insert("timeout", "30");
+        Setting loaded = getById(id);
+
+        loaded.setContent("45");
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).updateById(loaded);
+        }
+        assertEquals("45", getById(id).getContent());
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).deleteById(id);
+        }
+        assertNull(getById(id));
+    }
+
+    @Test
+    void testDeleteByConditionsInvalidatesType() {
+        Long first = insert("a", "1");
+        Long second = insert("b", "1");
+        getById(first);
+        getById(second);
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).hardDelete(new Setting(null, "1"));
+        }
+        assertNull(getById(first));
+        assertNull(getById(second));
+    }
+
+    @Test
+    void testSelectOneByUniqueField() {
+        Long id = insert("timeout", "30");
+        assertEquals(id, selectByCode("timeout").getId());
+        CacheStats before = cache.stats(Setting.class);
+        assertEquals(id, selectByCode("timeout").getId());
+        assertEquals(before.hits() + 1, cache.stats(Setting.class).hits());
+
+        assertNull(selectByCode("missing"));
+        assertNull(selectByCode("missing"));
+
+        Setting renamed = getById(id);
+        renamed.setCode("missing");
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).updateById(renamed);
+        }
+        assertNull(selectByCode("timeout"));
+        assertEquals(id, selectByCode("missing").getId());
+    }
+
+    @Test
+    void testCommitInvalidatesValuesReadDuringTransaction() {
+        Long id = insert("timeout", "30");
+
+        try (SqlSession writer = sqlSessionFactory.openSession(false)) {
+            Setting setting = writer.getMapper(SettingMapper.class).getById(id);
+            setting.setContent("90");
+            writer.getMapper(SettingMapper.class).updateById(setting);
+
+            // Another session reads the committed value and caches it
+            assertEquals("30", getById(id).getContent());
+            writer.commit();
+        }
+        assertEquals("90", getById(id).getContent());
+    }
+
+    @Test
+    void testUncommittedWriteIsNotShared() {
+        Long id = insert("timeout", "30");
+
+        try (SqlSession writer = sqlSessionFactory.openSession(false)) {
+            SettingMapper mapper = writer.getMapper(SettingMapper.class);
+            Setting setting = mapper.getById(id);
+            setting.setContent("UNCOMMITTED");
+            mapper.updateById(setting);
+
+            // The writer reads its own uncommitted row, which must not reach the shared cache
+            assertEquals("UNCOMMITTED", mapper.getById(id).getContent());
+            assertEquals("UNCOMMITTED", mapper.selectBatchIds(List.<Serializable>of(id)).get(0).getContent());
+            assertEquals("UNCOMMITTED", mapper.selectOne(new Setting("timeout", null)).getContent());
+            assertEquals("30", getById(id).getContent());
+            assertEquals("30", selectByCode("timeout").getContent());
+            writer.rollback();
+        }
+        assertEquals("30", getById(id).getContent());
+    }
+
+    @Test
+    void testLoadRacingInvalidationIsNotStoredStale() throws Exception {
+        Long id = insert("timeout", "30");
+        CountDownLatch putReached = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PausingCache.pause(putReached, release);
+
+        Thread reader = new Thread(() -> getById(id));
+        reader.start();
+        assertTrue(putReached.await(5, TimeUnit.SECONDS), "The load reached the cache put");
+
+        Thread writer = new Thread(() -> {
+            try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                Setting setting = new Setting("timeout", "60");
+                setting.setId(id);
+                session.getMapper(SettingMapper.class).updateById(setting);
+            }
+        });
+        writer.start();
+        // The invalidation waits for the put it raced instead of running before it
+        writer.join(200);
+        release.countDown();
+        reader.join(5000);
+        writer.join(5000);
+
+        assertEquals("60", getById(id).getContent());
+    }
+
+    @Test
+    void testUncachedEntityHasNoStats() {
+        assertThrows(IllegalArgumentException.class, () -> cache.stats(Account.class));
+    }
+
+    private Long insert(String code, String value) {
+        Setting setting = new Setting(code, value);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+        }
+        return setting.getId();
+    }
+
+    private Setting getById(Long id) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(SettingMapper.class).getById(id);
+        }
+    }
+
+    private Setting selectByCode(String code) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(SettingMapper.class).selectOne(new Setting(code, null));
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    public static class PausingCacheFactory implements EntityCacheFactory {
+        @Override
+        public EntityCache create(Class<?> entityClass, String name, int maximumSize) {
+            return "id".equals(name) ? new PausingCache(maximumSize) : new TinyLfuCache(maximumSize);
+        }
+    }
+
+    /** Holds the next put until released, so a test can race an invalidation against it. */
+    static class PausingCache extends TinyLfuCache {
+
+        private static final AtomicReference<CountDownLatch[]> NEXT_PUT = new AtomicReference<>();
+
+        PausingCache(int maximumSize) {
+            super(maximumSize);
+        }
+
+        static void pause(CountDownLatch reached, CountDownLatch release) {
+            NEXT_PUT.set(new CountDownLatch[]{reached, release});
+        }
+
+        @Override
+        public void put(Object key, Object value, long ttlNanos) {
+            CountDownLatch[] latches = NEXT_PUT.getAndSet(null);
+            if (latches != null) {
+                latches[0].countDown();
+                try {
+                    latches[1].await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            super.put(key, value, ttlNanos);
+        }
+    }
+}
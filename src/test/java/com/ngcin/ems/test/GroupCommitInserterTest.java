@@ -0,0 +1,222 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.batch.GroupCommitInserter;
+import com.ngcin.ems.test.entity.Payment;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.PaymentMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for GroupCommitInserter (coalescing concurrent single-row inserts).
+ */
+class GroupCommitInserterTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_group_commit;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.PaymentMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_payment (" +
+                    "payment_id BIGINT PRIMARY KEY, " +
+                    "payment_no VARCHAR(50) NOT NULL, " +
+                    "amount DECIMAL(10,2))");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_payment");
+        }
+    }
+
+    @Test
+    void testConcurrentInsertsAreCoalesced() throws Exception {
+        int threads = 16;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (GroupCommitInserter<User> inserter = new GroupCommitInserter<>(sqlSessionFactory, UserMapper.class)
+                .maxDelay(Duration.ofMillis(5))) {
+            List<Future<List<User>>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    List<User> users = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        User user = new User("user" + thread + "_" + i, "u@test.com", i);
+                        assertEquals(1, inserter.insert(user));
+                        users.add(user);
+                    }
+                    return users;
+                }));
+            }
+
+            Set<Long> ids = new HashSet<>();
+            for (Future<List<User>> future : futures) {
+                for (User user : future.get()) {
+                    assertNotNull(user.getId());
+                    ids.add(user.getId());
+                    assertEquals(user.getId(), queryLong("SELECT id FROM t_user WHERE username = '" + user.getUsername() + "'"));
+                }
+            }
+
+            assertEquals(threads * perThread, ids.size());
+            assertEquals(threads * perThread, inserter.rowCount());
+            assertTrue(inserter.groupCount() < threads * perThread);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * perThread, queryLong("SELECT COUNT(*) FROM t_user"));
+    }
+
+    @Test
+    void testFailingRowDoesNotFailItsGroup() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (GroupCommitInserter<Payment> inserter = new GroupCommitInserter<>(sqlSessionFactory, PaymentMapper.class)
+                .maxDelay(Duration.ofMillis(50))) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String paymentNo = i == 3 ? null : "P" + i;
+                futures.add(executor.submit(() -> inserter.insert(new Payment(paymentNo, BigDecimal.ONE))));
+            }
+
+            int failed = 0;
+            for (Future<Integer> future : futures) {
+                try {
+                    assertEquals(1, future.get());
+                } catch (ExecutionException e) {
+                    failed++;
+                }
+            }
+            assertEquals(1, failed);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(7, queryLong("SELECT COUNT(*) FROM t_payment"));
+    }
+
+    @Test
+    void testSingleInsertAndClose() {
+        GroupCommitInserter<User> inserter = new GroupCommitInserter<>(sqlSessionFactory, UserMapper.class);
+        User user = new User("solo", "solo@test.com", 40);
+        assertEquals(1, inserter.insert(user));
+        assertNotNull(user.getId());
+
+        inserter.close();
+        inserter.close();
+        assertThrows(IllegalStateException.class, () -> inserter.insert(new User("late", "late@test.com", 1)));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user"));
+    }
+
+    @Test
+    void testStoppedFlusherClosesInserter() throws Exception {
+        GroupCommitInserter<User> inserter = new GroupCommitInserter<>(sqlSessionFactory, UserMapper.class);
+        inserter.insert(new User("first", "first@test.com", 1));
+        Thread flusher = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("ems-group-commit-t_user"))
+                .findFirst()
+                .orElseThrow();
+
+        flusher.interrupt();
+        flusher.join(5000);
+        assertFalse(flusher.isAlive());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(IllegalStateException.class,
+                () -> inserter.insert(new User("late", "late@test.com", 1))));
+        inserter.close();
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user"));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        GroupCommitInserter<User> inserter = new GroupCommitInserter<>(sqlSessionFactory, UserMapper.class);
+        assertThrows(IllegalArgumentException.class, () -> inserter.maxBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> inserter.maxDelay(Duration.ofMillis(-1)));
+
+        inserter.insert(new User("first", "first@test.com", 1));
+        assertThrows(IllegalStateException.class, () -> inserter.maxBatchSize(10));
+        inserter.close();
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
+import com.ngcin.ems.mapper.core.SnowflakeIdGenerator;
+import com.ngcin.ems.test.entity.Payment;
+import com.ngcin.ems.test.entity.Transaction;
+import com.ngcin.ems.test.mapper.PaymentMapper;
+import com.ngcin.ems.test.mapper.TransactionMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for selectByIdTimeRange and its keyset paging on SNOWFLAKE ids.
+ */
+class IdTimeRangeTest {
+
+    private static final Instant T0 = Instant.parse("2025-03-01T00:00:00Z");
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private SqlSession session;
+    private PaymentMapper mapper;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="logImpl" value="SLF4J"/>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_id_time_range;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.PaymentMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.TransactionMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_payment (payment_id BIGINT PRIMARY KEY, payment_no VARCHAR(50) NOT NULL, amount DECIMAL(10,2))");
+            stmt.execute("CREATE TABLE t_transaction (transaction_id VARCHAR(20) PRIMARY KEY, txn_no VARCHAR(50) NOT NULL, status VARCHAR(20))");
+        }
+    }
+
+    /**
+     * Inserts one payment per hour from T0, ids created as at that hour; even hours cost 10.
+     */
+    @BeforeEach
+    void insertHourlyPayments() {
+        session = sqlSessionFactory.openSession();
+        mapper = session.getMapper(PaymentMapper.class);
+        SnowflakeIdGenerator snowflake = IdGeneratorHolder.getSnowflake();
+        for (int hour = 0; hour < 10; hour++) {
+            Payment payment = new Payment("PAY" + hour, new BigDecimal(hour % 2 == 0 ? "10.00" : "20.00"));
+            payment.setPaymentId(snowflake.minIdAt(T0.plus(Duration.ofHours(hour)).toEpochMilli()) + hour);
+            mapper.insert(payment);
+        }
+        session.commit();
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try (Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_payment");
+        }
+        session.commit(true);
+        session.close();
+    }
+
+    @Test
+    void testSelectByIdTimeRange() {
+        List<Payment> payments = mapper.selectByIdTimeRange(T0.plus(Duration.ofHours(2)), T0.plus(Duration.ofHours(5)), null);
+        assertEquals(List.of("PAY2", "PAY3", "PAY4"), numbers(payments), "from is inclusive, to exclusive");
+
+        assertEquals(10, mapper.selectByIdTimeRange(null, null, null).size());
+        assertEquals(List.of("PAY8", "PAY9"), numbers(mapper.selectByIdTimeRange(T0.plus(Duration.ofHours(8)), null, null)));
+        assertTrue(mapper.selectByIdTimeRange(T0.minus(Duration.ofDays(1)), T0, null).isEmpty());
+
+        Payment query = new Payment(null, new BigDecimal("10.00"));
+        assertEquals(List.of("PAY2", "PAY4", "PAY6"),
+                numbers(mapper.selectByIdTimeRange(T0.plus(Duration.ofHours(1)), T0.plus(Duration.ofHours(7)), query)));
+    }
+
+    @Test
+    void testKeysetPaging() {
+        Instant from = T0.plus(Duration.ofHours(1));
+        List<String> all = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        Long afterId = null;
+        while (true) {
+            List<Payment> page = mapper.selectByIdTimeRange(from, null, null, afterId, 4);
+            if (page.isEmpty()) {
+                break;
+            }
+            pageSizes.add(page.size());
+            all.addAll(numbers(page));
+            afterId = page.get(page.size() - 1).getPaymentId();
+        }
+        assertEquals(List.of("PAY1", "PAY2", "PAY3", "PAY4", "PAY5", "PAY6", "PAY7", "PAY8", "PAY9"), all);
+        assertEquals(List.of(4, 4, 1), pageSizes);
+    }
+
+    @Test
+    void testStringIdsAreRejected() {
+        TransactionMapper transactions = session.getMapper(TransactionMapper.class);
+        Exception e = assertThrows(Exception.class, () -> transactions.selectByIdTimeRange(T0, null, null));
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof MapperException)) {
+            cause = cause.getCause();
+        }
+        assertNotNull(cause, "was: " + e);
+    }
+
+    private static List<String> numbers(List<Payment> payments) {
+        return payments.stream().map(Payment::getPaymentNo).toList();
+    }
+}
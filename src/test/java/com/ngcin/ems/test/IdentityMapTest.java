@@ -0,0 +1,224 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.tx.IdentityMap;
+import com.ngcin.ems.mapper.tx.UnitOfWork;
+import com.ngcin.ems.test.entity.Account;
+import com.ngcin.ems.test.entity.AccountEntry;
+import com.ngcin.ems.test.mapper.AccountEntryMapper;
+import com.ngcin.ems.test.mapper.AccountMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.io.Serializable;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for IdentityMap (transaction-scoped getById / selectBatchIds lookups).
+ */
+class IdentityMapTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private SqlSession session;
+    private AccountMapper accountMapper;
+    private AccountEntryMapper entryMapper;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.tx.UnitOfWorkInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.tx.IdentityMapInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_identity_map;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.AccountMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.AccountEntryMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_account (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "name VARCHAR(50), " +
+                    "balance INT, " +
+                    "version INT)");
+            stmt.execute("CREATE TABLE t_account_entry (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "account_id BIGINT NOT NULL REFERENCES t_account(id), " +
+                    "amount INT)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_account_entry");
+            stmt.execute("DELETE FROM t_account");
+        }
+        session = sqlSessionFactory.openSession(false);
+        accountMapper = session.getMapper(AccountMapper.class);
+        entryMapper = session.getMapper(AccountEntryMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+        assertNull(IdentityMap.current());
+    }
+
+    @Test
+    void testRepeatedGetByIdIsServedFromMemory() {
+        Account account = insertAccount("a", 1);
+        try (IdentityMap map = IdentityMap.begin()) {
+            Account first = accountMapper.getById(account.getId());
+            Account second = accountMapper.getById(account.getId());
+            Account third = accountMapper.getById(account.getId().toString());
+
+            assertSame(first, second);
+            assertSame(first, third);
+            assertEquals(2, map.savedRoundTrips());
+        }
+    }
+
+    @Test
+    void testSelectBatchIdsQueriesOnlyMissingIds() {
+        Account a = insertAccount("a", 1);
+        Account b = insertAccount("b", 2);
+        Account c = insertAccount("c", 3);
+        try (IdentityMap map = IdentityMap.begin()) {
+            Account loadedA = accountMapper.getById(a.getId());
+
+            List<Account> partial = accountMapper.selectBatchIds(List.<Serializable>of(a.getId(), b.getId()));
+            assertEquals(2, partial.size());
+            assertSame(loadedA, partial.get(0));
+            assertEquals(0, map.savedRoundTrips());
+            assertEquals(1, map.servedEntities());
+
+            // All loaded now: no query, same instances
+            List<Account> all = accountMapper.selectBatchIds(List.<Serializable>of(b.getId(), a.getId()));
+            assertSame(partial.get(1), all.get(0));
+            assertSame(loadedA, all.get(1));
+            assertEquals(1, map.savedRoundTrips());
+
+            assertEquals(3, accountMapper.selectBatchIds(List.<Serializable>of(a.getId(), b.getId(), c.getId())).size());
+            assertSame(accountMapper.getById(c.getId()), accountMapper.getById(c.getId()));
+        }
+    }
+
+    @Test
+    void testWritesEvictTheEntityType() {
+        Account account = insertAccount("a", 1);
+        Account other = insertAccount("b", 1);
+        try (IdentityMap map = IdentityMap.begin()) {
+            Account loaded = accountMapper.getById(account.getId());
+            loaded.setBalance(99);
+            accountMapper.updateSelectiveById(loaded);
+
+            Account reloaded = accountMapper.getById(account.getId());
+            assertNotSame(loaded, reloaded);
+            assertEquals(99, reloaded.getBalance());
+            assertEquals(0, map.savedRoundTrips());
+
+            // Writes to another entity type keep loaded accounts
+            entryMapper.insert(new AccountEntry(other.getId(), 5));
+            assertSame(reloaded, accountMapper.getById(account.getId()));
+            assertEquals(1, map.savedRoundTrips());
+        }
+    }
+
+    @Test
+    void testCommitAndRollbackClearTheSession() {
+        Account account = insertAccount("a", 1);
+        try (IdentityMap map = IdentityMap.begin()) {
+            Account first = accountMapper.getById(account.getId());
+            session.commit();
+            Account afterCommit = accountMapper.getById(account.getId());
+            assertNotSame(first, afterCommit);
+            session.rollback();
+            assertNotSame(afterCommit, accountMapper.getById(account.getId()));
+            assertEquals(0, map.savedRoundTrips());
+        }
+    }
+
+    @Test
+    void testMissingIdIsNotRemembered() {
+        try (IdentityMap map = IdentityMap.begin()) {
+            assertNull(accountMapper.getById(-1L));
+            Account created = insertAccount("late", 1);
+            assertNotNull(accountMapper.getById(created.getId()));
+            assertEquals(0, map.savedRoundTrips());
+        }
+    }
+
+    @Test
+    void testDeferredWritesAlsoEvict() {
+        Account account = insertAccount("a", 1);
+        try (IdentityMap map = IdentityMap.begin(); UnitOfWork uow = UnitOfWork.begin()) {
+            Account loaded = accountMapper.getById(account.getId());
+            loaded.setName("renamed");
+            accountMapper.updateSelectiveById(loaded);
+            assertEquals(1, uow.pendingCount());
+
+            assertEquals("renamed", accountMapper.getById(account.getId()).getName());
+            assertEquals(0, uow.pendingCount());
+            assertEquals(0, map.savedRoundTrips());
+        }
+    }
+
+    private Account insertAccount(String name, int balance) {
+        Account account = new Account(name, balance);
+        accountMapper.insert(account);
+        session.commit();
+        return account;
+    }
+}
@@ -0,0 +1,290 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.batch.ImportPipeline;
+import com.ngcin.ems.mapper.batch.ImportResult;
+import com.ngcin.ems.test.mapper.JsonEntityMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for ImportPipeline (NDJSON and CSV import over memory-mapped input).
+ */
+class ImportPipelineTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_import;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.JsonEntityMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_json_entity (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "name VARCHAR(100), " +
+                    "metadata VARCHAR(4000), " +
+                    "tags VARCHAR(4000), " +
+                    "config VARCHAR(4000))");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_json_entity");
+        }
+    }
+
+    @Test
+    void testImportNdjson() throws IOException {
+        Path file = tempDir.resolve("users.ndjson");
+        Files.writeString(file, IntStream.range(0, 1200)
+                .mapToObj(i -> "{\"username\":\"user" + i + "\",\"email\":\"u" + i + "@test.com\",\"age\":" + (i % 90)
+                        + ",\"create_time\":\"2024-01-02T03:04:05\",\"unknown\":{\"x\":[1,2]}}")
+                .collect(Collectors.joining("\n", "", "\n")));
+
+        List<ImportResult> progress = new ArrayList<>();
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .batchSize(500)
+                .onProgress(progress::add)
+                .importNdjson(file);
+
+        assertEquals(1200, result.rowsWritten());
+        assertEquals(0, result.rejected());
+        assertEquals(3, progress.size());
+        assertEquals(1200, queryLong("SELECT COUNT(*) FROM t_user"));
+        assertEquals(89, queryLong("SELECT MAX(age) FROM t_user"));
+        assertEquals("u7@test.com", queryString("SELECT email FROM t_user WHERE username = 'user7'"));
+        assertEquals("2024-01-02 03:04:05", queryString("SELECT create_time FROM t_user WHERE username = 'user7'"));
+    }
+
+    @Test
+    void testImportNdjson_RejectsBadRecords() throws IOException {
+        Path file = tempDir.resolve("users.ndjson");
+        Files.writeString(file, """
+                {"username":"alice","age":30}
+                {"username":"bob","age":"thirty"}
+                not json
+
+                [1,2,3]
+                {"username":"carol","age":null}
+                """);
+
+        List<Long> rejectedLines = new ArrayList<>();
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .onReject((line, raw, cause) -> rejectedLines.add(line))
+                .importNdjson(file);
+
+        assertEquals(2, result.rowsWritten());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(2L, 3L, 5L), rejectedLines);
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user WHERE username = 'carol' AND age IS NULL"));
+    }
+
+    @Test
+    void testImportNdjson_JsonColumnsKeepRawText() throws IOException {
+        Path file = tempDir.resolve("json.ndjson");
+        Files.writeString(file, """
+                {"name":"a","config":{"b": 2, "a": [1, {"c":"d"}]}}
+                {"name":"b","config":"{\\"x\\":1}"}
+                """);
+
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, JsonEntityMapper.class)
+                .importNdjson(file);
+
+        assertEquals(2, result.rowsWritten());
+        assertEquals("{\"b\": 2, \"a\": [1, {\"c\":\"d\"}]}", queryString("SELECT config FROM t_json_entity WHERE name = 'a'"));
+        assertEquals("{\"x\":1}", queryString("SELECT config FROM t_json_entity WHERE name = 'b'"));
+    }
+
+    @Test
+    void testImportCsv_QuotedFieldsAcrossLines() throws IOException {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, "username,email,age,ignored\r\n"
+                + "alice,alice@test.com,30,x\r\n"
+                + "\"bob, \"\"the builder\"\"\",\"multi\nline\",,y\r\n"
+                + "carol,\"\",25,z\r\n"
+                + "dave,dave@test.com\r\n"
+                + "erin,erin@test.com,old,w\r\n");
+
+        List<Long> rejectedLines = new ArrayList<>();
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .onReject((line, raw, cause) -> rejectedLines.add(line))
+                .importCsv(file);
+
+        assertEquals(3, result.rowsWritten());
+        assertEquals(List.of(6L, 7L), rejectedLines);
+        assertEquals("multi\nline", queryString("SELECT email FROM t_user WHERE username = 'bob, \"the builder\"'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user WHERE username LIKE 'bob%' AND age IS NULL"));
+        assertEquals("", queryString("SELECT email FROM t_user WHERE username = 'carol'"));
+    }
+
+    @Test
+    void testImportCsv_UnterminatedQuoteIsBounded() throws IOException {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, "username,email,age\n"
+                + "broken,\"unterminated,1\n"
+                + IntStream.range(0, 10)
+                .mapToObj(i -> "user" + i + ",user" + i + "@test.com," + i)
+                .collect(Collectors.joining("\n")));
+
+        List<Long> rejectedLines = new ArrayList<>();
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .maxRecordLength(100)
+                .onReject((line, raw, cause) -> rejectedLines.add(line))
+                .importCsv(file);
+
+        // The rejected record takes the four lines that pushed it past 100 characters
+        assertEquals(List.of(2L), rejectedLines);
+        assertEquals(6, result.rowsWritten());
+        assertEquals(4, queryLong("SELECT MIN(age) FROM t_user"));
+    }
+
+    @Test
+    void testImport_RejectHandlerFailureStopsWriter() throws IOException {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, "username,age\nalice,1\nbob,old\ncarol,3\n");
+
+        ImportPipeline<?> pipeline = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .onReject((line, raw, cause) -> {
+                    throw new IllegalStateException("reject handler failed");
+                });
+        assertThrows(IllegalStateException.class, () -> pipeline.importCsv(file));
+
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().startsWith("ems-import-")), "The writer thread has exited");
+    }
+
+    @Test
+    void testImport_SmallWindowRemapsAcrossFile() throws IOException {
+        Path file = tempDir.resolve("users.csv");
+        String longEmail = "x".repeat(80) + "@test.com";
+        Files.writeString(file, "username,email,age\n" + IntStream.range(0, 300)
+                .mapToObj(i -> "user" + i + "," + (i == 150 ? longEmail : "") + "," + i)
+                .collect(Collectors.joining("\n")));
+
+        ImportResult result = new ImportPipeline<>(sqlSessionFactory, UserMapper.class)
+                .windowSize(32)
+                .batchSize(7)
+                .queueCapacity(1)
+                .importCsv(file);
+
+        assertEquals(300, result.rowsWritten());
+        assertEquals(299 * 300 / 2, queryLong("SELECT SUM(age) FROM t_user"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user WHERE email = '" + longEmail + "'"));
+    }
+
+    @Test
+    void testImport_WriteFailureAborts() throws IOException {
+        Path file = tempDir.resolve("users.csv");
+        Files.writeString(file, "username,age\n" + IntStream.range(0, 100)
+                .mapToObj(i -> (i == 60 ? "y".repeat(80) : "user" + i) + "," + i)
+                .collect(Collectors.joining("\n")));
+
+        ImportPipeline<?> pipeline = new ImportPipeline<>(sqlSessionFactory, UserMapper.class).batchSize(50);
+        MapperException e = assertThrows(MapperException.class, () -> pipeline.importCsv(file));
+
+        assertTrue(e.getMessage().contains("after 50 rows"));
+        assertEquals(50, queryLong("SELECT COUNT(*) FROM t_user"));
+    }
+
+    @Test
+    void testInvalidSettings() {
+        ImportPipeline<?> pipeline = new ImportPipeline<>(sqlSessionFactory, UserMapper.class);
+        assertThrows(IllegalArgumentException.class, () -> pipeline.batchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.queueCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.windowSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.maxRecordLength(0));
+    }
+
+    private String queryString(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
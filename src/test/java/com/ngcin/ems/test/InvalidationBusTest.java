@@ -0,0 +1,217 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.cache.EntityCacheInterceptor;
+import com.ngcin.ems.mapper.cache.InvalidationBus;
+import com.ngcin.ems.mapper.cache.InvalidationEvent;
+import com.ngcin.ems.mapper.cache.InvalidationInterceptor;
+import com.ngcin.ems.mapper.cache.LoopbackTransport;
+import com.ngcin.ems.mapper.cache.UdpTransport;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for InvalidationBus (cross-node entity cache invalidation).
+ */
+class InvalidationBusTest {
+
+    private LoopbackTransport transport;
+    private Node nodeA;
+    private Node nodeB;
+
+    /** One application instance: its own session factory, entity cache and bus. */
+    private record Node(SqlSessionFactory factory, EntityCacheInterceptor cache, InvalidationBus bus) {
+
+        Setting getById(Long id) {
+            try (SqlSession session = factory.openSession(true)) {
+                return session.getMapper(SettingMapper.class).getById(id);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        transport = new LoopbackTransport();
+        nodeA = startNode("a");
+        nodeB = startNode("b");
+
+        try (SqlSession session = nodeA.factory().openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+            stmt.execute("DELETE FROM t_setting");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.bus().close();
+        nodeB.bus().close();
+    }
+
+    private Node startNode(String name) {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.cache.EntityCacheInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_invalidation_bus;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+        SqlSessionFactory factory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+        EntityCacheInterceptor cache = (EntityCacheInterceptor) factory.getConfiguration().getInterceptors().stream()
+                .filter(EntityCacheInterceptor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        InvalidationBus bus = new InvalidationBus(transport, name).flushInterval(Duration.ofMillis(5));
+        bus.addListener(cache);
+        factory.getConfiguration().addInterceptor(new InvalidationInterceptor(bus));
+        return new Node(factory, cache, bus);
+    }
+
+    @Test
+    void testWriteOnOneNodeInvalidatesOtherNode() {
+        Setting setting = new Setting("timeout", "30");
+        try (SqlSession session = nodeB.factory().openSession(true)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+        }
+        // Publish the insert on its own, so that the update is not coalesced with it
+        nodeB.bus().flush();
+        assertEquals("30", nodeA.getById(setting.getId()).getContent());
+
+        setting.setContent("60");
+        try (SqlSession session = nodeB.factory().openSession(false)) {
+            session.getMapper(SettingMapper.class).updateById(setting);
+            session.commit();
+        }
+        nodeB.bus().flush();
+
+        assertEquals("60", nodeA.getById(setting.getId()).getContent());
+        // the insert and the update
+        assertEquals(2, nodeA.bus().receivedEvents());
+        assertEquals(0, nodeB.bus().receivedEvents());
+    }
+
+    @Test
+    void testRolledBackWritesAreNotPublished() {
+        Setting setting = new Setting("timeout", "30");
+        try (SqlSession session = nodeB.factory().openSession(false)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+            session.rollback();
+        }
+        try (SqlSession session = nodeB.factory().openSession(false)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+            // closed without commit
+        }
+        nodeB.bus().flush();
+        assertEquals(0, nodeB.bus().reportedEvents());
+        assertEquals(0, nodeA.bus().receivedEvents());
+    }
+
+    @Test
+    void testReportsAreCoalesced() {
+        List<InvalidationEvent> received = new CopyOnWriteArrayList<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        transport.subscribe(batch -> {
+            batchSizes.add(batch.size());
+            received.addAll(batch);
+        });
+        InvalidationBus bus = new InvalidationBus(transport, "c").maxIdsPerType(50);
+        try (bus) {
+            for (int i = 0; i < 1000; i++) {
+                bus.report("com.example.Product", "t_product", Set.of(String.valueOf(i % 10)));
+            }
+            for (int i = 0; i < 100; i++) {
+                bus.report("com.example.Order", "t_order", Set.of(String.valueOf(i)));
+            }
+            bus.flush();
+
+            assertEquals(1100, bus.reportedEvents());
+            assertEquals(2, bus.sentEvents());
+            assertEquals(1, bus.sentBatches());
+        }
+        assertEquals(List.of(2), batchSizes);
+        InvalidationEvent products = received.stream()
+                .filter(e -> e.table().equals("t_product")).findFirst().orElseThrow();
+        InvalidationEvent orders = received.stream()
+                .filter(e -> e.table().equals("t_order")).findFirst().orElseThrow();
+        assertEquals(IntStream.range(0, 10).mapToObj(String::valueOf).collect(Collectors.toSet()), products.ids());
+        assertTrue(orders.allRows());
+    }
+
+    @Test
+    void testUdpTransportDeliversLargeBatches() throws Exception {
+        InetAddress localhost = InetAddress.getLoopbackAddress();
+        UdpTransport receiverTransport = UdpTransport.unicast(0, List.of());
+        UdpTransport senderTransport = UdpTransport.unicast(0, List.of())
+                .addPeer(new InetSocketAddress(localhost, receiverTransport.localPort()));
+
+        Set<String> receivedIds = new HashSet<>();
+        try (InvalidationBus sender = new InvalidationBus(senderTransport, "sender");
+             InvalidationBus receiver = new InvalidationBus(receiverTransport, "receiver")) {
+            receiver.addListener(event -> {
+                synchronized (receivedIds) {
+                    receivedIds.addAll(event.ids());
+                    receivedIds.notifyAll();
+                }
+            });
+
+            Set<String> ids = IntStream.range(0, 500).mapToObj(i -> "id-" + i).collect(Collectors.toSet());
+            sender.report("com.example.Product", "t_product", ids);
+            sender.flush();
+
+            long deadline = System.currentTimeMillis() + 5000;
+            synchronized (receivedIds) {
+                while (receivedIds.size() < ids.size() && System.currentTimeMillis() < deadline) {
+                    receivedIds.wait(100);
+                }
+            }
+            assertEquals(ids, receivedIds);
+            assertTrue(receiver.receivedEvents() > 1, "expected the batch to be split into several packets");
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.cache.QueryCacheInterceptor;
+import com.ngcin.ems.mapper.cache.QueryCacheStats;
+import com.ngcin.ems.test.entity.Currency;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.mapper.CurrencyMapper;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the query result cache (QueryCacheInterceptor).
+ */
+class QueryCacheTest {
+
+    private static final String SELECT_LIST = CurrencyMapper.class.getName() + ".selectList";
+    private static final String SELECT_COUNT = CurrencyMapper.class.getName() + ".selectCount";
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private static QueryCacheInterceptor cache;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.cache.QueryCacheInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_query_cache;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.CurrencyMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        cache = (QueryCacheInterceptor) sqlSessionFactory.getConfiguration().getInterceptors().stream()
+                .filter(QueryCacheInterceptor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_currency (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(3) UNIQUE, " +
+                    "name VARCHAR(50), " +
+                    "active BOOLEAN)");
+            stmt.execute("CREATE TABLE t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        execute("DELETE FROM t_currency");
+        execute("DELETE FROM t_setting");
+        insert(new Currency("EUR", "Euro", true));
+        insert(new Currency("USD", "US Dollar", true));
+        insert(new Currency("DEM", "Deutsche Mark", false));
+        cache.invalidateAll();
+    }
+
+    @AfterEach
+    void restoreBudget() {
+        setMaxBytes(QueryCacheInterceptor.DEFAULT_MAX_BYTES);
+    }
+
+    @Test
+    void testSelectListIsServedAcrossSessions() throws SQLException {
+        QueryCacheStats start = cache.stats(SELECT_LIST);
+        assertEquals(2, selectActive().size());
+
+        // Changed behind the mapper's back: the cached result is still served
+        execute("UPDATE t_currency SET active = TRUE");
+        QueryCacheStats before = cache.stats(SELECT_LIST);
+        assertEquals(2, selectActive().size());
+        assertEquals(before.hits() + 1, cache.stats(SELECT_LIST).hits());
+        QueryCacheStats after = cache.stats(SELECT_LIST);
+        assertEquals(start.misses() + 1, after.misses());
+        assertTrue(after.hitRatio() > 0 && after.hitRatio() < 1);
+    }
+
+    @Test
+    void testKeyIncludesParameterValues() {
+        QueryCacheStats before = cache.stats(SELECT_LIST);
+        assertEquals(2, selectActive().size());
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            List<Currency> inactive = session.getMapper(CurrencyMapper.class).selectList(new Currency(null, null, false));
+            assertEquals(1, inactive.size());
+            assertEquals("DEM", inactive.get(0).getCode());
+        }
+        assertEquals(before.misses() + 2, cache.stats(SELECT_LIST).misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testHitsReturnIndependentCopies() {
+        Currency first = selectActive().get(0);
+        first.setName("changed");
+
+        Currency second = selectActive().get(0);
+        assertNotSame(first, second);
+        assertNotEquals("changed", second.getName());
+    }
+
+    @Test
+    void testSelectCountAndSelectOneAreCached() throws SQLException {
+        String selectOne = CurrencyMapper.class.getName() + ".selectOne";
+        long countHits = cache.stats(SELECT_COUNT).hits();
+        long oneHits = cache.stats(selectOne).hits();
+        assertEquals(2, countActive());
+        execute("DELETE FROM t_currency WHERE code = 'USD'");
+        assertEquals(2, countActive());
+        assertEquals(countHits + 1, cache.stats(SELECT_COUNT).hits());
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            CurrencyMapper mapper = session.getMapper(CurrencyMapper.class);
+            assertEquals("Euro", mapper.selectOne(new Currency("EUR", null, null)).getName());
+            assertEquals("Euro", mapper.selectOne(new Currency("EUR", null, null)).getName());
+        }
+        assertEquals(oneHits + 1, cache.stats(selectOne).hits());
+    }
+
+    @Test
+    void testWriteInvalidatesTable() {
+        assertEquals(2, selectActive().size());
+        assertEquals(2, countActive());
+
+        insert(new Currency("GBP", "Pound Sterling", true));
+
+        assertEquals(0, cache.size());
+        assertEquals(3, selectActive().size());
+        assertEquals(3, countActive());
+    }
+
+    @Test
+    void testWriteToOtherTableKeepsResults() {
+        assertEquals(2, selectActive().size());
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).insert(new Setting("timeout", "30"));
+        }
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testTransactionDoesNotShareUncommittedRows() {
+        assertEquals(2, selectActive().size());
+        try (SqlSession writer = sqlSessionFactory.openSession(false)) {
+            CurrencyMapper mapper = writer.getMapper(CurrencyMapper.class);
+            mapper.insert(new Currency("CHF", "Swiss Franc", true));
+
+            // The writer sees its own row, bypassing the cache
+            assertEquals(3, mapper.selectList(new Currency(null, null, true)).size());
+            assertEquals(0, cache.size());
+            writer.rollback();
+        }
+        assertEquals(2, selectActive().size());
+    }
+
+    @Test
+    void testMemoryBudgetEvictsLeastRecentlyUsed() {
+        selectActive();
+        long oneResult = cache.memoryBytes();
+        assertTrue(oneResult > 0);
+        setMaxBytes(oneResult * 2 + oneResult / 2);
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            CurrencyMapper mapper = session.getMapper(CurrencyMapper.class);
+            for (String name : List.of("Euro", "US Dollar", "Deutsche Mark")) {
+                mapper.selectList(new Currency(null, name, null));
+            }
+        }
+        assertTrue(cache.memoryBytes() <= oneResult * 2 + oneResult / 2);
+        assertTrue(cache.evictionCount() >= 1);
+
+        // The first, least recently used result was evicted
+        QueryCacheStats before = cache.stats(SELECT_LIST);
+        selectActive();
+        assertEquals(before.misses() + 1, cache.stats(SELECT_LIST).misses());
+    }
+
+    private static void setMaxBytes(long maxBytes) {
+        Properties properties = new Properties();
+        properties.setProperty("maxBytes", String.valueOf(maxBytes));
+        cache.setProperties(properties);
+    }
+
+    private List<Currency> selectActive() {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(CurrencyMapper.class).selectList(new Currency(null, null, true));
+        }
+    }
+
+    private long countActive() {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(CurrencyMapper.class).selectCount(new Currency(null, null, true));
+        }
+    }
+
+    private void insert(Currency currency) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(CurrencyMapper.class).insert(currency);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.mapper.reactive.ReactiveMapper;
+import com.ngcin.ems.test.entity.Article;
+import com.ngcin.ems.test.mapper.ArticleMapper;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for ReactiveMapper (Flow.Publisher reads with demand-driven fetching).
+ */
+class ReactiveQueryTest {
+
+    private static final int ROWS = 1500;
+    private static final int LIVE_ROWS = ROWS - ROWS / 10;
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private ReactiveMapper<Article> articles;
+
+    /**
+     * Mapper with a query that takes about 20 ms per row.
+     */
+    public interface SlowArticleMapper extends BaseMapper<Article> {
+
+        @Select("SELECT id, title, content, deleted FROM t_article WHERE SLOW_ROW(id)")
+        Cursor<Article> slowCursor();
+    }
+
+    /**
+     * H2 function aliases; public so that H2 can call them.
+     */
+    public static class Functions {
+
+        public static boolean slowRow(long id) throws InterruptedException {
+            Thread.sleep(20);
+            return true;
+        }
+    }
+
+    /**
+     * Records signals and checks that they are serialized and within demand.
+     */
+    static class Recorder<T> implements Flow.Subscriber<T> {
+
+        final List<T> items = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final AtomicInteger completions = new AtomicInteger();
+        final AtomicLong demand = new AtomicLong();
+        final AtomicBoolean inSignal = new AtomicBoolean();
+        final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        void request(long n) {
+            demand.addAndGet(n);
+            subscription.request(n);
+        }
+
+        @Override
+        public void onNext(T item) {
+            enter();
+            if (demand.decrementAndGet() < 0) {
+                violations.add("onNext beyond demand");
+            }
+            items.add(item);
+            leave();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            enter();
+            error.set(throwable);
+            leave();
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            enter();
+            completions.incrementAndGet();
+            leave();
+            terminated.countDown();
+        }
+
+        private void enter() {
+            if (!inSignal.compareAndSet(false, true)) {
+                violations.add("concurrent signals");
+            }
+        }
+
+        private void leave() {
+            inSignal.set(false);
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(terminated.await(10, TimeUnit.SECONDS), "Subscription should terminate");
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.StreamingQueryInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:reactivedb;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.ArticleMapper"/>
+                        <mapper class="com.ngcin.ems.test.ReactiveQueryTest$SlowArticleMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Connection conn = session.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE t_article (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "title VARCHAR(100) NOT NULL, " +
+                        "content VARCHAR(500), " +
+                        "deleted INT DEFAULT 0)");
+                stmt.execute("CREATE ALIAS SLOW_ROW FOR 'com.ngcin.ems.test.ReactiveQueryTest$Functions.slowRow'");
+            }
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO t_article (title, content, deleted) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    insert.setString(1, "Title" + i);
+                    insert.setString(2, i % 2 == 0 ? "even" : "odd");
+                    // Every tenth row is soft-deleted
+                    insert.setInt(3, i % 10 == 0 ? 1 : 0);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            session.commit();
+        }
+    }
+
+    @BeforeEach
+    void createMapper() {
+        // H2 rejects the MySQL streaming marker (a negative fetch size)
+        DialectHolder.setDialect(Dialect.H2);
+        articles = new ReactiveMapper<>(sqlSessionFactory, ArticleMapper.class);
+    }
+
+    @AfterEach
+    void closeMapper() {
+        articles.close();
+        DialectHolder.setDialect(Dialect.MYSQL);
+    }
+
+    @Test
+    void testRowsFollowDemand() throws Exception {
+        Recorder<Article> recorder = new Recorder<>();
+        articles.selectAll().subscribe(recorder);
+
+        recorder.request(3);
+        waitFor(() -> recorder.items.size() == 3);
+        Thread.sleep(100);
+        assertEquals(3, recorder.items.size(), "No rows beyond the requested ones");
+        assertEquals(1, articles.activeQueries(), "The cursor stays open between requests");
+
+        recorder.request(Long.MAX_VALUE - 3);
+        recorder.await();
+
+        assertEquals(LIVE_ROWS, recorder.items.size());
+        assertTrue(recorder.items.stream().allMatch(a -> a.getDeleted() == 0), "Soft-deleted rows are filtered");
+        assertEquals(1, recorder.completions.get());
+        assertNull(recorder.error.get());
+        assertEquals(List.of(), recorder.violations);
+        waitFor(() -> articles.activeQueries() == 0);
+    }
+
+    @Test
+    void testRequestFromOnNextDoesNotRecurse() throws Exception {
+        Recorder<Article> recorder = new Recorder<>() {
+            @Override
+            public void onNext(Article item) {
+                super.onNext(item);
+                request(1);
+            }
+        };
+        Article query = new Article();
+        query.setContent("odd");
+        articles.selectList(query).subscribe(recorder);
+        recorder.request(1);
+        recorder.await();
+
+        assertEquals(ROWS / 2, recorder.items.size());
+        assertTrue(recorder.items.stream().allMatch(a -> "odd".equals(a.getContent())));
+        assertEquals(List.of(), recorder.violations);
+    }
+
+    @Test
+    void testSingleValuePublishers() throws Exception {
+        Recorder<Long> count = new Recorder<>();
+        articles.selectCount(new Article()).subscribe(count);
+        count.request(1);
+        count.await();
+        assertEquals(List.of((long) LIVE_ROWS), count.items);
+
+        Recorder<Article> missing = new Recorder<>();
+        articles.getById(-1L).subscribe(missing);
+        missing.request(5);
+        missing.await();
+        assertEquals(0, missing.items.size());
+        assertEquals(1, missing.completions.get());
+    }
+
+    @Test
+    void testNonPositiveRequestSignalsError() throws Exception {
+        Recorder<Article> recorder = new Recorder<>();
+        articles.selectAll().subscribe(recorder);
+        recorder.request(0);
+        recorder.await();
+
+        assertInstanceOf(IllegalArgumentException.class, recorder.error.get());
+        assertEquals(0, recorder.items.size());
+        waitFor(() -> articles.activeQueries() == 0);
+    }
+
+    @Test
+    void testNullSubscriberIsRejected() {
+        assertThrows(NullPointerException.class, () -> articles.selectAll().subscribe(null));
+    }
+
+    @Test
+    void testCancelStopsSignalsAndReleasesSession() throws Exception {
+        Recorder<Article> recorder = new Recorder<>();
+        articles.selectAll().subscribe(recorder);
+        recorder.request(10);
+        waitFor(() -> recorder.items.size() == 10);
+
+        recorder.subscription.cancel();
+        recorder.subscription.request(10);
+        waitFor(() -> articles.activeQueries() == 0);
+
+        assertEquals(10, recorder.items.size());
+        assertEquals(1, recorder.terminated.getCount(), "No terminal signal after cancel");
+    }
+
+    @Test
+    void testCancelAbortsExecutingStatement() throws Exception {
+        Recorder<Article> recorder = new Recorder<>();
+        ReactiveMapper<Article> slow = new ReactiveMapper<>(sqlSessionFactory, SlowArticleMapper.class);
+        try {
+            slow.cursor(mapper -> ((SlowArticleMapper) mapper).slowCursor()).subscribe(recorder);
+            recorder.request(1);
+            waitFor(() -> slow.activeQueries() == 1);
+            Thread.sleep(200);
+            assertNull(recorder.error.get(), "The query should still be running");
+
+            long start = System.nanoTime();
+            recorder.subscription.cancel();
+            waitFor(() -> slow.activeQueries() == 0);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Running to the end would take about ROWS * 20 ms
+            assertTrue(millis < 5000, "The statement should be cancelled, took " + millis + " ms");
+            assertEquals(0, recorder.items.size());
+        } finally {
+            slow.close();
+        }
+    }
+
+    @Test
+    void testCloseFailsQueuedSubscriptionAndReleasesSession() throws Exception {
+        ReactiveMapper<Article> slow = new ReactiveMapper<>(sqlSessionFactory, SlowArticleMapper.class);
+        try {
+            Recorder<Article> queued = new Recorder<>();
+            slow.selectAll().subscribe(queued);
+            queued.request(1);
+            waitFor(() -> queued.items.size() == 1);
+
+            // Keep every default thread busy, so that the next request waits in the queue
+            List<Recorder<Article>> busy = new ArrayList<>();
+            for (int i = 0; i < ReactiveMapper.DEFAULT_THREADS; i++) {
+                Recorder<Article> recorder = new Recorder<>();
+                slow.cursor(mapper -> ((SlowArticleMapper) mapper).slowCursor()).subscribe(recorder);
+                recorder.request(Long.MAX_VALUE);
+                busy.add(recorder);
+            }
+            waitFor(() -> slow.activeQueries() == ReactiveMapper.DEFAULT_THREADS + 1);
+            queued.request(1);
+
+            slow.close();
+            queued.await();
+            assertInstanceOf(RejectedExecutionException.class, queued.error.get());
+            assertEquals(1, queued.items.size());
+            for (Recorder<Article> recorder : busy) {
+                recorder.await();
+            }
+            waitFor(() -> slow.activeQueries() == 0);
+            assertEquals(List.of(), queued.violations);
+        } finally {
+            slow.close();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+}
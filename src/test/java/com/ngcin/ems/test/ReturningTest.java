@@ -0,0 +1,180 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.test.entity.Ticket;
+import com.ngcin.ems.test.mapper.TicketMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for reading written rows back into entities annotated with @Table(returning = true).
+ */
+class ReturningTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private SqlSession session;
+    private TicketMapper ticketMapper;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_returning;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.TicketMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_ticket (" +
+                    "ticket_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "title VARCHAR(100), " +
+                    "status VARCHAR(20) DEFAULT 'OPEN', " +
+                    "create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                    "version INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void openSession() throws SQLException {
+        DialectHolder.setDialect(Dialect.H2);
+        session = sqlSessionFactory.openSession(true);
+        ticketMapper = session.getMapper(TicketMapper.class);
+
+        try (Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_ticket");
+        }
+    }
+
+    @AfterEach
+    void closeSession() {
+        DialectHolder.setDialect(Dialect.MYSQL);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Test
+    void testInsertSelective_ReadsBackDatabaseDefaults() {
+        Ticket ticket = new Ticket("Printer jam");
+
+        ticketMapper.insertSelective(ticket);
+
+        assertNotNull(ticket.getTicketId(), "AUTO id should be read back");
+        assertEquals("OPEN", ticket.getStatus(), "Column default should be read back");
+        assertNotNull(ticket.getCreateTime(), "Timestamp default should be read back");
+        assertEquals(0, ticket.getVersion());
+    }
+
+    @Test
+    void testInsertBatch_ReadsBackEveryRow() {
+        List<Ticket> tickets = List.of(new Ticket("A"), new Ticket("B"), new Ticket("C"));
+
+        ticketMapper.insertBatch(tickets);
+
+        for (Ticket ticket : tickets) {
+            assertNotNull(ticket.getTicketId(), "Each row should get its id back");
+            Ticket loaded = ticketMapper.getById(ticket.getTicketId());
+            assertEquals(loaded.getTitle(), ticket.getTitle(), "Read-back rows must match the entity order");
+        }
+    }
+
+    @Test
+    void testUpdateById_ReadsBackBumpedVersion() {
+        Ticket ticket = new Ticket("Printer jam");
+        ticketMapper.insertSelective(ticket);
+
+        ticket.setStatus("CLOSED");
+        int result = ticketMapper.updateById(ticket);
+
+        assertEquals(1, result);
+        assertEquals(1, ticket.getVersion(), "Bumped version should be read back without getById");
+        assertEquals("CLOSED", ticket.getStatus());
+
+        // A second update works with the read-back version and no reload
+        ticket.setTitle("Printer fixed");
+        assertEquals(1, ticketMapper.updateById(ticket));
+        assertEquals(2, ticket.getVersion());
+    }
+
+    @Test
+    void testUpdateSelectiveById_ReadsBackUnchangedColumns() {
+        Ticket ticket = new Ticket("Printer jam");
+        ticketMapper.insertSelective(ticket);
+
+        Ticket patch = new Ticket();
+        patch.setTicketId(ticket.getTicketId());
+        patch.setVersion(ticket.getVersion());
+        patch.setStatus("IN_PROGRESS");
+        ticketMapper.updateSelectiveById(patch);
+
+        assertEquals("Printer jam", patch.getTitle(), "Columns not in the SET should be read back too");
+        assertEquals(1, patch.getVersion());
+    }
+
+    @Test
+    void testOracleDialect_ReadsBackInsertsOnly() {
+        DialectHolder.setDialect(Dialect.ORACLE);
+        Ticket ticket = new Ticket("Printer jam");
+        ticketMapper.insertSelective(ticket);
+        assertEquals("OPEN", ticket.getStatus(), "Inserts are read back");
+
+        Ticket patch = new Ticket();
+        patch.setTicketId(ticket.getTicketId());
+        patch.setVersion(ticket.getVersion());
+        patch.setStatus("IN_PROGRESS");
+        assertEquals(1, ticketMapper.updateSelectiveById(patch));
+        assertNull(patch.getTitle(), "The Oracle driver cannot read back updated rows");
+    }
+
+    @Test
+    void testMysqlDialect_FallsBackToGeneratedId() {
+        DialectHolder.setDialect(Dialect.MYSQL);
+        Ticket ticket = new Ticket("Printer jam");
+
+        ticketMapper.insertSelective(ticket);
+
+        assertNotNull(ticket.getTicketId(), "AUTO id is still populated");
+        assertNull(ticket.getStatus(), "MySQL cannot read back non-key columns");
+    }
+}
@@ -0,0 +1,269 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
+import com.ngcin.ems.mapper.core.SegmentIdAllocator;
+import com.ngcin.ems.mapper.core.SegmentSource;
+import com.ngcin.ems.mapper.core.SequenceSegmentSource;
+import com.ngcin.ems.mapper.core.TableSegmentSource;
+import com.ngcin.ems.test.entity.Voucher;
+import com.ngcin.ems.test.mapper.VoucherMapper;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SEGMENT ID generation: the table and sequence sources, and prefetching in
+ * SegmentIdAllocator.
+ */
+class SegmentIdGenerationTest {
+
+    private static PooledDataSource dataSource;
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private final List<SegmentIdAllocator> allocators = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:testdb_segment;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setPoolMaximumActiveConnections(20);
+        new TableSegmentSource(dataSource).createTableIfNotExists();
+        // A second call finds the table
+        new TableSegmentSource(dataSource).createTableIfNotExists();
+        execute("CREATE TABLE t_voucher (id BIGINT PRIMARY KEY, code VARCHAR(100))");
+        execute("CREATE SEQUENCE t_voucher_seq START WITH 1 INCREMENT BY 50");
+
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="logImpl" value="SLF4J"/>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_segment;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.VoucherMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        execute("DELETE FROM t_voucher");
+        execute("DELETE FROM ems_id_segment");
+    }
+
+    @AfterEach
+    void closeAllocators() {
+        allocators.forEach(SegmentIdAllocator::close);
+        IdGeneratorHolder.setSegmentAllocator(null);
+    }
+
+    @Test
+    void testInsertUsesReservedRanges() throws SQLException {
+        SegmentIdAllocator allocator = newAllocator(new TableSegmentSource(dataSource).step(10));
+        IdGeneratorHolder.setSegmentAllocator(allocator);
+
+        List<Long> ids = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            VoucherMapper mapper = session.getMapper(VoucherMapper.class);
+            for (int i = 0; i < 25; i++) {
+                Voucher voucher = new Voucher("voucher " + i);
+                mapper.insert(voucher);
+                ids.add(voucher.getId());
+            }
+            session.commit();
+            assertEquals(25, mapper.selectCount(null));
+        }
+
+        // Ranges [1, 11), [11, 21), [21, 31) reserved in order by one process
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1, ids.get(i));
+        }
+        assertTrue(nextValue("t_voucher") >= 31, "the counter covers every handed-out id");
+        assertTrue(allocator.fetchCount() <= 4, "one round trip per range and a prefetch: " + allocator.fetchCount());
+    }
+
+    @Test
+    void testInsertWithoutAllocatorFails() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            VoucherMapper mapper = session.getMapper(VoucherMapper.class);
+            Exception e = assertThrows(Exception.class, () -> mapper.insert(new Voucher("no source")));
+            assertTrue(rootCause(e) instanceof IllegalStateException, "was: " + e);
+        }
+    }
+
+    @Test
+    void testConcurrentInstancesGetDisjointIds() throws Exception {
+        // Two allocators stand in for two processes sharing the counter table
+        TableSegmentSource source = new TableSegmentSource(dataSource).step(100);
+        List<SegmentIdAllocator> instances = List.of(newAllocator(source), newAllocator(source));
+        int threads = 8;
+        int idsPerThread = 5_000;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SegmentIdAllocator allocator = instances.get(t % 2);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = allocator.nextId("t_load");
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> distinct = new HashSet<>();
+            for (Future<long[]> result : results) {
+                for (long id : result.get(30, TimeUnit.SECONDS)) {
+                    assertTrue(distinct.add(id), "duplicate id " + id);
+                }
+            }
+            assertEquals(threads * idsPerThread, distinct.size());
+            assertTrue(nextValue("t_load") > distinct.stream().mapToLong(Long::longValue).max().orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testSequenceSourceReservesPooledRanges() {
+        SequenceSegmentSource source = new SequenceSegmentSource(dataSource, Dialect.H2).step(50);
+        assertEquals("t_voucher_seq", source.sequenceName("t_voucher"));
+        SegmentSource.Segment first = source.nextSegment("t_voucher");
+        SegmentSource.Segment second = source.nextSegment("t_voucher");
+        assertEquals(50, first.size());
+        assertEquals(first.end(), second.start(), "pooled-lo ranges follow each other");
+
+        SegmentIdAllocator allocator = newAllocator(source);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            long id = allocator.nextId("t_voucher");
+            assertTrue(id >= second.end(), "ids come from later sequence values");
+            assertTrue(ids.add(id));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new SequenceSegmentSource(dataSource, Dialect.MYSQL));
+    }
+
+    @Test
+    void testNextRangeIsPrefetched() throws Exception {
+        CountDownLatch prefetched = new CountDownLatch(2);
+        AtomicLong counter = new AtomicLong(1);
+        SegmentIdAllocator allocator = newAllocator(key -> {
+            long start = counter.getAndAdd(100);
+            prefetched.countDown();
+            return new SegmentSource.Segment(start, start + 100);
+        }).prefetchRatio(0.5);
+
+        for (int i = 0; i < 51; i++) {
+            allocator.nextId("t_prefetch");
+        }
+        assertTrue(prefetched.await(5, TimeUnit.SECONDS), "the next range is reserved in the background");
+        Thread.sleep(50);
+        for (int i = 51; i < 100; i++) {
+            allocator.nextId("t_prefetch");
+        }
+        assertEquals(101, allocator.nextId("t_prefetch"), "switches to the prefetched range");
+        assertEquals(1, allocator.waitCount(), "only the first range was waited for");
+    }
+
+    @Test
+    void testFailedPrefetchIsRetriedWhenNeeded() {
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong counter = new AtomicLong(1);
+        SegmentIdAllocator allocator = newAllocator(key -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("database unavailable");
+            }
+            long start = counter.getAndAdd(10);
+            return new SegmentSource.Segment(start, start + 10);
+        });
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 30; i++) {
+            assertTrue(ids.add(allocator.nextId("t_retry")));
+        }
+        assertEquals(30, ids.size());
+        assertTrue(calls.get() >= 3);
+    }
+
+    private SegmentIdAllocator newAllocator(SegmentSource source) {
+        SegmentIdAllocator allocator = new SegmentIdAllocator(source);
+        allocators.add(allocator);
+        return allocator;
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        while (e.getCause() != null && e.getCause() != e) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static long nextValue(String key) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT next_value FROM ems_id_segment WHERE segment_key = '" + key + "'")) {
+            assertTrue(rows.next());
+            return rows.getLong(1);
+        }
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.cache.SingleFlightInterceptor;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for SingleFlightInterceptor (coalescing of concurrent identical reads).
+ */
+class SingleFlightTest {
+
+    private static final int READERS = 8;
+
+    private SqlSessionFactory sqlSessionFactory;
+    private SingleFlightInterceptor singleFlight;
+    private ExecutorService pool;
+    private Long id;
+
+    /**
+     * Holds queries at the database while {@link #gate} is set, counting arrivals.
+     */
+    @Intercepts(@Signature(type = Executor.class, method = "query",
+            args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}))
+    public static class Gate implements Interceptor {
+
+        static volatile CountDownLatch gate;
+        static final Semaphore arrivals = new Semaphore(0);
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            CountDownLatch latch = gate;
+            if (latch != null) {
+                arrivals.release();
+                latch.await();
+            }
+            return invocation.proceed();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.test.SingleFlightTest$Gate"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.cache.SingleFlightInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_single_flight;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                                <property name="poolMaximumActiveConnections" value="20"/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+        singleFlight = (SingleFlightInterceptor) sqlSessionFactory.getConfiguration().getInterceptors().stream()
+                .filter(SingleFlightInterceptor.class::isInstance)
+                .findFirst()
+                .orElseThrow();
+        pool = Executors.newFixedThreadPool(READERS + 2);
+
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+            stmt.execute("DELETE FROM t_setting");
+        }
+        Setting setting = new Setting("timeout", "30");
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).insert(setting);
+        }
+        id = setting.getId();
+        Gate.arrivals.drainPermits();
+    }
+
+    @AfterEach
+    void tearDown() {
+        CountDownLatch latch = Gate.gate;
+        Gate.gate = null;
+        if (latch != null) {
+            latch.countDown();
+        }
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentIdenticalReadsShareOneExecution() throws Exception {
+        Gate.gate = new CountDownLatch(1);
+        List<Future<Setting>> readers = startReaders(READERS);
+        assertTrue(Gate.arrivals.tryAcquire(5, TimeUnit.SECONDS));
+        // Give the other readers time to join the leader's flight
+        Thread.sleep(300);
+        openGate();
+
+        Set<Setting> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Setting> reader : readers) {
+            Setting setting = reader.get(5, TimeUnit.SECONDS);
+            assertEquals("30", setting.getContent());
+            instances.add(setting);
+        }
+        assertEquals(READERS, instances.size(), "every reader gets its own instance");
+        assertEquals(1, singleFlight.executions());
+        assertEquals(READERS - 1, singleFlight.coalesced());
+    }
+
+    @Test
+    void testWaitersFallBackAfterMaxWait() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("maxWaitMillis", "50");
+        singleFlight.setProperties(properties);
+
+        Gate.gate = new CountDownLatch(1);
+        List<Future<Setting>> readers = startReaders(READERS);
+        // The leader and every waiter that gave up reach the database
+        assertTrue(Gate.arrivals.tryAcquire(READERS, 5, TimeUnit.SECONDS));
+        openGate();
+
+        for (Future<Setting> reader : readers) {
+            assertEquals("30", reader.get(5, TimeUnit.SECONDS).getContent());
+        }
+        assertEquals(READERS, singleFlight.executions());
+        assertEquals(READERS - 1, singleFlight.fallbacks());
+    }
+
+    @Test
+    void testExcludedStatementIsNotCoalesced() throws Exception {
+        singleFlight.exclude(SettingMapper.class.getName() + ".getById");
+
+        Gate.gate = new CountDownLatch(1);
+        List<Future<Setting>> readers = startReaders(READERS);
+        assertTrue(Gate.arrivals.tryAcquire(READERS, 5, TimeUnit.SECONDS));
+        openGate();
+
+        for (Future<Setting> reader : readers) {
+            assertEquals("30", reader.get(5, TimeUnit.SECONDS).getContent());
+        }
+        assertEquals(0, singleFlight.executions());
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    void testReadsAfterWriteDoNotJoinEarlierFlight() throws Exception {
+        Gate.gate = new CountDownLatch(1);
+        Future<Setting> before = startReaders(1).get(0);
+        assertTrue(Gate.arrivals.tryAcquire(5, TimeUnit.SECONDS));
+
+        // Writes do not pass through the gate
+        Setting changed = new Setting("timeout", "60");
+        changed.setId(id);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SettingMapper.class).updateById(changed);
+        }
+
+        Future<Setting> after = startReaders(1).get(0);
+        assertTrue(Gate.arrivals.tryAcquire(5, TimeUnit.SECONDS), "the later read runs its own query");
+        openGate();
+
+        assertNotNull(before.get(5, TimeUnit.SECONDS));
+        assertEquals("60", after.get(5, TimeUnit.SECONDS).getContent());
+        assertEquals(2, singleFlight.executions());
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    private List<Future<Setting>> startReaders(int count) {
+        List<Future<Setting>> readers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            readers.add(pool.submit(() -> {
+                try (SqlSession session = sqlSessionFactory.openSession(true)) {
+                    return session.getMapper(SettingMapper.class).getById(id);
+                }
+            }));
+        }
+        return readers;
+    }
+
+    private static void openGate() {
+        CountDownLatch latch = Gate.gate;
+        Gate.gate = null;
+        latch.countDown();
+    }
+}
@@ -1,5 +1,7 @@
 package com.ngcin.ems.test;
 
+import com.ngcin.ems.mapper.core.IdGeneratorHolder;
+import com.ngcin.ems.mapper.core.SnowflakeIdGenerator;
 import com.ngcin.ems.test.mapper.PaymentMapper;
 import com.ngcin.ems.test.mapper.TransactionMapper;
 import com.ngcin.ems.test.entity.Payment;
@@ -292,7 +294,7 @@ class SnowflakeIdGenerationTest {
 
         // Extract components (based on implementation):
         // - timestamp: bits 41-22 (41 bits from right, after 22 bits for node+sequence)
-        // - node: bits 21-12 (10 bits)
+        // - node: bits 21-12 (10 bits: 5 datacenter bits, 5 worker bits)
         // - sequence: bits 11-0 (12 bits)
 
         long sequence = id & 0xFFF;  // lowest 12 bits
@@ -301,7 +303,9 @@ class SnowflakeIdGenerationTest {
 
         // Validate sequence (0-4095)
         assertTrue(sequence >= 0 && sequence <= 4095, "Sequence should be in range 0-4095");
-        assertEquals(1, node, "Node should be 1 (hardcoded in implementation)");
+        SnowflakeIdGenerator.Parts parts = IdGeneratorHolder.getSnowflake().decode(id);
+        assertEquals((parts.datacenterId() << 5) | parts.workerId(), node,
+            "Node should be the configured datacenter and worker id");
 
         // Validate timestamp (should be reasonable - not too far from current time)
         long epoch = 1609459200000L; // 2021-01-01 00:00:00 UTC
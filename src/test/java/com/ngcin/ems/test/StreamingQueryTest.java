@@ -0,0 +1,185 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.test.entity.Article;
+import com.ngcin.ems.test.mapper.ArticleMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for streaming reads (cursorAll, cursorList, streamAll, streamList).
+ */
+class StreamingQueryTest {
+
+    private static final int ROWS = 2500;
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private SqlSession session;
+    private ArticleMapper articleMapper;
+
+    /**
+     * Records the fetch size of the last prepared statement.
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare",
+            args = {Connection.class, Integer.class}))
+    public static class FetchSizeRecorder implements Interceptor {
+
+        static volatile int lastFetchSize;
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            Statement statement = (Statement) invocation.proceed();
+            lastFetchSize = statement.getFetchSize();
+            return statement;
+        }
+    }
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.test.StreamingQueryTest$FetchSizeRecorder"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.StreamingQueryInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:streamdb;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.ArticleMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Connection conn = session.getConnection();
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE t_article (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "title VARCHAR(100) NOT NULL, " +
+                        "content VARCHAR(500), " +
+                        "deleted INT DEFAULT 0)");
+            }
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO t_article (title, content, deleted) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    insert.setString(1, "Title" + i);
+                    insert.setString(2, i % 2 == 0 ? "even" : "odd");
+                    // Every tenth row is soft-deleted
+                    insert.setInt(3, i % 10 == 0 ? 1 : 0);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            session.commit();
+        }
+    }
+
+    @BeforeEach
+    void openSession() {
+        // H2 rejects the MySQL streaming marker (a negative fetch size)
+        DialectHolder.setDialect(Dialect.H2);
+        session = sqlSessionFactory.openSession();
+        articleMapper = session.getMapper(ArticleMapper.class);
+    }
+
+    @AfterEach
+    void closeSession() {
+        session.close();
+        DialectHolder.setDialect(Dialect.MYSQL);
+    }
+
+    @Test
+    void testStreamAllReadsPastSelectAllLimitAndSkipsDeleted() {
+        assertEquals(1000, articleMapper.selectAll().size(), "selectAll is capped");
+
+        try (Stream<Article> articles = articleMapper.streamAll()) {
+            long[] counts = new long[2];
+            articles.forEach(article -> {
+                counts[0]++;
+                if (article.getDeleted() != 0) {
+                    counts[1]++;
+                }
+            });
+            assertEquals(ROWS - ROWS / 10, counts[0]);
+            assertEquals(0, counts[1], "Soft-deleted rows must be filtered");
+        }
+        assertEquals(Dialect.H2.streamingFetchSize(), FetchSizeRecorder.lastFetchSize);
+    }
+
+    @Test
+    void testStreamListAppliesConditions() {
+        Article query = new Article();
+        query.setContent("odd");
+
+        try (Stream<Article> articles = articleMapper.streamList(query)) {
+            List<String> contents = articles.map(Article::getContent).distinct().toList();
+            assertEquals(List.of("odd"), contents);
+        }
+        try (Stream<Article> articles = articleMapper.streamList(query)) {
+            // Odd rows are never a multiple of ten, so none is deleted
+            assertEquals(ROWS / 2, articles.count());
+        }
+    }
+
+    @Test
+    void testCursorIsClosedAndReadsLazily() throws Exception {
+        Cursor<Article> cursor = articleMapper.cursorAll();
+        try (cursor) {
+            Iterator<Article> it = cursor.iterator();
+            for (int i = 0; i < 5; i++) {
+                assertTrue(it.hasNext());
+                assertNotNull(it.next().getId());
+            }
+            assertTrue(cursor.isOpen());
+            assertEquals(4, cursor.getCurrentIndex());
+        }
+        assertFalse(cursor.isOpen());
+    }
+
+    @Test
+    void testClosingStreamEarlyReleasesCursor() {
+        try (Stream<Article> articles = articleMapper.streamAll()) {
+            assertEquals(10, articles.limit(10).count());
+        }
+        // The session stays usable for further statements
+        assertEquals(ROWS - ROWS / 10, articleMapper.selectCount(new Article()));
+    }
+}
@@ -0,0 +1,344 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.tx.FlushReport;
+import com.ngcin.ems.mapper.tx.UnitOfWork;
+import com.ngcin.ems.test.entity.Account;
+import com.ngcin.ems.test.entity.AccountEntry;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.AccountEntryMapper;
+import com.ngcin.ems.test.mapper.AccountMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for UnitOfWork (deferred, batched writes flushed at commit or before dependent reads).
+ */
+class UnitOfWorkTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private SqlSession session;
+    private AccountMapper accountMapper;
+    private AccountEntryMapper entryMapper;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.tx.UnitOfWorkInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_unit_of_work;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.AccountMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.AccountEntryMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_account (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "name VARCHAR(50) UNIQUE, " +
+                    "balance INT, " +
+                    "version INT)");
+            stmt.execute("CREATE TABLE t_account_entry (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "account_id BIGINT NOT NULL REFERENCES t_account(id), " +
+                    "amount INT)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_account_entry");
+            stmt.execute("DELETE FROM t_account");
+        }
+        session = sqlSessionFactory.openSession(false);
+        accountMapper = session.getMapper(AccountMapper.class);
+        entryMapper = session.getMapper(AccountEntryMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        session.close();
+        assertNull(UnitOfWork.current());
+    }
+
+    @Test
+    void testWritesAreBatchedUntilCommit() {
+        FlushReport report;
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            for (int i = 0; i < 50; i++) {
+                Account account = new Account("acc" + i, 100);
+                assertEquals(1, accountMapper.insert(account));
+                assertNotNull(account.getId());
+                assertEquals(1, entryMapper.insert(new AccountEntry(account.getId(), 10)));
+                assertEquals(1, entryMapper.insert(new AccountEntry(account.getId(), 20)));
+            }
+            assertEquals(150, uow.pendingCount());
+            assertEquals(0, queryLong("SELECT COUNT(*) FROM t_account"));
+
+            session.commit();
+            report = uow.report();
+            assertEquals(0, uow.pendingCount());
+        }
+
+        assertEquals(new FlushReport(1, 150, 2, 150), report);
+        assertEquals(50, queryLong("SELECT COUNT(*) FROM t_account"));
+        assertEquals(100, queryLong("SELECT COUNT(*) FROM t_account_entry"));
+    }
+
+    @Test
+    void testReadYourWrites() {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            Account account = new Account("reader", 5);
+            accountMapper.insert(account);
+
+            // t_account_entry does not read t_account: no flush
+            assertEquals(0, entryMapper.selectCount(new AccountEntry()));
+            assertEquals(1, uow.pendingCount());
+
+            Account loaded = accountMapper.getById(account.getId());
+            assertNotNull(loaded);
+            assertEquals("reader", loaded.getName());
+            assertEquals(0, uow.pendingCount());
+
+            account.setBalance(50);
+            accountMapper.updateSelectiveById(account);
+            assertEquals(50, accountMapper.getById(account.getId()).getBalance());
+            assertEquals(2, uow.report().flushes());
+        }
+    }
+
+    @Test
+    void testForeignKeyOrder() {
+        Account existing = new Account("existing", 1);
+        accountMapper.insert(existing);
+        session.commit();
+
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            // The child table is touched first, but the new parent row must be inserted before its children
+            entryMapper.insert(new AccountEntry(existing.getId(), 1));
+            Account created = new Account("created", 2);
+            accountMapper.insert(created);
+            entryMapper.insert(new AccountEntry(created.getId(), 2));
+            session.commit();
+            assertEquals(2, uow.report().batches());
+
+            List<AccountEntry> existingEntries = entryMapper.selectAll().stream()
+                    .filter(e -> e.getAccountId().equals(existing.getId()))
+                    .toList();
+
+            // The parent table is touched first, but children must be deleted before their parent
+            existing.setBalance(0);
+            accountMapper.updateSelectiveById(existing);
+            existingEntries.forEach(e -> entryMapper.hardDeleteById(e.getId()));
+            accountMapper.hardDeleteById(existing.getId());
+            session.commit();
+            assertEquals(new FlushReport(2, 6, 5, 6), uow.report());
+        }
+
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account_entry"));
+    }
+
+    @Test
+    void testProgramOrderIsKept() {
+        Account renamed = new Account("taken", 1);
+        accountMapper.insert(renamed);
+        Account removed = new Account("removed", 1);
+        accountMapper.insert(removed);
+        session.commit();
+
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            // Frees the unique name, then takes it
+            renamed.setName("released");
+            accountMapper.updateSelectiveById(renamed);
+            accountMapper.insert(new Account("taken", 2));
+
+            // Deletes a row, then inserts it again
+            accountMapper.hardDeleteById(removed.getId());
+            Account again = new Account("removed", 3);
+            again.setId(removed.getId());
+            accountMapper.insert(again);
+            assertEquals(4, uow.pendingCount());
+
+            session.commit();
+            assertEquals(new FlushReport(1, 4, 4, 4), uow.report());
+        }
+
+        assertEquals(2, queryLong("SELECT balance FROM t_account WHERE name = 'taken'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account WHERE name = 'released'"));
+        assertEquals(3, queryLong("SELECT balance FROM t_account WHERE id = " + removed.getId()));
+    }
+
+    @Test
+    void testReportCountsRowsWritten() {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            AccountEntry missing = new AccountEntry(1L, 1);
+            missing.setId(-1L);
+            assertEquals(1, entryMapper.updateSelectiveById(missing), "The expected count is returned");
+            assertEquals(1, entryMapper.hardDeleteById(-1L));
+
+            session.commit();
+            assertEquals(new FlushReport(1, 2, 2, 0), uow.report());
+        }
+    }
+
+    @Test
+    void testReusedEntityKeepsDeferredValues() {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            Account account = new Account("first", 1);
+            accountMapper.insert(account);
+            Long firstId = account.getId();
+
+            // Reusing the instance must not change the write already deferred
+            account.setId(null);
+            account.setName("second");
+            account.setBalance(2);
+            accountMapper.insert(account);
+            assertNotEquals(firstId, account.getId());
+            assertEquals(2, uow.pendingCount());
+
+            session.commit();
+        }
+
+        assertEquals(2, queryLong("SELECT COUNT(*) FROM t_account"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account WHERE name = 'first' AND balance = 1"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account WHERE name = 'second' AND balance = 2"));
+    }
+
+    @Test
+    void testRollbackDiscardsPendingWrites() {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            accountMapper.insert(new Account("rolled back", 1));
+            session.rollback();
+            assertEquals(0, uow.pendingCount());
+        }
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM t_account"));
+    }
+
+    @Test
+    void testVersionConflictFailsFlush() {
+        Account account = new Account("versioned", 1);
+        accountMapper.insert(account);
+        session.commit();
+
+        UnitOfWork uow = UnitOfWork.begin();
+        account.setVersion(account.getVersion() + 5);
+        account.setBalance(2);
+        assertEquals(1, accountMapper.updateById(account));
+        assertThrows(PersistenceException.class, () -> session.commit());
+        session.rollback();
+        uow.close();
+
+        assertEquals(1, queryLong("SELECT balance FROM t_account"));
+    }
+
+    @Test
+    void testAutoIdInsertRunsImmediately() {
+        try (UnitOfWork uow = UnitOfWork.begin()) {
+            Account account = new Account("before", 1);
+            accountMapper.insert(account);
+            User user = new User("auto", "auto@test.com", 1);
+            session.getMapper(UserMapper.class).insert(user);
+
+            assertNotNull(user.getId());
+            assertEquals(1, uow.deferredCount());
+            assertEquals(0, uow.pendingCount());
+            session.commit();
+        }
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account"));
+    }
+
+    @Test
+    void testNestedUnitOfWorkFlushesOnOutermostClose() {
+        try (UnitOfWork outer = UnitOfWork.begin()) {
+            try (UnitOfWork inner = UnitOfWork.begin()) {
+                assertSame(outer, inner);
+                accountMapper.insert(new Account("nested", 1));
+            }
+            assertEquals(1, outer.pendingCount());
+        }
+        session.commit();
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_account"));
+    }
+
+    @Test
+    void testWithoutUnitOfWorkNothingIsDeferred() {
+        accountMapper.insert(new Account("direct", 1));
+        try (Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t_account")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getLong(1));
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
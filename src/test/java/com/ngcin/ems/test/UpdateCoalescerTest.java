@@ -0,0 +1,274 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.batch.UpdateCoalescer;
+import com.ngcin.ems.test.entity.Sku;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.SkuMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for UpdateCoalescer (merging concurrent selective updates of hot rows).
+ */
+class UpdateCoalescerTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_update_coalescer;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.SkuMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_sku (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "sku_code VARCHAR(50) NOT NULL UNIQUE, " +
+                    "name VARCHAR(100), " +
+                    "stock INT, " +
+                    "version INT DEFAULT 0)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_sku");
+        }
+    }
+
+    @AfterEach
+    void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testUpdatesOfSameIdAreMergedLastWriterWins() throws Exception {
+        User user = insertUser();
+        try (UpdateCoalescer<User> coalescer = new UpdateCoalescer<>(sqlSessionFactory, UserMapper.class)
+                .window(Duration.ofMillis(300))) {
+            User first = new User();
+            first.setId(user.getId());
+            first.setAge(31);
+            first.setEmail("first@test.com");
+            User second = new User();
+            second.setId(user.getId());
+            second.setAge(32);
+
+            Future<Integer> r1 = submitInOrder(() -> coalescer.updateSelectiveById(first));
+            Future<Integer> r2 = submitInOrder(() -> coalescer.updateSelectiveById(second));
+
+            assertEquals(1, r1.get());
+            assertEquals(1, r2.get());
+            assertEquals(2, coalescer.requestCount());
+            assertEquals(1, coalescer.statementCount());
+            assertNull(second.getEmail());
+        }
+        assertEquals(32, queryLong("SELECT age FROM t_user WHERE id = " + user.getId()));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user WHERE email = 'first@test.com'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user WHERE username = 'hot'"));
+    }
+
+    @Test
+    void testConcurrentHotRowUpdates() throws Exception {
+        User user = insertUser();
+        int callers = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        try (UpdateCoalescer<User> coalescer = new UpdateCoalescer<>(sqlSessionFactory, UserMapper.class)
+                .window(Duration.ofMillis(20))) {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                int age = i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    User update = new User();
+                    update.setId(user.getId());
+                    update.setAge(age);
+                    return coalescer.updateSelectiveById(update);
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(1, result.get());
+            }
+            assertTrue(coalescer.statementCount() < callers);
+        }
+    }
+
+    @Test
+    void testVersionedUpdatesKeepOptimisticLockingOutcome() throws Exception {
+        Sku sku = new Sku("SKU-1", "Widget", 10);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(SkuMapper.class).insert(sku);
+        }
+        int version = (int) queryLong("SELECT version FROM t_sku WHERE id = " + sku.getId());
+
+        try (UpdateCoalescer<Sku> coalescer = new UpdateCoalescer<>(sqlSessionFactory, SkuMapper.class)
+                .window(Duration.ofMillis(300))) {
+            Future<Integer> first = submitInOrder(() -> coalescer.updateSelectiveById(skuUpdate(sku.getId(), version, 5, null)));
+            Future<Integer> stale = submitInOrder(() -> coalescer.updateSelectiveById(skuUpdate(sku.getId(), version, null, "Stale")));
+            Future<Integer> next = submitInOrder(() -> coalescer.updateSelectiveById(skuUpdate(sku.getId(), version + 1, 7, null)));
+
+            assertEquals(1, first.get());
+            assertEquals(0, stale.get());
+            assertEquals(1, next.get());
+            assertEquals(2, coalescer.statementCount());
+            assertEquals(1, coalescer.conflictCount());
+        }
+        assertEquals(7, queryLong("SELECT stock FROM t_sku WHERE id = " + sku.getId()));
+        assertEquals(version + 2, queryLong("SELECT version FROM t_sku WHERE id = " + sku.getId()));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_sku WHERE name = 'Widget'"));
+    }
+
+    @Test
+    void testMissingRowAndValidation() {
+        UpdateCoalescer<User> coalescer = new UpdateCoalescer<>(sqlSessionFactory, UserMapper.class);
+        User missing = new User();
+        missing.setId(-1L);
+        missing.setAge(1);
+        assertEquals(0, coalescer.updateSelectiveById(missing));
+
+        assertThrows(MapperException.class, () -> coalescer.updateSelectiveById(new User("x", "x@test.com", 1)));
+        assertThrows(IllegalStateException.class, () -> coalescer.window(Duration.ofMillis(1)));
+
+        coalescer.close();
+        assertThrows(IllegalStateException.class, () -> coalescer.updateSelectiveById(missing));
+    }
+
+    @Test
+    void testStoppedFlusherClosesCoalescer() throws Exception {
+        User user = insertUser();
+        UpdateCoalescer<User> coalescer = new UpdateCoalescer<>(sqlSessionFactory, UserMapper.class)
+                .window(Duration.ofSeconds(30));
+        User update = new User();
+        update.setId(user.getId());
+        update.setAge(40);
+        Future<Integer> waiting = executor.submit(() -> coalescer.updateSelectiveById(update));
+        Thread flusher = null;
+        while (flusher == null) {
+            flusher = Thread.getAllStackTraces().keySet().stream()
+                    .filter(t -> t.getName().equals("ems-update-coalescer-t_user"))
+                    .findFirst()
+                    .orElse(null);
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+
+        flusher.interrupt();
+        flusher.join(5000);
+        assertFalse(flusher.isAlive());
+
+        // The window collected before the interrupt is still written
+        assertEquals(1, waiting.get(5, TimeUnit.SECONDS));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(IllegalStateException.class,
+                () -> coalescer.updateSelectiveById(update)));
+        coalescer.close();
+        assertEquals(40, queryLong("SELECT age FROM t_user WHERE id = " + user.getId()));
+    }
+
+    private User insertUser() {
+        User user = new User("hot", "hot@test.com", 30);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(UserMapper.class).insert(user);
+        }
+        return user;
+    }
+
+    private static Sku skuUpdate(Long id, int version, Integer stock, String name) {
+        Sku update = new Sku();
+        update.setId(id);
+        update.setVersion(version);
+        update.setStock(stock);
+        update.setName(name);
+        return update;
+    }
+
+    /**
+     * Submits the call and gives it time to reach the coalescer, so callers arrive in submission order.
+     */
+    private Future<Integer> submitInOrder(Callable<Integer> call) throws InterruptedException {
+        Future<Integer> future = executor.submit(call);
+        Thread.sleep(40);
+        return future;
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
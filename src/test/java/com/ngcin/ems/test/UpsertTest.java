@@ -0,0 +1,393 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.MapperException;
+import com.ngcin.ems.mapper.core.Dialect;
+import com.ngcin.ems.mapper.core.DialectHolder;
+import com.ngcin.ems.test.entity.Currency;
+import com.ngcin.ems.test.entity.Order;
+import com.ngcin.ems.test.entity.Setting;
+import com.ngcin.ems.test.entity.Sku;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.CurrencyMapper;
+import com.ngcin.ems.test.mapper.OrderMapper;
+import com.ngcin.ems.test.mapper.SettingMapper;
+import com.ngcin.ems.test.mapper.SkuMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for upsert / insertIgnore and their batch variants.
+ */
+class UpsertTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+    private SqlSession session;
+    private SkuMapper skuMapper;
+    private OrderMapper orderMapper;
+    private CurrencyMapper currencyMapper;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_upsert;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.SkuMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.OrderMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.CurrencyMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.SettingMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            Connection conn = session.getConnection();
+            Statement stmt = conn.createStatement();
+
+            stmt.execute("CREATE TABLE t_sku (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "sku_code VARCHAR(50) NOT NULL UNIQUE, " +
+                    "name VARCHAR(100), " +
+                    "stock INT, " +
+                    "version INT DEFAULT 0)");
+
+            stmt.execute("CREATE TABLE t_order (" +
+                    "order_id VARCHAR(36) PRIMARY KEY, " +
+                    "order_no VARCHAR(50), " +
+                    "amount DECIMAL(10,2))");
+
+            stmt.execute("CREATE TABLE t_currency (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(3) NOT NULL UNIQUE, " +
+                    "name VARCHAR(50), " +
+                    "active BOOLEAN)");
+
+            stmt.execute("CREATE TABLE t_setting (" +
+                    "id BIGINT PRIMARY KEY, " +
+                    "code VARCHAR(50) UNIQUE, " +
+                    "content VARCHAR(100), " +
+                    "deleted INT DEFAULT 0)");
+
+            stmt.close();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void openSession() throws SQLException {
+        session = sqlSessionFactory.openSession(true);
+        skuMapper = session.getMapper(SkuMapper.class);
+        orderMapper = session.getMapper(OrderMapper.class);
+        currencyMapper = session.getMapper(CurrencyMapper.class);
+
+        try (Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_sku");
+            stmt.execute("DELETE FROM t_order");
+            stmt.execute("DELETE FROM t_currency");
+            stmt.execute("DELETE FROM t_setting");
+        }
+    }
+
+    @AfterEach
+    void closeSession() {
+        DialectHolder.setDialect(Dialect.MYSQL);
+        if (session != null) {
+            session.close();
+        }
+    }
+
+    @Test
+    void testUpsert_InsertsNewRow() {
+        Sku sku = new Sku("SKU-1", "Keyboard", 10);
+
+        int result = skuMapper.upsert(sku);
+
+        assertEquals(1, result);
+        assertEquals(0, sku.getVersion(), "Version should be initialized on insert");
+        assertEquals(1, countRows());
+        assertEquals(10, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-1'"));
+    }
+
+    @Test
+    void testUpsert_UpdatesExistingRowByUniqueKeyAndBumpsVersion() {
+        skuMapper.upsert(new Sku("SKU-1", "Keyboard", 10));
+
+        skuMapper.upsert(new Sku("SKU-1", "Mechanical Keyboard", 7));
+
+        assertEquals(1, countRows(), "Conflicting upsert should not add a row");
+        assertEquals(7, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(1, queryInt("SELECT version FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals("Mechanical Keyboard", queryString("SELECT name FROM t_sku WHERE sku_code = 'SKU-1'"));
+    }
+
+    @Test
+    void testUpsertBatch_MixedNewAndExisting() {
+        skuMapper.upsert(new Sku("SKU-1", "Keyboard", 10));
+
+        skuMapper.upsertBatch(List.of(
+                new Sku("SKU-1", "Keyboard", 3),
+                new Sku("SKU-2", "Mouse", 20),
+                new Sku("SKU-3", "Monitor", 5)));
+
+        assertEquals(3, countRows());
+        assertEquals(3, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(1, queryInt("SELECT version FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(0, queryInt("SELECT version FROM t_sku WHERE sku_code = 'SKU-2'"));
+    }
+
+    @Test
+    void testUpsertBatch_EmptyList_ThrowsException() {
+        assertThrows(Exception.class, () -> skuMapper.upsertBatch(List.of()));
+    }
+
+    @Test
+    void testInsertIgnore_SkipsConflictingRow() {
+        skuMapper.insert(new Sku("SKU-1", "Keyboard", 10));
+
+        skuMapper.insertIgnore(new Sku("SKU-1", "Other", 99));
+        skuMapper.insertIgnoreBatch(List.of(new Sku("SKU-1", "Other", 99), new Sku("SKU-2", "Mouse", 20)));
+
+        assertEquals(2, countRows());
+        assertEquals(10, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(0, queryInt("SELECT version FROM t_sku WHERE sku_code = 'SKU-1'"));
+    }
+
+    @Test
+    void testUpsert_KeyedOnIdWhenNoUniqueFields() {
+        Order order = new Order("ORD-1", new BigDecimal("10.00"));
+        orderMapper.upsert(order);
+        String orderId = order.getOrderId();
+        assertNotNull(orderId, "UUID id should be generated before upsert");
+
+        Order changed = new Order("ORD-1", new BigDecimal("25.50"));
+        changed.setOrderId(orderId);
+        orderMapper.upsert(changed);
+
+        assertEquals(new BigDecimal("25.50"), orderMapper.getById(orderId).getAmount());
+        assertEquals(1, queryInt("SELECT COUNT(*) FROM t_order"));
+    }
+
+    @Test
+    void testUpsert_AutoIdWithoutUniqueFields_ThrowsException() {
+        UserMapper userMapper = session.getMapper(UserMapper.class);
+        User user = new User("upsert", "upsert@test.com", 1);
+
+        assertCausedByMapperException(assertThrows(PersistenceException.class, () -> userMapper.upsert(user)));
+        assertCausedByMapperException(assertThrows(PersistenceException.class,
+                () -> userMapper.insertIgnoreBatch(List.of(user))));
+    }
+
+    @Test
+    void testUpsert_ConflictKeepsIdOfExistingRow() {
+        Currency usd = new Currency("USD", "Dollar", true);
+        currencyMapper.upsert(usd);
+        Long usdId = usd.getId();
+        assertNotNull(usdId);
+
+        Currency updated = new Currency("USD", "US Dollar", true);
+        currencyMapper.upsert(updated);
+        assertEquals(usdId, updated.getId(), "The update branch keeps the row's id");
+
+        Currency ignored = new Currency("USD", "Other", false);
+        currencyMapper.insertIgnore(ignored);
+        assertEquals(usdId, ignored.getId(), "A skipped row reports the existing id");
+
+        Currency batchUsd = new Currency("USD", "Dollar", true);
+        Currency eur = new Currency("EUR", "Euro", true);
+        currencyMapper.upsertBatch(List.of(batchUsd, eur));
+        assertEquals(usdId, batchUsd.getId());
+        assertNotNull(eur.getId());
+        assertEquals(eur.getId().longValue(), queryLong("SELECT id FROM t_currency WHERE code = 'EUR'"));
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM t_currency"));
+    }
+
+    @Test
+    void testUpsertBatch_IdsAreReadBackAcrossChunks() {
+        List<Currency> existing = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            existing.add(new Currency(String.format("%03d", i), "Existing", true));
+        }
+        currencyMapper.upsertBatch(existing);
+
+        List<Currency> batch = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            batch.add(new Currency(String.format("%03d", i), "Batch", true));
+        }
+        currencyMapper.upsertBatch(batch);
+
+        for (int i = 0; i < 300; i++) {
+            assertEquals(existing.get(i).getId(), batch.get(i).getId());
+        }
+        for (Currency currency : batch) {
+            assertEquals(currency.getId().longValue(),
+                    queryLong("SELECT id FROM t_currency WHERE code = '" + currency.getCode() + "'"));
+        }
+        assertEquals(700, queryInt("SELECT COUNT(*) FROM t_currency"));
+    }
+
+    @Test
+    void testUpsert_IdsAreNotReadBackWithoutReturning() {
+        SettingMapper settingMapper = session.getMapper(SettingMapper.class);
+        Setting first = new Setting("timeout", "30");
+        settingMapper.upsert(first);
+
+        Setting second = new Setting("timeout", "60");
+        settingMapper.upsert(second);
+        assertNotNull(second.getId());
+        assertNotEquals(first.getId(), second.getId(), "The generated id is kept");
+        assertEquals(first.getId().longValue(), queryLong("SELECT id FROM t_setting WHERE code = 'timeout'"));
+    }
+
+    @Test
+    void testUpsertBatch_AutoIdsAreNotReadBack() {
+        skuMapper.upsert(new Sku("SKU-1", "Keyboard", 10));
+
+        Sku existing = new Sku("SKU-1", "Keyboard", 3);
+        Sku created = new Sku("SKU-2", "Mouse", 20);
+        skuMapper.upsertBatch(List.of(existing, created));
+        skuMapper.insertIgnoreBatch(List.of(new Sku("SKU-3", "Monitor", 5)));
+
+        assertNull(existing.getId());
+        assertNull(created.getId());
+        assertEquals(3, countRows());
+    }
+
+    @Test
+    void testUpsert_KeepsSoftDeletedRowDeleted() {
+        SettingMapper settingMapper = session.getMapper(SettingMapper.class);
+        Setting setting = new Setting("timeout", "30");
+        settingMapper.insert(setting);
+        assertEquals(1, settingMapper.deleteById(setting.getId()));
+
+        settingMapper.upsert(new Setting("timeout", "60"));
+
+        assertEquals("60", queryString("SELECT content FROM t_setting WHERE code = 'timeout'"));
+        assertEquals(1, queryInt("SELECT deleted FROM t_setting WHERE code = 'timeout'"));
+        assertNull(settingMapper.getById(setting.getId()));
+    }
+
+    @Test
+    void testUpsert_MergeDialect() {
+        DialectHolder.setDialect(Dialect.H2);
+
+        skuMapper.upsert(new Sku("SKU-1", "Keyboard", 10));
+        skuMapper.upsertBatch(List.of(new Sku("SKU-1", "Keyboard", 4), new Sku("SKU-2", "Mouse", 20)));
+        skuMapper.insertIgnore(new Sku("SKU-2", "Other", 99));
+
+        assertEquals(2, countRows());
+        assertEquals(4, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(1, queryInt("SELECT version FROM t_sku WHERE sku_code = 'SKU-1'"));
+        assertEquals(20, queryInt("SELECT stock FROM t_sku WHERE sku_code = 'SKU-2'"));
+    }
+
+    @Test
+    void testDialectUpsertSql() {
+        List<String> columns = List.of("sku_code", "stock", "version");
+        List<List<String>> rows = List.of(List.of("#{skuCode}", "#{stock}", "#{version}"));
+
+        assertEquals("INSERT INTO t_sku (sku_code, stock, version) VALUES (#{skuCode}, #{stock}, #{version})"
+                        + " ON DUPLICATE KEY UPDATE stock = VALUES(stock), version = version + 1",
+                Dialect.MYSQL.buildUpsertSql("t_sku", columns, rows, List.of("sku_code"), List.of("stock"), "version"));
+
+        assertEquals("INSERT INTO t_sku (sku_code, stock, version) VALUES (#{skuCode}, #{stock}, #{version})"
+                        + " ON CONFLICT (sku_code) DO UPDATE SET stock = EXCLUDED.stock, version = t_sku.version + 1",
+                Dialect.POSTGRESQL.buildUpsertSql("t_sku", columns, rows, List.of("sku_code"), List.of("stock"), "version"));
+
+        assertEquals("INSERT INTO t_sku (sku_code, stock, version) VALUES (#{skuCode}, #{stock}, #{version})"
+                        + " ON CONFLICT (sku_code) DO NOTHING",
+                Dialect.POSTGRESQL.buildInsertIgnoreSql("t_sku", columns, rows, List.of("sku_code")));
+
+        assertEquals("MERGE INTO t_sku t USING (SELECT #{skuCode} AS sku_code, #{stock} AS stock, #{version} AS version"
+                        + " FROM DUAL) s ON (t.sku_code = s.sku_code)"
+                        + " WHEN MATCHED THEN UPDATE SET t.stock = s.stock, t.version = t.version + 1"
+                        + " WHEN NOT MATCHED THEN INSERT (sku_code, stock, version) VALUES (s.sku_code, s.stock, s.version)",
+                Dialect.ORACLE.buildUpsertSql("t_sku", columns, rows, List.of("sku_code"), List.of("stock"), "version"));
+    }
+
+    // Helper methods
+
+    private int countRows() {
+        return queryInt("SELECT COUNT(*) FROM t_sku");
+    }
+
+    private static void assertCausedByMapperException(Exception e) {
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof MapperException)) {
+            cause = cause.getCause();
+        }
+        assertNotNull(cause, "was: " + e);
+    }
+
+    private int queryInt(String sql) {
+        try (Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+
+    private long queryLong(String sql) {
+        try (Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+
+    private String queryString(String sql) {
+        try (Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.UuidV7Generator;
+import com.ngcin.ems.test.entity.Shipment;
+import com.ngcin.ems.test.mapper.ShipmentMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for UUID_V7 ID generation, with an insert benchmark against random UUIDs.
+ */
+class UuidV7IdGenerationTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="logImpl" value="NO_LOGGING"/>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_uuid_v7;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.ShipmentMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_shipment (" +
+                    "id VARCHAR(36) PRIMARY KEY, " +
+                    "tracking_no VARCHAR(50) NOT NULL)");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTable() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_shipment");
+            session.commit(true);
+        }
+    }
+
+    @Test
+    void testInsertGeneratesTimeOrderedIds() throws SQLException {
+        List<Shipment> shipments = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            ShipmentMapper mapper = session.getMapper(ShipmentMapper.class);
+            for (int i = 0; i < 3; i++) {
+                Shipment shipment = new Shipment("TRK00" + i);
+                assertEquals(1, mapper.insert(shipment));
+                shipments.add(shipment);
+            }
+            mapper.insertBatch(List.of(new Shipment("TRK003"), new Shipment("TRK004")));
+            session.commit();
+
+            List<String> stored = new ArrayList<>();
+            try (Statement stmt = session.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT id FROM t_shipment ORDER BY id")) {
+                while (rs.next()) {
+                    stored.add(rs.getString(1));
+                }
+            }
+            assertEquals(5, stored.size());
+            // Index order is insertion order
+            for (int i = 0; i < shipments.size(); i++) {
+                assertEquals(shipments.get(i).getId(), stored.get(i));
+            }
+        }
+
+        for (Shipment shipment : shipments) {
+            UUID uuid = UUID.fromString(shipment.getId());
+            assertEquals(7, uuid.version());
+            assertTrue(Math.abs(UuidV7Generator.timestamp(uuid) - System.currentTimeMillis()) < 60_000);
+        }
+    }
+
+    /**
+     * Benchmark, run with {@code -Dems.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "ems.benchmark", matches = "true")
+    void testInsertThroughputAgainstRandomUuids() throws SQLException {
+        int rows = 20_000;
+        // Warm up both paths before measuring
+        insert(2_000, true);
+        insert(2_000, false);
+
+        double random = insert(rows, true);
+        double timeOrdered = insert(rows, false);
+        System.out.printf("Inserted %d rows: random UUIDs %.0f rows/s, UUIDv7 %.0f rows/s%n",
+                rows, random, timeOrdered);
+        assertEquals(rows, count());
+    }
+
+    /**
+     * Inserts fresh rows in batches of 500 into an emptied table and returns the rows per second.
+     */
+    private double insert(int rows, boolean randomIds) throws SQLException {
+        cleanTable();
+        long began = System.nanoTime();
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            ShipmentMapper mapper = session.getMapper(ShipmentMapper.class);
+            for (int from = 0; from < rows; from += 500) {
+                List<Shipment> batch = new ArrayList<>(500);
+                for (int i = from; i < Math.min(rows, from + 500); i++) {
+                    Shipment shipment = new Shipment("TRK" + i);
+                    if (randomIds) {
+                        shipment.setId(UUID.randomUUID().toString());
+                    }
+                    batch.add(shipment);
+                }
+                mapper.insertBatch(batch);
+                session.commit();
+            }
+        }
+        return rows / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private long count() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t_shipment")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ngcin.ems.test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ngcin.ems.mapper.async.AsyncBaseMapper;
+import com.ngcin.ems.mapper.async.VirtualThreads;
+import com.ngcin.ems.mapper.json.JsonNodeValue;
+import com.ngcin.ems.test.entity.Article;
+import com.ngcin.ems.test.mapper.ArticleMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.function.Executable;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs many concurrent mapper calls on virtual threads (Java 21+), checking with JFR that no
+ * carrier thread is pinned.
+ */
+class VirtualThreadCallsTest {
+
+    private static final int CALLS = 10_000;
+    private static final int ROWS = 100;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        // UNPOOLED: PooledDataSource waits for connections inside synchronized, which pins virtual threads
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.PaginationInterceptor"/>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="UNPOOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:virtualdb;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.ArticleMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(new ByteArrayInputStream(mybatisConfig.getBytes()));
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            try (Statement stmt = session.getConnection().createStatement()) {
+                stmt.execute("CREATE TABLE t_article (" +
+                        "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                        "title VARCHAR(100) NOT NULL, " +
+                        "content VARCHAR(500), " +
+                        "deleted INT DEFAULT 0)");
+            }
+            ArticleMapper mapper = session.getMapper(ArticleMapper.class);
+            for (int i = 0; i < ROWS; i++) {
+                mapper.insert(new Article("Title" + i, "content"));
+            }
+            session.commit();
+        }
+    }
+
+    /**
+     * Runs the work while recording {@code jdk.VirtualThreadPinned} events, with the JDK's default
+     * threshold, and fails if there was any.
+     */
+    private static void assertNotPinned(Executable work) throws Throwable {
+        Path dump = Files.createTempFile("virtual-calls", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(20)).withStackTrace();
+            recording.start();
+            work.execute();
+            recording.stop();
+            recording.dump(dump);
+            List<RecordedEvent> pinned = RecordingFile.readAllEvents(dump);
+            assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinned virtual threads, first: " + pinned.get(0));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testManyConcurrentCalls() throws Throwable {
+        List<Long> ids;
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            ids = session.getMapper(ArticleMapper.class).selectAll().stream().map(Article::getId).toList();
+        }
+        ExecutorService executor = VirtualThreads.newExecutor("virtual-calls-");
+        try (AsyncBaseMapper<Article> articles = new AsyncBaseMapper<>(sqlSessionFactory, ArticleMapper.class)
+                .executor(executor)) {
+            List<CompletableFuture<Article>> calls = new ArrayList<>(CALLS);
+            assertNotPinned(() -> {
+                for (int i = 0; i < CALLS; i++) {
+                    calls.add(articles.getById(ids.get(i % ROWS)));
+                }
+                CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).orTimeout(60, TimeUnit.SECONDS).join();
+            });
+
+            for (int i = 0; i < CALLS; i++) {
+                assertEquals(ids.get(i % ROWS), calls.get(i).join().getId());
+            }
+            assertEquals(0, articles.activeCalls());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testLazyJsonParsedOnceVisibleToAllThreads() throws Throwable {
+        JsonNodeValue value = JsonNodeValue.from("{\"name\":\"ems\",\"tags\":[1,2,3]}");
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = VirtualThreads.newExecutor("virtual-json-");
+        try {
+            List<Future<JsonNode>> reads = new ArrayList<>(CALLS);
+            assertNotPinned(() -> {
+                for (int i = 0; i < CALLS; i++) {
+                    reads.add(executor.submit(() -> {
+                        start.await();
+                        return value.get();
+                    }));
+                }
+                start.countDown();
+                for (Future<JsonNode> read : reads) {
+                    read.get(60, TimeUnit.SECONDS);
+                }
+            });
+            for (Future<JsonNode> read : reads) {
+                JsonNode node = read.get();
+                assertEquals("ems", node.get("name").asText());
+                assertEquals(3, node.get("tags").size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testVirtualThreadsUnsupportedBeforeJava21() {
+        if (Runtime.version().feature() >= 21) {
+            assertTrue(VirtualThreads.isSupported());
+        } else {
+            assertFalse(VirtualThreads.isSupported());
+            assertThrows(UnsupportedOperationException.class, () -> VirtualThreads.newExecutor("x-"));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.core.LeaseTableWorkerIdAssigner;
+import com.ngcin.ems.mapper.core.SnowflakeIdGenerator;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for LeaseTableWorkerIdAssigner, with several assigners standing in for competing
+ * instances.
+ */
+class WorkerIdLeaseTest {
+
+    private static PooledDataSource dataSource;
+
+    private final List<LeaseTableWorkerIdAssigner> assigners = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:testdb_worker_lease;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource.setPoolMaximumActiveConnections(40);
+        new LeaseTableWorkerIdAssigner(dataSource).createTableIfNotExists();
+        // A second call finds the table
+        new LeaseTableWorkerIdAssigner(dataSource).createTableIfNotExists();
+    }
+
+    @BeforeEach
+    void cleanTable() throws SQLException {
+        execute("DELETE FROM ems_worker_lease");
+    }
+
+    @AfterEach
+    void closeAssigners() {
+        assigners.forEach(LeaseTableWorkerIdAssigner::close);
+    }
+
+    @Test
+    void testCompetingInstancesGetDistinctIds() throws Exception {
+        int instances = 20;
+        CyclicBarrier start = new CyclicBarrier(instances);
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            List<Future<Long>> ids = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                LeaseTableWorkerIdAssigner assigner = newAssigner("instance-" + i);
+                ids.add(executor.submit(() -> {
+                    start.await();
+                    return assigner.acquire(31);
+                }));
+            }
+            Set<Long> distinct = new HashSet<>();
+            for (Future<Long> id : ids) {
+                distinct.add(id.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(instances, distinct.size());
+            assertEquals(instances, countRows());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testAllIdsLeased() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, newAssigner("instance-" + i).acquire(3));
+        }
+        LeaseTableWorkerIdAssigner late = newAssigner("late");
+        assertThrows(IllegalStateException.class, () -> late.acquire(3));
+    }
+
+    @Test
+    void testExpiredLeaseIsTakenOver() throws SQLException {
+        long now = System.currentTimeMillis();
+        execute("INSERT INTO ems_worker_lease VALUES (0, 'crashed', " + (now - 1000) + ")");
+        execute("INSERT INTO ems_worker_lease VALUES (1, 'alive', " + (now + 60_000) + ")");
+
+        assertEquals(0, newAssigner("new").acquire(31));
+        assertEquals(2, newAssigner("newer").acquire(31));
+    }
+
+    @Test
+    void testLeaseIsRenewed() throws InterruptedException {
+        LeaseTableWorkerIdAssigner assigner = newAssigner("renewing")
+                .lease(Duration.ofMillis(300), Duration.ofMillis(50));
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder().workerIdAssigner(assigner).build();
+
+        Thread.sleep(600);
+        assertTrue(assigner.isValid());
+        assertEquals(assigner.workerId(), generator.decode(generator.nextId()).workerId());
+    }
+
+    @Test
+    void testGeneratorStopsWhenLeaseIsLost() throws Exception {
+        LeaseTableWorkerIdAssigner assigner = newAssigner("victim")
+                .lease(Duration.ofMillis(500), Duration.ofMillis(50));
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.builder().workerIdAssigner(assigner).build();
+        generator.nextId();
+
+        execute("UPDATE ems_worker_lease SET owner = 'thief' WHERE worker_id = " + assigner.workerId());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (assigner.isValid() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(assigner.isValid());
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void testCloseReleasesId() throws SQLException {
+        LeaseTableWorkerIdAssigner first = newAssigner("first");
+        assertEquals(0, first.acquire(31));
+        first.close();
+
+        assertEquals(0, countRows());
+        assertFalse(first.isValid());
+        assertEquals(0, newAssigner("second").acquire(31));
+    }
+
+    private LeaseTableWorkerIdAssigner newAssigner(String owner) {
+        LeaseTableWorkerIdAssigner assigner = new LeaseTableWorkerIdAssigner(dataSource).owner(owner);
+        assigners.add(assigner);
+        return assigner;
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM ems_worker_lease")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
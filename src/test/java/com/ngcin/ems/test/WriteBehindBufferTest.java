@@ -0,0 +1,323 @@
+package com.ngcin.ems.test;
+
+import com.ngcin.ems.mapper.batch.ImportPipeline;
+import com.ngcin.ems.mapper.batch.WriteBehindBuffer;
+import com.ngcin.ems.mapper.batch.WriteBehindStats;
+import com.ngcin.ems.test.entity.Payment;
+import com.ngcin.ems.test.entity.User;
+import com.ngcin.ems.test.mapper.PaymentMapper;
+import com.ngcin.ems.test.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for WriteBehindBuffer (asynchronous buffered inserts with backpressure).
+ */
+class WriteBehindBufferTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Holds inserts into t_payment while {@link #gate} is closed, to fill the buffer deterministically.
+     */
+    public static class BlockingTrigger implements Trigger {
+        static volatile CountDownLatch gate = new CountDownLatch(0);
+        static volatile CountDownLatch entered = new CountDownLatch(1);
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            entered.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @BeforeAll
+    static void setUp() {
+        String mybatisConfig = """
+                <?xml version="1.0" encoding="UTF-8" ?>
+                <!DOCTYPE configuration
+                        PUBLIC "-//mybatis.org//DTD Config 3.0//EN"
+                        "https://mybatis.org/dtd/mybatis-3-config.dtd">
+                <configuration>
+                    <settings>
+                        <setting name="mapUnderscoreToCamelCase" value="true"/>
+                    </settings>
+                    <typeHandlers>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.TreeNodeTypeHandler"/>
+                        <typeHandler handler="com.ngcin.ems.mapper.json.JsonNodeValueTypeHandler"/>
+                    </typeHandlers>
+                    <plugins>
+                        <plugin interceptor="com.ngcin.ems.mapper.core.KeyPropertyInterceptor"/>
+                    </plugins>
+                    <environments default="development">
+                        <environment id="development">
+                            <transactionManager type="JDBC"/>
+                            <dataSource type="POOLED">
+                                <property name="driver" value="org.h2.Driver"/>
+                                <property name="url" value="jdbc:h2:mem:testdb_write_behind;MODE=MySQL;DB_CLOSE_DELAY=-1"/>
+                                <property name="username" value="sa"/>
+                                <property name="password" value=""/>
+                            </dataSource>
+                        </environment>
+                    </environments>
+                    <mappers>
+                        <mapper class="com.ngcin.ems.test.mapper.UserMapper"/>
+                        <mapper class="com.ngcin.ems.test.mapper.PaymentMapper"/>
+                    </mappers>
+                </configuration>
+                """;
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(mybatisConfig.getBytes());
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(inputStream);
+
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE t_user (" +
+                    "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "username VARCHAR(50), " +
+                    "email VARCHAR(100), " +
+                    "age INT, " +
+                    "create_time TIMESTAMP)");
+            stmt.execute("CREATE TABLE t_payment (" +
+                    "payment_id BIGINT PRIMARY KEY, " +
+                    "payment_no VARCHAR(50) NOT NULL, " +
+                    "amount DECIMAL(10,2))");
+            stmt.execute("CREATE TRIGGER t_payment_gate BEFORE INSERT ON t_payment FOR EACH ROW CALL \""
+                    + BlockingTrigger.class.getName() + "\"");
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize database schema", e);
+        }
+    }
+
+    @BeforeEach
+    void cleanTables() throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement stmt = session.getConnection().createStatement()) {
+            stmt.execute("DELETE FROM t_user");
+            stmt.execute("DELETE FROM t_payment");
+        }
+    }
+
+    @AfterEach
+    void openGate() {
+        BlockingTrigger.gate.countDown();
+    }
+
+    @Test
+    void testConcurrentSubmitsAreFlushed() throws Exception {
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        WriteBehindBuffer<Payment> buffer = new WriteBehindBuffer<>(sqlSessionFactory, PaymentMapper.class)
+                .capacity(256)
+                .flushSize(100);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Payment payment = new Payment("P" + thread + "_" + i, BigDecimal.ONE);
+                        assertTrue(buffer.submit(payment));
+                        assertNotNull(payment.getPaymentId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            buffer.close();
+        }
+
+        WriteBehindStats stats = buffer.stats();
+        assertEquals(threads * perThread, stats.submitted());
+        assertEquals(threads * perThread, stats.written());
+        assertEquals(0, stats.queueDepth());
+        assertEquals(256, stats.capacity());
+        assertTrue(stats.flushes() <= threads * perThread / 2);
+        assertTrue(stats.maxFlushNanos() >= stats.lastFlushNanos());
+        assertEquals(threads * perThread, queryLong("SELECT COUNT(DISTINCT payment_id) FROM t_payment"));
+    }
+
+    @Test
+    void testSubmitsRacingCloseAreWrittenOrRejected() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        WriteBehindBuffer<Payment> buffer = new WriteBehindBuffer<>(sqlSessionFactory, PaymentMapper.class)
+                .capacity(256)
+                .flushSize(100);
+        CountDownLatch started = new CountDownLatch(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    try {
+                        for (int i = 0; ; i++) {
+                            buffer.submit(new Payment("R" + thread + "_" + i, BigDecimal.ONE));
+                        }
+                    } catch (IllegalStateException closed) {
+                        // Rejected after close
+                    }
+                }));
+            }
+            started.await();
+            Thread.sleep(50);
+            buffer.close();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        WriteBehindStats stats = buffer.stats();
+        assertTrue(stats.submitted() > 0);
+        assertEquals(stats.submitted(), stats.written(), "Every accepted entity is written");
+        assertEquals(0, stats.queueDepth());
+        assertEquals(stats.submitted(), queryLong("SELECT COUNT(*) FROM t_payment"));
+    }
+
+    @Test
+    void testFlushByInterval() throws InterruptedException {
+        try (WriteBehindBuffer<User> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UserMapper.class)
+                .flushInterval(Duration.ofMillis(20))) {
+            buffer.submit(new User("a", "a@test.com", 1));
+            buffer.submit(new User("b", "b@test.com", 2));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (queryLong("SELECT COUNT(*) FROM t_user") < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, queryLong("SELECT COUNT(*) FROM t_user"));
+        }
+    }
+
+    @Test
+    void testDropWhenFull() throws InterruptedException {
+        WriteBehindBuffer<Payment> buffer = fillWhileFlushBlocked(new WriteBehindBuffer<>(sqlSessionFactory, PaymentMapper.class)
+                .backpressure(WriteBehindBuffer.Backpressure.DROP));
+
+        assertFalse(buffer.submit(new Payment("dropped", BigDecimal.ONE)));
+        BlockingTrigger.gate.countDown();
+        buffer.close();
+
+        assertEquals(1, buffer.stats().dropped());
+        assertEquals(3, queryLong("SELECT COUNT(*) FROM t_payment"));
+    }
+
+    @Test
+    void testSpillWhenFullAndReplay() throws Exception {
+        Path spillFile = tempDir.resolve("payments.csv");
+        WriteBehindBuffer<Payment> buffer = fillWhileFlushBlocked(new WriteBehindBuffer<>(sqlSessionFactory, PaymentMapper.class)
+                .backpressure(WriteBehindBuffer.Backpressure.SPILL)
+                .spillTo(spillFile));
+
+        Payment spilled = new Payment("spilled", new BigDecimal("9.50"));
+        assertTrue(buffer.submit(spilled));
+        BlockingTrigger.gate.countDown();
+        buffer.close();
+
+        assertEquals(1, buffer.stats().spilled());
+        assertEquals(3, queryLong("SELECT COUNT(*) FROM t_payment"));
+        List<String> lines = Files.readAllLines(spillFile);
+        assertEquals("payment_id,payment_no,amount", lines.get(0));
+        assertEquals(2, lines.size());
+
+        new ImportPipeline<>(sqlSessionFactory, PaymentMapper.class).importCsv(spillFile);
+        assertEquals(950, queryLong("SELECT amount * 100 FROM t_payment WHERE payment_id = " + spilled.getPaymentId()));
+    }
+
+    @Test
+    void testFailedFlushIsReported() throws InterruptedException {
+        List<Integer> failedBatches = new ArrayList<>();
+        WriteBehindBuffer<Payment> buffer = new WriteBehindBuffer<>(sqlSessionFactory, PaymentMapper.class)
+                .onFlushError((batch, e) -> failedBatches.add(batch.size()));
+        buffer.submit(new Payment(null, BigDecimal.ONE));
+        buffer.close();
+
+        assertEquals(List.of(1), failedBatches);
+        assertEquals(1, buffer.stats().failed());
+        assertEquals(0, buffer.stats().written());
+    }
+
+    @Test
+    void testClosedAndInvalidSettings() {
+        WriteBehindBuffer<User> buffer = new WriteBehindBuffer<>(sqlSessionFactory, UserMapper.class);
+        assertThrows(IllegalArgumentException.class, () -> buffer.capacity(0));
+        assertThrows(IllegalArgumentException.class, () -> buffer.flushSize(0));
+        assertThrows(IllegalArgumentException.class, () -> buffer.flushInterval(Duration.ZERO));
+
+        WriteBehindBuffer<User> spillWithoutFile = new WriteBehindBuffer<>(sqlSessionFactory, UserMapper.class)
+                .backpressure(WriteBehindBuffer.Backpressure.SPILL);
+        assertThrows(IllegalStateException.class, () -> spillWithoutFile.submit(new User("x", "x@test.com", 1)));
+
+        buffer.submit(new User("y", "y@test.com", 1));
+        assertThrows(IllegalStateException.class, () -> buffer.flushSize(10));
+        buffer.close();
+        assertThrows(IllegalStateException.class, () -> buffer.submit(new User("z", "z@test.com", 1)));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM t_user"));
+    }
+
+    /**
+     * Starts a capacity-2 buffer whose first flush is held by the trigger, then fills the buffer.
+     */
+    private WriteBehindBuffer<Payment> fillWhileFlushBlocked(WriteBehindBuffer<Payment> buffer) throws InterruptedException {
+        BlockingTrigger.gate = new CountDownLatch(1);
+        BlockingTrigger.entered = new CountDownLatch(1);
+        buffer.capacity(2).flushSize(1);
+
+        assertTrue(buffer.submit(new Payment("first", BigDecimal.ONE)));
+        assertTrue(BlockingTrigger.entered.await(5, TimeUnit.SECONDS));
+        assertTrue(buffer.submit(new Payment("second", BigDecimal.ONE)));
+        assertTrue(buffer.submit(new Payment("third", BigDecimal.ONE)));
+        return buffer;
+    }
+
+    private long queryLong(String sql) {
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Statement stmt = session.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to query: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.annotations.Version;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity with SNOWFLAKE ID and version control, referenced by {@link AccountEntry}.
+ */
+@Table("t_account")
+public class Account {
+
+    @Id(type = IdType.SNOWFLAKE)
+    private Long id;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "balance")
+    private Integer balance;
+
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    public Account() {
+    }
+
+    public Account(String name, Integer balance) {
+        this.name = name;
+        this.balance = balance;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getBalance() {
+        return balance;
+    }
+
+    public void setBalance(Integer balance) {
+        this.balance = balance;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "Account{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", balance=" + balance +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity with a foreign key to {@link Account}.
+ */
+@Table("t_account_entry")
+public class AccountEntry {
+
+    @Id(type = IdType.SNOWFLAKE)
+    private Long id;
+
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "amount")
+    private Integer amount;
+
+    public AccountEntry() {
+    }
+
+    public AccountEntry(Long accountId, Integer amount) {
+        this.accountId = accountId;
+        this.amount = amount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.CachedQueries;
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.annotations.Unique;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test lookup-table entity whose query results are cached and whose written ids are read back.
+ */
+@CachedQueries(ttlMillis = 60_000, maxRows = 50)
+@Table(value = "t_currency", returning = true)
+public class Currency {
+
+    @Id(type = IdType.SNOWFLAKE)
+    private Long id;
+
+    @Unique
+    @Column(name = "code")
+    private String code;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "active")
+    private Boolean active;
+
+    public Currency() {
+    }
+
+    public Currency(String code, String name, Boolean active) {
+        this.code = code;
+        this.name = name;
+        this.active = active;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+
+    @Override
+    public String toString() {
+        return "Currency{" +
+                "id=" + id +
+                ", code='" + code + '\'' +
+                ", name='" + name + '\'' +
+                ", active=" + active +
+                '}';
+    }
+}
@@ -0,0 +1,68 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.core.IdType;
+import com.ngcin.ems.mapper.type.BinaryUuidTypeHandler;
+import com.ngcin.ems.mapper.type.TimeSwappedUuidTypeHandler;
+
+import java.util.UUID;
+
+/**
+ * Test entity with UUIDs stored in 16 bytes.
+ */
+@Table("t_device")
+public class Device {
+
+    @Id(type = IdType.UUID_V7)
+    @Column(typeHandler = BinaryUuidTypeHandler.class)
+    private UUID id;
+
+    @Column(name = "serial_uuid", typeHandler = TimeSwappedUuidTypeHandler.class)
+    private String serialUuid;
+
+    @Column(name = "name")
+    private String name;
+
+    public Device() {
+    }
+
+    public Device(String serialUuid, String name) {
+        this.serialUuid = serialUuid;
+        this.name = name;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getSerialUuid() {
+        return serialUuid;
+    }
+
+    public void setSerialUuid(String serialUuid) {
+        this.serialUuid = serialUuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return "Device{" +
+                "id=" + id +
+                ", serialUuid='" + serialUuid + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.annotations.Version;
+import com.ngcin.ems.mapper.core.IdType;
+import com.ngcin.ems.mapper.json.JsonNodeValue;
+
+/**
+ * Test entity with dirty tracking, a large text column, a JSON column and version control.
+ */
+@Table(value = "t_document", dirtyTracking = true)
+public class Document {
+
+    @Id(type = IdType.SNOWFLAKE)
+    private Long id;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "body")
+    private String body;
+
+    @Column(name = "tags")
+    private JsonNodeValue tags;
+
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    public Document() {
+    }
+
+    public Document(String title, String body) {
+        this.title = title;
+        this.body = body;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public JsonNodeValue getTags() {
+        return tags;
+    }
+
+    public void setTags(JsonNodeValue tags) {
+        this.tags = tags;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "Document{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,80 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Cached;
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Deleted;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.annotations.Unique;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity kept in the second-level entity cache, with a @Unique code and soft delete.
+ */
+@Cached(maximumSize = 100)
+@Table("t_setting")
+public class Setting {
+
+    @Id(type = IdType.SNOWFLAKE)
+    private Long id;
+
+    @Unique
+    @Column(name = "code")
+    private String code;
+
+    @Column(name = "content")
+    private String content;
+
+    @Deleted
+    @Column(name = "deleted")
+    private Integer deleted;
+
+    public Setting() {
+    }
+
+    public Setting(String code, String content) {
+        this.code = code;
+        this.content = content;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public Integer getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(Integer deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "Setting{" +
+                "id=" + id +
+                ", code='" + code + '\'' +
+                ", content='" + content + '\'' +
+                '}';
+    }
+}
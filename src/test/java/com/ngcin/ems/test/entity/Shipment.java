@@ -0,0 +1,50 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity with UUID_V7 ID (String type).
+ */
+@Table("t_shipment")
+public class Shipment {
+
+    @Id(type = IdType.UUID_V7)
+    private String id;
+
+    @Column(name = "tracking_no")
+    private String trackingNo;
+
+    public Shipment() {
+    }
+
+    public Shipment(String trackingNo) {
+        this.trackingNo = trackingNo;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTrackingNo() {
+        return trackingNo;
+    }
+
+    public void setTrackingNo(String trackingNo) {
+        this.trackingNo = trackingNo;
+    }
+
+    @Override
+    public String toString() {
+        return "Shipment{" +
+                "id='" + id + '\'' +
+                ", trackingNo='" + trackingNo + '\'' +
+                '}';
+    }
+}
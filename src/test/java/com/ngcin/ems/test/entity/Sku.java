@@ -0,0 +1,88 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.*;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity with a @Unique business key and version control.
+ */
+@Table("t_sku")
+public class Sku {
+
+    @Id(type = IdType.AUTO)
+    private Long id;
+
+    @Unique
+    @Column(name = "sku_code")
+    private String skuCode;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "stock")
+    private Integer stock;
+
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    public Sku() {
+    }
+
+    public Sku(String skuCode, String name, Integer stock) {
+        this.skuCode = skuCode;
+        this.name = name;
+        this.stock = stock;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSkuCode() {
+        return skuCode;
+    }
+
+    public void setSkuCode(String skuCode) {
+        this.skuCode = skuCode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "Sku{" +
+                "id=" + id +
+                ", skuCode='" + skuCode + '\'' +
+                ", name='" + name + '\'' +
+                ", stock=" + stock +
+                ", version=" + version +
+                '}';
+    }
+}
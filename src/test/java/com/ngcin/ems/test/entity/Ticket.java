@@ -0,0 +1,76 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.*;
+import com.ngcin.ems.mapper.core.IdType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Test entity that reads DB-computed values back after writes (@Table returning).
+ */
+@Table(value = "t_ticket", returning = true)
+public class Ticket {
+
+    @Id(type = IdType.AUTO)
+    private Long ticketId;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "create_time")
+    private LocalDateTime createTime;
+
+    @Version
+    @Column(name = "version")
+    private Integer version;
+
+    public Ticket() {
+    }
+
+    public Ticket(String title) {
+        this.title = title;
+    }
+
+    public Long getTicketId() {
+        return ticketId;
+    }
+
+    public void setTicketId(Long ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,50 @@
+package com.ngcin.ems.test.entity;
+
+import com.ngcin.ems.mapper.annotations.Column;
+import com.ngcin.ems.mapper.annotations.Id;
+import com.ngcin.ems.mapper.annotations.Table;
+import com.ngcin.ems.mapper.core.IdType;
+
+/**
+ * Test entity with SEGMENT ids.
+ */
+@Table("t_voucher")
+public class Voucher {
+
+    @Id(type = IdType.SEGMENT)
+    private Long id;
+
+    @Column(name = "code")
+    private String code;
+
+    public Voucher() {
+    }
+
+    public Voucher(String code) {
+        this.code = code;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    @Override
+    public String toString() {
+        return "Voucher{" +
+                "id=" + id +
+                ", code='" + code + '\'' +
+                '}';
+    }
+}
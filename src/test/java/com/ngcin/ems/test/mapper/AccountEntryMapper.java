@@ -0,0 +1,7 @@
+package com.ngcin.ems.test.mapper;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.test.entity.AccountEntry;
+
+public interface AccountEntryMapper extends BaseMapper<AccountEntry> {
+}
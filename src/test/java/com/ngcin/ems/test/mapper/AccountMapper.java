@@ -0,0 +1,7 @@
+package com.ngcin.ems.test.mapper;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.test.entity.Account;
+
+public interface AccountMapper extends BaseMapper<Account> {
+}
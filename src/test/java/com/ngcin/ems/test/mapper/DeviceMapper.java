@@ -0,0 +1,7 @@
+package com.ngcin.ems.test.mapper;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.test.entity.Device;
+
+public interface DeviceMapper extends BaseMapper<Device> {
+}
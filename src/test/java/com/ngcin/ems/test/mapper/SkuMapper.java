@@ -0,0 +1,10 @@
+package com.ngcin.ems.test.mapper;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.test.entity.Sku;
+
+/**
+ * Mapper for Sku entity (with @Unique key and version control).
+ */
+public interface SkuMapper extends BaseMapper<Sku> {
+}
@@ -0,0 +1,10 @@
+package com.ngcin.ems.test.mapper;
+
+import com.ngcin.ems.mapper.BaseMapper;
+import com.ngcin.ems.test.entity.Ticket;
+
+/**
+ * Mapper for Ticket entity (with read-back after writes).
+ */
+public interface TicketMapper extends BaseMapper<Ticket> {
+}